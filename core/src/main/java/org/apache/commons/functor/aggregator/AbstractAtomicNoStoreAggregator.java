@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A lock-free variant of {@link AbstractNoStoreAggregator}. Just like its
+ * counterpart, this aggregator doesn't store the data series but processes the
+ * data on the fly using a {@link BinaryFunction}. However, rather than
+ * guarding the result with a read-write lock, the running result is stored
+ * as a primitive <code>long</code> in an <code>AtomicLong</code> (e.g. the raw
+ * bits of a <code>double</code>) and is updated via a compare-and-set loop.
+ * Neither {@link #add(Object)} nor {@link #evaluate()} acquire any lock.
+ * <p>
+ * Because the aggregation function might be invoked more than once for the
+ * same data (when the compare-and-set fails due to contention), it must be
+ * free of side effects. This makes this class a good fit for associative,
+ * single-value functions such as the max, min, sum and count functions in
+ * {@link org.apache.commons.functor.aggregator.functions}.
+ * </p>
+ * <p>
+ * Subclasses define how a value is converted to and from its <code>long</code>
+ * representation via {@link #toBits(Object)} and {@link #fromBits(long)} and
+ * which is the initial value via {@link #initialValue()}.
+ * </p>
+ *
+ * @param <T>
+ *            Type of object aggregated.
+ */
+public abstract class AbstractAtomicNoStoreAggregator<T> extends AbstractTimedAggregator<T> {
+    /**
+     * Function used to aggregate the data on the fly in {@link #add(Object)}.
+     *
+     * @see #add(Object)
+     */
+    private final BinaryFunction<T, T, T> aggregationFunction;
+
+    /**
+     * Stores the <code>long</code> representation of the result of the last
+     * {@link #add(Object)} operation.
+     *
+     * @see #toBits(Object)
+     * @see #fromBits(long)
+     */
+    private final AtomicLong              result;
+
+    /**
+     * Similar to {@link #AbstractAtomicNoStoreAggregator(BinaryFunction, long)
+     * AbstractAtomicNoStoreAggregator(aggregationFunction,0L)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     */
+    public AbstractAtomicNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction) {
+        this(aggregationFunction, 0L);
+    }
+
+    /**
+     * Similar to
+     * {@link #AbstractAtomicNoStoreAggregator(BinaryFunction, long, boolean)
+     * AbstractAtomicNoStoreAggregator(aggregationFunction,interval,false)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public AbstractAtomicNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction, long interval) {
+        this(aggregationFunction, interval, false);
+    }
+
+    /**
+     * Constructs a lock-free aggregator which will use the given function,
+     * reset itself at the given interval and will use a shared timer or its own
+     * private timer. The {@link #result} is initialized with the value returned
+     * by {@link #initialValue()}; as such, subclasses must not rely on their
+     * own fields having been set when {@link #initialValue()} is first
+     * called.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it will use a shared timer, as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long, boolean)}
+     *            ; otherwise if it's false it will use its own timer instance
+     */
+    public AbstractAtomicNoStoreAggregator(BinaryFunction<T, T, T> aggregationFunction, long interval,
+            boolean useSharedTimer) {
+        super(interval, useSharedTimer, false);
+        this.aggregationFunction = Validate.notNull(aggregationFunction, "BinaryFunction argument was null");
+        this.result = new AtomicLong(toBits(initialValue()));
+    }
+
+    /**
+     * Aggregates the data into {@link #result} using a compare-and-set loop:
+     * the current value is read, {@link #aggregationFunction} is applied and
+     * the new value is stored only if no other thread changed it in the
+     * meantime; otherwise the operation is retried.
+     *
+     * @param data
+     *            Data to aggregate
+     */
+    @Override
+    protected final void doAdd(T data) {
+        long current;
+        long next;
+        do {
+            current = result.get();
+            next = toBits(aggregationFunction.evaluate(fromBits(current), data));
+        } while (current != next && !result.compareAndSet(current, next));
+    }
+
+    /**
+     * Returns the value currently stored in {@link #result}.
+     *
+     * @return Current (aggregated) value
+     * @see Aggregator#evaluate()
+     */
+    @Override
+    protected final T doEvaluate() {
+        return fromBits(result.get());
+    }
+
+    /**
+     * Resets the {@link #result} member to the {@link #initialValue()}.
+     *
+     * @see #initialValue()
+     */
+    @Override
+    protected final void doReset() {
+        result.set(toBits(initialValue()));
+    }
+
+    /**
+     * Atomically swaps the {@link #result} with the {@link #initialValue()}.
+     *
+     * @return Aggregated value prior to the reset
+     */
+    @Override
+    protected final T doEvaluateAndReset() {
+        return fromBits(result.getAndSet(toBits(initialValue())));
+    }
+
+    /**
+     * Allows subclasses to define the "initial" value. This value will be
+     * stored in {@link #result} when an instance of this class is created or
+     * when {@link #reset()} is called.
+     *
+     * @return Initial value to be used in {@link #result}.
+     */
+    protected abstract T initialValue();
+
+    /**
+     * Converts a value to the <code>long</code> representation stored in
+     * {@link #result}.
+     *
+     * @param value
+     *            Value to convert
+     * @return <code>long</code> representation of the value
+     */
+    protected abstract long toBits(T value);
+
+    /**
+     * Converts the <code>long</code> representation stored in {@link #result}
+     * back to a value.
+     *
+     * @param bits
+     *            <code>long</code> representation of the value
+     * @return The value represented by <code>bits</code>
+     */
+    protected abstract T fromBits(long bits);
+
+    /**
+     * Getter for {@link #aggregationFunction}.
+     *
+     * @return Current value of the member.
+     */
+    final BinaryFunction<T, T, T> getAggregationFunction() {
+        return aggregationFunction;
+    }
+
+    /**
+     * This aggregator doesn't store any data, so the data series size is always
+     * 0 (zero).
+     *
+     * @return 0
+     */
+    @Override
+    protected int retrieveDataSize() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return AbstractAtomicNoStoreAggregator.class.getName();
+    }
+}
@@ -56,7 +56,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * {@link #doAdd(Object)}, {@link #reset()} and {@link #evaluate()} is called,
  * access is synchronized via a read-write lock. {@link #evaluate()} is
  * considered a read operation and {@link #doAdd(Object)} and {@link #reset()}
- * are considered write operations.
+ * are considered write operations. Subclasses which guarantee the thread
+ * safety of their own data (for instance by storing it in atomic variables) can
+ * opt out of this lock via
+ * {@link #AbstractTimedAggregator(long, boolean, boolean)}, in which case the
+ * calls above are delegated straight to the subclass.
  * </p>
  *
  * @param <T>
@@ -135,7 +139,8 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      * Lock used internally to synchronize access to {@link #add(Object)},
      * {@link #reset()} and {@link #evaluate()}. Locks for writing when
      * {@link #add(Object)} and {@link #reset()} is called and for reading when
-     * {@link #evaluate()} is called.
+     * {@link #evaluate()} is called. This is <code>null</code> if the subclass
+     * opted out of locking.
      *
      * @see #add(Object)
      * @see #evaluate()
@@ -143,6 +148,16 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      */
     private ReadWriteLock                    dataLock;
 
+    /**
+     * Lock of the {@link AggregatorGroup} this aggregator belongs to, if the
+     * group freezes its lock-free aggregators during a flush. Aggregators
+     * without a {@link #dataLock} hold it for reading while adding data, so
+     * that the group can freeze them, by locking it for writing, while it cuts
+     * all of its aggregators. <code>null</code> otherwise, keeping adds
+     * lock-free.
+     */
+    private volatile ReadWriteLock           groupLock;
+
     /**
      * Default constructor -- creates an instance of this aggregator with no
      * <code>Timer</code>. Equivalent to
@@ -183,6 +198,32 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      *            <code>Timer</code> will be created.
      */
     public AbstractTimedAggregator(long interval, boolean useSharedTimer) {
+        this(interval, useSharedTimer, true);
+    }
+
+    /**
+     * Creates an aggregator which has a timer at the specified interval, uses
+     * the {@link #MAIN_TIMER shared timer} or its own per-instance timer and
+     * decides whether access to the data is guarded by {@link #dataLock}. This
+     * constructor is meant for subclasses which are thread safe on their own
+     * (e.g. lock-free implementations), as with <code>useDataLock</code> set
+     * to <code>false</code>, {@link #doAdd(Object)}, {@link #doEvaluate()},
+     * {@link #doReset()} and {@link #retrieveDataSize()} can be called
+     * concurrently.
+     *
+     * @param interval
+     *            interval in miliseconds to set the timer for.
+     * @param useSharedTimer
+     *            if set to <code>true</code>, {@link #timer} will be set to
+     *            {@link #TIMER_NAME}, otherwise a new instance of
+     *            <code>Timer</code> will be created.
+     * @param useDataLock
+     *            if set to <code>true</code>, all access to the data is
+     *            synchronized via {@link #dataLock}, otherwise no locking is
+     *            performed and the subclass is responsible for its own thread
+     *            safety.
+     */
+    protected AbstractTimedAggregator(long interval, boolean useSharedTimer, boolean useDataLock) {
         if (interval <= NO_TIMER) {
             // not using timer
             this.interval = NO_TIMER;
@@ -207,7 +248,21 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
             };
             this.timer.scheduleAtFixedRate(this.task, this.interval, this.interval);
         }
-        this.dataLock = new ReentrantReadWriteLock();
+        if (useDataLock) {
+            this.dataLock = new ReentrantReadWriteLock();
+        } else {
+            this.dataLock = null;
+        }
+    }
+
+    /**
+     * Getter for {@link #MAIN_TIMER}, so other timed components in this package
+     * (e.g. {@link AggregatorGroup}) can share it.
+     *
+     * @return the shared timer
+     */
+    static Timer getMainTimer() {
+        return MAIN_TIMER;
     }
 
     /**
@@ -231,6 +286,20 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      * @see #dataLock
      */
     public final void add(T data) {
+        if (dataLock == null) {
+            ReadWriteLock lock = groupLock;
+            if (lock == null) {
+                doAdd(data);
+                return;
+            }
+            lock.readLock().lock();
+            try {
+                doAdd(data);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
         dataLock.writeLock().lock();
         try {
             doAdd(data);
@@ -268,6 +337,9 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      * @see #doEvaluate()
      */
     public final T evaluate() {
+        if (dataLock == null) {
+            return doEvaluate();
+        }
         dataLock.readLock().lock();
         try {
             return doEvaluate();
@@ -297,6 +369,10 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      * @see #doReset()
      */
     public final void reset() {
+        if (dataLock == null) {
+            doReset();
+            return;
+        }
         dataLock.writeLock().lock();
         try {
             doReset();
@@ -315,6 +391,43 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      */
     protected abstract void doReset();
 
+    /**
+     * Evaluates then resets this aggregator as a single atomic operation, so no
+     * data added in between gets lost. This function first locks
+     * {@link #dataLock} for writing then calls {@link #doEvaluateAndReset()}
+     * and at the end it unlocks {@link #dataLock}.
+     *
+     * @return result of aggregating the data prior to the reset
+     * @see #doEvaluateAndReset()
+     */
+    public final T evaluateAndReset() {
+        if (dataLock == null) {
+            return doEvaluateAndReset();
+        }
+        dataLock.writeLock().lock();
+        try {
+            return doEvaluateAndReset();
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Function provided to allow subclasses to perform the evaluation and
+     * reset of the aggregator in one go. This function is wrapped by
+     * {@link #evaluateAndReset()} and is called with the <b>write</b> lock
+     * held (if any). The default implementation simply calls
+     * {@link #doEvaluate()} then {@link #doReset()}; subclasses which opted out
+     * of locking should override this to swap their data atomically.
+     *
+     * @return Result of evaluating the aggregated data prior to the reset
+     */
+    protected T doEvaluateAndReset() {
+        T result = doEvaluate();
+        doReset();
+        return result;
+    }
+
     /**
      * Retrieves the size of the currently-stored data series. This function
      * first locks {@link #dataLock} for reading then calls
@@ -325,6 +438,9 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      *         next call to {@link #evaluate()}
      */
     public final int getDataSize() {
+        if (dataLock == null) {
+            return retrieveDataSize();
+        }
         dataLock.readLock().lock();
         try {
             return retrieveDataSize();
@@ -345,6 +461,41 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
      */
     protected abstract int retrieveDataSize();
 
+    /**
+     * Getter for {@link #dataLock}. Allows aggregators in this package to guard
+     * additional operations on their data (besides {@link #add(Object)},
+     * {@link #evaluate()} and {@link #reset()}) with the same lock.
+     *
+     * @return Current value of {@link #dataLock}, or <code>null</code> if the
+     *         subclass opted out of locking.
+     */
+    final ReadWriteLock getDataLock() {
+        return dataLock;
+    }
+
+    /**
+     * Getter for {@link #groupLock}. Allows lock-free aggregators in this
+     * package to honour the lock of their group in additional adding
+     * operations.
+     *
+     * @return Current value of {@link #groupLock}, or <code>null</code> if
+     *         this aggregator does not belong to a group freezing it.
+     */
+    final ReadWriteLock getGroupLock() {
+        return groupLock;
+    }
+
+    /**
+     * Setter for {@link #groupLock}, called by {@link AggregatorGroup} when
+     * this aggregator is added to or removed from a group.
+     *
+     * @param groupLock
+     *            lock of the group, or <code>null</code>
+     */
+    final void setGroupLock(ReadWriteLock groupLock) {
+        this.groupLock = groupLock;
+    }
+
     /**
      * Retrieves <b>an unmodifiable copy</b> of the {@link #timerListeners timer
      * listeners}. Used for testing.
@@ -403,13 +554,14 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
     }
 
     /**
-     * Computes the current aggregated value (by calling {@link #evaluate()},
-     * resets this aggregator then notifies all listeners. Go through all the
+     * Computes the current aggregated value and resets this aggregator (by
+     * calling {@link #evaluateAndReset()}) then notifies all listeners. Go
+     * through all the
      * {@link #timerListeners} and sends
      * {@link TimedAggregatorListener#onTimer(AbstractTimedAggregator,Object)
-     * notification messages} to each of them. Does nothing if
+     * notification messages} to each of them. Only resets the data if
      * {@link #timerListeners} is <code>null</code>. Please note that
-     * {@link #evaluate()} is called only once at the beginning of this
+     * {@link #evaluateAndReset()} is called only once at the beginning of this
      * function, and only if there are listeners configured, then this value is
      * passed to every notification. This is in order to ensure all listeners
      * receive the same value -- the value of the evaluation prior to resetting
@@ -418,9 +570,7 @@ public abstract class AbstractTimedAggregator<T> implements Aggregator<T> {
     private void timer() {
         if (timerListeners != null) {
             // if we have listeners, notify them
-            T aggregated = evaluate(); // NOTE: shouldn't evaluate() and reset()
-                                       // be done atomically here?
-            reset();
+            T aggregated = evaluateAndReset();
             for (TimedAggregatorListener<T> i : timerListeners) {
                 i.onTimer(this, aggregated);
             }
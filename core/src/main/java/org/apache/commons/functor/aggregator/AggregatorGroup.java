@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Owns a set of named {@link AbstractTimedAggregator}s and evaluates and
+ * resets all of them in one consistent tick. When having a timer per
+ * aggregator, related metrics (e.g. request count and error count) are cut at
+ * slightly different times and there are as many timer wake-ups as there are
+ * aggregators; a group instead uses a single <code>TimerTask</code> which
+ * flushes all the aggregators in one batched pass and notifies the
+ * {@link AggregatorGroupListener listeners} once, with a map of all the
+ * results.
+ * <p>
+ * To make the cut consistent, {@link #flush()} acquires the write locks of all
+ * the aggregators in the group (in the order they were added), then calls
+ * {@link AbstractTimedAggregator#evaluateAndReset()} on each of them and only
+ * then releases the locks. Lock-free aggregators (e.g. the atomic ones, or a
+ * {@link DoubleHistogramAggregator}) keep taking data during the cut: each of
+ * them is cut by its own atomic swap, so the cut is atomic per aggregator, but
+ * data added to a lock-free aggregator while the others are being cut may
+ * land in either period.
+ * </p>
+ * <p>
+ * Groups created with <code>freezeLockFree</code> set make the cut consistent
+ * for the lock-free aggregators as well: as long as they belong to such a
+ * group, they hold a lock of the group for reading while adding data, and
+ * {@link #flush()} locks it for writing first. This makes every add of the
+ * lock-free aggregators of the group contend on that lock, so it should only
+ * be used where the consistency matters more than their throughput.
+ * </p>
+ * <p>
+ * The aggregators in a group must not have a timer of their own (i.e. they
+ * should be created with {@link AbstractTimedAggregator#NO_TIMER}) and should
+ * not belong to more than one group.
+ * </p>
+ */
+public class AggregatorGroup {
+    /**
+     * Name of the aggregators in the group, mapped to the aggregators; kept in
+     * the order in which they were added. Access is synchronized on this
+     * instance.
+     */
+    private final Map<String, AbstractTimedAggregator<?>> aggregators;
+
+    /**
+     * Held for reading by the lock-free aggregators of the group while they
+     * add data, and for writing by {@link #flush()}; <code>null</code> unless
+     * the group freezes its lock-free aggregators.
+     */
+    private final ReadWriteLock                           cutLock;
+
+    /**
+     * Listeners which receive the results of each flush.
+     */
+    private final List<AggregatorGroupListener>           listeners;
+
+    /**
+     * Interval in milliseconds at which the group is flushed, or
+     * {@link AbstractTimedAggregator#NO_TIMER} if it is only flushed on demand.
+     */
+    private final long                                    interval;
+
+    /**
+     * The timer used to flush the group; either the shared timer of
+     * {@link AbstractTimedAggregator} or a timer private to this instance.
+     * <code>null</code> if there is no timer.
+     */
+    private Timer                                         timer;
+
+    /**
+     * The task which flushes the group. <code>null</code> if there is no
+     * timer or the group was {@link #stop() stopped}.
+     */
+    private TimerTask                                     task;
+
+    /**
+     * Creates a group which is only flushed on demand, via {@link #flush()}.
+     */
+    public AggregatorGroup() {
+        this(AbstractTimedAggregator.NO_TIMER);
+    }
+
+    /**
+     * Similar to {@link #AggregatorGroup(long, boolean)
+     * AggregatorGroup(interval, false)}.
+     *
+     * @param interval
+     *            interval in miliseconds to flush the group at
+     */
+    public AggregatorGroup(long interval) {
+        this(interval, false);
+    }
+
+    /**
+     * Creates a group which is flushed at the given interval, using either the
+     * timer shared with {@link AbstractTimedAggregator} instances or its own
+     * timer.
+     *
+     * @param interval
+     *            interval in miliseconds to flush the group at. If this is zero
+     *            or less, no timer is used and the group is only flushed on
+     *            demand.
+     * @param useSharedTimer
+     *            if set to <code>true</code>, the
+     *            {@link AbstractTimedAggregator#TIMER_NAME shared timer} is
+     *            used, otherwise a new instance of <code>Timer</code> will be
+     *            created.
+     */
+    public AggregatorGroup(long interval, boolean useSharedTimer) {
+        this(interval, useSharedTimer, false);
+    }
+
+    /**
+     * Creates a group which is flushed at the given interval, using either the
+     * timer shared with {@link AbstractTimedAggregator} instances or its own
+     * timer, and which optionally freezes its lock-free aggregators during a
+     * flush.
+     *
+     * @param interval
+     *            interval in miliseconds to flush the group at. If this is zero
+     *            or less, no timer is used and the group is only flushed on
+     *            demand.
+     * @param useSharedTimer
+     *            if set to <code>true</code>, the
+     *            {@link AbstractTimedAggregator#TIMER_NAME shared timer} is
+     *            used, otherwise a new instance of <code>Timer</code> will be
+     *            created.
+     * @param freezeLockFree
+     *            if set to <code>true</code>, the lock-free aggregators of the
+     *            group are frozen during a flush, at the cost of a shared lock
+     *            on each of their adds
+     */
+    public AggregatorGroup(long interval, boolean useSharedTimer, boolean freezeLockFree) {
+        this.cutLock = freezeLockFree ? new ReentrantReadWriteLock() : null;
+        this.aggregators = new LinkedHashMap<String, AbstractTimedAggregator<?>>();
+        this.listeners = new CopyOnWriteArrayList<AggregatorGroupListener>();
+        if (interval <= AbstractTimedAggregator.NO_TIMER) {
+            this.interval = AbstractTimedAggregator.NO_TIMER;
+            this.timer = null;
+            this.task = null;
+        } else {
+            this.interval = interval;
+            if (useSharedTimer) {
+                this.timer = AbstractTimedAggregator.getMainTimer();
+            } else {
+                this.timer = new Timer(AbstractTimedAggregator.TIMER_NAME + hashCode(), true);
+            }
+            this.task = new TimerTask() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            };
+            this.timer.scheduleAtFixedRate(this.task, this.interval, this.interval);
+        }
+    }
+
+    /**
+     * Getter for {@link #interval}.
+     *
+     * @return Current value of {@link #interval}.
+     */
+    public final long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Checks whether this group freezes its lock-free aggregators during a
+     * flush.
+     *
+     * @return <code>true</code> if it does, <code>false</code> if they are
+     *         cut one at a time
+     */
+    public final boolean isFreezingLockFree() {
+        return cutLock != null;
+    }
+
+    /**
+     * Adds an aggregator to this group.
+     *
+     * @param name
+     *            name of the aggregator; its result is stored under this key
+     *            in the map passed to listeners. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     *            and <code>IllegalArgumentException</code> if there is already
+     *            an aggregator with this name in the group.
+     * @param aggregator
+     *            aggregator to add. Throws <code>NullPointerException</code> if
+     *            this is <code>null</code> and
+     *            <code>IllegalArgumentException</code> if it has a timer of its
+     *            own.
+     */
+    public final synchronized void addAggregator(String name, AbstractTimedAggregator<?> aggregator) {
+        Validate.notNull(name, "Name argument was null");
+        Validate.notNull(aggregator, "Aggregator argument was null");
+        if (aggregator.isTimerEnabled()) {
+            throw new IllegalArgumentException("Aggregator " + name + " has its own timer");
+        }
+        if (aggregators.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate aggregator name: " + name);
+        }
+        aggregators.put(name, aggregator);
+        if (cutLock != null) {
+            aggregator.setGroupLock(cutLock);
+        }
+    }
+
+    /**
+     * Removes an aggregator from this group.
+     *
+     * @param name
+     *            name the aggregator was added with
+     * @return the removed aggregator or <code>null</code> if there was no
+     *         aggregator with this name in the group
+     */
+    public final synchronized AbstractTimedAggregator<?> removeAggregator(String name) {
+        AbstractTimedAggregator<?> aggregator = aggregators.remove(name);
+        if (aggregator != null && cutLock != null) {
+            aggregator.setGroupLock(null);
+        }
+        return aggregator;
+    }
+
+    /**
+     * Retrieves an aggregator from this group.
+     *
+     * @param name
+     *            name the aggregator was added with
+     * @return the aggregator or <code>null</code> if there is no aggregator
+     *         with this name in the group
+     */
+    public final synchronized AbstractTimedAggregator<?> getAggregator(String name) {
+        return aggregators.get(name);
+    }
+
+    /**
+     * Adds a listener which will receive the results of each flush.
+     *
+     * @param listener
+     *            Listener to be added
+     */
+    public final void addListener(AggregatorGroupListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener previously added.
+     *
+     * @param listener
+     *            Listener to be removed
+     * @return <code>true</code> if the listener was previously added
+     */
+    public final boolean removeListener(AggregatorGroupListener listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Evaluates and resets all the aggregators in the group at the same
+     * logical instant, then notifies all listeners with the results. This is
+     * called by the timer (if any) but can also be called on demand.
+     *
+     * @return unmodifiable map of the name of each aggregator to its result
+     *         prior to the reset, in the order the aggregators were added
+     */
+    public final Map<String, Object> flush() {
+        Map<String, Object> evaluations = new LinkedHashMap<String, Object>();
+        synchronized (this) {
+            List<Lock> locked = new ArrayList<Lock>(aggregators.size() + 1);
+            try {
+                if (cutLock != null) {
+                    cutLock.writeLock().lock();
+                    locked.add(cutLock.writeLock());
+                }
+                for (AbstractTimedAggregator<?> aggregator : aggregators.values()) {
+                    ReadWriteLock lock = aggregator.getDataLock();
+                    if (lock != null) {
+                        lock.writeLock().lock();
+                        locked.add(lock.writeLock());
+                    }
+                }
+                for (Map.Entry<String, AbstractTimedAggregator<?>> entry : aggregators.entrySet()) {
+                    evaluations.put(entry.getKey(), entry.getValue().evaluateAndReset());
+                }
+            } finally {
+                for (int i = locked.size() - 1; i >= 0; i--) {
+                    locked.get(i).unlock();
+                }
+            }
+        }
+        Map<String, Object> result = Collections.unmodifiableMap(evaluations);
+        for (AggregatorGroupListener listener : listeners) {
+            listener.onFlush(this, result);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether this group has a timer associated with it or not.
+     *
+     * @return <code>true</code> if there is a timer, <code>false</code>
+     *         otherwise
+     */
+    public final synchronized boolean isTimerEnabled() {
+        return task != null;
+    }
+
+    /**
+     * Cancels the timer task (if set) -- which means from there on the group
+     * will only be flushed on demand. Also cancels the timer if it is not the
+     * shared one and releases all the listeners.
+     */
+    public final synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+            timer.purge();
+        }
+        if (timer != null && timer != AbstractTimedAggregator.getMainTimer()) {
+            timer.cancel();
+        }
+        timer = null;
+        listeners.clear();
+    }
+
+    @Override
+    public String toString() {
+        return AggregatorGroup.class.getName();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.Map;
+
+/**
+ * Listener to be used with instances of {@link AggregatorGroup} to receive the
+ * results of all the aggregators in the group each time the group is flushed.
+ */
+public interface AggregatorGroupListener {
+    /**
+     * Received when the group listening to has been flushed, either by its
+     * timer or by a call to {@link AggregatorGroup#flush()}.
+     *
+     * @param group
+     *            Group which has been flushed.
+     * @param evaluations
+     *            Unmodifiable map of the name of each aggregator in the group to
+     *            its evaluation result prior to the flush. All results are cut
+     *            at the same logical instant.
+     */
+    void onFlush(AggregatorGroup group, Map<String, Object> evaluations);
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import org.apache.commons.functor.BinaryFunction;
+
+/**
+ * Lock-free aggregator for <code>Double</code> values, which stores the running
+ * result as a <code>long</code> in an atomic variable. Can be used with any
+ * side-effect free <code>Double</code> aggregation function, such as
+ * {@link org.apache.commons.functor.aggregator.functions.DoubleMaxAggregatorBinaryFunction}.
+ * <p>
+ * The initial value is <code>0.0</code>; subclasses can override
+ * {@link #initialValue()} to start from a different value.
+ * </p>
+ */
+public class DoubleAtomicNoStoreAggregator extends AbstractAtomicNoStoreAggregator<Double> {
+    /**
+     * Similar to {@link #DoubleAtomicNoStoreAggregator(BinaryFunction, long)
+     * DoubleAtomicNoStoreAggregator(aggregationFunction,0L)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     */
+    public DoubleAtomicNoStoreAggregator(BinaryFunction<Double, Double, Double> aggregationFunction) {
+        this(aggregationFunction, 0L);
+    }
+
+    /**
+     * Similar to
+     * {@link #DoubleAtomicNoStoreAggregator(BinaryFunction, long, boolean)
+     * DoubleAtomicNoStoreAggregator(aggregationFunction,interval,false)}.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public DoubleAtomicNoStoreAggregator(BinaryFunction<Double, Double, Double> aggregationFunction, long interval) {
+        this(aggregationFunction, interval, false);
+    }
+
+    /**
+     * Initializes an aggregator with the given function, interval and decides
+     * whether to use the shared timer or own timer.
+     *
+     * @param aggregationFunction
+     *            Aggregation function to use in {@link #add(Object)}. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleAtomicNoStoreAggregator(BinaryFunction<Double, Double, Double> aggregationFunction, long interval,
+            boolean useSharedTimer) {
+        super(aggregationFunction, interval, useSharedTimer);
+    }
+
+    /**
+     * Returns <code>0.0</code>.
+     *
+     * @return <code>0.0</code>
+     */
+    @Override
+    protected Double initialValue() {
+        return 0.0;
+    }
+
+    /**
+     * Stores the raw bits of the <code>double</code> value, as per
+     * <code>Double.doubleToRawLongBits</code>.
+     *
+     * @param value
+     *            Value to convert. Throws <code>NullPointerException</code>
+     *            if this is <code>null</code>
+     * @return <code>long</code> representation of the value
+     */
+    @Override
+    protected final long toBits(Double value) {
+        return Double.doubleToRawLongBits(value.doubleValue());
+    }
+
+    /**
+     * Converts back the value stored by {@link #toBits(Double)}.
+     *
+     * @param bits
+     *            <code>long</code> representation of the value
+     * @return The value represented by <code>bits</code>
+     */
+    @Override
+    protected final Double fromBits(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
+
+    @Override
+    public String toString() {
+        return DoubleAtomicNoStoreAggregator.class.getName();
+    }
+}
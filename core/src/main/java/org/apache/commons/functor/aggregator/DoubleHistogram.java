@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of a cumulative histogram of <code>double</code> values,
+ * as produced by {@link DoubleHistogramAggregator#evaluate()}. The histogram
+ * has a fixed set of buckets defined by their (inclusive) upper bounds, plus
+ * an implicit last bucket with an upper bound of
+ * <code>Double.POSITIVE_INFINITY</code>. Similar to the way Prometheus
+ * histograms work, the counts are <b>cumulative</b>: the count of bucket
+ * <code>i</code> is the number of values less than or equal to the upper
+ * bound of bucket <code>i</code>, and the count of the last bucket is the
+ * total number of values.
+ */
+public final class DoubleHistogram implements Serializable {
+    /**
+     * serialVersionUID declaration.
+     */
+    private static final long serialVersionUID = -3496386235003612875L;
+
+    /**
+     * Upper bounds of the buckets, in strictly increasing order, not including
+     * the implicit <code>Double.POSITIVE_INFINITY</code> bucket.
+     */
+    private final double[]    upperBounds;
+
+    /**
+     * Cumulative counts; has one more element than {@link #upperBounds}.
+     */
+    private final long[]      cumulativeCounts;
+
+    /**
+     * Sum of all the values counted.
+     */
+    private final double      sum;
+
+    /**
+     * Creates a new snapshot. The arrays passed in are <b>not</b> copied, so
+     * callers should not modify them afterwards.
+     *
+     * @param upperBounds
+     *            upper bounds of the buckets, excluding the
+     *            <code>Double.POSITIVE_INFINITY</code> one
+     * @param cumulativeCounts
+     *            cumulative counts, one per bucket (including the
+     *            <code>Double.POSITIVE_INFINITY</code> one)
+     * @param sum
+     *            sum of all the values counted
+     */
+    DoubleHistogram(double[] upperBounds, long[] cumulativeCounts, double sum) {
+        this.upperBounds = upperBounds;
+        this.cumulativeCounts = cumulativeCounts;
+        this.sum = sum;
+    }
+
+    /**
+     * Gets the number of buckets in this histogram, including the
+     * <code>Double.POSITIVE_INFINITY</code> one.
+     *
+     * @return number of buckets
+     */
+    public int getBucketCount() {
+        return cumulativeCounts.length;
+    }
+
+    /**
+     * Gets the (inclusive) upper bound of the given bucket.
+     *
+     * @param bucket
+     *            index of the bucket, from 0 to
+     *            <code>getBucketCount() - 1</code>
+     * @return upper bound of the bucket; the last bucket has an upper bound of
+     *         <code>Double.POSITIVE_INFINITY</code>
+     */
+    public double getUpperBound(int bucket) {
+        if (bucket == upperBounds.length) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return upperBounds[bucket];
+    }
+
+    /**
+     * Gets the number of values less than or equal to the upper bound of the
+     * given bucket.
+     *
+     * @param bucket
+     *            index of the bucket, from 0 to
+     *            <code>getBucketCount() - 1</code>
+     * @return cumulative count of the bucket
+     */
+    public long getCumulativeCount(int bucket) {
+        return cumulativeCounts[bucket];
+    }
+
+    /**
+     * Gets the total number of values in this histogram.
+     *
+     * @return total number of values
+     */
+    public long getCount() {
+        return cumulativeCounts[cumulativeCounts.length - 1];
+    }
+
+    /**
+     * Gets the sum of all values in this histogram.
+     *
+     * @return sum of all values
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the number of values less than or equal to the given value. This
+     * is exact when <code>value</code> is one of the bucket upper bounds
+     * (including <code>Double.POSITIVE_INFINITY</code>); otherwise, the count
+     * of the largest bucket whose upper bound is less than <code>value</code>
+     * is returned, so that values of the <code>Double.POSITIVE_INFINITY</code>
+     * bucket are only counted for <code>Double.POSITIVE_INFINITY</code>. No
+     * value is counted for <code>Double.NaN</code>.
+     *
+     * @param value
+     *            value to look up
+     * @return number of values known to be less than or equal to
+     *         <code>value</code>
+     */
+    public long countAtOrBelow(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return getCount();
+        }
+        if (Double.isNaN(value)) {
+            return 0L;
+        }
+        int index = Arrays.binarySearch(upperBounds, value);
+        if (index >= 0) {
+            return cumulativeCounts[index];
+        }
+        int insertionPoint = -index - 1;
+        if (insertionPoint == 0) {
+            return 0L;
+        }
+        return cumulativeCounts[insertionPoint - 1];
+    }
+
+    /**
+     * Gets the fraction of values less than or equal to the given value, as
+     * per {@link #countAtOrBelow(double)}.
+     *
+     * @param value
+     *            value to look up
+     * @return fraction (between 0 and 1) of values less than or equal to
+     *         <code>value</code>, or <code>Double.NaN</code> if this histogram
+     *         is empty
+     */
+    public double fractionAtOrBelow(double value) {
+        long count = getCount();
+        if (count == 0L) {
+            return Double.NaN;
+        }
+        return (double) countAtOrBelow(value) / count;
+    }
+
+    /**
+     * Gets a copy of the upper bounds of the buckets, excluding the
+     * <code>Double.POSITIVE_INFINITY</code> one.
+     *
+     * @return a copy of the upper bounds
+     */
+    public double[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    /**
+     * Package-private access to the upper bounds, used for merging.
+     *
+     * @return upper bounds (not a copy)
+     */
+    double[] upperBounds() {
+        return upperBounds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DoubleHistogram)) {
+            return false;
+        }
+        DoubleHistogram that = (DoubleHistogram) obj;
+        return Double.doubleToLongBits(sum) == Double.doubleToLongBits(that.sum)
+                && Arrays.equals(upperBounds, that.upperBounds)
+                && Arrays.equals(cumulativeCounts, that.cumulativeCounts);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "DoubleHistogram".hashCode();
+        hash <<= 2;
+        hash ^= Arrays.hashCode(upperBounds);
+        hash <<= 2;
+        hash ^= Arrays.hashCode(cumulativeCounts);
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("DoubleHistogram<");
+        for (int i = 0; i < cumulativeCounts.length; i++) {
+            buf.append("le=").append(getUpperBound(i)).append(':').append(cumulativeCounts[i]).append(',');
+        }
+        return buf.append("sum=").append(sum).append('>').toString();
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Lock-free aggregator which counts <code>double</code> values into a fixed set
+ * of user-supplied buckets (in the style of Prometheus histograms) and
+ * evaluates to an immutable, cumulative {@link DoubleHistogram} snapshot. This
+ * allows for questions like "what fraction of requests took less than 250ms"
+ * to be answered from a handful of counters, rather than storing and sorting
+ * the whole data series as a list-backed percentile function would.
+ * <p>
+ * Values are recorded via {@link #add(double)}, which performs a binary search
+ * for the bucket and increments a <code>long</code> counter -- with no locking
+ * and no boxing. To reduce contention between threads, the counters are
+ * striped: each thread increments the counters of one of several stripes
+ * (picked based on the thread id) and the stripes are summed up in
+ * {@link #evaluate()}. {@link #add(Object)} accepts a {@link DoubleHistogram}
+ * (with the same bucket bounds) and merges its counts into this aggregator,
+ * which allows for histograms computed elsewhere to be combined.
+ * </p>
+ * <p>
+ * <b>Synchronization</b>: as no lock is used, a snapshot taken while values
+ * are being added is not guaranteed to be atomic with regards to these values
+ * (e.g. the sum might include a value the counts don't); however every counter
+ * is read exactly once, so the snapshot is always cumulative and monotonic.
+ * </p>
+ */
+public class DoubleHistogramAggregator extends AbstractTimedAggregator<DoubleHistogram> {
+    /**
+     * Number of <code>long</code> slots per cache line; used to pad the
+     * stripes so different stripes don't share a cache line.
+     */
+    private static final int  PADDING = 8;
+
+    /**
+     * Upper bounds of the buckets, in strictly increasing order, not including
+     * the implicit <code>Double.POSITIVE_INFINITY</code> bucket.
+     */
+    private final double[]        upperBounds;
+
+    /**
+     * Number of stripes; always a power of 2.
+     */
+    private final int             stripes;
+
+    /**
+     * Number of slots used by each stripe in {@link #counts}.
+     */
+    private final int             stride;
+
+    /**
+     * Non-cumulative counts per bucket, for each stripe. The counts of stripe
+     * <code>s</code> start at index <code>s * stride</code>.
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * Raw bits of the sum of the values, for each stripe. The sum of stripe
+     * <code>s</code> is at index <code>s * PADDING</code>.
+     */
+    private final AtomicLongArray sums;
+
+    /**
+     * Similar to {@link #DoubleHistogramAggregator(double[], long)
+     * DoubleHistogramAggregator(upperBounds, 0L)}.
+     *
+     * @param upperBounds
+     *            upper bounds of the buckets
+     */
+    public DoubleHistogramAggregator(double... upperBounds) {
+        this(upperBounds, 0L);
+    }
+
+    /**
+     * Similar to {@link #DoubleHistogramAggregator(double[], long, boolean)
+     * DoubleHistogramAggregator(upperBounds, interval, false)}.
+     *
+     * @param upperBounds
+     *            upper bounds of the buckets
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public DoubleHistogramAggregator(double[] upperBounds, long interval) {
+        this(upperBounds, interval, false);
+    }
+
+    /**
+     * Similar to
+     * {@link #DoubleHistogramAggregator(double[], long, boolean, int)
+     * DoubleHistogramAggregator(upperBounds, interval, useSharedTimer, n)}
+     * where <code>n</code> is the number of available processors.
+     *
+     * @param upperBounds
+     *            upper bounds of the buckets
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleHistogramAggregator(double[] upperBounds, long interval, boolean useSharedTimer) {
+        this(upperBounds, interval, useSharedTimer, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initializes a histogram aggregator with the given bucket bounds,
+     * interval, timer and number of counter stripes.
+     *
+     * @param upperBounds
+     *            (inclusive) upper bounds of the buckets, in strictly
+     *            increasing order. A bucket with an upper bound of
+     *            <code>Double.POSITIVE_INFINITY</code> is always added at the
+     *            end so there's no need to specify it. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     *            and <code>IllegalArgumentException</code> if the bounds are
+     *            not strictly increasing or contain <code>NaN</code>. The
+     *            array is copied.
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     * @param stripes
+     *            number of counter stripes, rounded up to a power of 2. Throws
+     *            <code>IllegalArgumentException</code> if less than 1.
+     */
+    public DoubleHistogramAggregator(double[] upperBounds, long interval, boolean useSharedTimer, int stripes) {
+        super(interval, useSharedTimer, false);
+        this.upperBounds = checkBounds(upperBounds);
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Invalid number of stripes: " + stripes);
+        }
+        int n = 1;
+        while (n < stripes) {
+            n <<= 1;
+        }
+        this.stripes = n;
+        int buckets = this.upperBounds.length + 1;
+        this.stride = ((buckets + PADDING - 1) / PADDING) * PADDING;
+        this.counts = new AtomicLongArray(this.stripes * this.stride);
+        this.sums = new AtomicLongArray(this.stripes * PADDING);
+    }
+
+    /**
+     * Validates and copies the bucket bounds.
+     *
+     * @param upperBounds
+     *            bounds to check
+     * @return a copy of the bounds
+     */
+    private static double[] checkBounds(double[] upperBounds) {
+        double[] copy = upperBounds.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (Double.isNaN(copy[i]) || (i > 0 && copy[i - 1] >= copy[i])) {
+                throw new IllegalArgumentException("Bucket bounds must be strictly increasing: "
+                        + Arrays.toString(copy));
+            }
+        }
+        if (copy.length > 0 && copy[copy.length - 1] == Double.POSITIVE_INFINITY) {
+            // implicit anyway
+            double[] trimmed = new double[copy.length - 1];
+            System.arraycopy(copy, 0, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return copy;
+    }
+
+    /**
+     * Records a value. Finds the bucket via binary search then increments the
+     * counter of that bucket in the current thread's stripe. No object is
+     * allocated, and no lock is acquired unless this aggregator belongs to an
+     * {@link AggregatorGroup} freezing its lock-free aggregators, whose lock is
+     * then held for reading.
+     *
+     * @param value
+     *            value to record; <code>NaN</code> values are counted in the
+     *            <code>Double.POSITIVE_INFINITY</code> bucket
+     */
+    public final void add(double value) {
+        ReadWriteLock lock = getGroupLock();
+        if (lock == null) {
+            record(value);
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            record(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a value, without locking.
+     *
+     * @param value
+     *            value to record
+     */
+    private void record(double value) {
+        int stripe = stripe();
+        counts.incrementAndGet(stripe * stride + bucketOf(value));
+        addToSum(stripe * PADDING, value);
+    }
+
+    /**
+     * Finds the bucket for a value.
+     *
+     * @param value
+     *            value to look up
+     * @return index of the first bucket whose upper bound is greater than or
+     *         equal to <code>value</code>
+     */
+    private int bucketOf(double value) {
+        int index = Arrays.binarySearch(upperBounds, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Picks the stripe for the current thread.
+     *
+     * @return stripe index
+     */
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & (stripes - 1);
+    }
+
+    /**
+     * Atomically adds a value to the sum stored at the given index.
+     *
+     * @param index
+     *            index in {@link #sums}
+     * @param value
+     *            value to add
+     */
+    private void addToSum(int index, double value) {
+        long current;
+        long next;
+        do {
+            current = sums.get(index);
+            next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value);
+        } while (!sums.compareAndSet(index, current, next));
+    }
+
+    /**
+     * Merges the counts of the given histogram into this aggregator.
+     *
+     * @param data
+     *            histogram to merge. Throws <code>NullPointerException</code>
+     *            if this is <code>null</code> and
+     *            <code>IllegalArgumentException</code> if its bucket bounds
+     *            differ from the bounds of this aggregator.
+     */
+    @Override
+    protected void doAdd(DoubleHistogram data) {
+        if (!Arrays.equals(upperBounds, data.upperBounds())) {
+            throw new IllegalArgumentException("Cannot merge histogram with different bucket bounds: " + data);
+        }
+        int base = stripe() * stride;
+        long previous = 0L;
+        for (int i = 0; i < data.getBucketCount(); i++) {
+            long cumulative = data.getCumulativeCount(i);
+            counts.addAndGet(base + i, cumulative - previous);
+            previous = cumulative;
+        }
+        addToSum(stripe() * PADDING, data.getSum());
+    }
+
+    /**
+     * Sums up the stripes and computes the cumulative counts.
+     *
+     * @return an immutable snapshot of the histogram
+     */
+    @Override
+    protected DoubleHistogram doEvaluate() {
+        int buckets = upperBounds.length + 1;
+        long[] cumulative = new long[buckets];
+        for (int s = 0; s < stripes; s++) {
+            int base = s * stride;
+            for (int i = 0; i < buckets; i++) {
+                cumulative[i] += counts.get(base + i);
+            }
+        }
+        for (int i = 1; i < buckets; i++) {
+            cumulative[i] += cumulative[i - 1];
+        }
+        double sum = 0.0;
+        for (int s = 0; s < stripes; s++) {
+            sum += Double.longBitsToDouble(sums.get(s * PADDING));
+        }
+        return new DoubleHistogram(upperBounds, cumulative, sum);
+    }
+
+    /**
+     * Sets all counters and sums back to zero.
+     */
+    @Override
+    protected void doReset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0L);
+        }
+        for (int i = 0; i < sums.length(); i++) {
+            sums.set(i, 0L);
+        }
+    }
+
+    /**
+     * Sums up the stripes and computes the cumulative counts, while swapping
+     * every counter with zero, so values added concurrently are either counted
+     * in the returned snapshot or left in the aggregator -- never lost.
+     *
+     * @return an immutable snapshot of the histogram prior to the reset
+     */
+    @Override
+    protected DoubleHistogram doEvaluateAndReset() {
+        int buckets = upperBounds.length + 1;
+        long[] cumulative = new long[buckets];
+        for (int s = 0; s < stripes; s++) {
+            int base = s * stride;
+            for (int i = 0; i < buckets; i++) {
+                cumulative[i] += counts.getAndSet(base + i, 0L);
+            }
+        }
+        for (int i = 1; i < buckets; i++) {
+            cumulative[i] += cumulative[i - 1];
+        }
+        double sum = 0.0;
+        for (int s = 0; s < stripes; s++) {
+            sum += Double.longBitsToDouble(sums.getAndSet(s * PADDING, 0L));
+        }
+        return new DoubleHistogram(upperBounds, cumulative, sum);
+    }
+
+    /**
+     * This aggregator doesn't store the data series, so the data series size
+     * is always 0 (zero).
+     *
+     * @return 0
+     */
+    @Override
+    protected int retrieveDataSize() {
+        return 0;
+    }
+
+    /**
+     * Gets a copy of the upper bounds of the buckets, excluding the
+     * <code>Double.POSITIVE_INFINITY</code> one.
+     *
+     * @return a copy of the upper bounds
+     */
+    public final double[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    /**
+     * Getter for {@link #stripes}.
+     *
+     * @return number of counter stripes
+     */
+    final int getStripes() {
+        return stripes;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleHistogramAggregator.class.getName();
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Aggregator which maintains the exact <a
+ * href="http://en.wikipedia.org/wiki/Median">median</a> of a series of
+ * <code>double</code> values incrementally, rather than sorting the whole data
+ * series on every call to {@link #evaluate()} as
+ * {@link org.apache.commons.functor.aggregator.functions.DoubleMedianValueAggregatorFunction}
+ * does. The values are kept in two heaps backed by primitive
+ * <code>double</code> arrays: a max-heap with the lower half of the values and
+ * a min-heap with the upper half. This gives <code>O(log n)</code>
+ * {@link #add(Object)} and <code>O(1)</code> {@link #evaluate()}.
+ * <p>
+ * Values can also be {@link #remove(double) removed}, which makes this
+ * aggregator suitable for sliding windows. Removal is lazy: the number of
+ * occurrences of each value stored is kept in a map, so that a removed value
+ * is found in <code>O(1)</code>, and it is only counted as pending removal in
+ * the heap holding it. Values pending removal are dropped from a heap when
+ * they reach its top, and a heap is compacted when it holds more values
+ * pending removal than values stored, so removing takes <code>O(log n)</code>
+ * amortized time and the heaps never hold more than twice the values stored.
+ * </p>
+ * <p>
+ * Just like {@link org.apache.commons.functor.aggregator.functions.DoubleMedianValueAggregatorFunction},
+ * if the series has an even number of values, the median is the mean of the 2
+ * values in the middle; if the series is empty, the median is
+ * <code>null</code>.
+ * </p>
+ */
+public class DoubleRunningMedianAggregator extends AbstractTimedAggregator<Double> {
+    /** Default initial capacity of each heap. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Max-heap storing the lower half of the values. Always stores the same
+     * number of values as {@link #upper} or one more, not counting the values
+     * pending removal; its top is never pending removal.
+     */
+    private double[]         lower;
+
+    /** Number of elements in {@link #lower}, including those pending removal. */
+    private int              lowerSize;
+
+    /** Number of values stored in {@link #lower}. */
+    private int              lowerCount;
+
+    /** Number of occurrences of each value pending removal from {@link #lower}. */
+    private final Map<Double, Integer> lowerPending = new HashMap<Double, Integer>();
+
+    /** Min-heap storing the upper half of the values. */
+    private double[]         upper;
+
+    /** Number of elements in {@link #upper}, including those pending removal. */
+    private int              upperSize;
+
+    /** Number of values stored in {@link #upper}. */
+    private int              upperCount;
+
+    /** Number of occurrences of each value pending removal from {@link #upper}. */
+    private final Map<Double, Integer> upperPending = new HashMap<Double, Integer>();
+
+    /** Number of occurrences of each value stored. */
+    private final Map<Double, Integer> counts = new HashMap<Double, Integer>();
+
+    /**
+     * Similar to {@link #DoubleRunningMedianAggregator(long)
+     * DoubleRunningMedianAggregator(0L)}.
+     */
+    public DoubleRunningMedianAggregator() {
+        this(0L);
+    }
+
+    /**
+     * Similar to {@link #DoubleRunningMedianAggregator(long, boolean)
+     * DoubleRunningMedianAggregator(interval, false)}.
+     *
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public DoubleRunningMedianAggregator(long interval) {
+        this(interval, false);
+    }
+
+    /**
+     * Initializes an aggregator with the given interval and decides whether to
+     * use the shared timer or own timer.
+     *
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public DoubleRunningMedianAggregator(long interval, boolean useSharedTimer) {
+        super(interval, useSharedTimer);
+        lower = new double[DEFAULT_CAPACITY];
+        upper = new double[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Adds a value to the lower or upper heap and rebalances the heaps.
+     *
+     * @param data
+     *            Value to add. Throws <code>NullPointerException</code> if
+     *            this is <code>null</code> and
+     *            <code>IllegalArgumentException</code> if this is
+     *            <code>NaN</code>.
+     */
+    @Override
+    protected void doAdd(Double data) {
+        double value = data.doubleValue();
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot compute the median of NaN");
+        }
+        increment(counts, value);
+        if (lowerCount == 0 || value <= lower[0]) {
+            pushLower(value);
+        } else {
+            pushUpper(value);
+        }
+        rebalance();
+    }
+
+    /**
+     * Removes one occurrence of the given value from the series, if present.
+     * Like {@link #add(Object)}, this is a write operation so it acquires the
+     * write lock for the duration of the call.
+     *
+     * @param value
+     *            Value to remove
+     * @return <code>true</code> if the value was found and removed,
+     *         <code>false</code> otherwise
+     */
+    public final boolean remove(double value) {
+        Lock lock = getDataLock().writeLock();
+        lock.lock();
+        try {
+            return doRemove(value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Performs the actual removal; called from {@link #remove(double)} with
+     * the write lock held.
+     *
+     * @param value
+     *            Value to remove
+     * @return <code>true</code> if the value was found and removed,
+     *         <code>false</code> otherwise
+     */
+    private boolean doRemove(double value) {
+        if (!decrement(counts, value)) {
+            return false;
+        }
+        // the top of the lower heap is stored, and no lower value is in the
+        // upper heap, so the heap holding the value is known
+        if (lowerCount > 0 && value <= lower[0]) {
+            increment(lowerPending, value);
+            lowerCount--;
+        } else {
+            increment(upperPending, value);
+            upperCount--;
+        }
+        rebalance();
+        return true;
+    }
+
+    /**
+     * Returns the median of the values currently stored: the top of the lower
+     * heap if the series has an odd size, or the mean of the tops of both
+     * heaps otherwise.
+     *
+     * @return median value or <code>null</code> if no data is stored
+     */
+    @Override
+    protected Double doEvaluate() {
+        if (lowerCount == 0) {
+            return null;
+        }
+        if (lowerCount > upperCount) {
+            return lower[0];
+        }
+        return (lower[0] + upper[0]) / 2;
+    }
+
+    /**
+     * Empties both heaps. The arrays backing the heaps are kept, so no memory
+     * is allocated for them when values are added again.
+     */
+    @Override
+    protected void doReset() {
+        lowerSize = 0;
+        lowerCount = 0;
+        lowerPending.clear();
+        upperSize = 0;
+        upperCount = 0;
+        upperPending.clear();
+        counts.clear();
+    }
+
+    /**
+     * Returns the number of values currently stored in both heaps.
+     *
+     * @return number of values stored
+     */
+    @Override
+    protected int retrieveDataSize() {
+        return lowerCount + upperCount;
+    }
+
+    /**
+     * Drops the values pending removal from the tops of the heaps, moves the
+     * top of one heap to the other so that {@link #lower} stores the same
+     * number of values as {@link #upper} or one more, and compacts the heaps
+     * holding more values pending removal than values stored.
+     */
+    private void rebalance() {
+        prune();
+        if (lowerCount > upperCount + 1) {
+            double top = lower[0];
+            lowerSize = removeAt(lower, lowerSize, 0, true);
+            lowerCount--;
+            pushUpper(top);
+        } else if (upperCount > lowerCount) {
+            double top = upper[0];
+            upperSize = removeAt(upper, upperSize, 0, false);
+            upperCount--;
+            pushLower(top);
+        }
+        prune();
+        if (lowerSize - lowerCount > lowerCount) {
+            lowerSize = compact(lower, lowerSize, lowerPending, true);
+        }
+        if (upperSize - upperCount > upperCount) {
+            upperSize = compact(upper, upperSize, upperPending, false);
+        }
+    }
+
+    /**
+     * Drops the values pending removal from the tops of the heaps.
+     */
+    private void prune() {
+        while (lowerSize > 0 && decrement(lowerPending, lower[0])) {
+            lowerSize = removeAt(lower, lowerSize, 0, true);
+        }
+        while (upperSize > 0 && decrement(upperPending, upper[0])) {
+            upperSize = removeAt(upper, upperSize, 0, false);
+        }
+    }
+
+    /**
+     * Adds a value to {@link #lower}.
+     *
+     * @param value
+     *            value to add
+     */
+    private void pushLower(double value) {
+        lower = ensureCapacity(lower, lowerSize);
+        lower[lowerSize] = value;
+        siftUp(lower, lowerSize++, true);
+        lowerCount++;
+    }
+
+    /**
+     * Adds a value to {@link #upper}.
+     *
+     * @param value
+     *            value to add
+     */
+    private void pushUpper(double value) {
+        upper = ensureCapacity(upper, upperSize);
+        upper[upperSize] = value;
+        siftUp(upper, upperSize++, false);
+        upperCount++;
+    }
+
+    /**
+     * Returns the key of a value in the maps of occurrences, so that
+     * <code>-0.0</code> and <code>0.0</code>, which are equal in the heaps,
+     * are the same key.
+     *
+     * @param value
+     *            value
+     * @return key of the value
+     */
+    private static Double key(double value) {
+        return value == 0.0 ? 0.0 : value;
+    }
+
+    /**
+     * Increments the number of occurrences of a value.
+     *
+     * @param occurrences
+     *            number of occurrences of each value
+     * @param value
+     *            value
+     */
+    private static void increment(Map<Double, Integer> occurrences, double value) {
+        Double key = key(value);
+        Integer count = occurrences.get(key);
+        occurrences.put(key, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Decrements the number of occurrences of a value, if any.
+     *
+     * @param occurrences
+     *            number of occurrences of each value
+     * @param value
+     *            value
+     * @return <code>true</code> if the value had occurrences,
+     *         <code>false</code> otherwise
+     */
+    private static boolean decrement(Map<Double, Integer> occurrences, double value) {
+        if (occurrences.isEmpty()) {
+            return false;
+        }
+        Double key = key(value);
+        Integer count = occurrences.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            occurrences.remove(key);
+        } else {
+            occurrences.put(key, count - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Drops all the values pending removal from a heap, and restores the heap
+     * order.
+     *
+     * @param heap
+     *            heap array
+     * @param size
+     *            number of elements in the heap
+     * @param pending
+     *            number of occurrences of each value pending removal from
+     *            the heap, emptied by this call
+     * @param max
+     *            <code>true</code> for a max-heap, <code>false</code> for a
+     *            min-heap
+     * @return new size of the heap
+     */
+    private static int compact(double[] heap, int size, Map<Double, Integer> pending, boolean max) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!decrement(pending, heap[i])) {
+                heap[kept++] = heap[i];
+            }
+        }
+        for (int i = (kept >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, kept, i, max);
+        }
+        return kept;
+    }
+
+    /**
+     * Grows the given heap array if it is full.
+     *
+     * @param heap
+     *            heap array
+     * @param size
+     *            number of elements in the heap
+     * @return the same array if there is room for one more element, or a
+     *         bigger copy of it otherwise
+     */
+    private static double[] ensureCapacity(double[] heap, int size) {
+        if (size < heap.length) {
+            return heap;
+        }
+        double[] grown = new double[heap.length * 2];
+        System.arraycopy(heap, 0, grown, 0, size);
+        return grown;
+    }
+
+    /**
+     * Removes the element at the given index from a heap, by replacing it with
+     * the last element and restoring the heap order.
+     *
+     * @param heap
+     *            heap array
+     * @param size
+     *            number of elements in the heap
+     * @param index
+     *            index of the element to remove
+     * @param max
+     *            <code>true</code> for a max-heap, <code>false</code> for a
+     *            min-heap
+     * @return new size of the heap
+     */
+    private static int removeAt(double[] heap, int size, int index, boolean max) {
+        int last = size - 1;
+        if (index != last) {
+            heap[index] = heap[last];
+            siftDown(heap, last, index, max);
+            siftUp(heap, index, max);
+        }
+        return last;
+    }
+
+    /**
+     * Checks whether <code>a</code> should be closer to the top of the heap
+     * than <code>b</code>.
+     *
+     * @param a
+     *            first value
+     * @param b
+     *            second value
+     * @param max
+     *            <code>true</code> for a max-heap, <code>false</code> for a
+     *            min-heap
+     * @return <code>true</code> if <code>a</code> has priority over
+     *         <code>b</code>
+     */
+    private static boolean before(double a, double b, boolean max) {
+        return max ? a > b : a < b;
+    }
+
+    /**
+     * Moves the element at the given index up the heap until the heap order is
+     * restored.
+     *
+     * @param heap
+     *            heap array
+     * @param index
+     *            index of the element to move
+     * @param max
+     *            <code>true</code> for a max-heap, <code>false</code> for a
+     *            min-heap
+     */
+    private static void siftUp(double[] heap, int index, boolean max) {
+        double value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(value, heap[parent], max)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Moves the element at the given index down the heap until the heap order
+     * is restored.
+     *
+     * @param heap
+     *            heap array
+     * @param size
+     *            number of elements in the heap
+     * @param index
+     *            index of the element to move
+     * @param max
+     *            <code>true</code> for a max-heap, <code>false</code> for a
+     *            min-heap
+     */
+    private static void siftDown(double[] heap, int size, int index, boolean max) {
+        double value = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child], max)) {
+                child = right;
+            }
+            if (!before(heap[child], value, max)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    @Override
+    public String toString() {
+        return DoubleRunningMedianAggregator.class.getName();
+    }
+}
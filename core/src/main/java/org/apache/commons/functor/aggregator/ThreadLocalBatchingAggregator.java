@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Aggregator which buffers the data added by each thread in a small
+ * thread-local buffer and only adds it to a backing
+ * {@link AbstractTimedAggregator} when the buffer is full or when the data is
+ * needed (in {@link #evaluate()}, {@link #evaluateAndReset()},
+ * {@link #getDataSize()} and on the timer). This way threads which add data at
+ * a high rate only touch the shared state (and the lock) of the backing
+ * aggregator once every <code>batchSize</code> calls to {@link #add(Object)}.
+ * <p>
+ * <b>Consistency</b>: every buffered item lands in the window in which it was
+ * added. When this aggregator is reset or cut (via
+ * {@link #evaluateAndReset()}, which is what the timer and
+ * {@link AggregatorGroup} use), all the thread-local buffers are locked,
+ * drained into the backing aggregator, the backing aggregator is cut and only
+ * then the buffers are unlocked. Any call to {@link #add(Object)} either
+ * completes before the cut (and its data is part of the evaluation) or blocks
+ * until the cut is complete (and its data goes into the next window).
+ * </p>
+ * <p>
+ * Each thread locks only its own buffer when adding data, so the lock is
+ * uncontended except while draining. The backing aggregator must not have a
+ * timer of its own, as that would cut it without draining the buffers first;
+ * instead, timer support is provided by this aggregator. Buffers of threads
+ * which have terminated are discarded once drained.
+ * </p>
+ *
+ * @param <T>
+ *            type of data to aggregate
+ */
+public class ThreadLocalBatchingAggregator<T> extends AbstractTimedAggregator<T> {
+    /**
+     * Buffer of items added by one thread.
+     */
+    private static final class Buffer {
+        /** Lock guarding this buffer. */
+        private final ReentrantLock           lock = new ReentrantLock();
+        /** The thread owning this buffer; used to discard buffers of dead threads. */
+        private final WeakReference<Thread>   owner;
+        /** Buffered items. */
+        private final Object[]                items;
+        /** Number of buffered items. */
+        private int                           size;
+
+        /**
+         * Create a new Buffer for the current thread.
+         *
+         * @param capacity maximum number of items to buffer
+         */
+        Buffer(int capacity) {
+            this.owner = new WeakReference<Thread>(Thread.currentThread());
+            this.items = new Object[capacity];
+        }
+
+        /**
+         * Checks whether the thread owning this buffer has terminated.
+         *
+         * @return <code>true</code> if the owning thread is gone
+         */
+        boolean isOrphaned() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
+    /**
+     * The aggregator the buffered items are added to.
+     */
+    private final AbstractTimedAggregator<T> backing;
+
+    /**
+     * Number of items each thread buffers before adding them to
+     * {@link #backing}.
+     */
+    private final int                        batchSize;
+
+    /**
+     * The buffer of the current thread.
+     */
+    private final ThreadLocal<Buffer>        localBuffer;
+
+    /**
+     * All the buffers created so far; access is synchronized on the list.
+     */
+    private final List<Buffer>               buffers;
+
+    /**
+     * Similar to
+     * {@link #ThreadLocalBatchingAggregator(AbstractTimedAggregator, int, long)
+     * ThreadLocalBatchingAggregator(backing, batchSize, 0L)}.
+     *
+     * @param backing
+     *            aggregator to add the buffered items to
+     * @param batchSize
+     *            number of items each thread buffers
+     */
+    public ThreadLocalBatchingAggregator(AbstractTimedAggregator<T> backing, int batchSize) {
+        this(backing, batchSize, 0L);
+    }
+
+    /**
+     * Similar to
+     * {@link #ThreadLocalBatchingAggregator(AbstractTimedAggregator, int, long, boolean)
+     * ThreadLocalBatchingAggregator(backing, batchSize, interval, false)}.
+     *
+     * @param backing
+     *            aggregator to add the buffered items to
+     * @param batchSize
+     *            number of items each thread buffers
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     */
+    public ThreadLocalBatchingAggregator(AbstractTimedAggregator<T> backing, int batchSize, long interval) {
+        this(backing, batchSize, interval, false);
+    }
+
+    /**
+     * Creates a batching aggregator on top of the given aggregator.
+     *
+     * @param backing
+     *            aggregator to add the buffered items to. Throws
+     *            <code>NullPointerException</code> if this is <code>null</code>
+     *            and <code>IllegalArgumentException</code> if it has a timer of
+     *            its own.
+     * @param batchSize
+     *            number of items each thread buffers. Throws
+     *            <code>IllegalArgumentException</code> if less than 1.
+     * @param interval
+     *            interval in miliseconds to reset this aggregator
+     * @param useSharedTimer
+     *            if set to true, it shares a timer across instances as per
+     *            {@link AbstractTimedAggregator#AbstractTimedAggregator(long,boolean)}
+     *            , otherwise this instance will use its private timer
+     */
+    public ThreadLocalBatchingAggregator(AbstractTimedAggregator<T> backing, int batchSize, long interval,
+            boolean useSharedTimer) {
+        super(interval, useSharedTimer, false);
+        this.backing = Validate.notNull(backing, "Aggregator argument was null");
+        if (backing.isTimerEnabled()) {
+            throw new IllegalArgumentException("Backing aggregator has its own timer");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.buffers = new ArrayList<Buffer>();
+        this.localBuffer = new ThreadLocal<Buffer>() {
+            @Override
+            protected Buffer initialValue() {
+                Buffer buffer = new Buffer(ThreadLocalBatchingAggregator.this.batchSize);
+                synchronized (buffers) {
+                    buffers.add(buffer);
+                }
+                return buffer;
+            }
+        };
+    }
+
+    /**
+     * Adds the data to the current thread's buffer, and adds the whole buffer
+     * to {@link #backing} if it is full.
+     *
+     * @param data
+     *            Data to be aggregated
+     */
+    @Override
+    protected void doAdd(T data) {
+        Buffer buffer = localBuffer.get();
+        buffer.lock.lock();
+        try {
+            buffer.items[buffer.size++] = data;
+            if (buffer.size == batchSize) {
+                drain(buffer);
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Drains all the buffers then evaluates {@link #backing}.
+     *
+     * @return result of evaluating the backing aggregator
+     */
+    @Override
+    protected T doEvaluate() {
+        List<Buffer> locked = lockBuffers();
+        try {
+            drainAll(locked);
+        } finally {
+            unlockBuffers(locked);
+        }
+        return backing.evaluate();
+    }
+
+    /**
+     * Discards all the buffered items then resets {@link #backing}, while
+     * holding the locks of all the buffers.
+     */
+    @Override
+    protected void doReset() {
+        List<Buffer> locked = lockBuffers();
+        try {
+            for (Buffer buffer : locked) {
+                clear(buffer);
+            }
+            backing.reset();
+        } finally {
+            unlockBuffers(locked);
+        }
+    }
+
+    /**
+     * Drains all the buffers then evaluates and resets {@link #backing}, while
+     * holding the locks of all the buffers.
+     *
+     * @return result of evaluating the backing aggregator prior to the reset
+     */
+    @Override
+    protected T doEvaluateAndReset() {
+        List<Buffer> locked = lockBuffers();
+        try {
+            drainAll(locked);
+            return backing.evaluateAndReset();
+        } finally {
+            unlockBuffers(locked);
+        }
+    }
+
+    /**
+     * Drains all the buffers then retrieves the data size of {@link #backing}.
+     *
+     * @return data size of the backing aggregator
+     */
+    @Override
+    protected int retrieveDataSize() {
+        List<Buffer> locked = lockBuffers();
+        try {
+            drainAll(locked);
+        } finally {
+            unlockBuffers(locked);
+        }
+        return backing.getDataSize();
+    }
+
+    /**
+     * Locks all the buffers, in the order they were created.
+     *
+     * @return the locked buffers
+     */
+    private List<Buffer> lockBuffers() {
+        List<Buffer> snapshot;
+        synchronized (buffers) {
+            snapshot = new ArrayList<Buffer>(buffers);
+        }
+        List<Buffer> locked = new ArrayList<Buffer>(snapshot.size());
+        try {
+            for (Buffer buffer : snapshot) {
+                buffer.lock.lock();
+                locked.add(buffer);
+            }
+        } catch (RuntimeException e) {
+            unlockBuffers(locked);
+            throw e;
+        }
+        return locked;
+    }
+
+    /**
+     * Unlocks the given buffers, in reverse order.
+     *
+     * @param locked
+     *            buffers previously locked by {@link #lockBuffers()}
+     */
+    private void unlockBuffers(List<Buffer> locked) {
+        for (int i = locked.size() - 1; i >= 0; i--) {
+            locked.get(i).lock.unlock();
+        }
+    }
+
+    /**
+     * Drains the given (locked) buffers into {@link #backing} and discards the
+     * buffers of threads which have terminated.
+     *
+     * @param locked
+     *            buffers previously locked by {@link #lockBuffers()}
+     */
+    private void drainAll(List<Buffer> locked) {
+        boolean orphans = false;
+        for (Buffer buffer : locked) {
+            drain(buffer);
+            orphans |= buffer.isOrphaned();
+        }
+        if (orphans) {
+            synchronized (buffers) {
+                for (Iterator<Buffer> i = buffers.iterator(); i.hasNext();) {
+                    Buffer buffer = i.next();
+                    if (buffer.isOrphaned() && buffer.size == 0) {
+                        i.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds all the items in the given (locked) buffer to {@link #backing}
+     * and empties the buffer.
+     *
+     * @param buffer
+     *            buffer to drain
+     */
+    @SuppressWarnings("unchecked")
+    private void drain(Buffer buffer) {
+        try {
+            for (int i = 0; i < buffer.size; i++) {
+                backing.add((T) buffer.items[i]);
+            }
+        } finally {
+            clear(buffer);
+        }
+    }
+
+    /**
+     * Empties the given (locked) buffer.
+     *
+     * @param buffer
+     *            buffer to clear
+     */
+    private static void clear(Buffer buffer) {
+        for (int i = 0; i < buffer.size; i++) {
+            buffer.items[i] = null;
+        }
+        buffer.size = 0;
+    }
+
+    /**
+     * Getter for {@link #backing}.
+     *
+     * @return the backing aggregator
+     */
+    public final AbstractTimedAggregator<T> getBacking() {
+        return backing;
+    }
+
+    /**
+     * Getter for {@link #batchSize}.
+     *
+     * @return number of items each thread buffers
+     */
+    public final int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Retrieves the number of buffers currently registered. Used for testing.
+     *
+     * @return number of buffers
+     */
+    final int getBufferCount() {
+        synchronized (buffers) {
+            return buffers.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ThreadLocalBatchingAggregator.class.getName();
+    }
+}
@@ -21,8 +21,8 @@ import java.util.NoSuchElementException;
 
 import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.functor.Predicate;
-import org.apache.commons.functor.Procedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
 
 /**
  * Return the first Object in a {@link Generator} matching a {@link Predicate}.
@@ -48,7 +48,7 @@ public final class FindWithinGenerator<E>
      *
      * @param <T> the argument type.
      */
-    private static class FindProcedure<T> implements Procedure<T> {
+    private static class FindProcedure<T> implements StoppableProcedure<T> {
         /**
          * The object found, if any.
          */
@@ -79,6 +79,14 @@ public final class FindWithinGenerator<E>
                 found = obj;
             }
         }
+
+        /**
+         * {@inheritDoc}
+         * Stops the generator as soon as an object has been found.
+         */
+        public boolean isStopped() {
+            return wasFound;
+        }
     }
 
     /**
@@ -20,8 +20,8 @@ import java.io.Serializable;
 
 import org.apache.commons.functor.BinaryPredicate;
 import org.apache.commons.functor.Predicate;
-import org.apache.commons.functor.Procedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
 
 /**
  * Tests whether a {@link Generator} contains an element that matches a {@link Predicate}.
@@ -45,7 +45,7 @@ public final class GeneratorContains<T> implements BinaryPredicate<Generator<? e
      *
      * @param <T> the predicate argument type.
      */
-    private static class ContainsProcedure<T> implements Procedure<T> {
+    private static class ContainsProcedure<T> implements StoppableProcedure<T> {
         /**
          * The wrapped predicate.
          */
@@ -68,7 +68,17 @@ public final class GeneratorContains<T> implements BinaryPredicate<Generator<? e
          * {@inheritDoc}
          */
         public void run(T obj) {
-            found |= pred.test(obj);
+            if (!found) {
+                found = pred.test(obj);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         * Stops the generator as soon as a match has been found.
+         */
+        public boolean isStopped() {
+            return found;
         }
     }
 
@@ -20,7 +20,7 @@ import java.io.Serializable;
 
 import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.functor.Predicate;
-import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.StoppableProcedure;
 import org.apache.commons.functor.generator.loop.LoopGenerator;
 
 /**
@@ -46,7 +46,7 @@ public final class IndexOfInGenerator<T>
      *
      * @param <T> the procedure argument type
      */
-    private static class IndexProcedure<T> implements Procedure<T> {
+    private static class IndexProcedure<T> implements StoppableProcedure<T> {
         /**
          * The wrapped generator.
          */
@@ -86,6 +86,14 @@ public final class IndexOfInGenerator<T>
             }
             current++;
         }
+
+        /**
+         * {@inheritDoc}
+         * Stops the generator as soon as the target has been found.
+         */
+        public boolean isStopped() {
+            return index >= 0;
+        }
     }
 
     /**
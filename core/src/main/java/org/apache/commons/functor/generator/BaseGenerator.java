@@ -17,6 +17,7 @@ package org.apache.commons.functor.generator;
 import java.util.Collection;
 
 import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
 import org.apache.commons.functor.generator.util.CollectionTransformer;
 
 /**
@@ -34,6 +35,17 @@ public abstract class BaseGenerator<E> implements Generator<E> {
         super();
     }
 
+    /**
+     * Check whether the given procedure asked for the generation to stop, i.e.
+     * whether it is a {@link StoppableProcedure} which is stopped.
+     * Implementations call this after passing each element to the procedure.
+     * @param proc the procedure being run
+     * @return <code>true</code> if the generation should stop
+     */
+    protected static boolean stopRequested(Procedure<?> proc) {
+        return proc instanceof StoppableProcedure<?> && ((StoppableProcedure<?>) proc).isStopped();
+    }
+
     /**
      * {@inheritDoc}
      * Transforms this generator using the passed in
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator recording the elements of the generator it wraps the first time
+ * it is run, and replaying them from the recording afterwards, so the wrapped
+ * generator (e.g. one parsing a file, or transforming elements with a costly
+ * function) runs only once however many times this generator is run. This
+ * also makes generators which can only run once, such as an
+ * {@link org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter},
+ * replayable.
+ * <p>
+ * The elements are recorded while they are passed to the procedure of the
+ * first run. If that run does not go through all the elements (the procedure
+ * asks to stop before the last one, or an exception is thrown), the recording
+ * is dropped and the next run records again. To tell whether the last element
+ * was reached when the procedure asks to stop, the wrapped generator is only
+ * stopped once it generates one more element, which is not passed on. While a run is recording, concurrent runs run the
+ * wrapped generator.
+ * </p>
+ * <p>
+ * At most <code>maxElements</code> elements are kept in memory. Beyond that,
+ * depending on the {@link Overflow} policy, either the recording is abandoned
+ * and every run runs the wrapped generator, or the elements are spilled to a
+ * temporary file, using serialization, and each later run reads them back
+ * from the file. If spilling fails (e.g. an element is not
+ * <code>Serializable</code>), the generator falls back to running the wrapped
+ * generator. {@link #clear()} drops the recording and deletes the file; a
+ * file still in use is deleted when the JVM exits.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class CachedGenerator<E> extends BaseGenerator<E> {
+
+    /**
+     * What to do when the elements of the wrapped generator do not fit in
+     * memory.
+     */
+    public enum Overflow {
+        /**
+         * Abandon the recording, running the wrapped generator every time.
+         */
+        RECOMPUTE,
+        /**
+         * Spill the elements to a temporary file, and replay them from the
+         * file.
+         */
+        SPILL;
+    }
+
+    /** The wrapped generator. */
+    private final Generator<? extends E> wrappedGenerator;
+
+    /** Maximum number of elements kept in memory. */
+    private final int maxElements;
+
+    /** What to do with more than <code>maxElements</code> elements. */
+    private final Overflow overflow;
+
+    /** The recorded elements, if kept in memory. */
+    private List<E> elements;
+
+    /** The file holding the recorded elements, if spilled. */
+    private SpillFile<E> spillFile;
+
+    /** Whether a run is recording. */
+    private boolean recording;
+
+    /** Whether the elements cannot be recorded. */
+    private boolean uncacheable;
+
+    /**
+     * Create a new CachedGenerator keeping all the elements in memory.
+     * @param wrapped Generator to record
+     */
+    public CachedGenerator(Generator<? extends E> wrapped) {
+        this(wrapped, Integer.MAX_VALUE, Overflow.RECOMPUTE);
+    }
+
+    /**
+     * Create a new CachedGenerator.
+     * @param wrapped Generator to record
+     * @param maxElements maximum number of elements kept in memory
+     * @param overflow what to do with more than <code>maxElements</code>
+     * elements
+     */
+    public CachedGenerator(Generator<? extends E> wrapped, int maxElements, Overflow overflow) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "Generator argument was null");
+        Validate.isTrue(maxElements >= 0, "Maximum number of elements must not be negative: %d", maxElements);
+        this.maxElements = maxElements;
+        this.overflow = Validate.notNull(overflow, "Overflow argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        List<E> cached;
+        SpillFile<E> file;
+        boolean record;
+        synchronized (this) {
+            cached = elements;
+            file = spillFile;
+            record = cached == null && file == null && !recording && !uncacheable;
+            recording |= record;
+        }
+        if (cached != null) {
+            for (E obj : cached) {
+                proc.run(obj);
+                if (stopRequested(proc)) {
+                    break;
+                }
+            }
+        } else if (file != null) {
+            SpillFile<E>.Reader reader = file.open();
+            try {
+                while (reader.hasNext()) {
+                    proc.run(reader.next());
+                    if (stopRequested(proc)) {
+                        break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } else if (!record) {
+            wrappedGenerator.run(proc);
+        } else {
+            Recorder recorder = new Recorder(proc);
+            boolean complete = false;
+            try {
+                wrappedGenerator.run(recorder);
+                complete = !recorder.isStopped();
+            } finally {
+                recorder.publish(complete);
+            }
+        }
+    }
+
+    /**
+     * Learn whether the elements of the wrapped generator are recorded, in
+     * memory or in a file.
+     * @return boolean
+     */
+    public synchronized boolean isCached() {
+        return elements != null || spillFile != null;
+    }
+
+    /**
+     * Drop the recording, deleting the spill file if any. The next run will
+     * run the wrapped generator and record its elements again.
+     */
+    public synchronized void clear() {
+        elements = null;
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+        uncacheable = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CachedGenerator<?>)) {
+            return false;
+        }
+        CachedGenerator<?> other = (CachedGenerator<?>) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.maxElements == maxElements
+                && other.overflow == overflow;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "CachedGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= maxElements;
+        result <<= 2;
+        result ^= overflow.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "CachedGenerator<" + wrappedGenerator + ", " + maxElements + ", " + overflow + ">";
+    }
+
+    /**
+     * Procedure passing the elements on to the procedure of the run, and
+     * recording them.
+     */
+    private final class Recorder implements StoppableProcedure<E> {
+
+        /** The procedure of the run. */
+        private final Procedure<? super E> proc;
+
+        /** The elements recorded in memory, or null once spilled or abandoned. */
+        private ArrayList<E> recorded = new ArrayList<E>();
+
+        /** The spill file, if spilling. */
+        private SpillFile<E> file;
+
+        /** Whether the recording was abandoned. */
+        private boolean abandoned;
+
+        /** Whether the procedure asked to stop. */
+        private boolean procStopped;
+
+        /**
+         * Whether an element was generated after the procedure asked to stop,
+         * i.e. the run did not go through all the elements.
+         */
+        private boolean overrun;
+
+        /**
+         * Create a new Recorder.
+         * @param proc procedure of the run
+         */
+        Recorder(Procedure<? super E> proc) {
+            this.proc = proc;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(E obj) {
+            if (procStopped) {
+                overrun = true;
+                return;
+            }
+            proc.run(obj);
+            procStopped = stopRequested(proc);
+            if (abandoned) {
+                return;
+            }
+            if (recorded != null && recorded.size() < maxElements) {
+                recorded.add(obj);
+            } else if (overflow == Overflow.RECOMPUTE) {
+                abandon();
+                return;
+            } else {
+                try {
+                    if (file == null) {
+                        file = new SpillFile<E>();
+                        // the recording may outlive this run, until clear()
+                        file.deleteOnExit();
+                        for (E e : recorded) {
+                            file.write(e);
+                        }
+                        recorded = null;
+                    }
+                    file.write(obj);
+                } catch (IOException e) {
+                    abandon();
+                }
+            }
+        }
+
+        /**
+         * Abandon the recording: the elements cannot be recorded.
+         */
+        private void abandon() {
+            abandoned = true;
+            recorded = null;
+            discardFile();
+        }
+
+        /**
+         * Close and delete the spill file, if any.
+         */
+        private void discardFile() {
+            if (file != null) {
+                file.delete();
+                file = null;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean isStopped() {
+            return overrun;
+        }
+
+        /**
+         * Publish the recording, at the end of the run.
+         * @param complete whether the run went through all the elements
+         */
+        void publish(boolean complete) {
+            if (complete && !abandoned && file != null) {
+                try {
+                    file.finish();
+                } catch (IOException e) {
+                    abandon();
+                }
+            }
+            synchronized (CachedGenerator.this) {
+                recording = false;
+                if (abandoned) {
+                    uncacheable = true;
+                } else if (!complete) {
+                    discardFile();
+                } else if (file != null) {
+                    spillFile = file;
+                } else {
+                    recorded.trimToSize();
+                    elements = recorded;
+                }
+            }
+        }
+    }
+}
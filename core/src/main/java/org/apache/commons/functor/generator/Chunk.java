@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A reusable buffer of elements handed by a {@link ChunkedGenerator} to the
+ * procedure passed to {@link ChunkedGenerator#runChunks(Procedure, int)}.
+ * <p>
+ * Chunks are reused: once the procedure returns, the generator refills the
+ * same chunk with the next elements. Procedures must therefore not keep a
+ * reference to the chunk, but they may modify it in place (e.g. compact it or
+ * replace its elements), which is how filters and transforms work on whole
+ * chunks without copying them.
+ * </p>
+ *
+ * @param <E> the type of elements held in this chunk.
+ */
+public final class Chunk<E> {
+
+    /** The elements; only the first {@link #size} are valid. */
+    private final Object[] elements;
+
+    /** Number of valid elements. */
+    private int size;
+
+    /**
+     * Create a new, empty Chunk.
+     * @param capacity maximum number of elements the chunk can hold
+     */
+    public Chunk(int capacity) {
+        Validate.isTrue(capacity > 0, "Capacity must be positive: %d", capacity);
+        this.elements = new Object[capacity];
+    }
+
+    /**
+     * Get the number of elements in this chunk.
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the maximum number of elements this chunk can hold.
+     * @return int
+     */
+    public int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Learn whether this chunk holds no element.
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Learn whether this chunk is filled to its capacity.
+     * @return boolean
+     */
+    public boolean isFull() {
+        return size == elements.length;
+    }
+
+    /**
+     * Get an element.
+     * @param index of the element, less than {@link #size()}
+     * @return E
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        return (E) elements[index];
+    }
+
+    /**
+     * Replace an element.
+     * @param index of the element, less than {@link #size()}
+     * @param element the new element
+     */
+    public void set(int index, E element) {
+        checkIndex(index);
+        elements[index] = element;
+    }
+
+    /**
+     * Append an element.
+     * @param element to append
+     * @throws IllegalStateException if the chunk is full
+     */
+    public void add(E element) {
+        if (size == elements.length) {
+            throw new IllegalStateException("Chunk is full");
+        }
+        elements[size++] = element;
+    }
+
+    /**
+     * Append a range of an array, in a single copy.
+     * @param array to copy the elements from
+     * @param from index of the first element to copy
+     * @param length number of elements to copy
+     * @throws IllegalStateException if the elements do not fit in the chunk
+     */
+    public void addAll(E[] array, int from, int length) {
+        if (length > elements.length - size) {
+            throw new IllegalStateException("Chunk is full");
+        }
+        System.arraycopy(array, from, elements, size, length);
+        size += length;
+    }
+
+    /**
+     * Shrink this chunk to its first <code>newSize</code> elements.
+     * @param newSize the new size, at most {@link #size()}
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException("Invalid size " + newSize + " for chunk of size " + size);
+        }
+        Arrays.fill(elements, newSize, size, null);
+        size = newSize;
+    }
+
+    /**
+     * Remove all the elements.
+     */
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Run a procedure on each element of this chunk, in order.
+     * @param proc Procedure to run
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Procedure<? super E> proc) {
+        for (int i = 0; i < size; i++) {
+            proc.run((E) elements[i]);
+        }
+    }
+
+    /**
+     * Check that an index refers to a valid element.
+     * @param index to check
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder("Chunk[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(elements[i]);
+        }
+        return buf.append(']').toString();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator generating the elements of several generators, one generator
+ * after the other. Nothing is buffered: each generator is run in turn with
+ * the procedure, and a {@link StoppableProcedure} asking to stop stops the
+ * current generator and prevents the following ones from being run.
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class ConcatenatedGenerator<E> extends BaseGenerator<E> {
+
+    /**
+     * The generators to run, in order.
+     */
+    private final List<Generator<? extends E>> generators;
+
+    /**
+     * Create a new ConcatenatedGenerator.
+     * @param generators Generators to run, in order
+     */
+    public ConcatenatedGenerator(Generator<? extends E>... generators) {
+        this(Arrays.asList(Validate.notNull(generators, "Generator array was null")));
+    }
+
+    /**
+     * Create a new ConcatenatedGenerator.
+     * @param generators Generators to run, in order
+     */
+    public ConcatenatedGenerator(List<? extends Generator<? extends E>> generators) {
+        Validate.noNullElements(Validate.notNull(generators, "Generator list was null"),
+                "Generator list contains a null element at index %d");
+        this.generators = new ArrayList<Generator<? extends E>>(generators);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        for (Generator<? extends E> generator : generators) {
+            generator.run(proc);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ConcatenatedGenerator<?>)) {
+            return false;
+        }
+        return ((ConcatenatedGenerator<?>) obj).generators.equals(generators);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "ConcatenatedGenerator".hashCode();
+        result <<= 2;
+        result ^= generators.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConcatenatedGenerator<" + generators + ">";
+    }
+}
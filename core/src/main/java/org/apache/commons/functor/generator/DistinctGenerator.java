@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.core.Identity;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator passing through the elements of another Generator whose keys
+ * were not seen before, in the order of the wrapped generator. The keys seen
+ * are forgotten at the end of each run.
+ * <p>
+ * In exact mode, the keys seen are kept in an open-addressing hash set, a
+ * single array of references, so the overhead is a few bytes per key rather
+ * than the entry object of a <code>HashSet</code>. Keys must implement
+ * <code>equals</code> and <code>hashCode</code> consistently.
+ * </p>
+ * <p>
+ * In approximate mode, the key of an element is a 64-bit hash, computed by
+ * the caller (e.g. with {@link #hash64(CharSequence)}), and only a Bloom
+ * filter of the hashes is kept, so the memory used is bounded whatever the
+ * number of keys: with the expected number of keys, it takes about
+ * <code>-1.44 * log2(rate)</code> bits per key, up to 16 GB. The filter never
+ * lets a key through twice, but it may drop the first occurrence of a key,
+ * with probability about the false positive rate as long as the number of
+ * keys does not exceed the expected one (nor about 10<sup>10</sup>, where the
+ * maximum size of the filter is reached). Keys of the same hash are taken as
+ * the same key, which puts a floor of about <code>n / 2<sup>64</sup></code>
+ * on the rate after <code>n</code> keys, provided the hashes are well
+ * distributed.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class DistinctGenerator<E> extends BaseGenerator<E> {
+
+    /** The wrapped generator. */
+    private final Generator<? extends E> wrappedGenerator;
+
+    /**
+     * Computes the key of an element; in approximate mode, a
+     * <code>Number</code> holding its 64-bit hash.
+     */
+    private final Function<? super E, ?> keyFunction;
+
+    /** Expected number of keys in approximate mode, or 0 in exact mode. */
+    private final long expectedKeys;
+
+    /** False positive rate in approximate mode. */
+    private final double falsePositiveRate;
+
+    /**
+     * Create a new, exact, DistinctGenerator taking the elements as keys.
+     * @param wrapped Generator to deduplicate
+     */
+    public DistinctGenerator(Generator<? extends E> wrapped) {
+        this(wrapped, Identity.instance());
+    }
+
+    /**
+     * Create a new, exact, DistinctGenerator.
+     * @param wrapped Generator to deduplicate
+     * @param keyFunction computes the key of an element
+     */
+    public DistinctGenerator(Generator<? extends E> wrapped, Function<? super E, ?> keyFunction) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "Generator argument was null");
+        this.keyFunction = Validate.notNull(keyFunction, "Function argument was null");
+        this.expectedKeys = 0;
+        this.falsePositiveRate = 0;
+    }
+
+    /**
+     * Create a new, approximate, DistinctGenerator.
+     * @param wrapped Generator to deduplicate
+     * @param keyHash computes the 64-bit hash of the key of an element
+     * @param expectedKeys expected number of distinct keys
+     * @param falsePositiveRate probability of dropping the first occurrence
+     * of a key, with the expected number of keys
+     */
+    public DistinctGenerator(Generator<? extends E> wrapped, Function<? super E, ? extends Number> keyHash,
+            long expectedKeys, double falsePositiveRate) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "Generator argument was null");
+        this.keyFunction = Validate.notNull(keyHash, "Function argument was null");
+        Validate.isTrue(expectedKeys > 0, "Expected number of keys must be positive: %d", expectedKeys);
+        Validate.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1,
+            "False positive rate must be between 0 and 1: %s", falsePositiveRate);
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final Procedure<? super E> proc) {
+        if (!isApproximate()) {
+            final OpenHashSet seen = new OpenHashSet();
+            wrappedGenerator.run(new StoppableProcedure<E>() {
+                public void run(E obj) {
+                    if (seen.add(keyFunction.evaluate(obj))) {
+                        proc.run(obj);
+                    }
+                }
+
+                public boolean isStopped() {
+                    return stopRequested(proc);
+                }
+            });
+            return;
+        }
+        final BloomFilter seen = new BloomFilter(expectedKeys, falsePositiveRate);
+        wrappedGenerator.run(new StoppableProcedure<E>() {
+            public void run(E obj) {
+                if (seen.add(((Number) keyFunction.evaluate(obj)).longValue())) {
+                    proc.run(obj);
+                }
+            }
+
+            public boolean isStopped() {
+                return stopRequested(proc);
+            }
+        });
+    }
+
+    /**
+     * Learn whether this generator deduplicates approximately.
+     * @return boolean
+     */
+    public boolean isApproximate() {
+        return expectedKeys > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DistinctGenerator<?>)) {
+            return false;
+        }
+        DistinctGenerator<?> other = (DistinctGenerator<?>) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.keyFunction.equals(keyFunction)
+                && other.expectedKeys == expectedKeys
+                && Double.compare(other.falsePositiveRate, falsePositiveRate) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "DistinctGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= keyFunction.hashCode();
+        result <<= 2;
+        result ^= (int) (expectedKeys ^ (expectedKeys >>> 32));
+        result <<= 2;
+        long bits = Double.doubleToLongBits(falsePositiveRate);
+        result ^= (int) (bits ^ (bits >>> 32));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        if (isApproximate()) {
+            return "DistinctGenerator<" + wrappedGenerator + ", " + keyFunction + ", " + expectedKeys + ", "
+                    + falsePositiveRate + ">";
+        }
+        return "DistinctGenerator<" + wrappedGenerator + ", " + keyFunction + ">";
+    }
+
+    /**
+     * Compute a 64-bit hash of a sequence of chars, to use as the key hash of
+     * an approximate DistinctGenerator, e.g. for <code>String</code> keys
+     * (whose 32-bit <code>hashCode()</code> collides too often at the number
+     * of keys approximate mode is meant for).
+     * @param chars to hash
+     * @return long
+     */
+    public static long hash64(CharSequence chars) {
+        Validate.notNull(chars, "CharSequence argument was null");
+        long h = 0xcbf29ce484222325L ^ chars.length();
+        for (int i = 0; i < chars.length(); i++) {
+            h ^= chars.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    /**
+     * Spread the bits of a hash code.
+     * @param hash to spread
+     * @return int
+     */
+    static int mix(int hash) {
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Spread the bits of a 64-bit hash.
+     * @param hash to spread
+     * @return long
+     */
+    static long mix64(long hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Hash set of keys with open addressing and linear probing.
+     */
+    static final class OpenHashSet {
+
+        /** Initial capacity of the table. */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /** Stands for the null key in the table. */
+        private static final Object NULL = new Object();
+
+        /** The table, a power of two long, empty slots being null. */
+        private Object[] table = new Object[INITIAL_CAPACITY];
+
+        /** The number of keys in the set. */
+        private int size;
+
+        /**
+         * Add a key to the set.
+         * @param key to add
+         * @return whether the key was not in the set
+         */
+        boolean add(Object key) {
+            Object k = key == null ? NULL : key;
+            int mask = table.length - 1;
+            int i = mix(k.hashCode()) & mask;
+            for (Object slot = table[i]; slot != null; slot = table[i]) {
+                if (slot.equals(k)) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = k;
+            // keep the load factor at most 3/4
+            if (++size > table.length - (table.length >>> 2)) {
+                grow();
+            }
+            return true;
+        }
+
+        /**
+         * Get the number of keys in the set.
+         * @return int
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Double the capacity of the table.
+         */
+        private void grow() {
+            Object[] old = table;
+            Validate.validState(old.length < 1 << 30, "Too many keys: %d", size);
+            table = new Object[old.length << 1];
+            int mask = table.length - 1;
+            for (Object k : old) {
+                if (k != null) {
+                    int i = mix(k.hashCode()) & mask;
+                    while (table[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = k;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bloom filter of 64-bit key hashes, using double hashing to derive the
+     * positions of a key.
+     */
+    static final class BloomFilter {
+
+        /** Maximum number of words, below the maximum size of an array. */
+        private static final int MAX_WORDS = Integer.MAX_VALUE - 8;
+
+        /** The bits. */
+        private final long[] bits;
+
+        /** The number of bits. */
+        private final long bitCount;
+
+        /** The number of positions of a key. */
+        private final int hashCount;
+
+        /**
+         * Create a new BloomFilter.
+         * @param expectedKeys expected number of keys
+         * @param falsePositiveRate false positive rate with the expected
+         * number of keys
+         */
+        BloomFilter(long expectedKeys, double falsePositiveRate) {
+            this.bits = new long[words(expectedKeys, falsePositiveRate)];
+            this.bitCount = (long) bits.length * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+        }
+
+        /**
+         * Compute the number of words of a filter.
+         * @param expectedKeys expected number of keys
+         * @param falsePositiveRate false positive rate with the expected
+         * number of keys
+         * @return the number of words, at most {@link #MAX_WORDS}
+         */
+        static int words(long expectedKeys, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            double bitCount = -expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2);
+            return (int) Math.max(1, Math.min(Math.ceil(bitCount / Long.SIZE), MAX_WORDS));
+        }
+
+        /**
+         * Add a key to the filter.
+         * @param hash 64-bit hash of the key
+         * @return whether the key was not in the filter
+         */
+        boolean add(long hash) {
+            long h1 = mix64(hash);
+            long h2 = mix64(h1) | 1;
+            long combined = h1;
+            boolean added = false;
+            for (int i = 0; i < hashCount; i++) {
+                long position = (combined & Long.MAX_VALUE) % bitCount;
+                int word = (int) (position >>> 6);
+                long mask = 1L << position;
+                if ((bits[word] & mask) == 0) {
+                    bits[word] |= mask;
+                    added = true;
+                }
+                combined += h2;
+            }
+            return added;
+        }
+
+        /**
+         * Get the number of positions of a key.
+         * @return int
+         */
+        int hashCount() {
+            return hashCount;
+        }
+
+        /**
+         * Get the number of bits.
+         * @return long
+         */
+        long bitCount() {
+            return bitCount;
+        }
+    }
+}
@@ -18,17 +18,17 @@ package org.apache.commons.functor.generator;
 
 import org.apache.commons.functor.Predicate;
 import org.apache.commons.functor.Procedure;
-import org.apache.commons.functor.core.composite.ConditionalProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
  * Generator that filters another Generator by only passing through those elements
- * that are matched by a specified Predicate.
+ * that are matched by a specified Predicate. It can also filter whole
+ * {@link Chunk chunks} of elements in place.
  *
  * @param <E> the type of elements held in this generator.
  * @version $Revision: 1508677 $ $Date: 2013-07-30 19:48:02 -0300 (Tue, 30 Jul 2013) $
  */
-public class FilteredGenerator<E> extends BaseGenerator<E> {
+public class FilteredGenerator<E> extends BaseGenerator<E> implements ChunkedGenerator<E> {
 
     /**
      * A generator can wrap another generator.
@@ -53,8 +53,46 @@ public class FilteredGenerator<E> extends BaseGenerator<E> {
     /**
      * {@inheritDoc}
      */
-    public void run(Procedure<? super E> proc) {
-        getWrappedGenerator().run(new ConditionalProcedure<E>(pred, proc));
+    public void run(final Procedure<? super E> proc) {
+        getWrappedGenerator().run(new StoppableProcedure<E>() {
+            public void run(E obj) {
+                if (pred.test(obj)) {
+                    proc.run(obj);
+                }
+            }
+
+            public boolean isStopped() {
+                return stopRequested(proc);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each chunk of the wrapped generator is compacted in place, so the
+     * chunks handed downstream may hold fewer elements than
+     * <code>chunkSize</code>.
+     */
+    public void runChunks(final Procedure<? super Chunk<E>> proc, int chunkSize) {
+        GeneratorToChunkedAdapter.<E>adapt(getWrappedGenerator()).runChunks(new StoppableProcedure<Chunk<E>>() {
+            public void run(Chunk<E> chunk) {
+                int kept = 0;
+                for (int i = 0, size = chunk.size(); i < size; i++) {
+                    E obj = chunk.get(i);
+                    if (pred.test(obj)) {
+                        chunk.set(kept++, obj);
+                    }
+                }
+                chunk.truncate(kept);
+                if (kept > 0) {
+                    proc.run(chunk);
+                }
+            }
+
+            public boolean isStopped() {
+                return stopRequested(proc);
+            }
+        }, chunkSize);
     }
 
     /**
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator mapping each element of another Generator to a generator of its
+ * own, and generating the elements of those generators in turn. Nothing is
+ * buffered: each inner generator is run as soon as it is created, and a
+ * {@link StoppableProcedure} asking to stop stops both the inner generator and
+ * the wrapped one.
+ *
+ * @param <I> the type of elements held in the wrapped generator.
+ * @param <E> the type of elements held in this generator.
+ */
+public class FlatMappedGenerator<I, E> extends BaseGenerator<E> {
+
+    /**
+     * The wrapped generator.
+     */
+    private final Generator<? extends I> wrappedGenerator;
+
+    /**
+     * The Function creating a generator for each element.
+     */
+    private final Function<? super I, ? extends Generator<? extends E>> func;
+
+    /**
+     * Create a new FlatMappedGenerator.
+     * @param wrapped Generator whose elements are mapped
+     * @param func Function creating a generator for each element; a
+     * <code>null</code> result is treated as an empty generator
+     */
+    public FlatMappedGenerator(Generator<? extends I> wrapped,
+            Function<? super I, ? extends Generator<? extends E>> func) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "Generator argument was null");
+        this.func = Validate.notNull(func, "Function argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final Procedure<? super E> proc) {
+        wrappedGenerator.run(new StoppableProcedure<I>() {
+            public void run(I obj) {
+                Generator<? extends E> inner = func.evaluate(obj);
+                if (inner != null) {
+                    inner.run(proc);
+                }
+            }
+
+            public boolean isStopped() {
+                return stopRequested(proc);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FlatMappedGenerator<?, ?>)) {
+            return false;
+        }
+        FlatMappedGenerator<?, ?> other = (FlatMappedGenerator<?, ?>) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.func.equals(func);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "FlatMappedGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "FlatMappedGenerator<" + wrappedGenerator + ", " + func + ">";
+    }
+}
@@ -21,6 +21,13 @@ import org.apache.commons.functor.Procedure;
 /**
  * The Generator interface defines a number of useful actions applying Procedures
  * to each in a series of argument Objects.
+ * <p>
+ * Generators must honor early termination: if the {@link Procedure} passed to
+ * {@link #run(Procedure)} is a {@link StoppableProcedure}, the generator checks
+ * {@link StoppableProcedure#isStopped()} after each element and returns as soon
+ * as it is <code>true</code>. Generators which wrap other generators pass the
+ * signal on to the procedure they hand to the wrapped generator.
+ * </p>
  *
  * @param <E> the type of elements held in this generator.
  * @version $Revision: 1508708 $ $Date: 2013-07-30 22:52:11 -0300 (Tue, 30 Jul 2013) $
@@ -28,7 +35,8 @@ import org.apache.commons.functor.Procedure;
 public interface Generator<E> {
     /**
      * Generators must implement this method.
-     * @param proc Procedure to run
+     * @param proc Procedure to run; if it is a {@link StoppableProcedure}, the
+     * generator stops as soon as it reports being stopped
      */
     void run(Procedure<? super E> proc);
 
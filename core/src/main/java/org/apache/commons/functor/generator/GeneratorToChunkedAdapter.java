@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Adapts any {@link Generator} to the {@link ChunkedGenerator} interface, by
+ * buffering its elements into a {@link Chunk} which is handed downstream each
+ * time it is full.
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public final class GeneratorToChunkedAdapter<E> extends BaseGenerator<E> implements ChunkedGenerator<E> {
+    // instance variables
+    //-----------------------------------------------------
+
+    /**
+     * The adapted generator.
+     */
+    private final Generator<? extends E> wrapped;
+
+    // constructors
+    //-----------------------------------------------------
+    /**
+     * Create a new GeneratorToChunkedAdapter.
+     * @param wrapped Generator to adapt
+     */
+    public GeneratorToChunkedAdapter(Generator<? extends E> wrapped) {
+        this.wrapped = Validate.notNull(wrapped, "Generator argument was null");
+    }
+
+    // instance methods
+    //-----------------------------------------------------
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        wrapped.run(proc);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runChunks(final Procedure<? super Chunk<E>> proc, int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive: %d", chunkSize);
+        final Chunk<E> chunk = new Chunk<E>(chunkSize);
+        final boolean[] stopped = new boolean[1];
+        wrapped.run(new StoppableProcedure<E>() {
+            public void run(E obj) {
+                chunk.add(obj);
+                if (chunk.isFull()) {
+                    try {
+                        proc.run(chunk);
+                    } finally {
+                        chunk.clear();
+                    }
+                    stopped[0] = stopRequested(proc);
+                }
+            }
+
+            public boolean isStopped() {
+                return stopped[0];
+            }
+        });
+        // hand over the last elements, only if the wrapped generator completed
+        if (!stopped[0] && !chunk.isEmpty()) {
+            try {
+                proc.run(chunk);
+            } finally {
+                chunk.clear();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GeneratorToChunkedAdapter<?>)) {
+            return false;
+        }
+        GeneratorToChunkedAdapter<?> that = (GeneratorToChunkedAdapter<?>) obj;
+        return this.wrapped.equals(that.wrapped);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "GeneratorToChunkedAdapter".hashCode();
+        hash <<= 2;
+        hash ^= wrapped.hashCode();
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "GeneratorToChunkedAdapter<" + wrapped + ">";
+    }
+
+    // static methods
+    //-----------------------------------------------------
+    /**
+     * Adapt a Generator to the ChunkedGenerator interface. A generator which
+     * can already run in chunks is returned as it is.
+     *
+     * @param <E> the type of elements held in this generator.
+     * @param generator to adapt
+     * @return ChunkedGenerator
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ChunkedGenerator<E> adapt(Generator<? extends E> generator) {
+        if (generator instanceof ChunkedGenerator<?>) {
+            // chunks only hold elements of the generator, so this is safe
+            return (ChunkedGenerator<E>) generator;
+        }
+        return null == generator ? null : new GeneratorToChunkedAdapter<E>(generator);
+    }
+
+}
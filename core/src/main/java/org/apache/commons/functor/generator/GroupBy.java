@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.NullaryFunction;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.aggregator.Aggregator;
+import org.apache.commons.functor.core.Identity;
+import org.apache.commons.functor.generator.parallel.ParallelGenerator;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.exception.ContextedRuntimeException;
+
+/**
+ * Function grouping the elements of a generator by key, in a single pass,
+ * and aggregating the values of each group with an {@link Aggregator} of its
+ * own, e.g. computing the mean value per key without first collecting the
+ * values in a <code>Map&lt;K, List&lt;V&gt;&gt;</code>. The result maps each
+ * key to the result of its aggregator.
+ * <p>
+ * At most <code>maxKeys</code> aggregators are live at a time. Once that many
+ * keys are seen, the values of the other keys are spilled, using
+ * serialization, to temporary files partitioned by key hash, and each
+ * partition is aggregated in turn once the generator is done, with the same
+ * budget. Failures to spill are reported as a
+ * <code>ContextedRuntimeException</code>.
+ * </p>
+ * <p>
+ * A {@link ParallelGenerator} can be grouped with
+ * {@link #evaluate(ParallelGenerator, BinaryFunction)}: each part is grouped
+ * in a map of its own, and the maps are merged at the end, combining the
+ * results of the keys seen by several parts.
+ * </p>
+ *
+ * @param <E> the type of elements grouped.
+ * @param <K> the type of keys.
+ * @param <V> the type of values aggregated.
+ */
+public class GroupBy<E, K, V> implements Function<Generator<? extends E>, Map<K, V>> {
+
+    /** Default maximum number of live aggregators. */
+    public static final int DEFAULT_MAX_KEYS = 1 << 16;
+
+    /** Number of bits of the key hash used to pick a partition. */
+    private static final int PARTITION_BITS = 4;
+
+    /** Number of partitions the values are spilled to. */
+    private static final int PARTITIONS = 1 << PARTITION_BITS;
+
+    /**
+     * Number of times the values can be partitioned again, before the bits
+     * of the key hash run out; beyond that the keys are kept in memory.
+     */
+    private static final int MAX_LEVEL = Integer.SIZE / PARTITION_BITS - 1;
+
+    /** Computes the key of an element. */
+    private final Function<? super E, ? extends K> keyFunction;
+
+    /** Computes the value of an element. */
+    private final Function<? super E, ? extends V> valueFunction;
+
+    /** Creates the aggregator of each key. */
+    private final NullaryFunction<? extends Aggregator<V>> aggregatorFactory;
+
+    /** Maximum number of live aggregators. */
+    private final int maxKeys;
+
+    /**
+     * Create a new GroupBy.
+     * @param keyFunction computes the key of an element
+     * @param valueFunction computes the value of an element
+     * @param aggregatorFactory creates the aggregator of each key
+     */
+    public GroupBy(Function<? super E, ? extends K> keyFunction, Function<? super E, ? extends V> valueFunction,
+            NullaryFunction<? extends Aggregator<V>> aggregatorFactory) {
+        this(keyFunction, valueFunction, aggregatorFactory, DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Create a new GroupBy.
+     * @param keyFunction computes the key of an element
+     * @param valueFunction computes the value of an element
+     * @param aggregatorFactory creates the aggregator of each key
+     * @param maxKeys maximum number of live aggregators
+     */
+    public GroupBy(Function<? super E, ? extends K> keyFunction, Function<? super E, ? extends V> valueFunction,
+            NullaryFunction<? extends Aggregator<V>> aggregatorFactory, int maxKeys) {
+        this.keyFunction = Validate.notNull(keyFunction, "Key Function argument was null");
+        this.valueFunction = Validate.notNull(valueFunction, "Value Function argument was null");
+        this.aggregatorFactory = Validate.notNull(aggregatorFactory, "NullaryFunction argument was null");
+        Validate.isTrue(maxKeys > 0, "Maximum number of keys must be positive: %d", maxKeys);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Create a new GroupBy aggregating the elements themselves.
+     * @param <K> the type of keys.
+     * @param <V> the type of elements.
+     * @param keyFunction computes the key of an element
+     * @param aggregatorFactory creates the aggregator of each key
+     * @return GroupBy
+     */
+    public static <K, V> GroupBy<V, K, V> of(Function<? super V, ? extends K> keyFunction,
+            NullaryFunction<? extends Aggregator<V>> aggregatorFactory) {
+        return new GroupBy<V, K, V>(keyFunction, Identity.<V>instance(), aggregatorFactory);
+    }
+
+    /**
+     * Group the elements of a generator.
+     * @param generator to group the elements of
+     * @return map from each key to the result of its aggregator
+     */
+    public Map<K, V> evaluate(Generator<? extends E> generator) {
+        Validate.notNull(generator, "Generator argument was null");
+        Grouping grouping = new Grouping(0);
+        try {
+            generator.run(grouping);
+            return grouping.finish();
+        } finally {
+            grouping.discard();
+        }
+    }
+
+    /**
+     * Group the elements of a parallel generator: each part is grouped in a
+     * map of its own, and the maps are merged in the order of the parts.
+     * @param generator to group the elements of
+     * @param combiner combines the results of a key seen by several parts
+     * @return map from each key to the (combined) result of its aggregators
+     */
+    public Map<K, V> evaluate(ParallelGenerator<? extends E> generator,
+            final BinaryFunction<? super V, ? super V, ? extends V> combiner) {
+        Validate.notNull(generator, "Generator argument was null");
+        Validate.notNull(combiner, "BinaryFunction argument was null");
+        return generator.fold(new NullaryFunction<Partial>() {
+            public Partial evaluate() {
+                return new Partial();
+            }
+        }, new BinaryFunction<Partial, E, Partial>() {
+            public Partial evaluate(Partial partial, E obj) {
+                partial.grouping.run(obj);
+                return partial;
+            }
+        }, new BinaryFunction<Partial, Partial, Partial>() {
+            public Partial evaluate(Partial left, Partial right) {
+                Map<K, V> merged = left.finish();
+                for (Map.Entry<K, V> entry : right.finish().entrySet()) {
+                    K key = entry.getKey();
+                    V value = entry.getValue();
+                    merged.put(key, merged.containsKey(key) ? combiner.evaluate(merged.get(key), value) : value);
+                }
+                return left;
+            }
+        }).finish();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GroupBy<?, ?, ?>)) {
+            return false;
+        }
+        GroupBy<?, ?, ?> other = (GroupBy<?, ?, ?>) obj;
+        return other.keyFunction.equals(keyFunction) && other.valueFunction.equals(valueFunction)
+                && other.aggregatorFactory.equals(aggregatorFactory) && other.maxKeys == maxKeys;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "GroupBy".hashCode();
+        result <<= 2;
+        result ^= keyFunction.hashCode();
+        result <<= 2;
+        result ^= valueFunction.hashCode();
+        result <<= 2;
+        result ^= aggregatorFactory.hashCode();
+        result <<= 2;
+        result ^= maxKeys;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "GroupBy<" + keyFunction + ", " + valueFunction + ", " + aggregatorFactory + ", " + maxKeys + ">";
+    }
+
+    /**
+     * Create the exception reporting a failure to spill.
+     * @param cause of the failure
+     * @return ContextedRuntimeException
+     */
+    private static ContextedRuntimeException failure(IOException cause) {
+        return new ContextedRuntimeException("Unable to spill grouped values", cause);
+    }
+
+    /**
+     * Procedure feeding the elements to the aggregators of their keys, and
+     * spilling the values of the keys beyond the budget.
+     */
+    private final class Grouping implements Procedure<E> {
+
+        /** How many times the values were partitioned. */
+        private final int level;
+
+        /** The live aggregators. */
+        private final Map<K, Aggregator<V>> aggregators = new HashMap<K, Aggregator<V>>();
+
+        /**
+         * The partitions of spilled keys and values, stored alternately, or
+         * null until the budget is exceeded.
+         */
+        private SpillFile<Object>[] partitions;
+
+        /**
+         * Create a new Grouping.
+         * @param level how many times the values were partitioned
+         */
+        Grouping(int level) {
+            this.level = level;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(E obj) {
+            add(keyFunction.evaluate(obj), valueFunction.evaluate(obj));
+        }
+
+        /**
+         * Feed a value to the aggregator of its key, or spill it. Once the
+         * budget is exceeded, no aggregator is added, so the keys spilled
+         * never have a live aggregator.
+         * @param key of the value
+         * @param value to aggregate
+         */
+        void add(K key, V value) {
+            Aggregator<V> aggregator = aggregators.get(key);
+            if (aggregator == null) {
+                if (aggregators.size() >= maxKeys && level < MAX_LEVEL) {
+                    spill(key, value);
+                    return;
+                }
+                aggregator = aggregatorFactory.evaluate();
+                aggregators.put(key, aggregator);
+            }
+            aggregator.add(value);
+        }
+
+        /**
+         * Spill a value to the partition of its key.
+         * @param key of the value
+         * @param value to spill
+         */
+        private void spill(K key, V value) {
+            if (partitions == null) {
+                @SuppressWarnings("unchecked")
+                SpillFile<Object>[] files = (SpillFile<Object>[]) new SpillFile<?>[PARTITIONS];
+                partitions = files;
+            }
+            int hash = key == null ? 0 : key.hashCode();
+            hash ^= (hash >>> 20) ^ (hash >>> 12);
+            hash ^= (hash >>> 7) ^ (hash >>> 4);
+            int index = (hash >>> (level * PARTITION_BITS)) & (PARTITIONS - 1);
+            try {
+                if (partitions[index] == null) {
+                    partitions[index] = new SpillFile<Object>();
+                }
+                partitions[index].write(key);
+                partitions[index].write(value);
+            } catch (IOException e) {
+                throw failure(e);
+            }
+        }
+
+        /**
+         * Evaluate the aggregators, then aggregate each partition in turn.
+         * @return map from each key to the result of its aggregator
+         */
+        @SuppressWarnings("unchecked")
+        Map<K, V> finish() {
+            Map<K, V> result = new HashMap<K, V>();
+            for (Map.Entry<K, Aggregator<V>> entry : aggregators.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().evaluate());
+            }
+            aggregators.clear();
+            if (partitions == null) {
+                return result;
+            }
+            for (int i = 0; i < PARTITIONS; i++) {
+                SpillFile<Object> partition = partitions[i];
+                if (partition == null) {
+                    continue;
+                }
+                Grouping grouping = new Grouping(level + 1);
+                try {
+                    partition.finish();
+                    SpillFile<Object>.Reader reader = partition.open();
+                    try {
+                        while (reader.hasNext()) {
+                            K key = (K) reader.next();
+                            grouping.add(key, (V) reader.next());
+                        }
+                    } finally {
+                        reader.close();
+                    }
+                    partition.delete();
+                    partitions[i] = null;
+                    result.putAll(grouping.finish());
+                } catch (IOException e) {
+                    throw failure(e);
+                } finally {
+                    grouping.discard();
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Delete the partitions left, if any.
+         */
+        void discard() {
+            if (partitions != null) {
+                for (int i = 0; i < PARTITIONS; i++) {
+                    if (partitions[i] != null) {
+                        partitions[i].delete();
+                        partitions[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Partial result of a part of a parallel generator: the grouping of the
+     * part, until it is finished.
+     */
+    private final class Partial {
+
+        /** The grouping of the part. */
+        private final Grouping grouping = new Grouping(0);
+
+        /** The result of the grouping, once finished. */
+        private Map<K, V> result;
+
+        /**
+         * Finish the grouping, if not done yet.
+         * @return map from each key to the result of its aggregator
+         */
+        Map<K, V> finish() {
+            if (result == null) {
+                try {
+                    result = grouping.finish();
+                } finally {
+                    grouping.discard();
+                }
+            }
+            return result;
+        }
+    }
+}
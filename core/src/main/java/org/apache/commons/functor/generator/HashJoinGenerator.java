@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator joining the elements of two generators on equal keys, with a hash
+ * table. Each run first runs the <i>build</i> generator, which should be the
+ * smaller one, gathering its elements in a hash table by key; it then runs the
+ * <i>probe</i> generator, and combines each of its elements with the elements
+ * of the build generator having an equal key (an inner join). Joining two
+ * generators of <code>n</code> and <code>m</code> elements thus takes
+ * <code>O(n + m)</code> time, with the <code>n</code> build elements in
+ * memory.
+ * <p>
+ * The joined elements are generated in the order of the probe generator, the
+ * elements matching a same probe element in the order of the build generator.
+ * Keys are compared with <code>equals</code> and <code>hashCode</code>; a
+ * <code>null</code> key matches nothing.
+ * </p>
+ *
+ * @param <L> the type of elements held in the build generator.
+ * @param <R> the type of elements held in the probe generator.
+ * @param <K> the type of keys.
+ * @param <E> the type of elements held in this generator.
+ */
+public class HashJoinGenerator<L, R, K, E> extends BaseGenerator<E> {
+
+    /** Stands for a <code>null</code> build element in the hash table. */
+    private static final Object NULL = new Object();
+
+    /** The build generator. */
+    private final Generator<? extends L> build;
+
+    /** The probe generator. */
+    private final Generator<? extends R> probe;
+
+    /** Extracts the keys of the build elements. */
+    private final Function<? super L, ? extends K> buildKey;
+
+    /** Extracts the keys of the probe elements. */
+    private final Function<? super R, ? extends K> probeKey;
+
+    /** Combines the matching elements. */
+    private final BinaryFunction<? super L, ? super R, ? extends E> func;
+
+    /**
+     * Create a new HashJoinGenerator.
+     * @param build Generator whose elements are held in the hash table (the
+     * smaller one)
+     * @param probe Generator whose elements are looked up in the hash table
+     * @param buildKey Function extracting the keys of the build elements
+     * @param probeKey Function extracting the keys of the probe elements
+     * @param func BinaryFunction combining a build element and a probe element
+     * with equal keys
+     */
+    public HashJoinGenerator(Generator<? extends L> build, Generator<? extends R> probe,
+            Function<? super L, ? extends K> buildKey, Function<? super R, ? extends K> probeKey,
+            BinaryFunction<? super L, ? super R, ? extends E> func) {
+        this.build = Validate.notNull(build, "Build Generator argument was null");
+        this.probe = Validate.notNull(probe, "Probe Generator argument was null");
+        this.buildKey = Validate.notNull(buildKey, "Build key Function argument was null");
+        this.probeKey = Validate.notNull(probeKey, "Probe key Function argument was null");
+        this.func = Validate.notNull(func, "BinaryFunction argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final Procedure<? super E> proc) {
+        // a key maps to its single element, or to a bucket of its elements
+        final Map<K, Object> table = new HashMap<K, Object>();
+        build.run(new Procedure<L>() {
+            public void run(L obj) {
+                K key = buildKey.evaluate(obj);
+                if (key == null) {
+                    return;
+                }
+                Object value = obj == null ? NULL : obj;
+                Object previous = table.get(key);
+                if (previous == null) {
+                    table.put(key, value);
+                } else if (previous instanceof Bucket) {
+                    ((Bucket) previous).add(value);
+                } else {
+                    Bucket bucket = new Bucket();
+                    bucket.add(previous);
+                    bucket.add(value);
+                    table.put(key, bucket);
+                }
+            }
+        });
+        if (table.isEmpty()) {
+            return;
+        }
+        probe.run(new StoppableProcedure<R>() {
+            private boolean stopped;
+
+            @SuppressWarnings("unchecked")
+            public void run(R obj) {
+                K key = probeKey.evaluate(obj);
+                Object match = key == null ? null : table.get(key);
+                if (match instanceof Bucket) {
+                    for (Object left : (Bucket) match) {
+                        proc.run(func.evaluate(left == NULL ? null : (L) left, obj));
+                        if (stopRequested(proc)) {
+                            stopped = true;
+                            return;
+                        }
+                    }
+                } else if (match != null) {
+                    proc.run(func.evaluate(match == NULL ? null : (L) match, obj));
+                }
+            }
+
+            public boolean isStopped() {
+                return stopped || stopRequested(proc);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof HashJoinGenerator<?, ?, ?, ?>)) {
+            return false;
+        }
+        HashJoinGenerator<?, ?, ?, ?> other = (HashJoinGenerator<?, ?, ?, ?>) obj;
+        return other.build.equals(build) && other.probe.equals(probe) && other.buildKey.equals(buildKey)
+                && other.probeKey.equals(probeKey) && other.func.equals(func);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "HashJoinGenerator".hashCode();
+        result <<= 2;
+        result ^= build.hashCode();
+        result <<= 2;
+        result ^= probe.hashCode();
+        result <<= 2;
+        result ^= buildKey.hashCode();
+        result <<= 2;
+        result ^= probeKey.hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "HashJoinGenerator<" + build + ", " + probe + ", " + buildKey + ", " + probeKey + ", " + func + ">";
+    }
+
+    /**
+     * The build elements sharing a key. A distinct class, so that it cannot be
+     * mistaken for a build element which happens to be a list.
+     */
+    private static final class Bucket extends ArrayList<Object> {
+        /** serialVersionUID declaration. */
+        private static final long serialVersionUID = 1L;
+
+        /** Create a new Bucket. */
+        Bucket() {
+            super(2);
+        }
+    }
+}
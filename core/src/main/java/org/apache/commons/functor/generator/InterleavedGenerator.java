@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.loop.GeneratorToIteratorAdapter;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator taking one element from each of several generators in turn
+ * (round robin), skipping the generators which are exhausted, until all of
+ * them are.
+ * <p>
+ * The elements of each generator are pulled through a
+ * {@link GeneratorToIteratorAdapter}: {@link Iterable} generators (as the
+ * array, list and range generators are) are iterated directly, other ones run
+ * on another thread, handing their elements over through a small bounded
+ * buffer. A {@link StoppableProcedure} asking to stop stops all of them.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class InterleavedGenerator<E> extends BaseGenerator<E> {
+
+    /**
+     * The generators to interleave.
+     */
+    private final List<Generator<? extends E>> generators;
+
+    /**
+     * Create a new InterleavedGenerator.
+     * @param generators Generators to interleave
+     */
+    public InterleavedGenerator(Generator<? extends E>... generators) {
+        this(Arrays.asList(Validate.notNull(generators, "Generator array was null")));
+    }
+
+    /**
+     * Create a new InterleavedGenerator.
+     * @param generators Generators to interleave
+     */
+    public InterleavedGenerator(List<? extends Generator<? extends E>> generators) {
+        Validate.noNullElements(Validate.notNull(generators, "Generator list was null"),
+                "Generator list contains a null element at index %d");
+        this.generators = new ArrayList<Generator<? extends E>>(generators);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        List<GeneratorToIteratorAdapter<E>> active = new ArrayList<GeneratorToIteratorAdapter<E>>();
+        for (Generator<? extends E> generator : generators) {
+            active.add(new GeneratorToIteratorAdapter<E>(generator));
+        }
+        try {
+            while (!active.isEmpty()) {
+                for (int i = 0; i < active.size();) {
+                    GeneratorToIteratorAdapter<E> iter = active.get(i);
+                    if (!iter.hasNext()) {
+                        active.remove(i);
+                        continue;
+                    }
+                    proc.run(iter.next());
+                    if (stopRequested(proc)) {
+                        return;
+                    }
+                    i++;
+                }
+            }
+        } finally {
+            for (GeneratorToIteratorAdapter<E> iter : active) {
+                iter.close();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof InterleavedGenerator<?>)) {
+            return false;
+        }
+        return ((InterleavedGenerator<?>) obj).generators.equals(generators);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "InterleavedGenerator".hashCode();
+        result <<= 2;
+        result ^= generators.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "InterleavedGenerator<" + generators + ">";
+    }
+}
@@ -0,0 +1,708 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.loop.LoopGenerator;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.exception.ContextedRuntimeException;
+
+/**
+ * Generator of the lines of a file, reading the file through memory-mapped
+ * windows rather than through a <code>Reader</code>. Line boundaries are found
+ * in the bytes of the file, and each line is handed to the procedure as a
+ * {@link Line} view over the mapped bytes: no <code>String</code> is created
+ * unless the procedure asks for one, and the bytes of lines made of ASCII
+ * characters are not copied unless the procedure asks for them.
+ * <p>
+ * Lines are terminated by <code>"\n"</code>, <code>"\r\n"</code> or
+ * <code>"\r"</code>, as for <code>BufferedReader.readLine()</code>; the
+ * terminators are not part of the lines. The charset must encode these
+ * terminators, and the other ASCII characters, as single bytes of the same
+ * value (e.g. UTF-8, ISO-8859-1 or US-ASCII).
+ * </p>
+ * <p>
+ * A generator can be restricted to the lines starting in a range of bytes
+ * of the file: the range is then aligned to line boundaries by skipping the
+ * line it starts in the middle of, and completing the line it ends in the
+ * middle of. Generators over adjacent ranges therefore generate each line of
+ * the file exactly once between them, which lets a large file be processed in
+ * parallel (see
+ * {@link org.apache.commons.functor.generator.parallel.FileLineGenerator}).
+ * </p>
+ * <p>
+ * The file is mapped a window of <code>windowSize</code> bytes at a time.
+ * Each window is unmapped as soon as the generator moves on to the next one,
+ * and the file is closed when {@link #run(Procedure)} returns, whether it
+ * reaches the end of the file, is stopped or fails; it does not wait for the
+ * garbage collector. This is safe because the mapped bytes are only reachable
+ * through a {@link Line} while it is valid: a line is invalidated as soon as
+ * the procedure it was passed to returns, and {@link Line#asByteBuffer()}
+ * returns a copy. The generator can be run again (unless it was
+ * {@link #stop() stopped}), reading the file anew.
+ * </p>
+ * <p>
+ * I/O failures are reported as a <code>ContextedRuntimeException</code>
+ * wrapping the <code>IOException</code>.
+ * </p>
+ */
+public class MappedLineGenerator extends LoopGenerator<MappedLineGenerator.Line> {
+
+    /** Default size of the mapped windows: 64 MB. */
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    /** The file to read. */
+    private final File file;
+
+    /** The charset of the file. */
+    private final Charset charset;
+
+    /** Size of the mapped windows. */
+    private final int windowSize;
+
+    /** Position of the first byte of the range of lines to generate. */
+    private final long start;
+
+    /** Position after the last byte of the range of lines to generate. */
+    private final long end;
+
+    /** Whether each byte of the file is the char it encodes (ISO-8859-1). */
+    private final boolean singleByte;
+
+    /** The "sun.misc.Unsafe" instance, or null if unavailable. */
+    private static final Object UNSAFE;
+
+    /** The "invokeCleaner" method of "sun.misc.Unsafe", or null if unavailable. */
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (Exception e) {
+            // before Java 9, or not available: see unmap(MappedByteBuffer)
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Create a new MappedLineGenerator reading a file in the platform's
+     * default charset.
+     * @param file to read
+     */
+    public MappedLineGenerator(File file) {
+        this(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Create a new MappedLineGenerator.
+     * @param file to read
+     * @param charset of the file
+     */
+    public MappedLineGenerator(File file, Charset charset) {
+        this(file, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create a new MappedLineGenerator.
+     * @param file to read
+     * @param charset of the file; must encode ASCII characters as single bytes
+     * @param windowSize size in bytes of the mapped windows; windows are
+     * enlarged as needed to hold a line longer than this
+     */
+    public MappedLineGenerator(File file, Charset charset, int windowSize) {
+        this(file, charset, windowSize, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Create a new MappedLineGenerator generating the lines which start in a
+     * range of bytes of a file.
+     * @param file to read
+     * @param charset of the file; must encode ASCII characters as single bytes
+     * @param windowSize size in bytes of the mapped windows; windows are
+     * enlarged as needed to hold a line longer than this
+     * @param start position of the first byte of the range (inclusive)
+     * @param end position after the last byte of the range (exclusive); may
+     * be past the end of the file
+     */
+    public MappedLineGenerator(File file, Charset charset, int windowSize, long start, long end) {
+        this.file = Validate.notNull(file, "File argument was null");
+        this.charset = Validate.notNull(charset, "Charset argument was null");
+        Validate.isTrue(windowSize > 0, "Window size must be positive: %d", windowSize);
+        Validate.isTrue(isAsciiCompatible(charset), "Charset must encode ASCII characters as single bytes: %s",
+                charset);
+        Validate.isTrue(start >= 0 && start <= end, "Invalid range [%s, %s)", start, end);
+        this.windowSize = windowSize;
+        this.start = start;
+        this.end = end;
+        this.singleByte = "ISO-8859-1".equals(charset.name());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each {@link Line} passed to the procedure is only valid until the
+     * procedure returns; use {@link Line#toString()} to keep its contents.
+     */
+    public void run(Procedure<? super Line> proc) {
+        RandomAccessFile in = open();
+        Cursor cursor = new Cursor();
+        MappedByteBuffer buffer = null;
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            long limit = Math.min(end, size);
+            long bufferStart = 0;
+            long bufferEnd = 0;
+            // starting before the range, the first "line" found is the end of
+            // the line the range starts in, or is empty if the range starts a line
+            boolean skip = start > 0;
+            long pos = skip ? start - 1 : start;
+            while (pos < limit && !isStopped()) {
+                if (buffer == null || pos >= bufferEnd) {
+                    unmap(buffer);
+                    buffer = null;
+                    bufferStart = pos;
+                    bufferEnd = pos + Math.min(size - pos, windowSize);
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, bufferStart, bufferEnd - bufferStart);
+                }
+                int first = (int) (pos - bufferStart);
+                int length = buffer.limit();
+                int last = first;
+                while (last < length && !isTerminator(buffer.get(last))) {
+                    last++;
+                }
+                int next;
+                if (last == length || (last == length - 1 && buffer.get(last) == '\r')) {
+                    if (bufferEnd < size) {
+                        // the line (or its "\r\n" terminator) continues past the window
+                        long mapped = bufferEnd - bufferStart;
+                        if (bufferStart == pos) {
+                            if (mapped == Integer.MAX_VALUE) {
+                                throw new IllegalStateException("Line at position " + pos + " of " + file
+                                        + " is longer than " + Integer.MAX_VALUE + " bytes");
+                            }
+                            mapped = Math.min(2 * mapped, Integer.MAX_VALUE);
+                        }
+                        unmap(buffer);
+                        buffer = null;
+                        bufferStart = pos;
+                        bufferEnd = pos + Math.min(size - pos, mapped);
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, bufferStart, bufferEnd - bufferStart);
+                        continue;
+                    }
+                    next = Math.min(last + 1, length);
+                } else {
+                    next = last + 1;
+                    if (buffer.get(last) == '\r' && buffer.get(next) == '\n') {
+                        next++;
+                    }
+                }
+                pos = bufferStart + next;
+                if (skip) {
+                    skip = false;
+                    continue;
+                }
+                try {
+                    proc.run(new Line(this, cursor, buffer, first, last - first, bufferStart + first));
+                } finally {
+                    cursor.generation++;
+                }
+                if (stopRequested(proc)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new ContextedRuntimeException("Unable to read lines", e).addContextValue("file", file);
+        } finally {
+            unmap(buffer);
+            close(in);
+        }
+    }
+
+    /**
+     * Unmap a buffer right away, rather than when it is garbage collected. If
+     * the JVM offers no way to do so, the buffer is left to the garbage
+     * collector. The buffer must not be accessed afterwards.
+     * @param buffer to unmap, may be <code>null</code>
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (Exception e) {
+            // left to the garbage collector
+            return;
+        }
+    }
+
+    /**
+     * Open the file.
+     * @return RandomAccessFile
+     */
+    private RandomAccessFile open() {
+        try {
+            return new RandomAccessFile(file, "r");
+        } catch (IOException e) {
+            throw new ContextedRuntimeException("Unable to open file", e).addContextValue("file", file);
+        }
+    }
+
+    /**
+     * Close the file.
+     * @param in file to close
+     */
+    private void close(RandomAccessFile in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new ContextedRuntimeException("Unable to close file", e).addContextValue("file", file);
+        }
+    }
+
+    /**
+     * Get the file read by this generator.
+     * @return File
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Get the charset of the file.
+     * @return Charset
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Get the size of the mapped windows.
+     * @return int
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Get the position of the first byte of the range of lines generated.
+     * @return long
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Get the position after the last byte of the range of lines generated.
+     * @return long, <code>Long.MAX_VALUE</code> for the end of the file
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof MappedLineGenerator)) {
+            return false;
+        }
+        MappedLineGenerator other = (MappedLineGenerator) obj;
+        return other.file.equals(file) && other.charset.equals(charset) && other.windowSize == windowSize
+                && other.start == start && other.end == end;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "MappedLineGenerator".hashCode();
+        result <<= 2;
+        result ^= file.hashCode();
+        result <<= 2;
+        result ^= charset.hashCode();
+        result <<= 2;
+        result ^= windowSize;
+        result <<= 2;
+        result ^= (int) (start ^ (start >>> 32));
+        result <<= 2;
+        result ^= (int) (end ^ (end >>> 32));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "MappedLineGenerator<" + file + ", " + charset + ", [" + start + ", " + end + ")>";
+    }
+
+    /**
+     * Learn whether a byte terminates a line.
+     * @param b byte to test
+     * @return <code>true</code> for <code>'\n'</code> and <code>'\r'</code>
+     */
+    static boolean isTerminator(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Learn whether a charset encodes each ASCII character as the single byte
+     * of the same value.
+     * @param charset to test
+     * @return boolean
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        byte[] ascii = new byte[0x80];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        try {
+            return Arrays.equals(ascii, new String(ascii, "ISO-8859-1").getBytes(charset.name()));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * State shared by the lines of a run: the number of lines passed to the
+     * procedure so far, which tells the current line from the earlier ones,
+     * and the buffers reused to decode the lines.
+     */
+    private static final class Cursor {
+
+        /** Number of lines whose procedure returned. */
+        private long generation;
+
+        /** Decoded chars, or chars of the String being created. */
+        private char[] chars = new char[0];
+
+        /** The decoder, created when first needed. */
+        private CharsetDecoder decoder;
+    }
+
+    /**
+     * A line of a file, as a view over the mapped bytes of the file. The view
+     * is only valid while it is passed to the procedure; accessing it
+     * afterwards, even while a later line is passed to the procedure, throws
+     * an <code>IllegalStateException</code>.
+     * <p>
+     * As a <code>CharSequence</code>, the line holds the chars its bytes
+     * decode to in the charset of the file. Lines made of ASCII characters (or
+     * any line, for ISO-8859-1 files) are read directly from the mapped bytes;
+     * other lines are decoded once, into a char array reused across lines, the
+     * first time their chars are accessed. The bytes themselves can be
+     * accessed without decoding with {@link #byteLength()},
+     * {@link #byteAt(int)}, {@link #copyBytes(byte[], int)} and
+     * {@link #asByteBuffer()}.
+     * </p>
+     */
+    public static final class Line implements CharSequence {
+
+        /** Not decoded yet. */
+        private static final int UNKNOWN = 0;
+
+        /** Each byte is a char. */
+        private static final int DIRECT = 1;
+
+        /** Decoded into the char array. */
+        private static final int DECODED = 2;
+
+        /** The generator of this line. */
+        private final MappedLineGenerator generator;
+
+        /** The state shared by the lines of the run. */
+        private final Cursor cursor;
+
+        /** The generation of the cursor while this line is valid. */
+        private final long generation;
+
+        /** The mapped bytes. */
+        private final ByteBuffer buffer;
+
+        /** Offset of the line in the buffer. */
+        private final int offset;
+
+        /** Number of bytes of the line. */
+        private final int byteLength;
+
+        /** Position of the line in the file. */
+        private final long position;
+
+        /** How the chars of the line are read. */
+        private int mode;
+
+        /** Number of decoded chars. */
+        private int charLength;
+
+        /**
+         * Create a new Line.
+         * @param generator generator of the line
+         * @param cursor state shared by the lines of the run
+         * @param buffer mapped bytes
+         * @param offset of the line in the buffer
+         * @param byteLength number of bytes of the line
+         * @param position of the line in the file
+         */
+        private Line(MappedLineGenerator generator, Cursor cursor, ByteBuffer buffer, int offset, int byteLength,
+                long position) {
+            this.generator = generator;
+            this.cursor = cursor;
+            this.generation = cursor.generation;
+            this.buffer = buffer;
+            this.offset = offset;
+            this.byteLength = byteLength;
+            this.position = position;
+            this.mode = UNKNOWN;
+        }
+
+        /**
+         * Get the position of the first byte of this line in the file.
+         * @return long
+         */
+        public long getPosition() {
+            checkValid();
+            return position;
+        }
+
+        /**
+         * Get the number of bytes of this line, its terminator excluded.
+         * @return int
+         */
+        public int byteLength() {
+            checkValid();
+            return byteLength;
+        }
+
+        /**
+         * Get a byte of this line.
+         * @param index of the byte
+         * @return byte
+         */
+        public byte byteAt(int index) {
+            checkValid();
+            checkIndex(index, byteLength);
+            return buffer.get(offset + index);
+        }
+
+        /**
+         * Copy the bytes of this line to an array.
+         * @param dst array to copy the bytes to
+         * @param dstOffset index in <code>dst</code> of the first byte copied
+         */
+        public void copyBytes(byte[] dst, int dstOffset) {
+            checkValid();
+            if (dstOffset < 0 || dstOffset > dst.length - byteLength) {
+                throw new IndexOutOfBoundsException("Cannot copy " + byteLength + " bytes at offset " + dstOffset
+                        + " of an array of length " + dst.length);
+            }
+            for (int i = 0; i < byteLength; i++) {
+                dst[dstOffset + i] = buffer.get(offset + i);
+            }
+        }
+
+        /**
+         * Get a buffer holding a copy of the bytes of this line. Unlike this
+         * line, the buffer stays valid once the procedure returns, the
+         * window of the file it was read from being unmapped.
+         * @return ByteBuffer
+         */
+        public ByteBuffer asByteBuffer() {
+            checkValid();
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.limit(offset + byteLength).position(offset);
+            ByteBuffer result = ByteBuffer.allocate(byteLength);
+            result.put(bytes);
+            result.flip();
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int length() {
+            decode();
+            return mode == DIRECT ? byteLength : charLength;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public char charAt(int index) {
+            decode();
+            if (mode == DIRECT) {
+                checkIndex(index, byteLength);
+                return (char) (buffer.get(offset + index) & 0xFF);
+            }
+            checkIndex(index, charLength);
+            return cursor.chars[index];
+        }
+
+        /**
+         * {@inheritDoc}
+         * The subsequence is a <code>String</code>, which stays valid after
+         * this line is not.
+         */
+        public CharSequence subSequence(int start, int end) {
+            int length = length();
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") for length "
+                        + length);
+            }
+            return chars(start, end);
+        }
+
+        /**
+         * Get the contents of this line as a String.
+         * @return String
+         */
+        @Override
+        public String toString() {
+            return chars(0, length());
+        }
+
+        /**
+         * Create a String of some of the chars of this line.
+         * @param start index of the first char
+         * @param end index after the last char
+         * @return String
+         */
+        private String chars(int start, int end) {
+            if (mode == DIRECT) {
+                char[] chars = ensureCapacity(end - start);
+                for (int i = start; i < end; i++) {
+                    chars[i - start] = (char) (buffer.get(offset + i) & 0xFF);
+                }
+                return new String(chars, 0, end - start);
+            }
+            return new String(cursor.chars, start, end - start);
+        }
+
+        /**
+         * Find how the chars of this line are read, decoding them if needed.
+         */
+        private void decode() {
+            checkValid();
+            if (mode != UNKNOWN) {
+                return;
+            }
+            if (generator.singleByte || isAscii()) {
+                mode = DIRECT;
+                return;
+            }
+            if (cursor.decoder == null) {
+                cursor.decoder = generator.charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            CharsetDecoder decoder = cursor.decoder;
+            char[] chars = ensureCapacity((int) Math.ceil(byteLength * (double) decoder.maxCharsPerByte()));
+            ByteBuffer in = buffer.duplicate();
+            in.limit(offset + byteLength).position(offset);
+            CharBuffer out = CharBuffer.wrap(chars);
+            decoder.reset();
+            decoder.decode(in, out, true);
+            decoder.flush(out);
+            charLength = out.position();
+            mode = DECODED;
+        }
+
+        /**
+         * Learn whether all the bytes of this line are ASCII characters.
+         * @return boolean
+         */
+        private boolean isAscii() {
+            for (int i = offset, end = offset + byteLength; i < end; i++) {
+                if (buffer.get(i) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Make sure the char array holds at least <code>capacity</code> chars.
+         * @param capacity needed
+         * @return the char array
+         */
+        private char[] ensureCapacity(int capacity) {
+            if (cursor.chars.length < capacity) {
+                cursor.chars = new char[Math.max(capacity, 2 * cursor.chars.length)];
+            }
+            return cursor.chars;
+        }
+
+        /**
+         * Check that this line may still be accessed.
+         */
+        private void checkValid() {
+            if (cursor.generation != generation) {
+                throw new IllegalStateException("Line accessed outside of the procedure it was passed to");
+            }
+        }
+
+        /**
+         * Check an index.
+         * @param index to check
+         * @param length bound of the index
+         */
+        private static void checkIndex(int index, int length) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + length);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.loop.GeneratorToIteratorAdapter;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator joining the elements of two generators on equal keys, both
+ * generators generating their elements sorted by key (a sort-merge join).
+ * The generators are streamed side by side, and each element of the left
+ * generator is combined with the elements of the right generator having an
+ * equal key (an inner join). Only the right elements sharing the current key
+ * are held in memory, which makes this join suited to generators too large
+ * for a {@link HashJoinGenerator}; a {@link SortedGenerator} can sort them
+ * beforehand.
+ * <p>
+ * The left generator is run on the calling thread while the elements of the
+ * right one are pulled through a {@link GeneratorToIteratorAdapter}: if the
+ * right generator is {@link Iterable} (as the array, list and range
+ * generators are), it is iterated directly; otherwise it runs on another
+ * thread, handing its elements over through a small bounded buffer. The
+ * joined elements are generated in the order of the left generator, the
+ * elements matching a same left element in the order of the right generator.
+ * Both generators stop as soon as no more match is possible.
+ * </p>
+ * <p>
+ * The generators must be sorted by key with the Comparator: this is not
+ * checked, and matches are missed if they are not.
+ * </p>
+ *
+ * @param <L> the type of elements held in the left generator.
+ * @param <R> the type of elements held in the right generator.
+ * @param <K> the type of keys.
+ * @param <E> the type of elements held in this generator.
+ */
+public class MergeJoinGenerator<L, R, K, E> extends BaseGenerator<E> {
+
+    /** The left generator. */
+    private final Generator<? extends L> left;
+
+    /** The right generator. */
+    private final Generator<? extends R> right;
+
+    /** Extracts the keys of the left elements. */
+    private final Function<? super L, ? extends K> leftKey;
+
+    /** Extracts the keys of the right elements. */
+    private final Function<? super R, ? extends K> rightKey;
+
+    /** The comparator ordering the keys. */
+    private final Comparator<? super K> comparator;
+
+    /** Combines the matching elements. */
+    private final BinaryFunction<? super L, ? super R, ? extends E> func;
+
+    /**
+     * Create a new MergeJoinGenerator.
+     * @param left Generator sorted by key
+     * @param right Generator sorted by key
+     * @param leftKey Function extracting the keys of the left elements
+     * @param rightKey Function extracting the keys of the right elements
+     * @param comparator by which the keys are sorted
+     * @param func BinaryFunction combining a left element and a right element
+     * with equal keys
+     */
+    public MergeJoinGenerator(Generator<? extends L> left, Generator<? extends R> right,
+            Function<? super L, ? extends K> leftKey, Function<? super R, ? extends K> rightKey,
+            Comparator<? super K> comparator, BinaryFunction<? super L, ? super R, ? extends E> func) {
+        this.left = Validate.notNull(left, "Left Generator argument was null");
+        this.right = Validate.notNull(right, "Right Generator argument was null");
+        this.leftKey = Validate.notNull(leftKey, "Left key Function argument was null");
+        this.rightKey = Validate.notNull(rightKey, "Right key Function argument was null");
+        this.comparator = Validate.notNull(comparator, "Comparator argument was null");
+        this.func = Validate.notNull(func, "BinaryFunction argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final Procedure<? super E> proc) {
+        final GeneratorToIteratorAdapter<R> rights = new GeneratorToIteratorAdapter<R>(right);
+        try {
+            left.run(new StoppableProcedure<L>() {
+                /** The right elements with key <code>groupKey</code>. */
+                private final List<R> group = new ArrayList<R>();
+
+                /** The key of the right elements in <code>group</code>. */
+                private K groupKey;
+
+                /** The next right element, not in the group yet. */
+                private R pending;
+
+                /** The key of <code>pending</code>. */
+                private K pendingKey;
+
+                /** Whether <code>pending</code> holds an element. */
+                private boolean hasPending = advance();
+
+                /** Whether no more match is possible, or the procedure asked to stop. */
+                private boolean done = !hasPending;
+
+                public void run(L obj) {
+                    K key = leftKey.evaluate(obj);
+                    if (group.isEmpty() || comparator.compare(key, groupKey) != 0) {
+                        group.clear();
+                        while (hasPending && comparator.compare(pendingKey, key) < 0) {
+                            advance();
+                        }
+                        if (!hasPending) {
+                            done = true;
+                            return;
+                        }
+                        if (comparator.compare(pendingKey, key) > 0) {
+                            return;
+                        }
+                        groupKey = pendingKey;
+                        do {
+                            group.add(pending);
+                        } while (advance() && comparator.compare(pendingKey, groupKey) == 0);
+                    }
+                    for (R match : group) {
+                        proc.run(func.evaluate(obj, match));
+                        if (stopRequested(proc)) {
+                            done = true;
+                            return;
+                        }
+                    }
+                }
+
+                /**
+                 * Move to the next right element.
+                 * @return <code>hasPending</code>
+                 */
+                private boolean advance() {
+                    hasPending = rights.hasNext();
+                    if (hasPending) {
+                        pending = rights.next();
+                        pendingKey = rightKey.evaluate(pending);
+                    } else {
+                        pending = null;
+                        pendingKey = null;
+                    }
+                    return hasPending;
+                }
+
+                public boolean isStopped() {
+                    return done || stopRequested(proc);
+                }
+            });
+        } finally {
+            rights.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof MergeJoinGenerator<?, ?, ?, ?>)) {
+            return false;
+        }
+        MergeJoinGenerator<?, ?, ?, ?> other = (MergeJoinGenerator<?, ?, ?, ?>) obj;
+        return other.left.equals(left) && other.right.equals(right) && other.leftKey.equals(leftKey)
+                && other.rightKey.equals(rightKey) && other.comparator.equals(comparator) && other.func.equals(func);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "MergeJoinGenerator".hashCode();
+        result <<= 2;
+        result ^= left.hashCode();
+        result <<= 2;
+        result ^= right.hashCode();
+        result <<= 2;
+        result ^= leftKey.hashCode();
+        result <<= 2;
+        result ^= rightKey.hashCode();
+        result <<= 2;
+        result ^= comparator.hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "MergeJoinGenerator<" + left + ", " + right + ", " + leftKey + ", " + rightKey + ", " + comparator
+                + ", " + func + ">";
+    }
+}
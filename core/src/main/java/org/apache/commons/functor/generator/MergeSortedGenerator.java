@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.loop.GeneratorToIteratorAdapter;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator merging several generators, each generating its elements sorted
+ * by a Comparator, into a single sorted generator. The merge is streamed: a
+ * heap holds the current element of each generator, and nothing else is
+ * buffered beyond what pulling the elements of the generators requires.
+ * <p>
+ * The elements of each generator are pulled through a
+ * {@link GeneratorToIteratorAdapter}: {@link Iterable} generators (as the
+ * array, list and range generators are) are iterated directly, other ones run
+ * on another thread each, handing their elements over through a small bounded
+ * buffer. Equal elements are generated in the order of their generators, so
+ * the merge is stable.
+ * </p>
+ * <p>
+ * Optionally, equal elements (for the Comparator) can be combined into a
+ * single element with a BinaryFunction, which is called with the element
+ * combined so far and the next equal element. To drop duplicates, keep the
+ * first one of them with
+ * {@link org.apache.commons.functor.core.LeftIdentity#function()}.
+ * </p>
+ * <p>
+ * The generators must be sorted: this is not checked, and the result of
+ * merging unsorted generators is not sorted either.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class MergeSortedGenerator<E> extends BaseGenerator<E> {
+
+    /** The comparator ordering the elements. */
+    private final Comparator<? super E> comparator;
+
+    /** The generators to merge. */
+    private final List<Generator<? extends E>> generators;
+
+    /** Combines equal elements, or null to keep them all. */
+    private final BinaryFunction<? super E, ? super E, ? extends E> combiner;
+
+    /**
+     * Create a new MergeSortedGenerator.
+     * @param comparator by which the generators are sorted
+     * @param generators sorted generators to merge
+     */
+    public MergeSortedGenerator(Comparator<? super E> comparator, Generator<? extends E>... generators) {
+        this(comparator, Arrays.asList(Validate.notNull(generators, "Generator array was null")));
+    }
+
+    /**
+     * Create a new MergeSortedGenerator.
+     * @param comparator by which the generators are sorted
+     * @param generators sorted generators to merge
+     */
+    public MergeSortedGenerator(Comparator<? super E> comparator, List<? extends Generator<? extends E>> generators) {
+        this(comparator, generators, null);
+    }
+
+    /**
+     * Create a new MergeSortedGenerator combining equal elements.
+     * @param comparator by which the generators are sorted
+     * @param generators sorted generators to merge
+     * @param combiner BinaryFunction combining equal elements, or
+     * <code>null</code> to keep them all
+     */
+    public MergeSortedGenerator(Comparator<? super E> comparator, List<? extends Generator<? extends E>> generators,
+            BinaryFunction<? super E, ? super E, ? extends E> combiner) {
+        this.comparator = Validate.notNull(comparator, "Comparator argument was null");
+        Validate.noNullElements(Validate.notNull(generators, "Generator list was null"),
+                "Generator list contains a null element at index %d");
+        this.generators = new ArrayList<Generator<? extends E>>(generators);
+        this.combiner = combiner;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        List<GeneratorToIteratorAdapter<E>> sources = new ArrayList<GeneratorToIteratorAdapter<E>>();
+        try {
+            for (Generator<? extends E> generator : generators) {
+                sources.add(new GeneratorToIteratorAdapter<E>(generator));
+            }
+            merge(sources, comparator, combiner, proc);
+        } finally {
+            for (GeneratorToIteratorAdapter<E> source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Merge sorted sources, passing their elements to a procedure in order.
+     * Equal elements are passed in the order of their sources, or combined.
+     * @param <E> the type of elements.
+     * @param sources sorted sources
+     * @param comparator by which the sources are sorted
+     * @param combiner BinaryFunction combining equal elements, or
+     * <code>null</code> to keep them all
+     * @param proc procedure to run
+     */
+    static <E> void merge(List<? extends Iterator<? extends E>> sources, final Comparator<? super E> comparator,
+            BinaryFunction<? super E, ? super E, ? extends E> combiner, Procedure<? super E> proc) {
+        PriorityQueue<Head<E>> heads = new PriorityQueue<Head<E>>(Math.max(1, sources.size()),
+                new Comparator<Head<E>>() {
+                    public int compare(Head<E> left, Head<E> right) {
+                        int result = comparator.compare(left.value, right.value);
+                        return result != 0 ? result : left.index - right.index;
+                    }
+                });
+        for (int i = 0; i < sources.size(); i++) {
+            Iterator<? extends E> source = sources.get(i);
+            if (source.hasNext()) {
+                heads.add(new Head<E>(source, i));
+            }
+        }
+        while (!heads.isEmpty()) {
+            Head<E> head = heads.poll();
+            E value = head.value;
+            if (head.advance()) {
+                heads.add(head);
+            }
+            if (combiner != null) {
+                while (!heads.isEmpty() && comparator.compare(heads.peek().value, value) == 0) {
+                    Head<E> equal = heads.poll();
+                    value = combiner.evaluate(value, equal.value);
+                    if (equal.advance()) {
+                        heads.add(equal);
+                    }
+                }
+            }
+            proc.run(value);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof MergeSortedGenerator<?>)) {
+            return false;
+        }
+        MergeSortedGenerator<?> other = (MergeSortedGenerator<?>) obj;
+        return other.comparator.equals(comparator) && other.generators.equals(generators)
+                && (other.combiner == null ? combiner == null : other.combiner.equals(combiner));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "MergeSortedGenerator".hashCode();
+        result <<= 2;
+        result ^= comparator.hashCode();
+        result <<= 2;
+        result ^= generators.hashCode();
+        if (combiner != null) {
+            result <<= 2;
+            result ^= combiner.hashCode();
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "MergeSortedGenerator<" + comparator + ", " + generators + ", " + combiner + ">";
+    }
+
+    /**
+     * The current element of a source being merged.
+     * @param <E> the type of elements.
+     */
+    private static final class Head<E> {
+        /** The source. */
+        private final Iterator<? extends E> source;
+
+        /** The index of the source, breaking ties. */
+        private final int index;
+
+        /** The current element. */
+        private E value;
+
+        /**
+         * Create a new Head at the first element of a non-empty source.
+         * @param source of the elements
+         * @param index of the source
+         */
+        Head(Iterator<? extends E> source, int index) {
+            this.source = source;
+            this.index = index;
+            this.value = source.next();
+        }
+
+        /**
+         * Move to the next element of the source.
+         * @return <code>false</code> if the source is exhausted
+         */
+        boolean advance() {
+            if (!source.hasNext()) {
+                return false;
+            }
+            value = source.next();
+            return true;
+        }
+    }
+}
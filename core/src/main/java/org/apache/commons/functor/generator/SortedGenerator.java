@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.exception.ContextedRuntimeException;
+
+/**
+ * Generator generating the elements of another Generator sorted with a
+ * Comparator, in memory when they fit and on disk otherwise (external sort).
+ * <p>
+ * The elements are gathered in memory, up to <code>maxElements</code> of
+ * them. When they do not all fit, each full batch is sorted and written to a
+ * temporary file (a <i>run</i>), using serialization, so the elements must
+ * then be <code>Serializable</code>. The runs, and the last batch still in
+ * memory, are then merged on the fly (as by a {@link MergeSortedGenerator}) while the sorted elements are passed to
+ * the procedure. At most <code>maxFanIn</code> runs are read at once; when
+ * there are more, groups of runs are first merged into longer runs.
+ * </p>
+ * <p>
+ * The sort is stable: equal elements are generated in the order the wrapped
+ * generator generated them. The temporary files are deleted when
+ * {@link #run(Procedure)} returns, however it returns. Failures to write or
+ * read them are reported as a <code>ContextedRuntimeException</code>.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class SortedGenerator<E> extends BaseGenerator<E> {
+
+    /** Default maximum number of elements held in memory. */
+    public static final int DEFAULT_MAX_ELEMENTS = 1 << 20;
+
+    /** Default maximum number of runs merged at once. */
+    public static final int DEFAULT_MAX_FAN_IN = 64;
+
+    /** The wrapped generator. */
+    private final Generator<? extends E> wrappedGenerator;
+
+    /** The comparator ordering the elements. */
+    private final Comparator<? super E> comparator;
+
+    /** Maximum number of elements held in memory. */
+    private final int maxElements;
+
+    /** Maximum number of runs merged at once. */
+    private final int maxFanIn;
+
+    /**
+     * Create a new SortedGenerator holding up to
+     * {@link #DEFAULT_MAX_ELEMENTS} elements in memory.
+     * @param wrapped Generator whose elements to sort
+     * @param comparator ordering the elements
+     */
+    public SortedGenerator(Generator<? extends E> wrapped, Comparator<? super E> comparator) {
+        this(wrapped, comparator, DEFAULT_MAX_ELEMENTS);
+    }
+
+    /**
+     * Create a new SortedGenerator.
+     * @param wrapped Generator whose elements to sort
+     * @param comparator ordering the elements
+     * @param maxElements maximum number of elements held in memory
+     */
+    public SortedGenerator(Generator<? extends E> wrapped, Comparator<? super E> comparator, int maxElements) {
+        this(wrapped, comparator, maxElements, DEFAULT_MAX_FAN_IN);
+    }
+
+    /**
+     * Create a new SortedGenerator.
+     * @param wrapped Generator whose elements to sort
+     * @param comparator ordering the elements
+     * @param maxElements maximum number of elements held in memory
+     * @param maxFanIn maximum number of runs merged at once
+     */
+    public SortedGenerator(Generator<? extends E> wrapped, Comparator<? super E> comparator, int maxElements,
+            int maxFanIn) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "Generator argument was null");
+        this.comparator = Validate.notNull(comparator, "Comparator argument was null");
+        Validate.isTrue(maxElements > 0, "Maximum number of elements must be positive: %d", maxElements);
+        Validate.isTrue(maxFanIn > 1, "Maximum fan-in must be greater than one: %d", maxFanIn);
+        this.maxElements = maxElements;
+        this.maxFanIn = maxFanIn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        RunWriter writer = new RunWriter();
+        try {
+            wrappedGenerator.run(writer);
+            writer.sort();
+            if (writer.runs.isEmpty()) {
+                for (int i = 0; i < writer.size; i++) {
+                    proc.run(writer.buffer[i]);
+                    if (stopRequested(proc)) {
+                        break;
+                    }
+                }
+                return;
+            }
+            while (writer.runs.size() > maxFanIn) {
+                // merge consecutive groups of runs, keeping the runs in order for stability
+                List<SpillFile<E>> runs = writer.runs;
+                List<SpillFile<E>> merged = new ArrayList<SpillFile<E>>();
+                try {
+                    for (int i = 0; i < runs.size(); i += maxFanIn) {
+                        mergeRuns(runs.subList(i, Math.min(i + maxFanIn, runs.size())), merged);
+                    }
+                } finally {
+                    for (SpillFile<E> run : runs) {
+                        run.delete();
+                    }
+                    writer.runs = merged;
+                }
+            }
+            merge(readers(writer.runs, writer.buffer, writer.size), proc);
+        } finally {
+            for (SpillFile<E> run : writer.runs) {
+                run.delete();
+            }
+        }
+    }
+
+    /**
+     * Merge runs into a new run.
+     * @param runs to merge
+     * @param merged list to add the new run to
+     */
+    private void mergeRuns(List<SpillFile<E>> runs, List<SpillFile<E>> merged) {
+        final SpillFile<E> result = newRun();
+        merged.add(result);
+        merge(readers(runs, null, 0), new Procedure<E>() {
+            public void run(E obj) {
+                try {
+                    result.write(obj);
+                } catch (IOException e) {
+                    throw failure(e);
+                }
+            }
+        });
+        finish(result);
+    }
+
+    /**
+     * Create the sources of a merge.
+     * @param runs the runs to merge
+     * @param buffer elements held in memory, to merge after the runs, or null
+     * @param size number of elements in <code>buffer</code>
+     * @return the sources, in the order of the runs
+     */
+    private List<Iterator<E>> readers(List<SpillFile<E>> runs, E[] buffer, int size) {
+        List<Iterator<E>> result = new ArrayList<Iterator<E>>(runs.size() + 1);
+        for (SpillFile<E> run : runs) {
+            result.add(run.open());
+        }
+        if (buffer != null) {
+            result.add(Arrays.asList(buffer).subList(0, size).iterator());
+        }
+        return result;
+    }
+
+    /**
+     * Merge sorted sources, passing their elements to a procedure in order.
+     * Equal elements are passed in the order of their sources. The sources are
+     * closed when done.
+     * @param sources sorted sources
+     * @param proc procedure to run
+     */
+    private void merge(List<Iterator<E>> sources, Procedure<? super E> proc) {
+        try {
+            MergeSortedGenerator.merge(sources, comparator, null, proc);
+        } finally {
+            for (Iterator<E> source : sources) {
+                if (source instanceof SpillFile<?>.Reader) {
+                    ((SpillFile<?>.Reader) source).close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a new run.
+     * @return SpillFile
+     */
+    private SpillFile<E> newRun() {
+        try {
+            return new SpillFile<E>();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Finish writing a run.
+     * @param run to finish
+     */
+    private void finish(SpillFile<E> run) {
+        try {
+            run.finish();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Create the exception reporting a failure to write a run.
+     * @param cause of the failure
+     * @return ContextedRuntimeException
+     */
+    private static ContextedRuntimeException failure(IOException cause) {
+        return new ContextedRuntimeException("Unable to spill sorted run", cause);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof SortedGenerator<?>)) {
+            return false;
+        }
+        SortedGenerator<?> other = (SortedGenerator<?>) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.comparator.equals(comparator)
+                && other.maxElements == maxElements && other.maxFanIn == maxFanIn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "SortedGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= comparator.hashCode();
+        result <<= 2;
+        result ^= maxElements;
+        result <<= 2;
+        result ^= maxFanIn;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "SortedGenerator<" + wrappedGenerator + ", " + comparator + ", " + maxElements + ">";
+    }
+
+    /**
+     * Procedure gathering the elements in memory, and writing sorted runs when
+     * the memory is full.
+     */
+    private final class RunWriter implements Procedure<E> {
+
+        /** The runs written. */
+        private List<SpillFile<E>> runs = new ArrayList<SpillFile<E>>();
+
+        /** The elements held in memory. */
+        private E[] buffer = newArray(Math.min(maxElements, 1024));
+
+        /** The number of elements held in memory. */
+        private int size;
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(E obj) {
+            if (size == buffer.length) {
+                if (size < maxElements) {
+                    E[] grown = newArray((int) Math.min(maxElements, 2L * size));
+                    System.arraycopy(buffer, 0, grown, 0, size);
+                    buffer = grown;
+                } else {
+                    spill();
+                }
+            }
+            buffer[size++] = obj;
+        }
+
+        /**
+         * Sort the elements held in memory.
+         */
+        void sort() {
+            Arrays.sort(buffer, 0, size, comparator);
+        }
+
+        /**
+         * Sort the elements held in memory and write them to a new run.
+         */
+        private void spill() {
+            sort();
+            SpillFile<E> run = newRun();
+            runs.add(run);
+            try {
+                for (int i = 0; i < size; i++) {
+                    run.write(buffer[i]);
+                    buffer[i] = null;
+                }
+            } catch (IOException e) {
+                throw failure(e);
+            }
+            finish(run);
+            size = 0;
+        }
+
+        /**
+         * Create an array of elements.
+         * @param length of the array
+         * @return E[]
+         */
+        @SuppressWarnings("unchecked")
+        private E[] newArray(int length) {
+            return (E[]) new Object[length];
+        }
+    }
+}
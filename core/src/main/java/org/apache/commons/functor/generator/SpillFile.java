@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang3.exception.ContextedRuntimeException;
+
+/**
+ * Temporary file holding a sequence of serialized elements, written once and
+ * then read any number of times, for the generators which keep more elements
+ * than fit in memory. The file is deleted on {@link #delete()}, which its
+ * owner must call once done with it. Files which may outlive the operation
+ * creating them can also be registered with {@link #deleteOnExit()}; other
+ * files are not, as the registrations are only released when the JVM exits.
+ *
+ * @param <E> the type of elements held in the file.
+ */
+final class SpillFile<E> {
+
+    /** Number of elements written between two resets of the stream. */
+    private static final int RESET_INTERVAL = 1024;
+
+    /** The file. */
+    private final File file;
+
+    /** The stream writing the file, until it is finished. */
+    private ObjectOutputStream out;
+
+    /** The number of elements written. */
+    private long size;
+
+    /**
+     * Create a new, empty, SpillFile.
+     * @throws IOException if unable to create the file
+     */
+    SpillFile() throws IOException {
+        this.file = File.createTempFile("functor-spill", ".ser");
+        try {
+            this.out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Delete the file when the JVM exits, should its owner never delete it.
+     */
+    void deleteOnExit() {
+        file.deleteOnExit();
+    }
+
+    /**
+     * Append an element to the file.
+     * @param obj to append
+     * @throws IOException if unable to write the element, e.g. because it is
+     * not <code>Serializable</code>
+     */
+    void write(E obj) throws IOException {
+        out.writeObject(obj);
+        if (++size % RESET_INTERVAL == 0) {
+            // forget the objects written so far, so they can be collected
+            out.reset();
+        }
+    }
+
+    /**
+     * Finish writing the file.
+     * @throws IOException if unable to write the file
+     */
+    void finish() throws IOException {
+        ObjectOutputStream stream = out;
+        out = null;
+        stream.close();
+    }
+
+    /**
+     * Get the number of elements in the file.
+     * @return long
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Delete the file. The file can not be read afterwards, though readers
+     * already open may still work on some platforms.
+     */
+    void delete() {
+        closeQuietly(out);
+        out = null;
+        file.delete();
+    }
+
+    /**
+     * Open a reader of the elements of the (finished) file. Failures to read
+     * the file are reported as a <code>ContextedRuntimeException</code>.
+     * @return Reader, which must be closed
+     */
+    Reader open() {
+        return new Reader();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "SpillFile<" + file + ", " + size + ">";
+    }
+
+    /**
+     * Close a stream, ignoring any error.
+     * @param stream to close, may be <code>null</code>
+     * @return <code>true</code> if closed without error
+     */
+    static boolean closeQuietly(Closeable stream) {
+        if (stream == null) {
+            return true;
+        }
+        try {
+            stream.close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Iterator over the elements of the file.
+     */
+    final class Reader implements Iterator<E>, Closeable {
+
+        /** The stream reading the file, or null until the first element is read. */
+        private ObjectInputStream in;
+
+        /** The number of elements read. */
+        private long read;
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean hasNext() {
+            return read < size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                if (in == null) {
+                    in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+                }
+                E result = (E) in.readObject();
+                read++;
+                return result;
+            } catch (IOException e) {
+                throw failure(e);
+            } catch (ClassNotFoundException e) {
+                throw failure(e);
+            }
+        }
+
+        /**
+         * Create the exception reporting a failure to read the file.
+         * @param cause of the failure
+         * @return ContextedRuntimeException
+         */
+        private ContextedRuntimeException failure(Exception cause) {
+            return new ContextedRuntimeException("Unable to read spilled elements", cause).addContextValue("file",
+                    file);
+        }
+
+        /**
+         * {@inheritDoc}
+         * @throws UnsupportedOperationException always
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Close the file.
+         */
+        public void close() {
+            closeQuietly(in);
+            read = size;
+        }
+    }
+}
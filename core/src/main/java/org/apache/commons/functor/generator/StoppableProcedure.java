@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import org.apache.commons.functor.Procedure;
+
+/**
+ * A {@link Procedure} which can signal the {@link Generator} running it that
+ * it does not need any more elements, e.g. because it has already found what
+ * it was looking for. Generators check {@link #isStopped()} after each call to
+ * {@link #run(Object)} and return as soon as it is <code>true</code>, which
+ * allows searches to stop at the first match on any generator.
+ * <p>
+ * Unlike {@link org.apache.commons.functor.generator.loop.LoopGenerator#stop()},
+ * this signal is scoped to a single run: it doesn't alter the state of the
+ * generator, which can be run again with another procedure.
+ * </p>
+ *
+ * @param <A> the argument type.
+ */
+public interface StoppableProcedure<A> extends Procedure<A> {
+    /**
+     * Check whether this procedure needs any more elements.
+     * @return <code>true</code> if the generator running this procedure should
+     * stop, <code>false</code> otherwise
+     */
+    boolean isStopped();
+}
@@ -0,0 +1,910 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.NullaryFunction;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.aggregator.Aggregator;
+import org.apache.commons.functor.core.Identity;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator grouping consecutive elements of another Generator into windows,
+ * and generating a result per window, in a single streaming pass.
+ * <p>
+ * Windows are defined either by count, window <code>k</code> holding the
+ * elements <code>[k * step, k * step + size)</code> of the wrapped
+ * generator, or by time, window <code>k</code> holding the elements whose
+ * timestamp is in <code>[k * step, k * step + size)</code>. With
+ * <code>step == size</code> the windows are tumbling, with
+ * <code>step &lt; size</code> they are sliding, and with
+ * <code>step &gt; size</code> the elements between windows are skipped.
+ * Timestamps must not decrease along the wrapped generator. Time windows
+ * which would start before <code>Long.MIN_VALUE</code>, or at
+ * <code>Long.MAX_VALUE</code>, are not generated.
+ * </p>
+ * <p>
+ * A window is generated as soon as it is complete: for count windows, when
+ * its last element is reached, so windows not complete at the end of the
+ * wrapped generator are dropped; for time windows, when an element past its
+ * end is reached, or at the end of the wrapped generator. Time windows
+ * holding no element are not generated.
+ * </p>
+ * <p>
+ * Each window is either passed to a <code>Function</code>, as a list of its
+ * elements, or aggregated by an {@link Aggregator}. Either way, windows are
+ * updated incrementally. In the first case, the elements are held once in a
+ * ring buffer spanning the open windows, and the list is a view of it, only
+ * valid during the call. In the second case, a value is computed from each
+ * element (the element itself unless a value <code>Function</code> is given)
+ * and added to a single aggregator, and:
+ * </p>
+ * <ul>
+ * <li>windows which do not overlap (<code>step &gt;= size</code>) are
+ * aggregated one after the other, the aggregator being reset and reused once
+ * a window is generated;</li>
+ * <li>sliding windows are divided into panes of <code>gcd(size, step)</code>
+ * elements (or time units), each pane is aggregated once, and the results
+ * of the panes of a window are combined by an associative
+ * <code>BinaryFunction</code>. Panes are combined in a queue keeping partial
+ * combinations, so that each pane is combined a constant number of times
+ * (amortized) whatever the number of windows it belongs to, and only the
+ * results of the <code>size / gcd(size, step)</code> panes of the open
+ * windows are held.</li>
+ * </ul>
+ *
+ * @param <E> the type of elements windowed.
+ * @param <W> the type of elements held in this generator.
+ */
+public class WindowedGenerator<E, W> extends BaseGenerator<W> {
+
+    /** The wrapped generator. */
+    private final Generator<? extends E> wrappedGenerator;
+
+    /** Computes the timestamp of an element, or null for count windows. */
+    private final Function<? super E, ? extends Number> timestamp;
+
+    /** The size of a window. */
+    private final long size;
+
+    /** The distance between the starts of two consecutive windows. */
+    private final long step;
+
+    /** Computes the result of a window from its elements, if not aggregated. */
+    private final Function<? super List<E>, ? extends W> function;
+
+    /** Computes the value aggregated for an element, if aggregated. */
+    private final Function<? super E, ? extends W> value;
+
+    /** Creates the aggregator of a window, if aggregated. */
+    private final NullaryFunction<? extends Aggregator<W>> aggregatorFactory;
+
+    /** Combines the results of consecutive panes, if aggregated by pane. */
+    private final BinaryFunction<? super W, ? super W, ? extends W> combiner;
+
+    /**
+     * Create a new WindowedGenerator over count windows.
+     * @param wrapped Generator to window
+     * @param size number of elements in a window
+     * @param step number of elements between the starts of two windows
+     * @param function computes the result of a window from its elements
+     */
+    public WindowedGenerator(Generator<? extends E> wrapped, int size, int step,
+            Function<? super List<E>, ? extends W> function) {
+        this(wrapped, null, size, step, Validate.notNull(function, "Function argument was null"), null, null, null);
+    }
+
+    /**
+     * Create a new WindowedGenerator over time windows.
+     * @param wrapped Generator to window
+     * @param timestamp computes the timestamp of an element
+     * @param size duration of a window
+     * @param step duration between the starts of two windows
+     * @param function computes the result of a window from its elements
+     */
+    public WindowedGenerator(Generator<? extends E> wrapped, Function<? super E, ? extends Number> timestamp,
+            long size, long step, Function<? super List<E>, ? extends W> function) {
+        this(wrapped, Validate.notNull(timestamp, "Timestamp Function argument was null"), size, step, Validate
+            .notNull(function, "Function argument was null"), null, null, null);
+    }
+
+    /**
+     * Create a new WindowedGenerator.
+     * @param wrapped Generator to window
+     * @param timestamp computes the timestamp of an element, or null
+     * @param size of a window
+     * @param step between the starts of two windows
+     * @param function computes the result of a window, or null
+     * @param value computes the value aggregated for an element, or null
+     * @param aggregatorFactory creates the aggregator of a window, or null
+     * @param combiner combines the results of consecutive panes, or null
+     */
+    private WindowedGenerator(Generator<? extends E> wrapped, Function<? super E, ? extends Number> timestamp,
+            long size, long step, Function<? super List<E>, ? extends W> function,
+            Function<? super E, ? extends W> value, NullaryFunction<? extends Aggregator<W>> aggregatorFactory,
+            BinaryFunction<? super W, ? super W, ? extends W> combiner) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "Generator argument was null");
+        Validate.isTrue(size > 0, "Window size must be positive: %d", size);
+        Validate.isTrue(step > 0, "Window step must be positive: %d", step);
+        Validate.isTrue(function != null || combiner != null || step >= size,
+            "Aggregating sliding windows needs a combiner: size %d, step %d", size, step);
+        this.timestamp = timestamp;
+        this.size = size;
+        this.step = step;
+        this.function = function;
+        this.value = value;
+        this.aggregatorFactory = aggregatorFactory;
+        this.combiner = combiner;
+    }
+
+    /**
+     * Create a new WindowedGenerator aggregating the elements of count windows
+     * which do not overlap.
+     * @param <E> the type of elements windowed.
+     * @param wrapped Generator to window
+     * @param size number of elements in a window
+     * @param step number of elements between the starts of two windows, at
+     * least <code>size</code>
+     * @param aggregatorFactory creates the aggregator of a window
+     * @return WindowedGenerator
+     */
+    public static <E> WindowedGenerator<E, E> aggregate(Generator<? extends E> wrapped, int size, int step,
+            NullaryFunction<? extends Aggregator<E>> aggregatorFactory) {
+        return aggregate(wrapped, size, step, Identity.<E>instance(), aggregatorFactory);
+    }
+
+    /**
+     * Create a new WindowedGenerator aggregating values of the elements of
+     * count windows which do not overlap.
+     * @param <E> the type of elements windowed.
+     * @param <V> the type of values aggregated.
+     * @param wrapped Generator to window
+     * @param size number of elements in a window
+     * @param step number of elements between the starts of two windows, at
+     * least <code>size</code>
+     * @param value computes the value aggregated for an element
+     * @param aggregatorFactory creates the aggregator of a window
+     * @return WindowedGenerator
+     */
+    public static <E, V> WindowedGenerator<E, V> aggregate(Generator<? extends E> wrapped, int size, int step,
+            Function<? super E, ? extends V> value, NullaryFunction<? extends Aggregator<V>> aggregatorFactory) {
+        return new WindowedGenerator<E, V>(wrapped, null, size, step, null, Validate.notNull(value,
+            "Value Function argument was null"), Validate.notNull(aggregatorFactory,
+            "NullaryFunction argument was null"), null);
+    }
+
+    /**
+     * Create a new WindowedGenerator aggregating values of the elements of
+     * count windows, by pane.
+     * @param <E> the type of elements windowed.
+     * @param <V> the type of values aggregated.
+     * @param wrapped Generator to window
+     * @param size number of elements in a window
+     * @param step number of elements between the starts of two windows
+     * @param value computes the value aggregated for an element
+     * @param aggregatorFactory creates the aggregator of a pane
+     * @param combiner combines the results of two consecutive runs of panes,
+     * the earlier one first; must be associative
+     * @return WindowedGenerator
+     */
+    public static <E, V> WindowedGenerator<E, V> aggregate(Generator<? extends E> wrapped, int size, int step,
+            Function<? super E, ? extends V> value, NullaryFunction<? extends Aggregator<V>> aggregatorFactory,
+            BinaryFunction<? super V, ? super V, ? extends V> combiner) {
+        return new WindowedGenerator<E, V>(wrapped, null, size, step, null, Validate.notNull(value,
+            "Value Function argument was null"), Validate.notNull(aggregatorFactory,
+            "NullaryFunction argument was null"), Validate.notNull(combiner, "Combiner argument was null"));
+    }
+
+    /**
+     * Create a new WindowedGenerator aggregating the elements of time windows
+     * which do not overlap.
+     * @param <E> the type of elements windowed.
+     * @param wrapped Generator to window
+     * @param timestamp computes the timestamp of an element
+     * @param size duration of a window
+     * @param step duration between the starts of two windows, at least
+     * <code>size</code>
+     * @param aggregatorFactory creates the aggregator of a window
+     * @return WindowedGenerator
+     */
+    public static <E> WindowedGenerator<E, E> aggregate(Generator<? extends E> wrapped,
+            Function<? super E, ? extends Number> timestamp, long size, long step,
+            NullaryFunction<? extends Aggregator<E>> aggregatorFactory) {
+        return aggregate(wrapped, timestamp, size, step, Identity.<E>instance(), aggregatorFactory);
+    }
+
+    /**
+     * Create a new WindowedGenerator aggregating values of the elements of
+     * time windows which do not overlap.
+     * @param <E> the type of elements windowed.
+     * @param <V> the type of values aggregated.
+     * @param wrapped Generator to window
+     * @param timestamp computes the timestamp of an element
+     * @param size duration of a window
+     * @param step duration between the starts of two windows, at least
+     * <code>size</code>
+     * @param value computes the value aggregated for an element
+     * @param aggregatorFactory creates the aggregator of a window
+     * @return WindowedGenerator
+     */
+    public static <E, V> WindowedGenerator<E, V> aggregate(Generator<? extends E> wrapped,
+            Function<? super E, ? extends Number> timestamp, long size, long step,
+            Function<? super E, ? extends V> value, NullaryFunction<? extends Aggregator<V>> aggregatorFactory) {
+        return new WindowedGenerator<E, V>(wrapped, Validate.notNull(timestamp,
+            "Timestamp Function argument was null"), size, step, null, Validate.notNull(value,
+            "Value Function argument was null"), Validate.notNull(aggregatorFactory,
+            "NullaryFunction argument was null"), null);
+    }
+
+    /**
+     * Create a new WindowedGenerator aggregating values of the elements of
+     * time windows, by pane.
+     * @param <E> the type of elements windowed.
+     * @param <V> the type of values aggregated.
+     * @param wrapped Generator to window
+     * @param timestamp computes the timestamp of an element
+     * @param size duration of a window
+     * @param step duration between the starts of two windows
+     * @param value computes the value aggregated for an element
+     * @param aggregatorFactory creates the aggregator of a pane
+     * @param combiner combines the results of two consecutive runs of panes,
+     * the earlier one first; must be associative
+     * @return WindowedGenerator
+     */
+    public static <E, V> WindowedGenerator<E, V> aggregate(Generator<? extends E> wrapped,
+            Function<? super E, ? extends Number> timestamp, long size, long step,
+            Function<? super E, ? extends V> value, NullaryFunction<? extends Aggregator<V>> aggregatorFactory,
+            BinaryFunction<? super V, ? super V, ? extends V> combiner) {
+        return new WindowedGenerator<E, V>(wrapped, Validate.notNull(timestamp,
+            "Timestamp Function argument was null"), size, step, null, Validate.notNull(value,
+            "Value Function argument was null"), Validate.notNull(aggregatorFactory,
+            "NullaryFunction argument was null"), Validate.notNull(combiner, "Combiner argument was null"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super W> proc) {
+        final Windows windows;
+        if (function != null) {
+            windows = new BufferedWindows(proc);
+        } else if (combiner != null) {
+            windows = new PanedWindows(proc);
+        } else {
+            windows = new AggregatedWindows(proc);
+        }
+        wrappedGenerator.run(new StoppableProcedure<E>() {
+            private long count;
+
+            public void run(E obj) {
+                if (timestamp == null) {
+                    windows.add(obj, count);
+                    windows.close(++count);
+                } else {
+                    long position = timestamp.evaluate(obj).longValue();
+                    windows.close(position);
+                    windows.add(obj, position);
+                }
+            }
+
+            public boolean isStopped() {
+                return windows.isStopped();
+            }
+        });
+        if (timestamp != null) {
+            windows.closeAll();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof WindowedGenerator<?, ?>)) {
+            return false;
+        }
+        WindowedGenerator<?, ?> other = (WindowedGenerator<?, ?>) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.size == size && other.step == step
+                && (other.timestamp == null ? timestamp == null : other.timestamp.equals(timestamp))
+                && (other.function == null ? function == null : other.function.equals(function))
+                && (other.value == null ? value == null : other.value.equals(value))
+                && (other.aggregatorFactory == null ? aggregatorFactory == null : other.aggregatorFactory
+                    .equals(aggregatorFactory))
+                && (other.combiner == null ? combiner == null : other.combiner.equals(combiner));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "WindowedGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= timestamp == null ? 0 : timestamp.hashCode();
+        result <<= 2;
+        result ^= (int) (size ^ (size >>> 32));
+        result <<= 2;
+        result ^= (int) (step ^ (step >>> 32));
+        result <<= 2;
+        result ^= function == null ? aggregatorFactory.hashCode() : function.hashCode();
+        result <<= 2;
+        result ^= value == null ? 0 : value.hashCode();
+        result <<= 2;
+        result ^= combiner == null ? 0 : combiner.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WindowedGenerator<" + wrappedGenerator + ", " + (timestamp == null ? "count" : timestamp) + ", "
+                + size + ", " + step + ", "
+                + (function == null ? value + ", " + aggregatorFactory + (combiner == null ? "" : ", " + combiner)
+                        : function) + ">";
+    }
+
+    /**
+     * Divide rounding towards negative infinity.
+     * @param dividend to divide
+     * @param divisor to divide by, positive
+     * @return long
+     */
+    private static long floorDiv(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        return dividend % divisor < 0 ? quotient - 1 : quotient;
+    }
+
+    /**
+     * Compute the greatest common divisor of two positive numbers.
+     * @param a first number
+     * @param b second number
+     * @return long
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    /**
+     * Learn whether the window starting at a position ends at or before
+     * another position, without overflowing.
+     * @param start of the window
+     * @param position to compare the end of the window to
+     * @return <code>start + size &lt;= position</code>
+     */
+    private boolean endsBy(long start, long position) {
+        return position >= Long.MIN_VALUE + size && start <= position - size;
+    }
+
+    /**
+     * The windows open during a run.
+     */
+    private abstract class Windows {
+
+        /** The procedure of the run. */
+        private final Procedure<? super W> proc;
+
+        /**
+         * The index of the next window to open: count windows start at the
+         * first element, time windows at the first one starting after
+         * <code>Long.MIN_VALUE</code>.
+         */
+        private long nextWindow = timestamp == null ? 0 : Long.MIN_VALUE / step;
+
+        /** The last position seen. */
+        private long lastPosition = Long.MIN_VALUE;
+
+        /** Whether the procedure asked to stop. */
+        private boolean stopped;
+
+        /**
+         * Create a new Windows.
+         * @param proc procedure of the run
+         */
+        Windows(Procedure<? super W> proc) {
+            this.proc = proc;
+        }
+
+        /**
+         * Add an element to the windows holding its position, opening them
+         * if needed.
+         * @param obj to add
+         * @param position of the element
+         */
+        final void add(E obj, long position) {
+            Validate.isTrue(position >= lastPosition, "Timestamps must not decrease: %d after %d", position,
+                lastPosition);
+            lastPosition = position;
+            // first = floorDiv(position - size, step) + 1, without overflowing
+            long last = Math.min(floorDiv(position, step), Long.MAX_VALUE - 1);
+            long offset = floorDiv(position - last * step - size, step) + 1;
+            long first = offset < 0 && last < Long.MIN_VALUE - offset ? Long.MIN_VALUE : last + offset;
+            if (first > last) {
+                // between windows
+                return;
+            }
+            for (long k = Math.max(first, nextWindow); k <= last; k++) {
+                open(k * step);
+            }
+            nextWindow = last + 1;
+            append(obj, position);
+        }
+
+        /**
+         * Generate and close the windows ending at or before a position.
+         * @param position before which windows end
+         */
+        final void close(long position) {
+            while (!stopped && hasOpenWindow() && endsBy(firstStart(), position)) {
+                closeFirst();
+            }
+        }
+
+        /**
+         * Generate and close all the open windows.
+         */
+        final void closeAll() {
+            while (!stopped && hasOpenWindow()) {
+                closeFirst();
+            }
+        }
+
+        /**
+         * Generate and close the first open window.
+         */
+        private void closeFirst() {
+            proc.run(generateFirst());
+            stopped = stopRequested(proc);
+        }
+
+        /**
+         * Learn whether the procedure asked to stop.
+         * @return boolean
+         */
+        final boolean isStopped() {
+            return stopped;
+        }
+
+        /**
+         * Open a window.
+         * @param start position of the window
+         */
+        abstract void open(long start);
+
+        /**
+         * Add an element to all the open windows, which hold its position.
+         * @param obj to add
+         * @param position of the element
+         */
+        abstract void append(E obj, long position);
+
+        /**
+         * Learn whether a window is open.
+         * @return boolean
+         */
+        abstract boolean hasOpenWindow();
+
+        /**
+         * Get the start position of the first open window.
+         * @return long
+         */
+        abstract long firstStart();
+
+        /**
+         * Close the first open window.
+         * @return the result of the window
+         */
+        abstract W generateFirst();
+    }
+
+    /**
+     * Windows whose elements are held in a ring buffer, and passed to
+     * {@link WindowedGenerator#function} as a list.
+     */
+    private final class BufferedWindows extends Windows {
+
+        /** The start positions of the open windows. */
+        private final LinkedList<Long> starts = new LinkedList<Long>();
+
+        /** The buffered elements. */
+        private Object[] elements = new Object[16];
+
+        /** The positions of the buffered elements. */
+        private long[] positions = new long[16];
+
+        /** The index of the first buffered element. */
+        private int head;
+
+        /** The number of buffered elements. */
+        private int count;
+
+        /** The view of the buffered elements passed to the function. */
+        private final Window window = new Window();
+
+        /**
+         * Create a new BufferedWindows.
+         * @param proc procedure of the run
+         */
+        BufferedWindows(Procedure<? super W> proc) {
+            super(proc);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        void open(long start) {
+            starts.add(start);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        void append(E obj, long position) {
+            if (count == elements.length) {
+                grow();
+            }
+            int i = (head + count++) & (elements.length - 1);
+            elements[i] = obj;
+            positions[i] = position;
+        }
+
+        /**
+         * Double the capacity of the buffer.
+         */
+        private void grow() {
+            Object[] newElements = new Object[elements.length << 1];
+            long[] newPositions = new long[newElements.length];
+            for (int i = 0; i < count; i++) {
+                int j = (head + i) & (elements.length - 1);
+                newElements[i] = elements[j];
+                newPositions[i] = positions[j];
+            }
+            elements = newElements;
+            positions = newPositions;
+            head = 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        boolean hasOpenWindow() {
+            return !starts.isEmpty();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        long firstStart() {
+            return starts.getFirst().longValue();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        W generateFirst() {
+            long start = starts.removeFirst().longValue();
+            // drop the elements before the window
+            while (count > 0 && positions[head] < start) {
+                elements[head] = null;
+                head = (head + 1) & (elements.length - 1);
+                count--;
+            }
+            int length = 0;
+            while (length < count && !endsBy(start, positions[(head + length) & (elements.length - 1)])) {
+                length++;
+            }
+            window.length = length;
+            W result = function.evaluate(window);
+            if (starts.isEmpty()) {
+                // the windows opened later do not hold the buffered elements
+                while (count > 0) {
+                    elements[head] = null;
+                    head = (head + 1) & (elements.length - 1);
+                    count--;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * List view of the first elements of the buffer.
+         */
+        private final class Window extends AbstractList<E> {
+
+            /** The number of elements in the view. */
+            private int length;
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            @SuppressWarnings("unchecked")
+            public E get(int index) {
+                if (index < 0 || index >= length) {
+                    throw new IndexOutOfBoundsException("Index " + index + " out of window of size " + length);
+                }
+                return (E) elements[(head + index) & (elements.length - 1)];
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public int size() {
+                return length;
+            }
+        }
+    }
+
+    /**
+     * Windows which do not overlap, aggregated one after the other by a single
+     * aggregator from {@link WindowedGenerator#aggregatorFactory}.
+     */
+    private final class AggregatedWindows extends Windows {
+
+        /** The start positions of the open windows, at most one. */
+        private final LinkedList<Long> starts = new LinkedList<Long>();
+
+        /** The aggregator of the open window. */
+        private final Aggregator<W> aggregator = aggregatorFactory.evaluate();
+
+        /**
+         * Create a new AggregatedWindows.
+         * @param proc procedure of the run
+         */
+        AggregatedWindows(Procedure<? super W> proc) {
+            super(proc);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        void open(long start) {
+            starts.add(start);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        void append(E obj, long position) {
+            aggregator.add(value.evaluate(obj));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        boolean hasOpenWindow() {
+            return !starts.isEmpty();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        long firstStart() {
+            return starts.getFirst().longValue();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        W generateFirst() {
+            starts.removeFirst();
+            W result = aggregator.evaluate();
+            aggregator.reset();
+            return result;
+        }
+    }
+
+    /**
+     * Sliding windows divided into panes of <code>gcd(size, step)</code>
+     * positions, each aggregated once by a single aggregator from
+     * {@link WindowedGenerator#aggregatorFactory}. The results of the panes
+     * of the first open window are kept in a queue made of two stacks: the
+     * back one, where panes are pushed, with the combination of all its
+     * panes, and the front one, where panes are popped, with the combination
+     * of each pane with the later ones of the stack.
+     */
+    private final class PanedWindows extends Windows {
+
+        /** The size of a pane. */
+        private final long paneSize = gcd(size, step);
+
+        /** The number of panes of a window. */
+        private final long panesPerWindow = size / paneSize;
+
+        /** The start positions of the open windows. */
+        private final LinkedList<Long> starts = new LinkedList<Long>();
+
+        /** The aggregator of the current pane. */
+        private final Aggregator<W> aggregator = aggregatorFactory.evaluate();
+
+        /** The index of the current pane. */
+        private long current;
+
+        /** Whether the current pane holds elements. */
+        private boolean currentHasElements;
+
+        /** The panes completed but not in the queue yet, oldest first. */
+        private final LinkedList<Pane> completed = new LinkedList<Pane>();
+
+        /** The back stack of the queue, oldest first. */
+        private final List<Pane> back = new ArrayList<Pane>();
+
+        /** The combination of the panes of the back stack. */
+        private W backResult;
+
+        /**
+         * The front stack of the queue, newest first, holding the combination
+         * of each pane with the later panes of the stack.
+         */
+        private final List<Pane> front = new ArrayList<Pane>();
+
+        /**
+         * Create a new PanedWindows.
+         * @param proc procedure of the run
+         */
+        PanedWindows(Procedure<? super W> proc) {
+            super(proc);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        void open(long start) {
+            starts.add(start);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        void append(E obj, long position) {
+            long pane = floorDiv(position, paneSize);
+            if (currentHasElements && pane != current) {
+                completeCurrent();
+            }
+            current = pane;
+            currentHasElements = true;
+            aggregator.add(value.evaluate(obj));
+        }
+
+        /**
+         * Complete the current pane.
+         */
+        private void completeCurrent() {
+            completed.add(new Pane(current, aggregator.evaluate()));
+            aggregator.reset();
+            currentHasElements = false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        boolean hasOpenWindow() {
+            return !starts.isEmpty();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        long firstStart() {
+            return starts.getFirst().longValue();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        W generateFirst() {
+            long firstPane = floorDiv(starts.removeFirst().longValue(), paneSize);
+            // the panes of the window are [firstPane, lastPane]
+            long lastPane = firstPane > Long.MAX_VALUE - panesPerWindow + 1 ? Long.MAX_VALUE : firstPane
+                    + panesPerWindow - 1;
+            if (currentHasElements && current <= lastPane) {
+                completeCurrent();
+            }
+            while (!completed.isEmpty() && completed.getFirst().index <= lastPane) {
+                push(completed.removeFirst());
+            }
+            while (oldest() != null && oldest().index < firstPane) {
+                pop();
+            }
+            if (front.isEmpty()) {
+                return backResult;
+            }
+            W frontResult = front.get(front.size() - 1).result;
+            return back.isEmpty() ? frontResult : combiner.evaluate(frontResult, backResult);
+        }
+
+        /**
+         * Push a pane at the back of the queue.
+         * @param pane to push
+         */
+        private void push(Pane pane) {
+            backResult = back.isEmpty() ? pane.result : combiner.evaluate(backResult, pane.result);
+            back.add(pane);
+        }
+
+        /**
+         * Get the oldest pane of the queue.
+         * @return Pane, or null if the queue is empty
+         */
+        private Pane oldest() {
+            if (!front.isEmpty()) {
+                return front.get(front.size() - 1);
+            }
+            return back.isEmpty() ? null : back.get(0);
+        }
+
+        /**
+         * Pop the oldest pane of the queue, moving the back stack to the front
+         * one if needed.
+         */
+        private void pop() {
+            if (front.isEmpty()) {
+                W result = null;
+                for (int i = back.size() - 1; i >= 0; i--) {
+                    Pane pane = back.get(i);
+                    result = i == back.size() - 1 ? pane.result : combiner.evaluate(pane.result, result);
+                    front.add(new Pane(pane.index, result));
+                }
+                back.clear();
+                backResult = null;
+            }
+            front.remove(front.size() - 1);
+        }
+
+        /**
+         * A pane, or run of consecutive panes, and its result.
+         */
+        private final class Pane {
+
+            /** The index of the (first) pane. */
+            private final long index;
+
+            /** The result of the pane(s). */
+            private final W result;
+
+            /**
+             * Create a new Pane.
+             * @param index of the (first) pane
+             * @param result of the pane(s)
+             */
+            Pane(long index, W result) {
+                this.index = index;
+                this.result = result;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.loop.GeneratorToIteratorAdapter;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator combining the elements of two generators pairwise with a
+ * BinaryFunction, until either of them is exhausted.
+ * <p>
+ * The left generator is run on the calling thread while the elements of the
+ * right one are pulled through a {@link GeneratorToIteratorAdapter}: if the
+ * right generator is {@link Iterable} (as the array, list and range
+ * generators are), it is iterated directly; otherwise it runs on another
+ * thread, handing its elements over through a small bounded buffer. Either
+ * generator being exhausted, or a {@link StoppableProcedure} asking to stop,
+ * stops both of them.
+ * </p>
+ *
+ * @param <L> the type of elements held in the left generator.
+ * @param <R> the type of elements held in the right generator.
+ * @param <E> the type of elements held in this generator.
+ */
+public class ZippedGenerator<L, R, E> extends BaseGenerator<E> {
+
+    /**
+     * The left generator.
+     */
+    private final Generator<? extends L> left;
+
+    /**
+     * The right generator.
+     */
+    private final Generator<? extends R> right;
+
+    /**
+     * The BinaryFunction combining each pair of elements.
+     */
+    private final BinaryFunction<? super L, ? super R, ? extends E> func;
+
+    /**
+     * Create a new ZippedGenerator.
+     * @param left Generator providing the left elements
+     * @param right Generator providing the right elements
+     * @param func BinaryFunction combining each pair of elements
+     */
+    public ZippedGenerator(Generator<? extends L> left, Generator<? extends R> right,
+            BinaryFunction<? super L, ? super R, ? extends E> func) {
+        this.left = Validate.notNull(left, "Left Generator argument was null");
+        this.right = Validate.notNull(right, "Right Generator argument was null");
+        this.func = Validate.notNull(func, "BinaryFunction argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final Procedure<? super E> proc) {
+        final GeneratorToIteratorAdapter<R> rights = new GeneratorToIteratorAdapter<R>(right);
+        try {
+            left.run(new StoppableProcedure<L>() {
+                private boolean exhausted;
+
+                public void run(L obj) {
+                    if (rights.hasNext()) {
+                        proc.run(func.evaluate(obj, rights.next()));
+                    } else {
+                        exhausted = true;
+                    }
+                }
+
+                public boolean isStopped() {
+                    return exhausted || stopRequested(proc);
+                }
+            });
+        } finally {
+            rights.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ZippedGenerator<?, ?, ?>)) {
+            return false;
+        }
+        ZippedGenerator<?, ?, ?> other = (ZippedGenerator<?, ?, ?>) obj;
+        return other.left.equals(left) && other.right.equals(right) && other.func.equals(func);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "ZippedGenerator".hashCode();
+        result <<= 2;
+        result ^= left.hashCode();
+        result <<= 2;
+        result ^= right.hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ZippedGenerator<" + left + ", " + right + ", " + func + ">";
+    }
+}
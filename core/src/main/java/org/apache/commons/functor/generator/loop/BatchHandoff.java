@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
+import org.apache.commons.lang3.concurrent.ConcurrentRuntimeException;
+
+/**
+ * Runs a generator on another thread, handing its elements over to a single
+ * consuming thread in batches, through a bounded queue. Used by
+ * {@link PipelinedGenerator} and {@link GeneratorToIteratorAdapter}; an
+ * instance serves a single run of the generator.
+ *
+ * @param <E> the type of elements generated.
+ */
+final class BatchHandoff<E> implements Runnable {
+
+    /** Marks the end of the elements in the queue. */
+    private static final Object[] END = new Object[0];
+
+    /**
+     * How long the producer waits for room in the queue before checking
+     * again whether the consumer is still interested, in milliseconds.
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 50;
+
+    /** The generator to run. */
+    private final Generator<? extends E> generator;
+
+    /** Maximum number of elements per batch. */
+    private final int batchSize;
+
+    /** Batches of elements generated but not consumed yet. */
+    private final BlockingQueue<Object[]> queue;
+
+    /** Set when the consumer is no longer interested in elements. */
+    private volatile boolean cancelled;
+
+    /** Set when the consumer is not waiting for the end either. */
+    private volatile boolean abandoned;
+
+    /** Exception thrown by the generator, if any. */
+    private volatile Throwable failure;
+
+    /**
+     * Set once the end of the elements is signalled; only accessed by the
+     * producer.
+     */
+    private boolean ended;
+
+    /**
+     * Create a new BatchHandoff.
+     * @param generator to run
+     * @param capacity maximum number of batches waiting in the queue
+     * @param batchSize maximum number of elements per batch
+     */
+    BatchHandoff(Generator<? extends E> generator, int capacity, int batchSize) {
+        this.generator = generator;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<Object[]>(capacity);
+    }
+
+    /**
+     * Start running the generator.
+     * @param executor to run the generator with; if <code>null</code>, a new
+     * daemon thread is started
+     * @param threadName name of the thread started if there is no executor
+     */
+    void start(Executor executor, String threadName) {
+        if (executor == null) {
+            Thread thread = new Thread(this, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            executor.execute(this);
+        }
+    }
+
+    /**
+     * Run the generator, handing its elements over in batches.
+     */
+    public void run() {
+        Batcher batcher = new Batcher();
+        try {
+            generator.run(batcher);
+        } catch (Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+        } finally {
+            // hand over the elements generated before the end, or the failure
+            batcher.flush();
+            end();
+        }
+    }
+
+    /**
+     * Wait for the next batch of elements.
+     * @return the next batch, or <code>null</code> once all the elements have
+     * been handed over
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Object[] take() throws InterruptedException {
+        Object[] batch = queue.take();
+        return batch == END ? null : batch;
+    }
+
+    /**
+     * Put a batch in the queue, waiting for room as long as the consumer is
+     * interested in elements. Once it is not, the batch is dropped, so that a
+     * generator ignoring {@link StoppableProcedure#isStopped()} runs to its
+     * end rather than blocking forever.
+     * @param batch to put
+     */
+    private void put(Object[] batch) {
+        try {
+            while (!ended && !cancelled) {
+                if (queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted(e);
+        }
+    }
+
+    /**
+     * Signal the end of the elements, waiting for room as long as the
+     * consumer waits for the end.
+     */
+    private void end() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        try {
+            while (!abandoned) {
+                if (queue.offer(END, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+            // nobody is waiting for the end any longer
+            queue.offer(END);
+        } catch (InterruptedException e) {
+            interrupted(e);
+        }
+    }
+
+    /**
+     * Give up handing elements over, the producer being interrupted: the
+     * batches waiting are dropped, and the end is signalled right away, the
+     * consumer getting the interruption as the failure of the generator.
+     * @param e the interruption
+     */
+    private void interrupted(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (failure == null) {
+            failure = e;
+        }
+        cancelled = true;
+        ended = true;
+        queue.clear();
+        queue.offer(END);
+    }
+
+    /**
+     * Ask the generator to stop, without waiting for it.
+     */
+    void abandon() {
+        abandoned = true;
+        cancelled = true;
+        // make room for the batch the producer may be blocked on
+        queue.clear();
+    }
+
+    /**
+     * Ask the generator to stop and wait until it's done.
+     */
+    void cancelAndAwait() {
+        cancelled = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (queue.take() == END) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rethrow the exception thrown by the generator, if any: unchecked
+     * exceptions as they are, checked ones wrapped in a
+     * <code>ConcurrentRuntimeException</code>.
+     */
+    void rethrow() {
+        Throwable t = failure;
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        if (t != null) {
+            throw new ConcurrentRuntimeException(t);
+        }
+    }
+
+    /**
+     * Procedure gathering the elements generated into batches.
+     */
+    private final class Batcher implements StoppableProcedure<E> {
+
+        /** The batch being filled. */
+        private Object[] batch = new Object[batchSize];
+
+        /** The number of elements in the batch. */
+        private int size;
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(E obj) {
+            batch[size++] = obj;
+            if (size == batch.length) {
+                put(batch);
+                batch = new Object[batchSize];
+                size = 0;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean isStopped() {
+            return cancelled;
+        }
+
+        /**
+         * Hand over the last, partial batch.
+         */
+        void flush() {
+            if (size > 0) {
+                Object[] last = new Object[size];
+                System.arraycopy(batch, 0, last, 0, size);
+                put(last);
+                size = 0;
+            }
+        }
+    }
+}
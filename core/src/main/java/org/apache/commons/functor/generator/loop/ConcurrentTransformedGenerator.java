@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.ConcurrentRuntimeException;
+import org.apache.commons.lang3.concurrent.ConcurrentUtils;
+
+/**
+ * Generator that transforms the elements of another Generator concurrently:
+ * the Function is evaluated on the threads of an <code>Executor</code>, with
+ * up to <code>maxInFlight</code> evaluations running at the same time. This
+ * suits functions bound by latency rather than CPU, such as calls to a remote
+ * cache or to the filesystem.
+ * <p>
+ * The wrapped generator and the procedure both run on the thread calling
+ * {@link #run(Procedure)}, so the procedure need not be thread safe; only the
+ * function must be. Transformed elements are passed on either in the order of
+ * the wrapped generator (<code>ordered</code>), an element which completes
+ * early waiting for the ones before it, or as soon as they complete.
+ * </p>
+ * <p>
+ * If the function throws an exception, or the generator is stopped, the
+ * pending evaluations are cancelled and the wrapped generator is stopped. The
+ * exception is then rethrown (unchecked exceptions as they are, checked ones
+ * wrapped in a <code>ConcurrentRuntimeException</code>).
+ * </p>
+ *
+ * @param <I> the type of elements held in the wrapped generator.
+ * @param <E> the type of elements held in this generator.
+ */
+public class ConcurrentTransformedGenerator<I, E> extends LoopGenerator<E> {
+
+    /**
+     * The Function to apply to each element.
+     */
+    private final Function<? super I, ? extends E> func;
+
+    /**
+     * The Executor evaluating the function.
+     */
+    private final Executor executor;
+
+    /**
+     * Maximum number of evaluations running at the same time.
+     */
+    private final int maxInFlight;
+
+    /**
+     * Whether elements are passed on in the order of the wrapped generator.
+     */
+    private final boolean ordered;
+
+    /**
+     * Create a new ConcurrentTransformedGenerator.
+     * @param wrapped Generator to transform
+     * @param func thread safe Function to apply to each element
+     * @param executor Executor to evaluate the function with
+     * @param maxInFlight maximum number of evaluations running at the same time
+     * @param ordered if <code>true</code>, elements are passed on in the order
+     * of the wrapped generator; otherwise, in the order they complete
+     */
+    // As in TransformedGenerator, what gets passed to the Procedure is a
+    // <? extends E>, returned by func.
+    @SuppressWarnings("unchecked")
+    public ConcurrentTransformedGenerator(Generator<? extends I> wrapped, Function<? super I, ? extends E> func,
+            Executor executor, int maxInFlight, boolean ordered) {
+        super((Generator<? extends E>) Validate.notNull(wrapped, "Generator argument was null"));
+        this.func = Validate.notNull(func, "Function argument was null");
+        this.executor = Validate.notNull(executor, "Executor argument was null");
+        Validate.isTrue(maxInFlight > 0, "Maximum in-flight count must be positive: %d", maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    // See comment above in the public constructor
+    @SuppressWarnings("unchecked")
+    public void run(final Procedure<? super E> proc) {
+        final InFlight inFlight = new InFlight(proc);
+        try {
+            ((Generator<? extends I>) getWrappedGenerator()).run(new StoppableProcedure<I>() {
+                public void run(I obj) {
+                    inFlight.submit(obj);
+                }
+
+                public boolean isStopped() {
+                    return inFlight.stopped;
+                }
+            });
+            inFlight.drain();
+        } finally {
+            inFlight.cancel();
+        }
+    }
+
+    /**
+     * The evaluations of a single run.
+     */
+    private final class InFlight {
+        /** The procedure receiving the transformed elements. */
+        private final Procedure<? super E> proc;
+        /** Pending evaluations, in submission order. */
+        private final LinkedList<Future<E>> pending = new LinkedList<Future<E>>();
+        /** Delivers completed evaluations first, when unordered. */
+        private final CompletionService<E> completion;
+        /** Set once the procedure or this generator asks to stop. */
+        private boolean stopped;
+
+        /**
+         * Create a new InFlight.
+         * @param proc the procedure receiving the transformed elements
+         */
+        InFlight(Procedure<? super E> proc) {
+            this.proc = proc;
+            this.completion = ordered ? null : new ExecutorCompletionService<E>(executor);
+        }
+
+        /**
+         * Start evaluating the function on an element, first waiting for and
+         * passing on an earlier one if too many are in flight. Does nothing once
+         * stopped, for wrapped generators not checking for it.
+         * @param obj the element to transform
+         */
+        void submit(final I obj) {
+            if (stopped) {
+                return;
+            }
+            if (pending.size() >= maxInFlight) {
+                passOn();
+                if (stopped) {
+                    return;
+                }
+            }
+            Callable<E> task = new Callable<E>() {
+                public E call() {
+                    return func.evaluate(obj);
+                }
+            };
+            if (ordered) {
+                FutureTask<E> future = new FutureTask<E>(task);
+                pending.add(future);
+                executor.execute(future);
+            } else {
+                pending.add(completion.submit(task));
+            }
+        }
+
+        /**
+         * Wait for and pass on all the pending elements.
+         */
+        void drain() {
+            while (!stopped && !pending.isEmpty()) {
+                passOn();
+            }
+        }
+
+        /**
+         * Wait for the next element, i.e. the oldest one if ordered or the
+         * first one to complete otherwise, and pass it on.
+         */
+        private void passOn() {
+            try {
+                Future<E> next;
+                if (ordered) {
+                    next = pending.removeFirst();
+                } else {
+                    next = completion.take();
+                    pending.remove(next);
+                }
+                proc.run(next.get());
+                stopped = isStopped() || stopRequested(proc);
+            } catch (ExecutionException e) {
+                stopped = true;
+                // rethrow unchecked causes as is, wrap checked (or missing) ones
+                ConcurrentRuntimeException wrapped = ConcurrentUtils.extractCauseUnchecked(e);
+                throw wrapped == null ? new ConcurrentRuntimeException(e) : wrapped;
+            } catch (InterruptedException e) {
+                stopped = true;
+                Thread.currentThread().interrupt();
+                throw new ConcurrentRuntimeException(e);
+            }
+        }
+
+        /**
+         * Cancel the evaluations still pending.
+         */
+        void cancel() {
+            for (Future<E> future : pending) {
+                future.cancel(true);
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ConcurrentTransformedGenerator<?, ?>)) {
+            return false;
+        }
+        ConcurrentTransformedGenerator<?, ?> other = (ConcurrentTransformedGenerator<?, ?>) obj;
+        return other.getWrappedGenerator().equals(getWrappedGenerator()) && other.func.equals(func)
+                && other.executor.equals(executor) && other.maxInFlight == maxInFlight
+                && other.ordered == ordered;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "ConcurrentTransformedGenerator".hashCode();
+        result <<= 2;
+        result ^= getWrappedGenerator().hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        result <<= 2;
+        result ^= maxInFlight;
+        result ^= ordered ? 1 : 0;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConcurrentTransformedGenerator<" + getWrappedGenerator() + ", " + func + ", " + maxInFlight
+                + (ordered ? ", ordered>" : ", unordered>");
+    }
+}
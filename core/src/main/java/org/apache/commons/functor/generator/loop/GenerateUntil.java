@@ -19,6 +19,7 @@ package org.apache.commons.functor.generator.loop;
 import org.apache.commons.functor.Predicate;
 import org.apache.commons.functor.Procedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -49,13 +50,17 @@ public class GenerateUntil<E> extends LoopGenerator<E> {
      * {@inheritDoc}
      */
     public void run(final Procedure<? super E> proc) {
-        getWrappedGenerator().run(new Procedure<E>() {
+        getWrappedGenerator().run(new StoppableProcedure<E>() {
             public void run(E obj) {
                 proc.run(obj);
                 if (test.test(obj)) {
                     GenerateUntil.this.stop();
                 }
             }
+
+            public boolean isStopped() {
+                return GenerateUntil.this.isStopped() || stopRequested(proc);
+            }
         });
     }
 
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.ConcurrentRuntimeException;
+
+/**
+ * Adapts a {@link Generator} to the {@link Iterator} interface, without
+ * materializing its elements in a collection.
+ * <p>
+ * Generators which are also {@link Iterable}, such as the array, list and
+ * range generators of {@link org.apache.commons.functor.generator.parallel},
+ * are iterated directly. Any other generator is run on another thread the
+ * first time {@link #hasNext()} or {@link #next()} is called, and hands its
+ * elements over in batches of up to <code>batchSize</code> elements through a
+ * queue of up to <code>capacity</code> batches, so memory use stays bounded
+ * however many elements the generator yields. If the generator throws an
+ * exception, it is rethrown by {@link #hasNext()} or {@link #next()} once the
+ * elements generated before it have been iterated (checked exceptions wrapped
+ * in a <code>ConcurrentRuntimeException</code>).
+ * </p>
+ * <p>
+ * An iterator abandoned before its end should be {@link #close() closed}, so
+ * that the generator is stopped and the thread running it is released.
+ * Iterators are meant to be used by a single thread.
+ * </p>
+ *
+ * @param <E> the type of elements held in the generator.
+ */
+public final class GeneratorToIteratorAdapter<E> implements Iterator<E>, Closeable {
+
+    /** Default maximum number of batches waiting to be iterated. */
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /** Default maximum number of elements per batch. */
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    /** The adapted generator. */
+    private final Generator<? extends E> generator;
+
+    /** Runs the generator, or null to start a thread. */
+    private final Executor executor;
+
+    /** Maximum number of batches waiting to be iterated. */
+    private final int capacity;
+
+    /** Maximum number of elements per batch. */
+    private final int batchSize;
+
+    /** Iterator of the generator, if it is iterable. */
+    private Iterator<? extends E> direct;
+
+    /** Hands the elements over, once the generator is started. */
+    private BatchHandoff<E> handoff;
+
+    /** The current batch. */
+    private Object[] batch;
+
+    /** Index of the next element of the current batch. */
+    private int index;
+
+    /** Set once all the elements have been iterated, or on close. */
+    private boolean finished;
+
+    /**
+     * Create a new GeneratorToIteratorAdapter with default buffer sizes.
+     * @param generator Generator to adapt
+     */
+    public GeneratorToIteratorAdapter(Generator<? extends E> generator) {
+        this(generator, null, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a new GeneratorToIteratorAdapter.
+     * @param generator Generator to adapt
+     * @param executor Executor to run the generator with if it is not
+     * iterable; if <code>null</code>, a new daemon thread is started
+     * @param capacity maximum number of batches waiting to be iterated
+     * @param batchSize maximum number of elements per batch
+     */
+    @SuppressWarnings("unchecked")
+    public GeneratorToIteratorAdapter(Generator<? extends E> generator, Executor executor, int capacity,
+            int batchSize) {
+        this.generator = Validate.notNull(generator, "Generator argument was null");
+        Validate.isTrue(capacity > 0, "Capacity must be positive: %d", capacity);
+        Validate.isTrue(batchSize > 0, "Batch size must be positive: %d", batchSize);
+        this.executor = executor;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        if (generator instanceof Iterable<?>) {
+            // an iterable generator iterates over its own elements
+            this.direct = ((Iterable<? extends E>) generator).iterator();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean hasNext() {
+        if (direct != null) {
+            return direct.hasNext();
+        }
+        while (!finished && (batch == null || index == batch.length)) {
+            if (handoff == null) {
+                handoff = new BatchHandoff<E>(generator, capacity, batchSize);
+                handoff.start(executor, "GeneratorToIteratorAdapter-producer");
+            }
+            try {
+                batch = handoff.take();
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                throw new ConcurrentRuntimeException(e);
+            }
+            index = 0;
+            if (batch == null) {
+                finished = true;
+                handoff.rethrow();
+            }
+        }
+        return !finished;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (direct != null) {
+            return direct.next();
+        }
+        return (E) batch[index++];
+    }
+
+    /**
+     * Not supported.
+     * @throws UnsupportedOperationException always
+     */
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stop the generator if it is still running. The iterator then has no
+     * more elements.
+     */
+    public void close() {
+        if (handoff != null && !finished) {
+            handoff.abandon();
+        }
+        finished = true;
+        batch = null;
+        if (direct != null) {
+            direct = Collections.<E>emptyList().iterator();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "GeneratorToIteratorAdapter<" + generator + ">";
+    }
+
+    // static methods
+    //-----------------------------------------------------
+    /**
+     * Adapt a Generator to the Iterator interface.
+     *
+     * @param <E> the type of elements held in the generator.
+     * @param generator to adapt
+     * @return GeneratorToIteratorAdapter
+     */
+    public static <E> GeneratorToIteratorAdapter<E> adapt(Generator<? extends E> generator) {
+        return null == generator ? null : new GeneratorToIteratorAdapter<E>(generator);
+    }
+}
@@ -17,16 +17,19 @@ package org.apache.commons.functor.generator.loop;
 import java.util.Iterator;
 
 import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Chunk;
+import org.apache.commons.functor.generator.ChunkedGenerator;
 import org.apache.commons.lang3.Validate;
 
 /**
- * Adapts an {@link Iterator} to the {@link LoopGenerator} interface.
+ * Adapts an {@link Iterator} to the {@link LoopGenerator} interface. Elements
+ * can also be drained from the iterator a {@link Chunk} at a time.
  *
  * @param <E> the type of elements held in this generator.
  * @since 1.0
  * @version $Revision: 1508677 $ $Date: 2013-07-30 19:48:02 -0300 (Tue, 30 Jul 2013) $
  */
-public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
+public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> implements ChunkedGenerator<E> {
     // instance variables
     //-----------------------------------------------------
 
@@ -53,7 +56,25 @@ public final class IteratorToGeneratorAdapter<E> extends LoopGenerator<E> {
     public void run(Procedure<? super E> proc) {
         while (iter.hasNext()) {
             proc.run(iter.next());
-            if (isStopped()) {
+            if (isStopped() || stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runChunks(Procedure<? super Chunk<E>> proc, int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive: %d", chunkSize);
+        Chunk<E> chunk = new Chunk<E>(chunkSize);
+        while (iter.hasNext()) {
+            chunk.clear();
+            do {
+                chunk.add(iter.next());
+            } while (!chunk.isFull() && iter.hasNext());
+            proc.run(chunk);
+            if (isStopped() || stopRequested(proc)) {
                 break;
             }
         }
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import java.util.concurrent.Executor;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.ConcurrentRuntimeException;
+
+/**
+ * Generator running the generator it wraps on another thread, and handing its
+ * elements over to the thread calling {@link #run(Procedure)} through a
+ * bounded queue. This lets the wrapped generator (e.g. one reading a file)
+ * work ahead while the procedure processes the elements already generated.
+ * <p>
+ * Elements are handed over in batches of up to <code>batchSize</code>
+ * elements, the wrapped generator being run in
+ * {@link org.apache.commons.functor.generator.ChunkedGenerator chunks}; at
+ * most <code>capacity</code> batches are waiting in the queue, after which
+ * the wrapped generator blocks until the procedure catches up.
+ * </p>
+ * <p>
+ * Stopping this generator, or the procedure asking to stop, stops the
+ * wrapped generator as well, across the thread boundary. If the wrapped
+ * generator throws an exception, the exception is rethrown by
+ * {@link #run(Procedure)} once the elements generated before it have been
+ * processed (unchecked exceptions as they are, checked ones wrapped in a
+ * <code>ConcurrentRuntimeException</code>). In either case, and unless the
+ * calling thread is interrupted while waiting for elements,
+ * {@link #run(Procedure)} does not return before the wrapped generator is
+ * done.
+ * </p>
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class PipelinedGenerator<E> extends LoopGenerator<E> {
+
+    /** Runs the wrapped generator, or null to start a thread per run. */
+    private final Executor executor;
+
+    /** Maximum number of batches waiting in the queue. */
+    private final int capacity;
+
+    /** Maximum number of elements per batch. */
+    private final int batchSize;
+
+    /**
+     * Create a new PipelinedGenerator running the wrapped generator on a new
+     * thread for each run.
+     * @param wrapped Generator to run on another thread
+     * @param capacity maximum number of batches waiting to be processed
+     * @param batchSize maximum number of elements per batch
+     */
+    public PipelinedGenerator(Generator<? extends E> wrapped, int capacity, int batchSize) {
+        this(wrapped, null, capacity, batchSize);
+    }
+
+    /**
+     * Create a new PipelinedGenerator running the wrapped generator with an
+     * executor. The executor must run the task on another thread than the
+     * one calling {@link #run(Procedure)}.
+     * @param wrapped Generator to run on another thread
+     * @param executor Executor to run the wrapped generator with; if
+     * <code>null</code>, a new thread is started for each run
+     * @param capacity maximum number of batches waiting to be processed
+     * @param batchSize maximum number of elements per batch
+     */
+    public PipelinedGenerator(Generator<? extends E> wrapped, Executor executor, int capacity, int batchSize) {
+        super(Validate.notNull(wrapped, "Generator argument was null"));
+        Validate.isTrue(capacity > 0, "Capacity must be positive: %d", capacity);
+        Validate.isTrue(batchSize > 0, "Batch size must be positive: %d", batchSize);
+        this.executor = executor;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public void run(Procedure<? super E> proc) {
+        BatchHandoff<E> handoff = new BatchHandoff<E>((Generator<? extends E>) getWrappedGenerator(), capacity,
+                batchSize);
+        handoff.start(executor, "PipelinedGenerator-producer");
+        boolean finished = false;
+        try {
+            while (true) {
+                Object[] batch = handoff.take();
+                if (batch == null) {
+                    finished = true;
+                    handoff.rethrow();
+                    return;
+                }
+                for (Object obj : batch) {
+                    proc.run((E) obj);
+                    if (isStopped() || stopRequested(proc)) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            finished = true;
+            handoff.abandon();
+            Thread.currentThread().interrupt();
+            throw new ConcurrentRuntimeException(e);
+        } finally {
+            if (!finished) {
+                handoff.cancelAndAwait();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof PipelinedGenerator<?>)) {
+            return false;
+        }
+        PipelinedGenerator<?> other = (PipelinedGenerator<?>) obj;
+        return other.getWrappedGenerator().equals(getWrappedGenerator()) && other.capacity == capacity
+                && other.batchSize == batchSize
+                && (executor == null ? other.executor == null : executor.equals(other.executor));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "PipelinedGenerator".hashCode();
+        result <<= 2;
+        result ^= getWrappedGenerator().hashCode();
+        result <<= 2;
+        result ^= capacity;
+        result <<= 2;
+        result ^= batchSize;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "PipelinedGenerator<" + getWrappedGenerator() + ", " + capacity + ", " + batchSize + ">";
+    }
+}
@@ -18,17 +18,22 @@ package org.apache.commons.functor.generator.loop;
 
 import org.apache.commons.functor.Function;
 import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Chunk;
+import org.apache.commons.functor.generator.ChunkedGenerator;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.GeneratorToChunkedAdapter;
+import org.apache.commons.functor.generator.StoppableProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
- * Generator that transforms the elements of another Generator.
+ * Generator that transforms the elements of another Generator. It can also
+ * transform whole {@link Chunk chunks} of elements in place.
  *
  * @param <I> the type of elements held in the wrapped generator.
  * @param <E> the type of elements held in this generator.
  * @version $Revision: 1508677 $ $Date: 2013-07-30 19:48:02 -0300 (Tue, 30 Jul 2013) $
  */
-public class TransformedGenerator<I, E> extends LoopGenerator<E> {
+public class TransformedGenerator<I, E> extends LoopGenerator<E> implements ChunkedGenerator<E> {
 
     /**
      * The Function to apply to each element.
@@ -55,13 +60,41 @@ public class TransformedGenerator<I, E> extends LoopGenerator<E> {
     // See comment above in the public constructor
     @SuppressWarnings("unchecked")
     public void run(final Procedure<? super E> proc) {
-        ((Generator<? extends I>) getWrappedGenerator()).run(new Procedure<I>() {
+        ((Generator<? extends I>) getWrappedGenerator()).run(new StoppableProcedure<I>() {
             public void run(I obj) {
                 proc.run(func.evaluate(obj));
             }
+
+            public boolean isStopped() {
+                return TransformedGenerator.this.isStopped() || stopRequested(proc);
+            }
         });
     }
 
+    /**
+     * {@inheritDoc}
+     * Each chunk of the wrapped generator is transformed in place.
+     */
+    // See comment above in the public constructor; a chunk holds its elements
+    // as Objects, so it can be reused for the transformed elements
+    @SuppressWarnings("unchecked")
+    public void runChunks(final Procedure<? super Chunk<E>> proc, int chunkSize) {
+        GeneratorToChunkedAdapter.<I>adapt((Generator<? extends I>) getWrappedGenerator()).runChunks(
+            new StoppableProcedure<Chunk<I>>() {
+                public void run(Chunk<I> chunk) {
+                    Chunk<Object> transformed = (Chunk<Object>) (Chunk<?>) chunk;
+                    for (int i = 0, size = chunk.size(); i < size; i++) {
+                        transformed.set(i, func.evaluate(chunk.get(i)));
+                    }
+                    proc.run((Chunk<E>) (Chunk<?>) transformed);
+                }
+
+                public boolean isStopped() {
+                    return TransformedGenerator.this.isStopped() || stopRequested(proc);
+                }
+            }, chunkSize);
+    }
+
     /**
      * {@inheritDoc}
      */
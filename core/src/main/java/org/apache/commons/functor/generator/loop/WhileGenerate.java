@@ -19,6 +19,7 @@ package org.apache.commons.functor.generator.loop;
 import org.apache.commons.functor.Predicate;
 import org.apache.commons.functor.Procedure;
 import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
 import org.apache.commons.lang3.Validate;
 
 /**
@@ -49,7 +50,7 @@ public class WhileGenerate<E> extends LoopGenerator<E> {
      * {@inheritDoc}
      */
     public void run(final Procedure<? super E> proc) {
-        getWrappedGenerator().run(new Procedure<E>() {
+        getWrappedGenerator().run(new StoppableProcedure<E>() {
             public void run(E obj) {
                 if (!test.test(obj)) {
                     WhileGenerate.this.stop();
@@ -57,6 +58,10 @@ public class WhileGenerate<E> extends LoopGenerator<E> {
                     proc.run(obj);
                 }
             }
+
+            public boolean isStopped() {
+                return WhileGenerate.this.isStopped() || stopRequested(proc);
+            }
         });
     }
 
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Chunk;
+import org.apache.commons.functor.generator.ChunkedGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator over a range of an array. The array is not copied, so
+ * changes to it are reflected by the generator.
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class ArrayGenerator<E> extends SplittableGenerator<E> implements ChunkedGenerator<E>, Iterable<E> {
+
+    /** The array. */
+    private final E[] array;
+
+    /** Index of the first element (inclusive). */
+    private final int from;
+
+    /** Index of the last element (exclusive). */
+    private final int to;
+
+    /**
+     * Create a new ArrayGenerator over all the elements of an array.
+     * @param array to generate the elements of
+     */
+    public ArrayGenerator(E... array) {
+        this(array, 0, Validate.notNull(array, "Array argument was null").length);
+    }
+
+    /**
+     * Create a new ArrayGenerator over a range of an array.
+     * @param array to generate the elements of
+     * @param from index of the first element (inclusive)
+     * @param to index of the last element (exclusive)
+     */
+    public ArrayGenerator(E[] array, int from, int to) {
+        this.array = Validate.notNull(array, "Array argument was null");
+        if (from < 0 || to > array.length || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for array of length "
+                    + array.length);
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        for (int i = from; i < to; i++) {
+            proc.run(array[i]);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Chunks are filled with a single array copy each.
+     */
+    public void runChunks(Procedure<? super Chunk<E>> proc, int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive: %d", chunkSize);
+        Chunk<E> chunk = new Chunk<E>(Math.max(1, Math.min(chunkSize, to - from)));
+        for (int i = from; i < to;) {
+            int length = Math.min(chunk.capacity(), to - i);
+            chunk.clear();
+            chunk.addAll(array, i, length);
+            i += length;
+            proc.run(chunk);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The iterator does not support removal.
+     */
+    public Iterator<E> iterator() {
+        return Arrays.asList(array).subList(from, to).iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return to - from;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ArrayGenerator<E>> split(int parts) {
+        List<ArrayGenerator<E>> result = new ArrayList<ArrayGenerator<E>>();
+        int n = Math.max(1, Math.min(parts, to - from));
+        if (n == 1) {
+            result.add(this);
+            return result;
+        }
+        for (int i = 0; i < n; i++) {
+            result.add(new ArrayGenerator<E>(array, bound(from, to, i, n), bound(from, to, i + 1, n)));
+        }
+        return result;
+    }
+
+    /**
+     * Compute the bound of a part when splitting <code>[from, to)</code> in
+     * <code>n</code> parts of (nearly) equal size. Shared by the splittable
+     * generators over indexed elements.
+     * @param from start of the range
+     * @param to end of the range
+     * @param i index of the part
+     * @param n number of parts
+     * @return start of part <code>i</code>, or end of the range if
+     * <code>i == n</code>
+     */
+    public static int bound(int from, int to, int i, int n) {
+        return from + (int) ((long) (to - from) * i / n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ArrayGenerator<?>)) {
+            return false;
+        }
+        ArrayGenerator<?> that = (ArrayGenerator<?>) obj;
+        return this.array == that.array && this.from == that.from && this.to == that.to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "ArrayGenerator".hashCode();
+        hash <<= 2;
+        hash ^= System.identityHashCode(array);
+        hash <<= 2;
+        hash ^= from;
+        hash <<= 2;
+        hash ^= to;
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ArrayGenerator<[" + from + ", " + to + ")>";
+    }
+}
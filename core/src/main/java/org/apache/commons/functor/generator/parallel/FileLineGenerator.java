@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.MappedLineGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator of the lines of a file. The file is split into ranges
+ * of bytes of similar size, and each part generates the lines starting in its
+ * range with a {@link MappedLineGenerator}, which aligns the range to line
+ * boundaries when reading it. Splitting does not read the file, and the parts
+ * generate each line of the file exactly once between them.
+ * <p>
+ * The {@link MappedLineGenerator.Line} passed to the procedure is only valid
+ * until the procedure returns. To combine per-part results, use
+ * {@link ParallelGenerator#fold} with an accumulator extracting what it needs
+ * from each line.
+ * </p>
+ */
+public class FileLineGenerator extends SplittableGenerator<MappedLineGenerator.Line> {
+
+    /** Generates the lines of the range of the file. */
+    private final MappedLineGenerator lines;
+
+    /**
+     * Create a new FileLineGenerator.
+     * @param file to read
+     * @param charset of the file; must encode ASCII characters as single bytes
+     */
+    public FileLineGenerator(File file, Charset charset) {
+        this(new MappedLineGenerator(file, charset));
+    }
+
+    /**
+     * Create a new FileLineGenerator splitting the range of the file read by a
+     * MappedLineGenerator.
+     * @param lines MappedLineGenerator giving the file, its charset, the size
+     * of the mapped windows and the range of the file to read
+     */
+    public FileLineGenerator(MappedLineGenerator lines) {
+        this.lines = Validate.notNull(lines, "MappedLineGenerator argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super MappedLineGenerator.Line> proc) {
+        lines.run(proc);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The number of lines is not known in advance.
+     */
+    @Override
+    public long size() {
+        return -1L;
+    }
+
+    /**
+     * Get the number of bytes of the range of the file this generator reads
+     * the lines of.
+     * @return long
+     */
+    public long byteLength() {
+        return Math.max(0L, Math.min(lines.getEnd(), lines.getFile().length()) - lines.getStart());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<FileLineGenerator> split(int parts) {
+        List<FileLineGenerator> result = new ArrayList<FileLineGenerator>();
+        long length = byteLength();
+        int n = (int) Math.max(1L, Math.min(parts, length));
+        if (n == 1) {
+            result.add(this);
+            return result;
+        }
+        for (int i = 0; i < n; i++) {
+            long to = i == n - 1 ? lines.getEnd() : bound(length, i + 1, n);
+            result.add(new FileLineGenerator(new MappedLineGenerator(lines.getFile(), lines.getCharset(),
+                    lines.getWindowSize(), bound(length, i, n), to)));
+        }
+        return result;
+    }
+
+    /**
+     * Compute the start of a part when splitting the range in <code>n</code>
+     * parts of (nearly) equal size, without overflowing.
+     * @param length of the range
+     * @param i index of the part
+     * @param n number of parts
+     * @return long
+     */
+    private long bound(long length, int i, int n) {
+        return lines.getStart() + length / n * i + length % n * i / n;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FileLineGenerator)) {
+            return false;
+        }
+        return ((FileLineGenerator) obj).lines.equals(lines);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "FileLineGenerator".hashCode();
+        hash <<= 2;
+        hash ^= lines.hashCode();
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "FileLineGenerator<" + lines + ">";
+    }
+}
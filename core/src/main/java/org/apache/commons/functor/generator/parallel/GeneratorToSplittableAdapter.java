@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Adapts any {@link Generator} to the {@link SplittableGenerator} interface,
+ * so that existing generators can be handed to a {@link ParallelGenerator}.
+ * The size of the adapted generator is not known and it cannot be split, so
+ * it is run as a single part; use {@link #adapt(Generator)} to keep the
+ * splitting ability of generators which are already splittable, such as the
+ * ones returned by {@link org.apache.commons.functor.generator.util.EachElement}
+ * for arrays, random access lists and integer or long ranges.
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public final class GeneratorToSplittableAdapter<E> extends SplittableGenerator<E> {
+    // instance variables
+    //-----------------------------------------------------
+
+    /**
+     * The adapted generator.
+     */
+    private final Generator<? extends E> wrapped;
+
+    // constructors
+    //-----------------------------------------------------
+    /**
+     * Create a new GeneratorToSplittableAdapter.
+     * @param wrapped Generator to adapt
+     */
+    public GeneratorToSplittableAdapter(Generator<? extends E> wrapped) {
+        this.wrapped = Validate.notNull(wrapped, "Generator argument was null");
+    }
+
+    // instance methods
+    //-----------------------------------------------------
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        wrapped.run(proc);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return -1L;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<GeneratorToSplittableAdapter<E>> split(int parts) {
+        return Collections.singletonList(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GeneratorToSplittableAdapter<?>)) {
+            return false;
+        }
+        GeneratorToSplittableAdapter<?> that = (GeneratorToSplittableAdapter<?>) obj;
+        return this.wrapped.equals(that.wrapped);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "GeneratorToSplittableAdapter".hashCode();
+        hash <<= 2;
+        hash ^= wrapped.hashCode();
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "GeneratorToSplittableAdapter<" + wrapped + ">";
+    }
+
+    // static methods
+    //-----------------------------------------------------
+    /**
+     * Adapt a Generator to the SplittableGenerator interface. A generator
+     * which is already splittable is returned as it is.
+     *
+     * @param <E> the type of elements held in this generator.
+     * @param generator to adapt
+     * @return SplittableGenerator
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> SplittableGenerator<E> adapt(Generator<? extends E> generator) {
+        if (generator instanceof SplittableGenerator<?>) {
+            // generators are read-only, so this is safe
+            return (SplittableGenerator<E>) generator;
+        }
+        return null == generator ? null : new GeneratorToSplittableAdapter<E>(generator);
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Chunk;
+import org.apache.commons.functor.generator.ChunkedGenerator;
+import org.apache.commons.functor.generator.primitive.IntGenerator;
+import org.apache.commons.functor.generator.primitive.IntProcedure;
+import org.apache.commons.functor.range.BoundType;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator over the elements of a {@link IntegerRange}. Unlike the
+ * range itself (which is also its own iterator), this generator doesn't
+ * consume the range, so it can be split and run any number of times. It can
+ * also be run as a primitive generator, without boxing the elements.
+ */
+public class IntegerRangeGenerator extends SplittableGenerator<Integer> implements ChunkedGenerator<Integer>,
+        Iterable<Integer>, IntGenerator {
+
+    /** The first element. */
+    private final int first;
+
+    /** The number of elements. */
+    private final long count;
+
+    /** The step between elements. */
+    private final int step;
+
+    /**
+     * Create a new IntegerRangeGenerator.
+     * @param range the range to generate the elements of
+     */
+    public IntegerRangeGenerator(IntegerRange range) {
+        Validate.notNull(range, "Range argument was null");
+        this.step = range.getStep();
+        if (step == 0) {
+            throw new IllegalArgumentException("Cannot generate the elements of a range with a step of zero");
+        }
+        int from = range.getLeftEndpoint().getValue();
+        int to = range.getRightEndpoint().getValue();
+        long start = range.getLeftEndpoint().getBoundType() == BoundType.CLOSED ? from : (long) from + step;
+        long last = range.getRightEndpoint().getBoundType() == BoundType.CLOSED ? to : (long) to - (step > 0 ? 1 : -1);
+        this.first = (int) start;
+        if (step > 0) {
+            this.count = last < start ? 0L : (last - start) / step + 1;
+        } else {
+            this.count = last > start ? 0L : (start - last) / -(long) step + 1;
+        }
+    }
+
+    /**
+     * Create a new IntegerRangeGenerator.
+     * @param first the first element
+     * @param count the number of elements
+     * @param step the step between elements
+     */
+    private IntegerRangeGenerator(int first, long count, int step) {
+        this.first = first;
+        this.count = count;
+        this.step = step;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(IntProcedure proc) {
+        int value = first;
+        for (long i = 0; i < count; i++) {
+            proc.run(value);
+            value += step;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super Integer> proc) {
+        int value = first;
+        for (long i = 0; i < count; i++) {
+            proc.run(value);
+            if (stopRequested(proc)) {
+                break;
+            }
+            value += step;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runChunks(Procedure<? super Chunk<Integer>> proc, int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive: %d", chunkSize);
+        Chunk<Integer> chunk = new Chunk<Integer>((int) Math.max(1L, Math.min(chunkSize, count)));
+        int value = first;
+        long remaining = count;
+        while (remaining > 0) {
+            chunk.clear();
+            for (int n = (int) Math.min(chunk.capacity(), remaining); n > 0; n--) {
+                chunk.add(value);
+                value += step;
+            }
+            remaining -= chunk.size();
+            proc.run(chunk);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The iterator does not support removal.
+     */
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int value = first;
+            private long remaining = count;
+
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            public Integer next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                int result = value;
+                value += step;
+                remaining--;
+                return result;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IntegerRangeGenerator> split(int parts) {
+        List<IntegerRangeGenerator> result = new ArrayList<IntegerRangeGenerator>();
+        long n = Math.max(1L, Math.min(parts, count));
+        if (n == 1) {
+            result.add(this);
+            return result;
+        }
+        long offset = 0L;
+        for (long i = 1; i <= n; i++) {
+            long end = count / n * i + Math.min(i, count % n);
+            result.add(new IntegerRangeGenerator((int) (first + offset * step), end - offset, step));
+            offset = end;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof IntegerRangeGenerator)) {
+            return false;
+        }
+        IntegerRangeGenerator that = (IntegerRangeGenerator) obj;
+        return this.first == that.first && this.count == that.count && this.step == that.step;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "IntegerRangeGenerator".hashCode();
+        hash <<= 2;
+        hash ^= first;
+        hash <<= 2;
+        hash ^= (int) (count ^ (count >>> 32));
+        hash <<= 2;
+        hash ^= step;
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "IntegerRangeGenerator<" + first + ", " + count + ", " + step + ">";
+    }
+}
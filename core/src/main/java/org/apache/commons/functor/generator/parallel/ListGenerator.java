@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Chunk;
+import org.apache.commons.functor.generator.ChunkedGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator over a range of a random access {@link List}. The list
+ * is not copied, so it should not be structurally modified while the
+ * generator is running.
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public class ListGenerator<E> extends SplittableGenerator<E> implements ChunkedGenerator<E>, Iterable<E> {
+
+    /** The list. */
+    private final List<? extends E> list;
+
+    /** Index of the first element (inclusive). */
+    private final int from;
+
+    /** Index of the last element (exclusive). */
+    private final int to;
+
+    /**
+     * Create a new ListGenerator over all the elements of a list.
+     * @param list to generate the elements of; must implement
+     * {@link RandomAccess}
+     */
+    public ListGenerator(List<? extends E> list) {
+        this(list, 0, Validate.notNull(list, "List argument was null").size());
+    }
+
+    /**
+     * Create a new ListGenerator over a range of a list.
+     * @param list to generate the elements of; must implement
+     * {@link RandomAccess}
+     * @param from index of the first element (inclusive)
+     * @param to index of the last element (exclusive)
+     */
+    public ListGenerator(List<? extends E> list, int from, int to) {
+        this.list = Validate.notNull(list, "List argument was null");
+        Validate.isTrue(list instanceof RandomAccess, "List argument must implement RandomAccess");
+        if (from < 0 || to > list.size() || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for list of size "
+                    + list.size());
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super E> proc) {
+        for (int i = from; i < to; i++) {
+            proc.run(list.get(i));
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runChunks(Procedure<? super Chunk<E>> proc, int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive: %d", chunkSize);
+        Chunk<E> chunk = new Chunk<E>(Math.max(1, Math.min(chunkSize, to - from)));
+        int i = from;
+        while (i < to) {
+            chunk.clear();
+            for (int end = Math.min(to, i + chunk.capacity()); i < end; i++) {
+                chunk.add(list.get(i));
+            }
+            proc.run(chunk);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The iterator does not support removal.
+     */
+    public Iterator<E> iterator() {
+        return Collections.<E>unmodifiableList(list.subList(from, to)).iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return to - from;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ListGenerator<E>> split(int parts) {
+        List<ListGenerator<E>> result = new ArrayList<ListGenerator<E>>();
+        int n = Math.max(1, Math.min(parts, to - from));
+        if (n == 1) {
+            result.add(this);
+            return result;
+        }
+        for (int i = 0; i < n; i++) {
+            result.add(new ListGenerator<E>(list, ArrayGenerator.bound(from, to, i, n),
+                    ArrayGenerator.bound(from, to, i + 1, n)));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ListGenerator<?>)) {
+            return false;
+        }
+        ListGenerator<?> that = (ListGenerator<?>) obj;
+        return this.list.equals(that.list) && this.from == that.from && this.to == that.to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "ListGenerator".hashCode();
+        hash <<= 2;
+        hash ^= list.hashCode();
+        hash <<= 2;
+        hash ^= from;
+        hash <<= 2;
+        hash ^= to;
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ListGenerator<" + list + ", [" + from + ", " + to + ")>";
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Chunk;
+import org.apache.commons.functor.generator.ChunkedGenerator;
+import org.apache.commons.functor.generator.primitive.LongGenerator;
+import org.apache.commons.functor.generator.primitive.LongProcedure;
+import org.apache.commons.functor.range.BoundType;
+import org.apache.commons.functor.range.LongRange;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Splittable generator over the elements of a {@link LongRange}. Unlike the
+ * range itself (which is also its own iterator), this generator doesn't
+ * consume the range, so it can be split and run any number of times. It can
+ * also be run as a primitive generator, without boxing the elements.
+ */
+public class LongRangeGenerator extends SplittableGenerator<Long> implements ChunkedGenerator<Long>,
+        Iterable<Long>, LongGenerator {
+
+    /** The first element. */
+    private final long first;
+
+    /** The number of elements. */
+    private final long count;
+
+    /** The step between elements. */
+    private final long step;
+
+    /**
+     * Create a new LongRangeGenerator.
+     * @param range the range to generate the elements of
+     */
+    public LongRangeGenerator(LongRange range) {
+        Validate.notNull(range, "Range argument was null");
+        this.step = range.getStep();
+        if (step == 0) {
+            throw new IllegalArgumentException("Cannot generate the elements of a range with a step of zero");
+        }
+        long from = range.getLeftEndpoint().getValue();
+        long to = range.getRightEndpoint().getValue();
+        boolean empty = false;
+        long start = from;
+        if (range.getLeftEndpoint().getBoundType() == BoundType.OPEN) {
+            start = from + step;
+            // the first element is past the end of the long values
+            empty = step > 0 ? start < from : start > from;
+        }
+        long last = to;
+        if (range.getRightEndpoint().getBoundType() == BoundType.OPEN) {
+            empty |= step > 0 ? to == Long.MIN_VALUE : to == Long.MAX_VALUE;
+            last = step > 0 ? to - 1 : to + 1;
+        }
+        this.first = start;
+        empty |= step > 0 ? last < start : last > start;
+        if (empty) {
+            this.count = 0L;
+        } else {
+            // the distance between the first and last elements and the
+            // absolute value of the step may only fit in an unsigned long
+            long steps = step > 0 ? divideUnsigned(last - start, step) : divideUnsigned(start - last, -step);
+            if (steps < 0 || steps == Long.MAX_VALUE) {
+                throw new IllegalArgumentException("Cannot generate the elements of a range with more than "
+                        + Long.MAX_VALUE + " elements: " + range);
+            }
+            this.count = steps + 1;
+        }
+    }
+
+    /**
+     * Create a new LongRangeGenerator.
+     * @param first the first element
+     * @param count the number of elements
+     * @param step the step between elements
+     */
+    private LongRangeGenerator(long first, long count, long step) {
+        this.first = first;
+        this.count = count;
+        this.step = step;
+    }
+
+    /**
+     * Divide two unsigned longs.
+     * @param dividend unsigned dividend
+     * @param divisor unsigned divisor, not zero
+     * @return unsigned quotient
+     */
+    private static long divideUnsigned(long dividend, long divisor) {
+        if (divisor < 0) {
+            // the divisor is at least 2^63
+            return dividend + Long.MIN_VALUE < divisor + Long.MIN_VALUE ? 0L : 1L;
+        }
+        if (dividend >= 0) {
+            return dividend / divisor;
+        }
+        long quotient = ((dividend >>> 1) / divisor) << 1;
+        long remainder = dividend - quotient * divisor;
+        return remainder + Long.MIN_VALUE < divisor + Long.MIN_VALUE ? quotient : quotient + 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(LongProcedure proc) {
+        long value = first;
+        for (long i = 0; i < count; i++) {
+            proc.run(value);
+            value += step;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super Long> proc) {
+        long value = first;
+        for (long i = 0; i < count; i++) {
+            proc.run(value);
+            if (stopRequested(proc)) {
+                break;
+            }
+            value += step;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runChunks(Procedure<? super Chunk<Long>> proc, int chunkSize) {
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive: %d", chunkSize);
+        Chunk<Long> chunk = new Chunk<Long>((int) Math.max(1L, Math.min(chunkSize, count)));
+        long value = first;
+        long remaining = count;
+        while (remaining > 0) {
+            chunk.clear();
+            for (int n = (int) Math.min(chunk.capacity(), remaining); n > 0; n--) {
+                chunk.add(value);
+                value += step;
+            }
+            remaining -= chunk.size();
+            proc.run(chunk);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The iterator does not support removal.
+     */
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            private long value = first;
+            private long remaining = count;
+
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            public Long next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                long result = value;
+                value += step;
+                remaining--;
+                return result;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<LongRangeGenerator> split(int parts) {
+        List<LongRangeGenerator> result = new ArrayList<LongRangeGenerator>();
+        long n = Math.max(1L, Math.min(parts, count));
+        if (n == 1) {
+            result.add(this);
+            return result;
+        }
+        long offset = 0L;
+        for (long i = 1; i <= n; i++) {
+            long end = count / n * i + Math.min(i, count % n);
+            result.add(new LongRangeGenerator(first + offset * step, end - offset, step));
+            offset = end;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof LongRangeGenerator)) {
+            return false;
+        }
+        LongRangeGenerator that = (LongRangeGenerator) obj;
+        return this.first == that.first && this.count == that.count && this.step == that.step;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "LongRangeGenerator".hashCode();
+        hash <<= 2;
+        hash ^= (int) (first ^ (first >>> 32));
+        hash <<= 2;
+        hash ^= (int) (count ^ (count >>> 32));
+        hash <<= 2;
+        hash ^= (int) (step ^ (step >>> 32));
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "LongRangeGenerator<" + first + ", " + count + ", " + step + ">";
+    }
+}
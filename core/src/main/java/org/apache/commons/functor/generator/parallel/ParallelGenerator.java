@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.NullaryFunction;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.ConcurrentRuntimeException;
+import org.apache.commons.lang3.concurrent.ConcurrentUtils;
+
+/**
+ * Runs a {@link SplittableGenerator}, optionally followed by a pipeline of
+ * generator stages (e.g. {@link org.apache.commons.functor.generator.FilteredGenerator}
+ * and {@link org.apache.commons.functor.generator.loop.TransformedGenerator}),
+ * in parallel on an <code>ExecutorService</code>. The source is split into a
+ * number of parts, the pipeline is applied to each part and the parts are run
+ * concurrently.
+ * <p>
+ * Because elements are generated concurrently, this class is not a
+ * {@link Generator} itself: the {@link Procedure} passed to
+ * {@link #run(Procedure)} must be thread safe and receives elements in no
+ * particular order. Reductions should use
+ * {@link #fold(NullaryFunction, BinaryFunction, BinaryFunction)} instead, which
+ * folds each part sequentially and then combines the partial results in the
+ * order of the parts.
+ * </p>
+ * <p>
+ * The pipeline is applied anew to each part on each run, so stages which
+ * carry state (such as a {@link org.apache.commons.functor.generator.loop.LoopGenerator}
+ * being stopped) are not shared between parts; the functors used within the
+ * stages however are shared, so they should be stateless.
+ * </p>
+ * <p>
+ * If a part throws an exception, the remaining parts are cancelled and the
+ * exception is rethrown (unchecked exceptions as they are, checked ones
+ * wrapped in a <code>ConcurrentRuntimeException</code>). The parts are
+ * submitted to the executor from the calling thread, which then waits for
+ * them: the calling thread must therefore not be one of the threads of a
+ * bounded executor.
+ * </p>
+ *
+ * @param <E> the type of elements generated.
+ */
+public class ParallelGenerator<E> {
+
+    /**
+     * Creates the parts to run for a given run.
+     *
+     * @param <E> the type of elements generated.
+     */
+    private interface PartFactory<E> {
+        /**
+         * Split the source and apply the pipeline to each part.
+         * @param parts maximum number of parts
+         * @return the parts
+         */
+        List<Generator<? extends E>> create(int parts);
+    }
+
+    /** Creates the parts for each run. */
+    private final PartFactory<E> factory;
+
+    /** The executor running the parts. */
+    private final ExecutorService executor;
+
+    /** Maximum number of parts to split the source into. */
+    private final int parts;
+
+    /**
+     * Create a new ParallelGenerator over a source, splitting it in four
+     * times as many parts as there are available processors.
+     * @param source the generator to split
+     * @param executor the executor to run the parts on
+     */
+    public ParallelGenerator(SplittableGenerator<? extends E> source, ExecutorService executor) {
+        this(source, executor, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Create a new ParallelGenerator over a source.
+     * @param source the generator to split
+     * @param executor the executor to run the parts on
+     * @param parts maximum number of parts to split the source into
+     */
+    public ParallelGenerator(SplittableGenerator<? extends E> source, ExecutorService executor, int parts) {
+        this(source, new Function<Generator<? extends E>, Generator<? extends E>>() {
+            public Generator<? extends E> evaluate(Generator<? extends E> obj) {
+                return obj;
+            }
+        }, executor, parts);
+    }
+
+    /**
+     * Create a new ParallelGenerator applying a pipeline of generator stages
+     * to the parts of a source.
+     * @param <S> the type of elements of the source.
+     * @param source the generator to split
+     * @param pipeline builds the pipeline of stages on top of each part, e.g.
+     * by wrapping it in a {@link org.apache.commons.functor.generator.FilteredGenerator}
+     * @param executor the executor to run the parts on
+     * @param parts maximum number of parts to split the source into
+     */
+    public <S> ParallelGenerator(final SplittableGenerator<? extends S> source,
+            final Function<? super Generator<? extends S>, ? extends Generator<? extends E>> pipeline,
+            ExecutorService executor, int parts) {
+        Validate.notNull(source, "SplittableGenerator argument was null");
+        Validate.notNull(pipeline, "Function argument was null");
+        this.executor = Validate.notNull(executor, "ExecutorService argument was null");
+        Validate.isTrue(parts > 0, "Number of parts must be positive: %d", parts);
+        this.parts = parts;
+        this.factory = new PartFactory<E>() {
+            public List<Generator<? extends E>> create(int n) {
+                List<Generator<? extends E>> result = new ArrayList<Generator<? extends E>>();
+                for (SplittableGenerator<? extends S> part : source.split(n)) {
+                    result.add(Validate.notNull(pipeline.evaluate(part), "Pipeline returned null"));
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Run the procedure on each element, concurrently. If the procedure is a
+     * {@link org.apache.commons.functor.generator.StoppableProcedure}, all the
+     * parts stop once it reports being stopped.
+     * @param proc thread safe procedure to run
+     */
+    public void run(final Procedure<? super E> proc) {
+        Validate.notNull(proc, "Procedure argument was null");
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final Generator<? extends E> part : factory.create(parts)) {
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    part.run(proc);
+                    return null;
+                }
+            });
+        }
+        execute(tasks);
+    }
+
+    /**
+     * Fold the elements in parallel: each part is folded sequentially,
+     * starting from a fresh seed, then the partial results are combined in
+     * the order of the parts. The result is the same as the one of a
+     * sequential fold as long as the combiner is associative and the seed is
+     * an identity for it.
+     * @param <A> the type of the result.
+     * @param seed creates the initial value of each partial result
+     * @param accumulator folds an element into a partial result
+     * @param combiner combines two partial results
+     * @return the combined result
+     */
+    public <A> A fold(final NullaryFunction<? extends A> seed,
+            final BinaryFunction<? super A, ? super E, ? extends A> accumulator,
+            BinaryFunction<? super A, ? super A, ? extends A> combiner) {
+        Validate.notNull(seed, "NullaryFunction argument was null");
+        Validate.notNull(accumulator, "BinaryFunction argument was null");
+        Validate.notNull(combiner, "BinaryFunction argument was null");
+        List<Callable<A>> tasks = new ArrayList<Callable<A>>();
+        for (final Generator<? extends E> part : factory.create(parts)) {
+            tasks.add(new Callable<A>() {
+                public A call() {
+                    final List<A> partial = new ArrayList<A>(1);
+                    partial.add(seed.evaluate());
+                    part.run(new Procedure<E>() {
+                        public void run(E obj) {
+                            partial.set(0, accumulator.evaluate(partial.get(0), obj));
+                        }
+                    });
+                    return partial.get(0);
+                }
+            });
+        }
+        List<A> results = execute(tasks);
+        A result = results.get(0);
+        for (int i = 1; i < results.size(); i++) {
+            result = combiner.evaluate(result, results.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Submit the tasks to {@link #executor} and wait for all of them to
+     * complete. If any of them fails, the others are cancelled.
+     * @param <R> the type of the task results.
+     * @param tasks to run
+     * @return the results of the tasks, in order
+     */
+    private <R> List<R> execute(List<Callable<R>> tasks) {
+        List<Future<R>> futures = new ArrayList<Future<R>>(tasks.size());
+        boolean done = false;
+        try {
+            for (Callable<R> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<R> results = new ArrayList<R>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            done = true;
+            return results;
+        } catch (ExecutionException e) {
+            // rethrow unchecked causes as is, wrap checked (or missing) ones
+            ConcurrentRuntimeException wrapped = ConcurrentUtils.extractCauseUnchecked(e);
+            throw wrapped == null ? new ConcurrentRuntimeException(e) : wrapped;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentRuntimeException(e);
+        } finally {
+            if (!done) {
+                for (Future<R> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ParallelGenerator<" + parts + ">";
+    }
+}
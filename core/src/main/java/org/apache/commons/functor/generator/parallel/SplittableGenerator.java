@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import java.util.List;
+
+import org.apache.commons.functor.generator.BaseGenerator;
+
+/**
+ * Base class for generators whose elements can be split into a number of
+ * disjoint parts, each of them being a generator on its own. Splitting does
+ * not alter this generator, so both this generator and the parts can be run
+ * any number of times. This is what allows a {@link ParallelGenerator} to run
+ * the parts concurrently.
+ *
+ * @param <E> the type of elements held in this generator.
+ */
+public abstract class SplittableGenerator<E> extends BaseGenerator<E> {
+
+    /** Create a new SplittableGenerator. */
+    public SplittableGenerator() {
+        super();
+    }
+
+    /**
+     * Get the number of elements this generator generates.
+     * @return the number of elements, or <code>-1</code> if not known in
+     * advance
+     */
+    public abstract long size();
+
+    /**
+     * Split this generator into at most <code>parts</code> generators which,
+     * run one after the other in list order, generate the same elements as this
+     * generator. Implementations try to make the parts of similar size.
+     * @param parts maximum number of parts
+     * @return the parts; a list containing only this generator if it cannot
+     * be split any further
+     */
+    public abstract List<? extends SplittableGenerator<E>> split(int parts);
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.parallel.ArrayGenerator;
+import org.apache.commons.functor.generator.parallel.SplittableGenerator;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Generator over a range of a <code>double[]</code>. It can be run either as
+ * a {@link DoubleGenerator}, without boxing, or as a
+ * {@link SplittableGenerator} of <code>Double</code>. The array is not copied,
+ * so changes to it are reflected by the generator.
+ */
+public class DoubleArrayGenerator extends SplittableGenerator<Double> implements DoubleGenerator {
+
+    /** The array. */
+    private final double[] array;
+
+    /** Index of the first element (inclusive). */
+    private final int from;
+
+    /** Index of the last element (exclusive). */
+    private final int to;
+
+    /**
+     * Create a new DoubleArrayGenerator over all the elements of an array.
+     * @param array to generate the elements of
+     */
+    public DoubleArrayGenerator(double... array) {
+        this(array, 0, Validate.notNull(array, "Array argument was null").length);
+    }
+
+    /**
+     * Create a new DoubleArrayGenerator over a range of an array.
+     * @param array to generate the elements of
+     * @param from index of the first element (inclusive)
+     * @param to index of the last element (exclusive)
+     */
+    public DoubleArrayGenerator(double[] array, int from, int to) {
+        this.array = Validate.notNull(array, "Array argument was null");
+        if (from < 0 || to > array.length || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for array of length "
+                    + array.length);
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(DoubleProcedure proc) {
+        for (int i = from; i < to; i++) {
+            proc.run(array[i]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(Procedure<? super Double> proc) {
+        for (int i = from; i < to; i++) {
+            proc.run(array[i]);
+            if (stopRequested(proc)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long size() {
+        return to - from;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DoubleArrayGenerator> split(int parts) {
+        List<DoubleArrayGenerator> result = new ArrayList<DoubleArrayGenerator>();
+        int n = Math.max(1, Math.min(parts, to - from));
+        if (n == 1) {
+            result.add(this);
+            return result;
+        }
+        for (int i = 0; i < n; i++) {
+            result.add(new DoubleArrayGenerator(array, ArrayGenerator.bound(from, to, i, n),
+                    ArrayGenerator.bound(from, to, i + 1, n)));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DoubleArrayGenerator)) {
+            return false;
+        }
+        DoubleArrayGenerator that = (DoubleArrayGenerator) obj;
+        return this.array == that.array && this.from == that.from && this.to == that.to;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = "DoubleArrayGenerator".hashCode();
+        hash <<= 2;
+        hash ^= System.identityHashCode(array);
+        hash <<= 2;
+        hash ^= from;
+        hash <<= 2;
+        hash ^= to;
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DoubleArrayGenerator<[" + from + ", " + to + ")>";
+    }
+}
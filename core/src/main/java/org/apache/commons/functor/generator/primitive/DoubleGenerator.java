@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+/**
+ * Generator of <code>double</code> values, the primitive counterpart of a
+ * {@link org.apache.commons.functor.generator.Generator} of
+ * <code>Double</code>. Values are handed to a {@link DoubleProcedure} without
+ * being boxed, so pipelines built with {@link FilteredDoubleGenerator},
+ * {@link TransformedDoubleGenerator} and {@link DoubleFoldLeft} do not allocate
+ * per element.
+ */
+public interface DoubleGenerator {
+    /**
+     * Run the procedure on each value, in order.
+     * @param proc DoubleProcedure to run
+     */
+    void run(DoubleProcedure proc);
+}
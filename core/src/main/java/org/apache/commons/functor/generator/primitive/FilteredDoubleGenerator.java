@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * DoubleGenerator that filters another DoubleGenerator by only passing through
+ * those values that are matched by a specified DoublePredicate.
+ */
+public class FilteredDoubleGenerator implements DoubleGenerator {
+
+    /**
+     * The wrapped generator.
+     */
+    private final DoubleGenerator wrappedGenerator;
+
+    /**
+     * The predicate used to filter.
+     */
+    private final DoublePredicate pred;
+
+    /**
+     * Create a new FilteredDoubleGenerator.
+     * @param wrapped DoubleGenerator to wrap
+     * @param pred filtering DoublePredicate
+     */
+    public FilteredDoubleGenerator(DoubleGenerator wrapped, DoublePredicate pred) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "DoubleGenerator argument was null");
+        this.pred = Validate.notNull(pred, "DoublePredicate argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final DoubleProcedure proc) {
+        wrappedGenerator.run(new DoubleProcedure() {
+            public void run(double value) {
+                if (pred.test(value)) {
+                    proc.run(value);
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof FilteredDoubleGenerator)) {
+            return false;
+        }
+        FilteredDoubleGenerator other = (FilteredDoubleGenerator) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.pred.equals(pred);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "FilteredDoubleGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= pred.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "FilteredDoubleGenerator<" + wrappedGenerator + ", " + pred + ">";
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Functional left-fold algorithm against the values of an {@link IntGenerator},
+ * the primitive counterpart of
+ * {@link org.apache.commons.functor.core.algorithm.FoldLeft}. Uses the seed as
+ * the initial left-side argument to the {@link IntBinaryFunction}, then uses
+ * the result of that evaluation as the next left-side argument, until the
+ * generator's values have been expended.
+ */
+public class IntFoldLeft implements Serializable {
+
+    /**
+     * serialVersionUID declaration.
+     */
+    private static final long serialVersionUID = -2286420862440513545L;
+
+    /**
+     * Helper procedure.
+     */
+    private static class IntFoldLeftHelper implements IntProcedure {
+        /**
+         * The wrapped function.
+         */
+        private final IntBinaryFunction function;
+        /**
+         * The running result.
+         */
+        private int result;
+
+        /**
+         * Create a new IntFoldLeftHelper.
+         *
+         * @param seed initial left-side argument
+         * @param function The wrapped function
+         */
+        IntFoldLeftHelper(int seed, IntBinaryFunction function) {
+            this.result = seed;
+            this.function = function;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(int value) {
+            result = function.evaluate(result, value);
+        }
+    }
+
+    /**
+     * {@link IntBinaryFunction} to apply to each (seed, next).
+     */
+    private final IntBinaryFunction function;
+
+    /**
+     * Create a new IntFoldLeft.
+     * @param func {@link IntBinaryFunction} to apply to each (seed, next)
+     */
+    public IntFoldLeft(IntBinaryFunction func) {
+        this.function = Validate.notNull(func, "IntBinaryFunction argument was null");
+    }
+
+    /**
+     * Fold the values of a generator.
+     * @param generator {@link IntGenerator} to fold
+     * @param seed initial left-side argument
+     * @return the result of the last evaluation, or <code>seed</code> if
+     * the generator is empty
+     */
+    public final int evaluate(IntGenerator generator, int seed) {
+        IntFoldLeftHelper helper = new IntFoldLeftHelper(seed, function);
+        generator.run(helper);
+        return helper.result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof IntFoldLeft)) {
+            return false;
+        }
+        return ((IntFoldLeft) obj).function.equals(function);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return "IntFoldLeft".hashCode() << 2 ^ function.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "IntFoldLeft<" + function + ">";
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.functor.Functor;
+
+/**
+ * A function combining two <code>long</code> values into a <code>long</code>,
+ * the primitive counterpart of a
+ * {@link org.apache.commons.functor.BinaryFunction} of <code>Long</code>.
+ */
+public interface LongBinaryFunction extends Functor {
+    /**
+     * Evaluate this function.
+     * @param left the first argument
+     * @param right the second argument
+     * @return the result of this function
+     */
+    long evaluate(long left, long right);
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Functional left-fold algorithm against the values of a {@link LongGenerator},
+ * the primitive counterpart of
+ * {@link org.apache.commons.functor.core.algorithm.FoldLeft}. Uses the seed as
+ * the initial left-side argument to the {@link LongBinaryFunction}, then uses
+ * the result of that evaluation as the next left-side argument, until the
+ * generator's values have been expended.
+ */
+public class LongFoldLeft implements Serializable {
+
+    /**
+     * serialVersionUID declaration.
+     */
+    private static final long serialVersionUID = 4180312707339924611L;
+
+    /**
+     * Helper procedure.
+     */
+    private static class LongFoldLeftHelper implements LongProcedure {
+        /**
+         * The wrapped function.
+         */
+        private final LongBinaryFunction function;
+        /**
+         * The running result.
+         */
+        private long result;
+
+        /**
+         * Create a new LongFoldLeftHelper.
+         *
+         * @param seed initial left-side argument
+         * @param function The wrapped function
+         */
+        LongFoldLeftHelper(long seed, LongBinaryFunction function) {
+            this.result = seed;
+            this.function = function;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run(long value) {
+            result = function.evaluate(result, value);
+        }
+    }
+
+    /**
+     * {@link LongBinaryFunction} to apply to each (seed, next).
+     */
+    private final LongBinaryFunction function;
+
+    /**
+     * Create a new LongFoldLeft.
+     * @param func {@link LongBinaryFunction} to apply to each (seed, next)
+     */
+    public LongFoldLeft(LongBinaryFunction func) {
+        this.function = Validate.notNull(func, "LongBinaryFunction argument was null");
+    }
+
+    /**
+     * Fold the values of a generator.
+     * @param generator {@link LongGenerator} to fold
+     * @param seed initial left-side argument
+     * @return the result of the last evaluation, or <code>seed</code> if
+     * the generator is empty
+     */
+    public final long evaluate(LongGenerator generator, long seed) {
+        LongFoldLeftHelper helper = new LongFoldLeftHelper(seed, function);
+        generator.run(helper);
+        return helper.result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof LongFoldLeft)) {
+            return false;
+        }
+        return ((LongFoldLeft) obj).function.equals(function);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return "LongFoldLeft".hashCode() << 2 ^ function.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "LongFoldLeft<" + function + ">";
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * IntGenerator that transforms the values of another IntGenerator using a
+ * IntFunction.
+ */
+public class TransformedIntGenerator implements IntGenerator {
+
+    /**
+     * The wrapped generator.
+     */
+    private final IntGenerator wrappedGenerator;
+
+    /**
+     * The function to apply.
+     */
+    private final IntFunction func;
+
+    /**
+     * Create a new TransformedIntGenerator.
+     * @param wrapped IntGenerator to transform
+     * @param func IntFunction to apply to each value
+     */
+    public TransformedIntGenerator(IntGenerator wrapped, IntFunction func) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "IntGenerator argument was null");
+        this.func = Validate.notNull(func, "IntFunction argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final IntProcedure proc) {
+        wrappedGenerator.run(new IntProcedure() {
+            public void run(int value) {
+                proc.run(func.evaluate(value));
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof TransformedIntGenerator)) {
+            return false;
+        }
+        TransformedIntGenerator other = (TransformedIntGenerator) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.func.equals(func);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "TransformedIntGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "TransformedIntGenerator<" + wrappedGenerator + ", " + func + ">";
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * LongGenerator that transforms the values of another LongGenerator using a
+ * LongFunction.
+ */
+public class TransformedLongGenerator implements LongGenerator {
+
+    /**
+     * The wrapped generator.
+     */
+    private final LongGenerator wrappedGenerator;
+
+    /**
+     * The function to apply.
+     */
+    private final LongFunction func;
+
+    /**
+     * Create a new TransformedLongGenerator.
+     * @param wrapped LongGenerator to transform
+     * @param func LongFunction to apply to each value
+     */
+    public TransformedLongGenerator(LongGenerator wrapped, LongFunction func) {
+        this.wrappedGenerator = Validate.notNull(wrapped, "LongGenerator argument was null");
+        this.func = Validate.notNull(func, "LongFunction argument was null");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run(final LongProcedure proc) {
+        wrappedGenerator.run(new LongProcedure() {
+            public void run(long value) {
+                proc.run(func.evaluate(value));
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof TransformedLongGenerator)) {
+            return false;
+        }
+        TransformedLongGenerator other = (TransformedLongGenerator) obj;
+        return other.wrappedGenerator.equals(wrappedGenerator) && other.func.equals(func);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = "TransformedLongGenerator".hashCode();
+        result <<= 2;
+        result ^= wrappedGenerator.hashCode();
+        result <<= 2;
+        result ^= func.hashCode();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "TransformedLongGenerator<" + wrappedGenerator + ", " + func + ">";
+    }
+}
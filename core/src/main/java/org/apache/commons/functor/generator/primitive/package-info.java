@@ -0,0 +1,22 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * <p>
+ * Contains Generators of primitive <code>int</code>, <code>long</code> and
+ * <code>double</code> values, along with the primitive procedures, predicates
+ * and functions they work with, so that numeric pipelines can run without
+ * boxing each value.
+ * </p>
+ */
+package org.apache.commons.functor.generator.primitive;
@@ -14,15 +14,36 @@
 
 package org.apache.commons.functor.generator.util;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.parallel.ArrayGenerator;
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.generator.parallel.ListGenerator;
+import org.apache.commons.functor.generator.parallel.LongRangeGenerator;
+import org.apache.commons.functor.generator.parallel.SplittableGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.functor.range.LongRange;
 
 /**
  * Generator factory for each element of a "collection".
+ * <p>
+ * The <code>from</code> methods return generators iterating over the
+ * elements. Where the number of elements is known in advance, i.e. for
+ * arrays, lists and integer or long ranges, the <code>splittable</code>
+ * methods return a {@link SplittableGenerator} instead, which accesses the
+ * elements by index rather than through an <code>Iterator</code>, reports its
+ * size and can be run in parallel by a
+ * {@link org.apache.commons.functor.generator.parallel.ParallelGenerator}.
+ * Such generators can be run more than once; the underlying list should not
+ * be structurally modified once the generator is created.
+ * </p>
  *
  * @since 1.0
  * @version $Revision: 1345136 $ $Date: 2012-06-01 09:47:06 -0300 (Fri, 01 Jun 2012) $
@@ -80,4 +101,47 @@ public final class EachElement {
     public static <E> Generator<E> from(Iterator<? extends E> iter) {
         return iter == null ? null : new IteratorToGeneratorAdapter<E>(iter);
     }
+
+    /**
+     * Get a SplittableGenerator for each element of an Object[].
+     * @param <E> the type of elements held in the input array.
+     * @param array to generate the elements of
+     * @return SplittableGenerator
+     */
+    public static <E> SplittableGenerator<E> splittable(E... array) {
+        return array == null ? null : new ArrayGenerator<E>(array);
+    }
+
+    /**
+     * Get a SplittableGenerator for each element of a List. Lists without
+     * {@link RandomAccess} are copied, so as to access their elements by index
+     * in constant time.
+     * @param <E> the type of elements held in the input list.
+     * @param list to generate the elements of
+     * @return SplittableGenerator
+     */
+    public static <E> SplittableGenerator<E> splittable(List<? extends E> list) {
+        if (list == null) {
+            return null;
+        }
+        return new ListGenerator<E>(list instanceof RandomAccess ? list : new ArrayList<E>(list));
+    }
+
+    /**
+     * Get a SplittableGenerator for each element of an IntegerRange.
+     * @param range to generate the elements of; must not have a step of zero
+     * @return SplittableGenerator
+     */
+    public static SplittableGenerator<Integer> splittable(IntegerRange range) {
+        return range == null ? null : new IntegerRangeGenerator(range);
+    }
+
+    /**
+     * Get a SplittableGenerator for each element of a LongRange.
+     * @param range to generate the elements of; must not have a step of zero
+     * @return SplittableGenerator
+     */
+    public static SplittableGenerator<Long> splittable(LongRange range) {
+        return range == null ? null : new LongRangeGenerator(range);
+    }
 }
@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Opt-in tracing of the stages of a generator pipeline. The functor of each
+ * stage to trace is wrapped by this trace when the pipeline is built, e.g.
+ * <pre>
+ * PipelineTrace trace = new PipelineTrace();
+ * Generator&lt;Order&gt; orders = new TransformedGenerator&lt;Line, Order&gt;(
+ *     new FilteredGenerator&lt;Line&gt;(lines, trace.filter("valid", isValid)),
+ *     trace.transform("parse", parse));
+ * ...
+ * System.out.println(trace);
+ * </pre>
+ * and the trace then records, for each stage, the number of elements in
+ * (functor evaluations) and out (elements passed on), and the cumulative
+ * time spent evaluating the functor, so the costliest stage of a pipeline
+ * stands out. The time does not include the downstream stages. Tracing is
+ * thread safe, so parallel pipelines can share a trace.
+ * <p>
+ * The figures are available as a list of {@link StageReport}s, in the order
+ * the stages were traced, or as a text table from {@link #toString()}.
+ * </p>
+ */
+public final class PipelineTrace {
+
+    /** The stages traced. */
+    private final List<Stage> stages = Collections.synchronizedList(new ArrayList<Stage>());
+
+    /**
+     * Trace the predicate of a filtering stage, such as a
+     * <code>FilteredGenerator</code> or a <code>WhileGenerate</code>, passing
+     * on the elements the predicate accepts. For a stage testing its
+     * elements after passing them on, such as a <code>GenerateWhile</code>,
+     * the elements out are the ones after which it goes on.
+     * @param <T> the type of elements tested.
+     * @param name of the stage
+     * @param pred the predicate of the stage
+     * @return traced predicate
+     */
+    public <T> Predicate<T> filter(String name, Predicate<? super T> pred) {
+        return new TracedPredicate<T>(newStage(name), Validate.notNull(pred, "Predicate argument was null"), true);
+    }
+
+    /**
+     * Trace the predicate of a stage passing on the elements the predicate
+     * rejects, such as an <code>UntilGenerate</code> (or, after which it goes
+     * on, a <code>GenerateUntil</code>).
+     * @param <T> the type of elements tested.
+     * @param name of the stage
+     * @param pred the predicate of the stage
+     * @return traced predicate
+     */
+    public <T> Predicate<T> until(String name, Predicate<? super T> pred) {
+        return new TracedPredicate<T>(newStage(name), Validate.notNull(pred, "Predicate argument was null"), false);
+    }
+
+    /**
+     * Trace the function of a transforming stage, such as a
+     * <code>TransformedGenerator</code>.
+     * @param <A> the argument type.
+     * @param <T> the returned value type.
+     * @param name of the stage
+     * @param func the function of the stage
+     * @return traced function
+     */
+    public <A, T> Function<A, T> transform(String name, Function<? super A, ? extends T> func) {
+        return new TracedFunction<A, T>(newStage(name), Validate.notNull(func, "Function argument was null"));
+    }
+
+    /**
+     * Register a new stage.
+     * @param name of the stage
+     * @return Stage
+     */
+    private Stage newStage(String name) {
+        Stage stage = new Stage(Validate.notNull(name, "Name argument was null"));
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Get a snapshot of the figures of the stages traced.
+     * @return List of StageReport, in the order the stages were traced
+     */
+    public List<StageReport> report() {
+        List<StageReport> result = new ArrayList<StageReport>();
+        synchronized (stages) {
+            for (Stage stage : stages) {
+                // out first: elements go in before they go out
+                long out = stage.out.get();
+                result.add(new StageReport(stage.name, stage.in.get(), out, stage.nanos.get()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reset the figures of all the stages to zero.
+     */
+    public void reset() {
+        synchronized (stages) {
+            for (Stage stage : stages) {
+                // out first, as in report(): a concurrent report never sees
+                // the elements out of a stage still counted after its
+                // elements in were zeroed
+                stage.out.set(0);
+                stage.in.set(0);
+                stage.nanos.set(0);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The figures are formatted as a table, one line per stage.
+     */
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(String.format("%-20s %12s %12s %11s %12s%n", "stage", "in", "out",
+            "selectivity", "time (ms)"));
+        for (StageReport stage : report()) {
+            buf.append(String.format("%-20s %12d %12d %11.3f %12.3f%n", stage.getName(), stage.getIn(),
+                stage.getOut(), stage.getSelectivity(), stage.getNanos() / 1e6));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Snapshot of the figures of a stage.
+     */
+    public static final class StageReport {
+
+        /** The name of the stage. */
+        private final String name;
+
+        /** The number of elements in. */
+        private final long in;
+
+        /** The number of elements out. */
+        private final long out;
+
+        /** The cumulative time spent in the stage, in nanoseconds. */
+        private final long nanos;
+
+        /**
+         * Create a new StageReport.
+         * @param name of the stage
+         * @param in number of elements in
+         * @param out number of elements out
+         * @param nanos cumulative time spent in the stage, in nanoseconds
+         */
+        StageReport(String name, long in, long out, long nanos) {
+            this.name = name;
+            this.in = in;
+            this.out = out;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Get the name of the stage.
+         * @return String
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the number of elements into the stage.
+         * @return long
+         */
+        public long getIn() {
+            return in;
+        }
+
+        /**
+         * Get the number of elements out of the stage.
+         * @return long
+         */
+        public long getOut() {
+            return out;
+        }
+
+        /**
+         * Get the fraction of the elements in passed on by the stage, or 1 if
+         * no element went in.
+         * @return double
+         */
+        public double getSelectivity() {
+            return in == 0 ? 1 : (double) out / in;
+        }
+
+        /**
+         * Get the cumulative time spent in the stage, in nanoseconds.
+         * @return long
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "StageReport<" + name + ", " + in + ", " + out + ", " + nanos + ">";
+        }
+    }
+
+    /**
+     * Figures of a stage, updated as the pipeline runs.
+     */
+    private static final class Stage {
+
+        /** The name of the stage. */
+        private final String name;
+
+        /** The number of elements in. */
+        private final AtomicLong in = new AtomicLong();
+
+        /** The number of elements out. */
+        private final AtomicLong out = new AtomicLong();
+
+        /** The cumulative time spent in the stage, in nanoseconds. */
+        private final AtomicLong nanos = new AtomicLong();
+
+        /**
+         * Create a new Stage.
+         * @param name of the stage
+         */
+        Stage(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Predicate recording the figures of a stage.
+     * @param <T> the type of elements tested.
+     */
+    private static final class TracedPredicate<T> implements Predicate<T> {
+
+        /** The stage. */
+        private final Stage stage;
+
+        /** The traced predicate. */
+        private final Predicate<? super T> pred;
+
+        /** The result for which the stage passes an element on. */
+        private final boolean passOn;
+
+        /**
+         * Create a new TracedPredicate.
+         * @param stage the stage
+         * @param pred the traced predicate
+         * @param passOn the result for which the stage passes an element on
+         */
+        TracedPredicate(Stage stage, Predicate<? super T> pred, boolean passOn) {
+            this.stage = stage;
+            this.pred = pred;
+            this.passOn = passOn;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean test(T obj) {
+            stage.in.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                boolean result = pred.test(obj);
+                if (result == passOn) {
+                    stage.out.incrementAndGet();
+                }
+                return result;
+            } finally {
+                stage.nanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof TracedPredicate<?>)) {
+                return false;
+            }
+            TracedPredicate<?> that = (TracedPredicate<?>) obj;
+            return that.stage == stage && that.pred.equals(pred) && that.passOn == passOn;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            int result = "TracedPredicate".hashCode();
+            result <<= 2;
+            result ^= stage.name.hashCode();
+            result <<= 2;
+            result ^= pred.hashCode();
+            result <<= 2;
+            result ^= passOn ? 1 : 0;
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "TracedPredicate<" + stage.name + ", " + pred + ">";
+        }
+    }
+
+    /**
+     * Function recording the figures of a stage.
+     * @param <A> the argument type.
+     * @param <T> the returned value type.
+     */
+    private static final class TracedFunction<A, T> implements Function<A, T> {
+
+        /** The stage. */
+        private final Stage stage;
+
+        /** The traced function. */
+        private final Function<? super A, ? extends T> func;
+
+        /**
+         * Create a new TracedFunction.
+         * @param stage the stage
+         * @param func the traced function
+         */
+        TracedFunction(Stage stage, Function<? super A, ? extends T> func) {
+            this.stage = stage;
+            this.func = func;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public T evaluate(A obj) {
+            stage.in.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                T result = func.evaluate(obj);
+                stage.out.incrementAndGet();
+                return result;
+            } finally {
+                stage.nanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof TracedFunction<?, ?>)) {
+                return false;
+            }
+            TracedFunction<?, ?> that = (TracedFunction<?, ?>) obj;
+            return that.stage == stage && that.func.equals(func);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            int result = "TracedFunction".hashCode();
+            result <<= 2;
+            result ^= stage.name.hashCode();
+            result <<= 2;
+            result ^= func.hashCode();
+            return result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "TracedFunction<" + stage.name + ", " + func + ">";
+        }
+    }
+}
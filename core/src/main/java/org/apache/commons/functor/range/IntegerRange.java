@@ -159,7 +159,7 @@ public class IntegerRange extends NumericRange<Integer> {
             .notNull(new Endpoint<Integer>(to, rightBoundType),
                      "Right Endpoint argument must not be null");
         this.step = step;
-        if (from != to && Integer.signum(step) != Integer.signum(to - from)) {
+        if (from != to && Integer.signum(step) != (to > from ? 1 : -1)) {
             throw new IllegalArgumentException("Will never reach " + to
                                                + " from " + from
                                                + " using step " + step);
@@ -170,7 +170,7 @@ public final class LongRange extends NumericRange<Long> {
             .notNull(new Endpoint<Long>(to, rightBoundType),
                      "Right Endpoint argument must not be null");
         this.step = step;
-        if (from != to && Long.signum(step) != Long.signum(to - from)) {
+        if (from != to && Long.signum(step) != (to > from ? 1 : -1)) {
             throw new IllegalArgumentException("Will never reach " + to
                                                + " from " + from
                                                + " using step " + step);
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.functions.DoubleMaxAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.DoubleSumAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerCountAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AbstractAtomicNoStoreAggregator} and its
+ * {@link DoubleAtomicNoStoreAggregator} and
+ * {@link IntegerAtomicNoStoreAggregator} implementations.
+ */
+public class AbstractAtomicNoStoreAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new IntegerAtomicNoStoreAggregator(new IntegerSumAggregatorBinaryFunction());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() {
+        new IntegerAtomicNoStoreAggregator(null);
+    }
+
+    @Test
+    public void testIntegerSum() throws Exception {
+        IntegerAtomicNoStoreAggregator agg = (IntegerAtomicNoStoreAggregator) makeFunctor();
+        assertEquals(Integer.valueOf(0), agg.evaluate());
+        agg.add(1);
+        agg.add(-5);
+        agg.add(10);
+        assertEquals(Integer.valueOf(6), agg.evaluate());
+        assertEquals(0, agg.getDataSize());
+        agg.reset();
+        assertEquals(Integer.valueOf(0), agg.evaluate());
+    }
+
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        IntegerAtomicNoStoreAggregator agg = (IntegerAtomicNoStoreAggregator) makeFunctor();
+        agg.add(3);
+        agg.add(4);
+        assertEquals(Integer.valueOf(7), agg.evaluateAndReset());
+        assertEquals(Integer.valueOf(0), agg.evaluate());
+    }
+
+    @Test
+    public void testDoubleMax() throws Exception {
+        DoubleAtomicNoStoreAggregator agg = new DoubleAtomicNoStoreAggregator(
+                new DoubleMaxAggregatorBinaryFunction()) {
+            @Override
+            protected Double initialValue() {
+                return Double.NEGATIVE_INFINITY;
+            }
+        };
+        assertEquals(Double.NEGATIVE_INFINITY, agg.evaluate(), 0.0);
+        agg.add(-3.5);
+        assertEquals(-3.5, agg.evaluate(), 0.0);
+        agg.add(2.25);
+        agg.add(-1.0);
+        assertEquals(2.25, agg.evaluate(), 0.0);
+        agg.reset();
+        assertEquals(Double.NEGATIVE_INFINITY, agg.evaluate(), 0.0);
+    }
+
+    @Test
+    public void testDoubleSum() throws Exception {
+        DoubleAtomicNoStoreAggregator agg = new DoubleAtomicNoStoreAggregator(
+                new DoubleSumAggregatorBinaryFunction());
+        agg.add(1.5);
+        agg.add(2.5);
+        agg.add(-0.5);
+        assertEquals(3.5, agg.evaluate(), 0.0);
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final IntegerAtomicNoStoreAggregator agg = new IntegerAtomicNoStoreAggregator(
+                new IntegerCountAggregatorBinaryFunction());
+        final int threads = 8;
+        final int calls = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < calls; j++) {
+                        agg.add(j);
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(Integer.valueOf(threads * calls), agg.evaluate());
+    }
+}
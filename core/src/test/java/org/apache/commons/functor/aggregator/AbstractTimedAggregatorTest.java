@@ -116,6 +116,14 @@ public class AbstractTimedAggregatorTest extends BaseFunctorTest {
         agg.stop();
     }
 
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        SimpleStoreTimedAggregator agg = (SimpleStoreTimedAggregator) makeFunctor();
+        agg.add(42);
+        assertEquals(Integer.valueOf(42), agg.evaluateAndReset());
+        assertEquals(Integer.valueOf(0), agg.evaluate());
+    }
+
     /**
      * Simple timed aggregator which just stores the latest object and returns
      * it when evaluating the result.
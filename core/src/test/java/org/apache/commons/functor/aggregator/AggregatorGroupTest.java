@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.aggregator.functions.IntegerCountAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerMaxAggregatorFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AggregatorGroup}.
+ */
+public class AggregatorGroupTest {
+    @Test
+    public void testFlush() {
+        AggregatorGroup group = new AggregatorGroup();
+        assertFalse(group.isTimerEnabled());
+        IntegerAtomicNoStoreAggregator requests = new IntegerAtomicNoStoreAggregator(
+                new IntegerCountAggregatorBinaryFunction());
+        ArrayListBackedAggregator<Integer> max = new ArrayListBackedAggregator<Integer>(
+                new IntegerMaxAggregatorFunction());
+        group.addAggregator("requests", requests);
+        group.addAggregator("max", max);
+        assertSame(requests, group.getAggregator("requests"));
+
+        final AtomicReference<Map<String, Object>> notified = new AtomicReference<Map<String, Object>>();
+        group.addListener(new AggregatorGroupListener() {
+            public void onFlush(AggregatorGroup group, Map<String, Object> evaluations) {
+                notified.set(evaluations);
+            }
+        });
+        requests.add(1);
+        requests.add(1);
+        max.add(5);
+        max.add(17);
+
+        Map<String, Object> result = group.flush();
+        assertSame(result, notified.get());
+        assertEquals(Arrays.asList("requests", "max"), new ArrayList<String>(result.keySet()));
+        assertEquals(Integer.valueOf(2), result.get("requests"));
+        assertEquals(Integer.valueOf(17), result.get("max"));
+        assertEquals(Integer.valueOf(0), requests.evaluate());
+        assertEquals(0, max.getDataSize());
+
+        assertSame(requests, group.removeAggregator("requests"));
+        assertNull(group.removeAggregator("requests"));
+        assertEquals(1, group.flush().size());
+        group.stop();
+    }
+
+    @Test
+    public void testFlushFreezesLockFreeAggregators() throws Exception {
+        AggregatorGroup group = new AggregatorGroup(AbstractTimedAggregator.NO_TIMER, false, true);
+        assertTrue(group.isFreezingLockFree());
+        final IntegerAtomicNoStoreAggregator requests = new IntegerAtomicNoStoreAggregator(
+                new IntegerCountAggregatorBinaryFunction());
+        final DoubleHistogramAggregator latencies = new DoubleHistogramAggregator(new double[] { 1.0 });
+        final CountDownLatch cutting = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ArrayListBackedAggregator<Integer> slow = new ArrayListBackedAggregator<Integer>(
+                new Function<List<Integer>, Integer>() {
+                    public Integer evaluate(List<Integer> data) {
+                        cutting.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return data.size();
+                    }
+                });
+        group.addAggregator("requests", requests);
+        group.addAggregator("latencies", latencies);
+        group.addAggregator("slow", slow);
+
+        final AggregatorGroup flushed = group;
+        final AtomicReference<Map<String, Object>> result = new AtomicReference<Map<String, Object>>();
+        Thread flusher = new Thread() {
+            @Override
+            public void run() {
+                result.set(flushed.flush());
+            }
+        };
+        flusher.start();
+        assertTrue(cutting.await(5, TimeUnit.SECONDS));
+        final CountDownLatch added = new CountDownLatch(1);
+        Thread adder = new Thread() {
+            @Override
+            public void run() {
+                requests.add(1);
+                latencies.add(0.5);
+                added.countDown();
+            }
+        };
+        adder.start();
+        // the lock-free aggregators are frozen until the cut is complete
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        flusher.join();
+        adder.join();
+        assertEquals(Integer.valueOf(0), result.get().get("requests"));
+        assertEquals(0L, ((DoubleHistogram) result.get().get("latencies")).getCount());
+        assertEquals(Integer.valueOf(1), requests.evaluate());
+        assertEquals(1L, latencies.evaluate().getCount());
+
+        // once removed, an aggregator no longer honours the lock of the group
+        group.removeAggregator("requests");
+        requests.add(1);
+        assertEquals(Integer.valueOf(2), requests.evaluate());
+        group.stop();
+    }
+
+    @Test
+    public void testLockFreeAggregatorsStayLockFreeByDefault() throws Exception {
+        AggregatorGroup group = new AggregatorGroup();
+        assertFalse(group.isFreezingLockFree());
+        IntegerAtomicNoStoreAggregator requests = new IntegerAtomicNoStoreAggregator(
+                new IntegerCountAggregatorBinaryFunction());
+        group.addAggregator("requests", requests);
+        assertNull(requests.getGroupLock());
+        requests.add(1);
+        requests.add(1);
+        // the lock-free aggregator is cut by its own atomic swap
+        assertEquals(Integer.valueOf(2), group.flush().get("requests"));
+        assertEquals(Integer.valueOf(0), requests.evaluate());
+        group.stop();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        AggregatorGroup group = new AggregatorGroup();
+        group.addAggregator("sum", new IntegerAtomicNoStoreAggregator(new IntegerSumAggregatorBinaryFunction()));
+        group.addAggregator("sum", new IntegerAtomicNoStoreAggregator(new IntegerSumAggregatorBinaryFunction()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAggregatorWithTimer() {
+        AggregatorGroup group = new AggregatorGroup();
+        IntegerAtomicNoStoreAggregator agg = new IntegerAtomicNoStoreAggregator(
+                new IntegerSumAggregatorBinaryFunction(), 1000L);
+        try {
+            group.addAggregator("sum", agg);
+        } finally {
+            agg.stop();
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullAggregator() {
+        new AggregatorGroup().addAggregator("sum", null);
+    }
+
+    @Test
+    public void testTimer() throws Exception {
+        AggregatorGroup group = new AggregatorGroup(50L, true);
+        assertTrue(group.isTimerEnabled());
+        assertEquals(50L, group.getInterval());
+        IntegerAtomicNoStoreAggregator sum = new IntegerAtomicNoStoreAggregator(
+                new IntegerSumAggregatorBinaryFunction());
+        group.addAggregator("sum", sum);
+        final CountDownLatch flushed = new CountDownLatch(1);
+        final List<Object> values = new ArrayList<Object>();
+        sum.add(10);
+        group.addListener(new AggregatorGroupListener() {
+            public void onFlush(AggregatorGroup group, Map<String, Object> evaluations) {
+                synchronized (values) {
+                    values.add(evaluations.get("sum"));
+                }
+                flushed.countDown();
+            }
+        });
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        group.stop();
+        assertFalse(group.isTimerEnabled());
+        synchronized (values) {
+            assertEquals(Integer.valueOf(10), values.get(0));
+        }
+    }
+}
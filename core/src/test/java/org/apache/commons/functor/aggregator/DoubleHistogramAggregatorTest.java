@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleHistogramAggregator} and {@link DoubleHistogram}.
+ */
+public class DoubleHistogramAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleHistogramAggregator(100.0, 250.0, 500.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoundsNotIncreasing() {
+        new DoubleHistogramAggregator(1.0, 3.0, 2.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoundsDuplicated() {
+        new DoubleHistogramAggregator(1.0, 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBoundsNaN() {
+        new DoubleHistogramAggregator(1.0, Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStripes() {
+        new DoubleHistogramAggregator(new double[] { 1.0 }, 0L, false, 0);
+    }
+
+    @Test
+    public void testStripesRoundedUp() {
+        assertEquals(8, new DoubleHistogramAggregator(new double[] { 1.0 }, 0L, false, 5).getStripes());
+    }
+
+    @Test
+    public void testImplicitInfinityBound() {
+        DoubleHistogramAggregator agg = new DoubleHistogramAggregator(1.0, Double.POSITIVE_INFINITY);
+        assertArrayEquals(new double[] { 1.0 }, agg.getUpperBounds(), 0.0);
+        assertEquals(2, agg.evaluate().getBucketCount());
+    }
+
+    @Test
+    public void testCumulativeCounts() throws Exception {
+        DoubleHistogramAggregator agg = (DoubleHistogramAggregator) makeFunctor();
+        agg.add(10);
+        agg.add(100);
+        agg.add(100.5);
+        agg.add(250);
+        agg.add(499);
+        agg.add(1000);
+        agg.add(Double.NaN);
+        DoubleHistogram histogram = agg.evaluate();
+        assertEquals(4, histogram.getBucketCount());
+        assertEquals(2L, histogram.getCumulativeCount(0));
+        assertEquals(4L, histogram.getCumulativeCount(1));
+        assertEquals(5L, histogram.getCumulativeCount(2));
+        assertEquals(7L, histogram.getCumulativeCount(3));
+        assertEquals(7L, histogram.getCount());
+        assertEquals(Double.POSITIVE_INFINITY, histogram.getUpperBound(3), 0.0);
+        assertEquals(4.0 / 7.0, histogram.fractionAtOrBelow(250.0), 0.0);
+        assertEquals(2L, histogram.countAtOrBelow(200.0));
+        assertEquals(0L, histogram.countAtOrBelow(50.0));
+        assertEquals(0, agg.getDataSize());
+
+        // snapshot is immutable
+        agg.add(1);
+        assertEquals(7L, histogram.getCount());
+        assertEquals(8L, agg.evaluate().getCount());
+
+        agg.reset();
+        histogram = agg.evaluate();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0.0, histogram.getSum(), 0.0);
+        assertTrue(Double.isNaN(histogram.fractionAtOrBelow(250.0)));
+    }
+
+    @Test
+    public void testCountPastLastBound() throws Exception {
+        DoubleHistogramAggregator agg = (DoubleHistogramAggregator) makeFunctor();
+        agg.add(10);
+        agg.add(499);
+        agg.add(1000);
+        agg.add(5000);
+        DoubleHistogram histogram = agg.evaluate();
+        assertEquals(2L, histogram.countAtOrBelow(500.0));
+        // the Double.POSITIVE_INFINITY bucket is only known to be below itself
+        assertEquals(4L, histogram.countAtOrBelow(Double.POSITIVE_INFINITY));
+        assertEquals(2L, histogram.countAtOrBelow(2000.0));
+        assertEquals(0L, histogram.countAtOrBelow(Double.NaN));
+        assertEquals(1.0, histogram.fractionAtOrBelow(Double.POSITIVE_INFINITY), 0.0);
+    }
+
+    @Test
+    public void testEvaluateAndReset() throws Exception {
+        DoubleHistogramAggregator agg = (DoubleHistogramAggregator) makeFunctor();
+        agg.add(10);
+        agg.add(300);
+        DoubleHistogram histogram = agg.evaluateAndReset();
+        assertEquals(2L, histogram.getCount());
+        assertEquals(310.0, histogram.getSum(), 0.0);
+        assertEquals(0L, agg.evaluate().getCount());
+    }
+
+    @Test
+    public void testSum() throws Exception {
+        DoubleHistogramAggregator agg = (DoubleHistogramAggregator) makeFunctor();
+        agg.add(1.5);
+        agg.add(2.5);
+        agg.add(300.0);
+        assertEquals(304.0, agg.evaluate().getSum(), 0.0);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        DoubleHistogramAggregator agg = (DoubleHistogramAggregator) makeFunctor();
+        DoubleHistogramAggregator other = (DoubleHistogramAggregator) makeFunctor();
+        agg.add(50);
+        other.add(200);
+        other.add(600);
+        agg.add(other.evaluate());
+        DoubleHistogram histogram = agg.evaluate();
+        assertEquals(1L, histogram.getCumulativeCount(0));
+        assertEquals(2L, histogram.getCumulativeCount(1));
+        assertEquals(2L, histogram.getCumulativeCount(2));
+        assertEquals(3L, histogram.getCount());
+        assertEquals(850.0, histogram.getSum(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentBounds() throws Exception {
+        DoubleHistogramAggregator agg = (DoubleHistogramAggregator) makeFunctor();
+        agg.add(new DoubleHistogramAggregator(1.0).evaluate());
+    }
+
+    @Test
+    public void testSnapshotEquals() throws Exception {
+        DoubleHistogramAggregator agg = (DoubleHistogramAggregator) makeFunctor();
+        DoubleHistogramAggregator other = (DoubleHistogramAggregator) makeFunctor();
+        agg.add(42);
+        other.add(42);
+        assertEquals(agg.evaluate(), other.evaluate());
+        assertEquals(agg.evaluate().hashCode(), other.evaluate().hashCode());
+        other.add(43);
+        assertTrue(!agg.evaluate().equals(other.evaluate()));
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final DoubleHistogramAggregator agg = new DoubleHistogramAggregator(new double[] { 10.0, 20.0 }, 0L,
+                false, 4);
+        final int threads = 8;
+        final int calls = 10000;
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < calls; j++) {
+                        agg.add(j % 30);
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        DoubleHistogram histogram = agg.evaluate();
+        assertEquals(threads * calls, histogram.getCount());
+        assertTrue(histogram.getCumulativeCount(0) < histogram.getCumulativeCount(1));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.functions.DoubleMedianValueAggregatorFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DoubleRunningMedianAggregator}.
+ */
+public class DoubleRunningMedianAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new DoubleRunningMedianAggregator();
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        DoubleRunningMedianAggregator agg = (DoubleRunningMedianAggregator) makeFunctor();
+        assertNull(agg.evaluate());
+        assertEquals(0, agg.getDataSize());
+        assertFalse(agg.remove(1.0));
+    }
+
+    @Test
+    public void testOddAndEven() throws Exception {
+        DoubleRunningMedianAggregator agg = (DoubleRunningMedianAggregator) makeFunctor();
+        agg.add(5.0);
+        assertEquals(5.0, agg.evaluate(), 0.0);
+        agg.add(1.0);
+        assertEquals(3.0, agg.evaluate(), 0.0);
+        agg.add(10.0);
+        assertEquals(5.0, agg.evaluate(), 0.0);
+        agg.add(7.0);
+        assertEquals(6.0, agg.evaluate(), 0.0);
+        assertEquals(4, agg.getDataSize());
+        agg.reset();
+        assertNull(agg.evaluate());
+        assertEquals(0, agg.getDataSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNaN() throws Exception {
+        DoubleRunningMedianAggregator agg = (DoubleRunningMedianAggregator) makeFunctor();
+        agg.add(Double.NaN);
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        DoubleRunningMedianAggregator agg = (DoubleRunningMedianAggregator) makeFunctor();
+        agg.add(1.0);
+        agg.add(2.0);
+        agg.add(3.0);
+        agg.add(2.0);
+        assertTrue(agg.remove(2.0));
+        assertEquals(2.0, agg.evaluate(), 0.0);
+        assertFalse(agg.remove(4.0));
+        assertTrue(agg.remove(1.0));
+        assertEquals(2.5, agg.evaluate(), 0.0);
+        assertTrue(agg.remove(3.0));
+        assertTrue(agg.remove(2.0));
+        assertNull(agg.evaluate());
+    }
+
+    @Test
+    public void testSlidingWindowMatchesMedianFunction() throws Exception {
+        DoubleRunningMedianAggregator agg = (DoubleRunningMedianAggregator) makeFunctor();
+        DoubleMedianValueAggregatorFunction median = new DoubleMedianValueAggregatorFunction();
+        List<Double> window = new ArrayList<Double>();
+        Random rnd = new Random(31L);
+        int windowSize = 50;
+        for (int i = 0; i < 1000; i++) {
+            double value = rnd.nextInt(100);
+            agg.add(value);
+            window.add(value);
+            if (window.size() > windowSize) {
+                assertTrue(agg.remove(window.remove(0)));
+            }
+            assertEquals(window.size(), agg.getDataSize());
+            assertEquals(median.evaluate(window), agg.evaluate(), 0.0);
+        }
+    }
+
+    @Test
+    public void testRemoveInAnyOrderMatchesMedianFunction() throws Exception {
+        DoubleRunningMedianAggregator agg = (DoubleRunningMedianAggregator) makeFunctor();
+        DoubleMedianValueAggregatorFunction median = new DoubleMedianValueAggregatorFunction();
+        List<Double> values = new ArrayList<Double>();
+        Random rnd = new Random(17L);
+        for (int i = 0; i < 500; i++) {
+            double value = rnd.nextInt(50);
+            agg.add(value);
+            values.add(value);
+        }
+        while (!values.isEmpty()) {
+            assertEquals(median.evaluate(values), agg.evaluate(), 0.0);
+            assertTrue(agg.remove(values.remove(rnd.nextInt(values.size()))));
+            assertEquals(values.size(), agg.getDataSize());
+            if (rnd.nextInt(4) == 0) {
+                double value = rnd.nextInt(50);
+                agg.add(value);
+                values.add(value);
+            }
+        }
+        assertNull(agg.evaluate());
+        assertFalse(agg.remove(1.0));
+    }
+
+    @Test
+    public void testRemoveSignedZero() throws Exception {
+        DoubleRunningMedianAggregator agg = (DoubleRunningMedianAggregator) makeFunctor();
+        agg.add(-0.0);
+        agg.add(5.0);
+        assertTrue(agg.remove(0.0));
+        assertEquals(5.0, agg.evaluate(), 0.0);
+        assertFalse(agg.remove(-0.0));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.functor.BaseFunctorTest;
+import org.apache.commons.functor.aggregator.functions.IntegerCountAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorFunction;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ThreadLocalBatchingAggregator}.
+ */
+public class ThreadLocalBatchingAggregatorTest extends BaseFunctorTest {
+    @Override
+    protected Object makeFunctor() throws Exception {
+        return new ThreadLocalBatchingAggregator<Integer>(new IntegerAtomicNoStoreAggregator(
+                new IntegerSumAggregatorBinaryFunction()), 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        new ThreadLocalBatchingAggregator<Integer>(new IntegerAtomicNoStoreAggregator(
+                new IntegerSumAggregatorBinaryFunction()), 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullBacking() {
+        new ThreadLocalBatchingAggregator<Integer>(null, 1);
+    }
+
+    @Test
+    public void testBuffering() throws Exception {
+        @SuppressWarnings("unchecked")
+        ThreadLocalBatchingAggregator<Integer> agg = (ThreadLocalBatchingAggregator<Integer>) makeFunctor();
+        AbstractTimedAggregator<Integer> backing = agg.getBacking();
+        assertEquals(4, agg.getBatchSize());
+        agg.add(1);
+        agg.add(2);
+        agg.add(3);
+        // still buffered
+        assertEquals(Integer.valueOf(0), backing.evaluate());
+        agg.add(4);
+        // buffer full, so flushed
+        assertEquals(Integer.valueOf(10), backing.evaluate());
+        agg.add(5);
+        assertEquals(Integer.valueOf(10), backing.evaluate());
+        // evaluate drains
+        assertEquals(Integer.valueOf(15), agg.evaluate());
+        assertEquals(Integer.valueOf(15), backing.evaluate());
+
+        agg.add(6);
+        assertEquals(Integer.valueOf(21), agg.evaluateAndReset());
+        assertEquals(Integer.valueOf(0), agg.evaluate());
+
+        agg.add(7);
+        agg.reset();
+        assertEquals(Integer.valueOf(0), agg.evaluate());
+    }
+
+    @Test
+    public void testDataSize() throws Exception {
+        ArrayListBackedAggregator<Integer> backing = new ArrayListBackedAggregator<Integer>(
+                new IntegerSumAggregatorFunction());
+        ThreadLocalBatchingAggregator<Integer> agg = new ThreadLocalBatchingAggregator<Integer>(backing, 10);
+        agg.add(1);
+        agg.add(2);
+        assertEquals(0, backing.getDataSize());
+        assertEquals(2, agg.getDataSize());
+        assertSame(backing, agg.getBacking());
+    }
+
+    @Test
+    public void testOrphanedBuffersDiscarded() throws Exception {
+        @SuppressWarnings("unchecked")
+        final ThreadLocalBatchingAggregator<Integer> agg = (ThreadLocalBatchingAggregator<Integer>) makeFunctor();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                agg.add(42);
+            }
+        };
+        thread.start();
+        thread.join();
+        assertEquals(1, agg.getBufferCount());
+        assertEquals(Integer.valueOf(42), agg.evaluate());
+        assertEquals(0, agg.getBufferCount());
+    }
+
+    /**
+     * Ensures no item is lost or counted twice while the aggregator is cut
+     * repeatedly by another thread.
+     */
+    @Test
+    public void testConcurrentCuts() throws Exception {
+        final ThreadLocalBatchingAggregator<Integer> agg = new ThreadLocalBatchingAggregator<Integer>(
+                new IntegerAtomicNoStoreAggregator(new IntegerCountAggregatorBinaryFunction()), 16);
+        final int threads = 4;
+        final int calls = 20000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < calls; j++) {
+                        agg.add(j);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        final AtomicLong total = new AtomicLong();
+        final AtomicBoolean finished = new AtomicBoolean();
+        Thread cutter = new Thread() {
+            @Override
+            public void run() {
+                while (!finished.get()) {
+                    total.addAndGet(agg.evaluateAndReset());
+                }
+            }
+        };
+        cutter.start();
+        done.await();
+        finished.set(true);
+        cutter.join();
+        total.addAndGet(agg.evaluateAndReset());
+        assertEquals(threads * calls, total.get());
+    }
+}
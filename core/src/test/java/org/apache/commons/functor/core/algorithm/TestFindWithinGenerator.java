@@ -21,14 +21,18 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.Predicate;
 import org.apache.commons.functor.adapter.LeftBoundPredicate;
+import org.apache.commons.functor.core.Identity;
 import org.apache.commons.functor.core.IsEqual;
+import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.loop.TransformedGenerator;
 import org.junit.Test;
 
 /**
@@ -95,6 +99,15 @@ public class TestFindWithinGenerator extends BaseFunctorTest {
         assertEquals("Xyzzy",new FindWithinGenerator<String>("Xyzzy").evaluate(IteratorToGeneratorAdapter.adapt(strings.iterator()),equalsXyZ));
     }
 
+    @Test
+    public void testStopsAtFirstMatch() {
+        Iterator<Integer> iter = numbers.iterator();
+        Generator<Integer> gen = new TransformedGenerator<Integer, Integer>(IteratorToGeneratorAdapter.adapt(iter),
+                new Identity<Integer>());
+        assertEquals(new Integer(3),new FindWithinGenerator<Integer>().evaluate(gen,equalsThree));
+        assertEquals(new Integer(4), iter.next());
+    }
+
     @Test
     public void testInstance() {
         assertNotNull("FindWithinGenerator instance must not be null", FindWithinGenerator.instance());
@@ -16,10 +16,12 @@
  */
 package org.apache.commons.functor.core.algorithm;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.functor.BaseFunctorTest;
@@ -27,6 +29,8 @@ import org.apache.commons.functor.Predicate;
 import org.apache.commons.functor.adapter.LeftBoundPredicate;
 import org.apache.commons.functor.core.IsEqual;
 import org.apache.commons.functor.core.algorithm.GeneratorContains;
+import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
 import org.junit.Test;
 
@@ -46,11 +50,31 @@ public class TestGeneratorContains extends BaseFunctorTest {
         assertFalse(new GeneratorContains<Integer>().test(IteratorToGeneratorAdapter.adapt(list.iterator()),equalsTwentyThree));
     }
 
+    @Test
+    public void testStopsAtFirstMatch() {
+        Iterator<Integer> iter = list.iterator();
+        assertTrue(new GeneratorContains<Integer>().test(IteratorToGeneratorAdapter.adapt(iter),equalsThree));
+        assertEquals(new Integer(4), iter.next());
+    }
+
+    @Test
+    public void testStopsAtFirstMatchThroughWrappers() {
+        Iterator<Integer> iter = list.iterator();
+        Generator<Integer> gen = new FilteredGenerator<Integer>(IteratorToGeneratorAdapter.adapt(iter), isOdd);
+        assertTrue(new GeneratorContains<Integer>().test(gen,equalsThree));
+        assertEquals(new Integer(4), iter.next());
+    }
+
     // Attributes
     // ------------------------------------------------------------------------
 
     private List<Integer> list = Arrays.asList(0,1,2,3,4,5,6,7,8,9);
     private Predicate<Integer> equalsThree = LeftBoundPredicate.bind(IsEqual.instance(),new Integer(3));
     private Predicate<Integer> equalsTwentyThree = LeftBoundPredicate.bind(IsEqual.instance(),new Integer(23));
+    private Predicate<Integer> isOdd = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 != 0;
+        }
+    };
 
 }
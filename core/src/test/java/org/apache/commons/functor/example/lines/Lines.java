@@ -49,6 +49,9 @@ public class Lines extends LoopGenerator<String> {
         try {
             for (String line = in.readLine(); line != null; line = in.readLine()) {
                 proc.run(line);
+                if (isStopped() || stopRequested(proc)) {
+                    break;
+                }
             }
         } catch(RuntimeException e) {
             throw e;
@@ -16,21 +16,32 @@
  */
 package org.apache.commons.functor.example.lines;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.Charset;
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.apache.commons.functor.BinaryFunction;
 import org.apache.commons.functor.adapter.NullaryProcedureProcedure;
+import org.apache.commons.functor.core.Constant;
 import org.apache.commons.functor.core.Offset;
 import org.apache.commons.functor.core.algorithm.FoldLeft;
 import org.apache.commons.functor.core.collection.Size;
 import org.apache.commons.functor.core.composite.And;
 import org.apache.commons.functor.core.composite.Not;
 import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.MappedLineGenerator;
+import org.apache.commons.functor.generator.parallel.FileLineGenerator;
+import org.apache.commons.functor.generator.parallel.ParallelGenerator;
 import org.apache.commons.functor.generator.loop.TransformedGenerator;
 
 /**
@@ -74,6 +85,31 @@ public class TestLines extends TestCase {
         assertEquals("Expected 157 words",new Integer(157),result);
     }
 
+    public void testCountWordsInParallel() throws Exception {
+        File file = File.createTempFile("lines", ".txt");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(DOCUMENT.getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            Object result = new ParallelGenerator<MappedLineGenerator.Line>(
+                    new FileLineGenerator(file, Charset.forName("UTF-8")), executor, 5).fold(
+                    Constant.of(0), new BinaryFunction<Integer, MappedLineGenerator.Line, Integer>() {
+                        public Integer evaluate(Integer count, MappedLineGenerator.Line line) {
+                            return Sum.instance().evaluate(count, WordCount.instance().evaluate(line.toString()));
+                        }
+                    }, Sum.instance());
+
+            assertEquals("Expected 157 words",new Integer(157),result);
+        } finally {
+            executor.shutdown();
+            file.delete();
+        }
+    }
+
     public void testCountLines() throws Exception {
         Count count = new Count();
         Lines
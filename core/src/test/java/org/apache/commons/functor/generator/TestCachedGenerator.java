@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.junit.Test;
+
+/**
+ * Tests the CachedGenerator class.
+ */
+public class TestCachedGenerator {
+
+    private static final List<Integer> ELEMENTS = Arrays.asList(1, 2, 3, 4, 5);
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new CachedGenerator<Integer>(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNegativeMaximum() {
+        new CachedGenerator<Integer>(new CountingGenerator(), -1, CachedGenerator.Overflow.SPILL);
+    }
+
+    @Test
+    public void testReplayFromMemory() {
+        CountingGenerator wrapped = new CountingGenerator();
+        CachedGenerator<Integer> generator = new CachedGenerator<Integer>(wrapped);
+        assertFalse(generator.isCached());
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertTrue(generator.isCached());
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertEquals(1, wrapped.runs);
+        generator.clear();
+        assertFalse(generator.isCached());
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertEquals(2, wrapped.runs);
+    }
+
+    @Test
+    public void testReplayIterator() {
+        CachedGenerator<Integer> generator = new CachedGenerator<Integer>(
+            IteratorToGeneratorAdapter.adapt(ELEMENTS.iterator()));
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+    }
+
+    @Test
+    public void testStoppedRunIsNotRecorded() {
+        CountingGenerator wrapped = new CountingGenerator();
+        CachedGenerator<Integer> generator = new CachedGenerator<Integer>(wrapped);
+        assertEquals(Arrays.asList(1, 2), firstTwo(generator));
+        assertFalse(generator.isCached());
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertEquals(Arrays.asList(1, 2), firstTwo(generator));
+        assertEquals(2, wrapped.runs);
+    }
+
+    @Test
+    public void testRunStoppedOnLastElementIsRecorded() {
+        CountingGenerator wrapped = new CountingGenerator();
+        CachedGenerator<Integer> generator = new CachedGenerator<Integer>(wrapped);
+        final List<Integer> result = new ArrayList<Integer>();
+        generator.run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                result.add(obj);
+            }
+
+            public boolean isStopped() {
+                return result.size() >= ELEMENTS.size();
+            }
+        });
+        assertEquals(ELEMENTS, result);
+        assertTrue(generator.isCached());
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertEquals(1, wrapped.runs);
+    }
+
+    @Test
+    public void testRecomputeBeyondMaximum() {
+        CountingGenerator wrapped = new CountingGenerator();
+        CachedGenerator<Integer> generator = new CachedGenerator<Integer>(wrapped, 4,
+            CachedGenerator.Overflow.RECOMPUTE);
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertFalse(generator.isCached());
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertEquals(2, wrapped.runs);
+
+        generator = new CachedGenerator<Integer>(wrapped, 5, CachedGenerator.Overflow.RECOMPUTE);
+        assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+        assertTrue(generator.isCached());
+    }
+
+    @Test
+    public void testSpillBeyondMaximum() {
+        for (int max = 0; max < ELEMENTS.size(); max++) {
+            CountingGenerator wrapped = new CountingGenerator();
+            CachedGenerator<Integer> generator = new CachedGenerator<Integer>(wrapped, max,
+                CachedGenerator.Overflow.SPILL);
+            assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+            assertTrue(generator.isCached());
+            assertEquals(ELEMENTS, generator.to(new ArrayList<Integer>()));
+            assertEquals(Arrays.asList(1, 2), firstTwo(generator));
+            assertEquals(1, wrapped.runs);
+            generator.clear();
+        }
+    }
+
+    @Test
+    public void testSpillFailureFallsBackToRecompute() {
+        final List<Object> values = Arrays.asList(new Object(), new Object());
+        CachedGenerator<Object> generator = new CachedGenerator<Object>(new BaseGenerator<Object>() {
+            public void run(Procedure<? super Object> proc) {
+                for (Object obj : values) {
+                    proc.run(obj);
+                }
+            }
+        }, 1, CachedGenerator.Overflow.SPILL);
+        assertEquals(values, generator.to(new ArrayList<Object>()));
+        assertFalse(generator.isCached());
+        assertEquals(values, generator.to(new ArrayList<Object>()));
+    }
+
+    @Test
+    public void testEquals() {
+        CountingGenerator wrapped = new CountingGenerator();
+        CachedGenerator<Integer> generator = new CachedGenerator<Integer>(wrapped);
+        assertEquals(generator, new CachedGenerator<Integer>(wrapped));
+        assertEquals(generator.hashCode(), new CachedGenerator<Integer>(wrapped).hashCode());
+        assertFalse(generator.equals(new CachedGenerator<Integer>(wrapped, 5, CachedGenerator.Overflow.RECOMPUTE)));
+        assertFalse(generator.equals(new CachedGenerator<Integer>(wrapped, Integer.MAX_VALUE,
+            CachedGenerator.Overflow.SPILL)));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static List<Integer> firstTwo(Generator<Integer> generator) {
+        final List<Integer> result = new ArrayList<Integer>();
+        generator.run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                result.add(obj);
+            }
+
+            public boolean isStopped() {
+                return result.size() >= 2;
+            }
+        });
+        return result;
+    }
+
+    /** A generator counting its runs. */
+    private static class CountingGenerator extends BaseGenerator<Integer> {
+        private int runs;
+
+        public void run(Procedure<? super Integer> proc) {
+            runs++;
+            for (Integer i : ELEMENTS) {
+                proc.run(i);
+                if (stopRequested(proc)) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.loop.IteratorToGeneratorAdapter;
+import org.apache.commons.functor.generator.loop.TransformedGenerator;
+import org.apache.commons.functor.generator.parallel.ArrayGenerator;
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.generator.parallel.ListGenerator;
+import org.apache.commons.functor.generator.parallel.LongRangeGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.functor.range.LongRange;
+import org.junit.Test;
+
+/**
+ * Tests the Chunk class and the chunked run mode of generators.
+ */
+public class TestChunkedGenerator {
+
+    private final Integer[] elements = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testChunk() {
+        Chunk<Integer> chunk = new Chunk<Integer>(3);
+        assertTrue(chunk.isEmpty());
+        chunk.add(1);
+        chunk.addAll(elements, 4, 2);
+        assertTrue(chunk.isFull());
+        assertEquals("Chunk[1, 4, 5]", chunk.toString());
+        chunk.set(0, 7);
+        chunk.truncate(2);
+        assertEquals(Integer.valueOf(7), chunk.get(0));
+        assertEquals(2, chunk.size());
+        chunk.clear();
+        assertEquals(0, chunk.size());
+        assertEquals(3, chunk.capacity());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testChunkGetBeyondSize() {
+        Chunk<Integer> chunk = new Chunk<Integer>(3);
+        chunk.add(1);
+        chunk.get(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testChunkAddWhenFull() {
+        Chunk<Integer> chunk = new Chunk<Integer>(1);
+        chunk.add(1);
+        chunk.add(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkSizeMustBePositive() {
+        new ArrayGenerator<Integer>(elements).runChunks(new Collector<Integer>(), 0);
+    }
+
+    @Test
+    public void testSources() {
+        List<Integer> expected = Arrays.asList(elements);
+        for (int chunkSize = 1; chunkSize <= 12; chunkSize++) {
+            assertChunks(expected, chunkSize, new ArrayGenerator<Integer>(elements));
+            assertChunks(expected, chunkSize, new ListGenerator<Integer>(expected));
+            assertChunks(expected, chunkSize, new IntegerRangeGenerator(new IntegerRange(0, 11)));
+            assertChunks(expected, chunkSize, IteratorToGeneratorAdapter.adapt(expected.iterator()));
+            assertChunks(expected, chunkSize, GeneratorToChunkedAdapter.adapt(new FilteredGenerator<Integer>(
+                new LinkedListGenerator(expected), isAnything)));
+        }
+        assertEquals(Arrays.asList(0L, 1L, 2L), collect(new LongRangeGenerator(new LongRange(0, 3)), 2).elements);
+    }
+
+    @Test
+    public void testStages() {
+        ChunkedGenerator<Integer> pipeline = new TransformedGenerator<Integer, Integer>(
+            new FilteredGenerator<Integer>(new ArrayGenerator<Integer>(elements), isEven), doubled);
+        for (int chunkSize = 1; chunkSize <= 12; chunkSize++) {
+            Collector<Integer> collector = collect(pipeline, chunkSize);
+            assertEquals(Arrays.asList(0, 4, 8, 12, 16, 20), collector.elements);
+            assertEquals(pipeline.toCollection(), collector.elements);
+        }
+        assertEquals(Arrays.asList(1, 1, 1, 1, 1, 1), collect(pipeline, 2).sizes);
+        assertEquals(Arrays.asList(3, 2, 1), collect(pipeline, 5).sizes);
+    }
+
+    @Test
+    public void testAdapterReturnsChunkedGeneratorsAsIs() {
+        ChunkedGenerator<Integer> generator = new ArrayGenerator<Integer>(elements);
+        assertSame(generator, GeneratorToChunkedAdapter.adapt(generator));
+        assertEquals(GeneratorToChunkedAdapter.adapt(new LinkedListGenerator(Arrays.asList(elements))),
+            GeneratorToChunkedAdapter.adapt(new LinkedListGenerator(Arrays.asList(elements))));
+    }
+
+    @Test
+    public void testStopAfterChunk() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        StoppableProcedure<Chunk<Integer>> proc = new StoppableProcedure<Chunk<Integer>>() {
+            public void run(Chunk<Integer> chunk) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    collected.add(chunk.get(i));
+                }
+            }
+
+            public boolean isStopped() {
+                return collected.size() >= 4;
+            }
+        };
+        new FilteredGenerator<Integer>(new LinkedListGenerator(Arrays.asList(elements)), isAnything)
+            .runChunks(proc, 3);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), collected);
+        collected.clear();
+        new IntegerRangeGenerator(new IntegerRange(0, 100)).runChunks(proc, 4);
+        assertEquals(Arrays.asList(0, 1, 2, 3), collected);
+    }
+
+    @Test
+    public void testNoChunkAfterFailure() {
+        Collector<Integer> collector = new Collector<Integer>();
+        try {
+            GeneratorToChunkedAdapter.adapt(new BaseGenerator<Integer>() {
+                public void run(Procedure<? super Integer> proc) {
+                    proc.run(1);
+                    proc.run(2);
+                    throw new IllegalStateException();
+                }
+            }).runChunks(collector, 5);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertTrue(collector.elements.isEmpty());
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static <E> void assertChunks(List<E> expected, int chunkSize, ChunkedGenerator<E> generator) {
+        Collector<E> collector = collect(generator, chunkSize);
+        assertEquals(generator.toString(), expected, collector.elements);
+        for (int i = 0; i < collector.sizes.size() - 1; i++) {
+            assertEquals(generator.toString(), Integer.valueOf(chunkSize), collector.sizes.get(i));
+        }
+    }
+
+    private static <E> Collector<E> collect(ChunkedGenerator<E> generator, int chunkSize) {
+        Collector<E> collector = new Collector<E>();
+        generator.runChunks(collector, chunkSize);
+        return collector;
+    }
+
+    private static class Collector<E> implements Procedure<Chunk<E>> {
+        private final List<E> elements = new ArrayList<E>();
+        private final List<Integer> sizes = new ArrayList<Integer>();
+
+        public void run(Chunk<E> chunk) {
+            sizes.add(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                elements.add(chunk.get(i));
+            }
+        }
+    }
+
+    /** A generator which cannot run in chunks by itself. */
+    private static class LinkedListGenerator extends BaseGenerator<Integer> {
+        private final List<Integer> list;
+
+        public LinkedListGenerator(List<Integer> elements) {
+            this.list = new LinkedList<Integer>(elements);
+        }
+
+        public void run(Procedure<? super Integer> proc) {
+            for (Integer i : list) {
+                proc.run(i);
+                if (stopRequested(proc)) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof LinkedListGenerator && ((LinkedListGenerator) obj).list.equals(list);
+        }
+
+        @Override
+        public int hashCode() {
+            return list.hashCode();
+        }
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final Predicate<Integer> isEven = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 == 0;
+        }
+    };
+
+    private final Predicate<Integer> isAnything = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return true;
+        }
+    };
+
+    private final Function<Integer, Integer> doubled = new Function<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() * 2;
+        }
+    };
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.core.Constant;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the Concatenated Generator class.
+ */
+@SuppressWarnings("unchecked")
+public class TestConcatenatedGenerator {
+
+    private final Generator<Integer> first = EachElement.from(Arrays.asList(1, 2, 3));
+    private final Generator<Integer> second = new FilteredGenerator<Integer>(EachElement.from(Arrays.asList(4, 5)),
+        Constant.truePredicate());
+    private final Generator<Integer> empty = EachElement.from(Collections.<Integer> emptyList());
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new ConcatenatedGenerator<Integer>((List<Generator<Integer>>) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNullElement() {
+        new ConcatenatedGenerator<Integer>(first, null);
+    }
+
+    @Test
+    public void testGenerate() {
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5),
+            new ConcatenatedGenerator<Integer>(first, empty, second).to(new ArrayList<Integer>()));
+        assertEquals(Collections.emptyList(), new ConcatenatedGenerator<Integer>().toCollection());
+    }
+
+    @Test
+    public void testStopPreventsFollowingGenerators() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        final List<Integer> secondRun = new ArrayList<Integer>();
+        Generator<Integer> tracked = new RunTracker(secondRun);
+        new ConcatenatedGenerator<Integer>(first, tracked).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() >= 2;
+            }
+        });
+        assertEquals(Arrays.asList(1, 2), collected);
+        assertTrue(secondRun.isEmpty());
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> gen = new ConcatenatedGenerator<Integer>(first, second);
+        assertEquals(gen, gen);
+        assertEquals(gen, new ConcatenatedGenerator<Integer>(first, second));
+        assertEquals(gen.hashCode(), new ConcatenatedGenerator<Integer>(first, second).hashCode());
+        assertFalse(gen.equals(new ConcatenatedGenerator<Integer>(second, first)));
+        assertFalse(gen.equals(null));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    /** A generator recording whether it has been run. */
+    private static class RunTracker extends BaseGenerator<Integer> {
+        private final List<Integer> runs;
+
+        public RunTracker(List<Integer> runs) {
+            this.runs = runs;
+        }
+
+        public void run(Procedure<? super Integer> proc) {
+            runs.add(0);
+            proc.run(0);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.core.Identity;
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.generator.parallel.ListGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.Test;
+
+/**
+ * Tests the DistinctGenerator class.
+ */
+public class TestDistinctGenerator {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new DistinctGenerator<Integer>(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNoExpectedKeys() {
+        new DistinctGenerator<Integer>(new ListGenerator<Integer>(ELEMENTS), Identity.<Integer>instance(), 0, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsInvalidRate() {
+        new DistinctGenerator<Integer>(new ListGenerator<Integer>(ELEMENTS), Identity.<Integer>instance(), 10, 1.0);
+    }
+
+    @Test
+    public void testExact() {
+        DistinctGenerator<Integer> generator = new DistinctGenerator<Integer>(new ListGenerator<Integer>(ELEMENTS));
+        assertFalse(generator.isApproximate());
+        assertEquals(Arrays.asList(3, 1, 4, 5, 9, 2, 6, null), generator.toCollection());
+        // each run starts afresh
+        assertEquals(Arrays.asList(3, 1, 4, 5, 9, 2, 6, null), generator.toCollection());
+    }
+
+    @Test
+    public void testKeyFunction() {
+        Function<String, Integer> length = new Function<String, Integer>() {
+            public Integer evaluate(String obj) {
+                return obj.length();
+            }
+        };
+        assertEquals(Arrays.asList("a", "bb", "dddd"), new DistinctGenerator<String>(new ListGenerator<String>(
+            Arrays.asList("a", "bb", "c", "dddd", "ee")), length).toCollection());
+    }
+
+    @Test
+    public void testManyKeys() {
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 50000; i++) {
+            values.add(i * 7919 % 10007);
+        }
+        List<Integer> distinct = new DistinctGenerator<Integer>(new ListGenerator<Integer>(values)).to(
+            new ArrayList<Integer>());
+        assertEquals(new ArrayList<Integer>(new LinkedHashSet<Integer>(values)), distinct);
+        assertEquals(10007, distinct.size());
+    }
+
+    @Test
+    public void testOpenHashSet() {
+        DistinctGenerator.OpenHashSet set = new DistinctGenerator.OpenHashSet();
+        // "Aa" and "BB" have the same hash code
+        assertTrue(set.add("Aa"));
+        assertTrue(set.add("BB"));
+        assertTrue(set.add(null));
+        assertFalse(set.add("Aa"));
+        assertFalse(set.add("BB"));
+        assertFalse(set.add(null));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testApproximate() {
+        int n = 20000;
+        DistinctGenerator<Integer> generator = new DistinctGenerator<Integer>(new ConcatenatedGenerator<Integer>(
+            new IntegerRangeGenerator(new IntegerRange(0, n)), new IntegerRangeGenerator(new IntegerRange(0, n))),
+            Identity.<Integer>instance(), n, 0.01);
+        assertTrue(generator.isApproximate());
+        List<Integer> distinct = generator.to(new ArrayList<Integer>());
+        Set<Integer> set = new HashSet<Integer>(distinct);
+        assertEquals("no key twice", distinct.size(), set.size());
+        assertTrue("few keys dropped: " + (n - distinct.size()), distinct.size() >= n * 0.97);
+        assertEquals(distinct, generator.toCollection());
+    }
+
+    @Test
+    public void testApproximateKeysOfSameHashCode() {
+        // "Aa", "BB" and "C#" have the same 32-bit hash code, but not the same 64-bit hash
+        Function<String, Long> hash = new Function<String, Long>() {
+            public Long evaluate(String obj) {
+                return DistinctGenerator.hash64(obj);
+            }
+        };
+        assertEquals(Arrays.asList("Aa", "BB", "C#"), new DistinctGenerator<String>(new ListGenerator<String>(
+            Arrays.asList("Aa", "BB", "Aa", "C#", "BB")), hash, 100, 0.001).toCollection());
+        assertTrue(DistinctGenerator.hash64("Aa") != DistinctGenerator.hash64("BB"));
+        assertEquals(DistinctGenerator.hash64("Aa"), DistinctGenerator.hash64(new StringBuilder("Aa")));
+    }
+
+    @Test
+    public void testBloomFilterSizeIsCapped() {
+        assertEquals(Integer.MAX_VALUE - 8, DistinctGenerator.BloomFilter.words(Long.MAX_VALUE / 2, 0.5));
+        assertEquals(1, DistinctGenerator.BloomFilter.words(1, 0.5));
+    }
+
+    @Test
+    public void testBloomFilterSize() {
+        DistinctGenerator.BloomFilter filter = new DistinctGenerator.BloomFilter(1000, 0.01);
+        // about 9.6 bits and 7 positions per key
+        assertTrue(filter.bitCount() >= 9585 && filter.bitCount() < 9585 + 64);
+        assertEquals(7, filter.hashCount());
+        assertTrue(filter.add(42L));
+        assertFalse(filter.add(42L));
+    }
+
+    @Test
+    public void testStop() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        new DistinctGenerator<Integer>(new ListGenerator<Integer>(ELEMENTS)).run(
+            new StoppableProcedure<Integer>() {
+                public void run(Integer obj) {
+                    collected.add(obj);
+                }
+
+                public boolean isStopped() {
+                    return collected.size() == 3;
+                }
+            });
+        assertEquals(Arrays.asList(3, 1, 4), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> wrapped = new ListGenerator<Integer>(ELEMENTS);
+        DistinctGenerator<Integer> generator = new DistinctGenerator<Integer>(wrapped);
+        assertEquals(generator, new DistinctGenerator<Integer>(wrapped));
+        assertEquals(generator.hashCode(), new DistinctGenerator<Integer>(wrapped).hashCode());
+        assertFalse(generator.equals(new DistinctGenerator<Integer>(wrapped, Identity.<Integer>instance(), 10, 0.01)));
+        assertEquals(new DistinctGenerator<Integer>(wrapped, Identity.<Integer>instance(), 10, 0.01),
+            new DistinctGenerator<Integer>(wrapped, Identity.<Integer>instance(), 10, 0.01));
+        assertFalse(generator.equals(new DistinctGenerator<Integer>(new ListGenerator<Integer>(
+            Arrays.asList(1, 2)))));
+        assertTrue(generator.toString().startsWith("DistinctGenerator<"));
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private static final List<Integer> ELEMENTS = Arrays.asList(3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5, null, 9, null);
+}
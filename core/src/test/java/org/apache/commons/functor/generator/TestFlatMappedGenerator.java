@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.Test;
+
+/**
+ * Tests the FlatMapped Generator class.
+ */
+public class TestFlatMappedGenerator {
+
+    private final Generator<Integer> source = EachElement.from(Arrays.asList(1, 2, 3));
+
+    private final Function<Integer, Generator<Integer>> upTo = new Function<Integer, Generator<Integer>>() {
+        public Generator<Integer> evaluate(Integer obj) {
+            return obj.intValue() == 2 ? null : EachElement.from((Iterable<Integer>) new IntegerRange(0, obj.intValue()));
+        }
+    };
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullFunction() {
+        new FlatMappedGenerator<Integer, Integer>(source, null);
+    }
+
+    @Test
+    public void testGenerate() {
+        assertEquals(Arrays.asList(0, 0, 1, 2),
+            new FlatMappedGenerator<Integer, Integer>(source, upTo).to(new ArrayList<Integer>()));
+    }
+
+    @Test
+    public void testStopInsideInnerGeneratorStopsOuter() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        final List<Integer> mapped = new ArrayList<Integer>();
+        new FlatMappedGenerator<Integer, Integer>(source, new Function<Integer, Generator<Integer>>() {
+            public Generator<Integer> evaluate(Integer obj) {
+                mapped.add(obj);
+                return upTo.evaluate(Integer.valueOf(obj.intValue() + 2));
+            }
+        }).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() >= 5;
+            }
+        });
+        assertEquals(Arrays.asList(0, 1, 2, 0, 1), collected);
+        assertEquals(Arrays.asList(1, 2), mapped);
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> gen = new FlatMappedGenerator<Integer, Integer>(source, upTo);
+        assertEquals(gen, gen);
+        assertEquals(gen, new FlatMappedGenerator<Integer, Integer>(source, upTo));
+        assertEquals(gen.hashCode(), new FlatMappedGenerator<Integer, Integer>(source, upTo).hashCode());
+        assertFalse(gen.equals(new FlatMappedGenerator<Integer, Integer>(EachElement.from(Arrays.asList(1)), upTo)));
+        assertFalse(gen.equals(null));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.functor.generator.loop.GenerateUntil;
+import org.apache.commons.functor.generator.loop.GenerateWhile;
+import org.apache.commons.functor.generator.loop.TransformedGenerator;
+import org.apache.commons.functor.generator.loop.UntilGenerate;
+import org.apache.commons.functor.generator.loop.WhileGenerate;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the Fused Generator class.
+ */
+public class TestFusedGenerator {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testFromProhibitsNull() {
+        FusedGenerator.from(null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testFilterProhibitsNull() {
+        FusedGenerator.from(source()).filter(null);
+    }
+
+    @Test
+    public void testSameAsNestedGenerators() {
+        assertEquals(
+            new TransformedGenerator<Integer, Integer>(new FilteredGenerator<Integer>(
+                new GenerateWhile<Integer>(source(), lessThan(7)), isEven), doubled).toCollection(),
+            FusedGenerator.from(source()).generateWhile(lessThan(7)).filter(isEven).transform(doubled)
+                .toCollection());
+        assertEquals(
+            new WhileGenerate<Integer>(lessThan(7), new TransformedGenerator<Integer, Integer>(source(), doubled))
+                .toCollection(),
+            FusedGenerator.from(source()).transform(doubled).whileGenerate(lessThan(7)).toCollection());
+        assertEquals(
+            new GenerateUntil<Integer>(new FilteredGenerator<Integer>(source(), isEven), lessThan(4)).toCollection(),
+            FusedGenerator.from(source()).filter(isEven).generateUntil(lessThan(4)).toCollection());
+        assertEquals(
+            new UntilGenerate<Integer>(lessThan(0), new TransformedGenerator<Integer, Integer>(source(), negated))
+                .toCollection(),
+            FusedGenerator.from(source()).transform(negated).untilGenerate(lessThan(0)).toCollection());
+    }
+
+    @Test
+    public void testDeferredStagesSeeTheirOwnElement() {
+        // deferred checks run innermost first, once downstream is done
+        assertEquals(
+            new GenerateWhile<Integer>(new GenerateUntil<Integer>(source(), lessThan(5)), lessThan(3))
+                .toCollection(),
+            FusedGenerator.from(source()).generateUntil(lessThan(5)).generateWhile(lessThan(3)).toCollection());
+        // the while check sees the element before it is doubled
+        assertEquals(
+            new TransformedGenerator<Integer, Integer>(new GenerateWhile<Integer>(source(), lessThan(3)), doubled)
+                .toCollection(),
+            FusedGenerator.from(source()).generateWhile(lessThan(3)).transform(doubled).toCollection());
+    }
+
+    @Test
+    public void testCanBeRunAgain() {
+        Generator<Integer> fused = FusedGenerator.from(source()).whileGenerate(lessThan(3));
+        assertEquals(Arrays.asList(0, 1, 2), fused.toCollection());
+        assertEquals(Arrays.asList(0, 1, 2), fused.toCollection());
+    }
+
+    @Test
+    public void testStopRequestedBySink() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        FusedGenerator.from(source()).filter(isEven).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList(0, 2), collected);
+    }
+
+    @Test
+    public void testImmutable() {
+        FusedGenerator<Integer> base = FusedGenerator.from(source()).filter(isEven);
+        FusedGenerator<Integer> longer = base.transform(doubled);
+        assertEquals(1, base.getStageCount());
+        assertEquals(2, longer.getStageCount());
+        assertEquals(Arrays.asList(0, 2, 4, 6, 8), base.toCollection());
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> source = source();
+        FusedGenerator<Integer> fused = FusedGenerator.from(source).filter(isEven).transform(doubled);
+        assertEquals(fused, fused);
+        assertEquals(fused, FusedGenerator.from(source).filter(isEven).transform(doubled));
+        assertEquals(fused.hashCode(), FusedGenerator.from(source).filter(isEven).transform(doubled).hashCode());
+        assertFalse(fused.equals(FusedGenerator.from(source).filter(isEven).generateWhile(isEven)));
+        assertFalse(fused.equals(FusedGenerator.from(source).transform(doubled).filter(isEven)));
+        assertFalse(fused.equals(null));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static Generator<Integer> source() {
+        return EachElement.splittable(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    private static Predicate<Integer> lessThan(final int bound) {
+        return new Predicate<Integer>() {
+            public boolean test(Integer obj) {
+                return obj.intValue() < bound;
+            }
+        };
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final Predicate<Integer> isEven = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 == 0;
+        }
+    };
+
+    private final Function<Integer, Integer> doubled = new Function<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() * 2;
+        }
+    };
+
+    private final Function<Integer, Integer> negated = new Function<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return -obj.intValue();
+        }
+    };
+}
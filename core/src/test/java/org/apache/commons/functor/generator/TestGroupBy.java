@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.NullaryFunction;
+import org.apache.commons.functor.aggregator.Aggregator;
+import org.apache.commons.functor.aggregator.ArrayListBackedAggregator;
+import org.apache.commons.functor.aggregator.IntegerAtomicNoStoreAggregator;
+import org.apache.commons.functor.aggregator.functions.DoubleMeanValueAggregatorFunction;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.apache.commons.functor.core.Identity;
+import org.apache.commons.functor.generator.parallel.ListGenerator;
+import org.apache.commons.functor.generator.parallel.ParallelGenerator;
+import org.apache.commons.lang3.exception.ContextedRuntimeException;
+import org.junit.Test;
+
+/**
+ * Tests the GroupBy class.
+ */
+public class TestGroupBy {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullKeyFunction() {
+        GroupBy.of(null, SUM);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullFactory() {
+        GroupBy.of(MOD_7, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNoKeys() {
+        new GroupBy<Integer, Integer, Integer>(MOD_7, Identity.<Integer>instance(), SUM, 0);
+    }
+
+    @Test
+    public void testMeanPerKey() {
+        List<Double> values = new ArrayList<Double>();
+        Map<Integer, List<Double>> lists = new HashMap<Integer, List<Double>>();
+        for (int i = 0; i < 100; i++) {
+            double value = i * 1.5;
+            values.add(value);
+            if (!lists.containsKey(i % 7)) {
+                lists.put(i % 7, new ArrayList<Double>());
+            }
+            lists.get(i % 7).add(value);
+        }
+        Map<Integer, Double> expected = new HashMap<Integer, Double>();
+        for (Map.Entry<Integer, List<Double>> entry : lists.entrySet()) {
+            expected.put(entry.getKey(), new DoubleMeanValueAggregatorFunction().evaluate(entry.getValue()));
+        }
+        Function<Double, Integer> key = new Function<Double, Integer>() {
+            public Integer evaluate(Double obj) {
+                return (int) (obj / 1.5) % 7;
+            }
+        };
+        NullaryFunction<Aggregator<Double>> mean = new NullaryFunction<Aggregator<Double>>() {
+            public Aggregator<Double> evaluate() {
+                return new ArrayListBackedAggregator<Double>(new DoubleMeanValueAggregatorFunction());
+            }
+        };
+        assertEquals(expected, new ListGenerator<Double>(values).to(GroupBy.of(key, mean)));
+        assertEquals(expected, new ListGenerator<Double>(values).to(
+            new GroupBy<Double, Integer, Double>(key, Identity.<Double>instance(), mean, 2)));
+    }
+
+    @Test
+    public void testKeyAndValueFunctions() {
+        Function<String, Integer> length = new Function<String, Integer>() {
+            public Integer evaluate(String obj) {
+                return obj.length();
+            }
+        };
+        Map<Integer, Integer> counts = new ListGenerator<String>(Arrays.asList("a", "bb", "cc", "d", "eee", "ff"))
+            .to(new GroupBy<String, Integer, Integer>(length, new Function<String, Integer>() {
+                public Integer evaluate(String obj) {
+                    return 1;
+                }
+            }, SUM));
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        expected.put(1, 2);
+        expected.put(2, 3);
+        expected.put(3, 1);
+        assertEquals(expected, counts);
+    }
+
+    @Test
+    public void testSpill() {
+        List<Integer> values = range(10000);
+        Map<Integer, Integer> expected = GroupBy.of(MOD_1000, SUM).evaluate(new ListGenerator<Integer>(values));
+        assertEquals(1000, expected.size());
+        for (int maxKeys = 1; maxKeys <= 1000; maxKeys *= 10) {
+            assertEquals(expected, new GroupBy<Integer, Integer, Integer>(MOD_1000, Identity.<Integer>instance(),
+                SUM, maxKeys).evaluate(new ListGenerator<Integer>(values)));
+        }
+    }
+
+    @Test
+    public void testKeysOfSameHashAndNullKey() {
+        // "Aa", "BB" and "C#" have the same hash code
+        List<String> keys = Arrays.asList("Aa", "BB", "C#", null, "Aa", null, "C#", "Aa");
+        Map<String, Integer> counts = new GroupBy<String, String, Integer>(Identity.<String>instance(),
+            new Function<String, Integer>() {
+                public Integer evaluate(String obj) {
+                    return 1;
+                }
+            }, SUM, 1).evaluate(new ListGenerator<String>(keys));
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put("Aa", 3);
+        expected.put("BB", 1);
+        expected.put("C#", 2);
+        expected.put(null, 2);
+        assertEquals(expected, counts);
+    }
+
+    @Test(expected = ContextedRuntimeException.class)
+    public void testUnserializableValuesCannotSpill() {
+        new GroupBy<Object, Integer, Object>(new Function<Object, Integer>() {
+            public Integer evaluate(Object obj) {
+                return obj.hashCode();
+            }
+        }, Identity.instance(), new NullaryFunction<Aggregator<Object>>() {
+            public Aggregator<Object> evaluate() {
+                return new ArrayListBackedAggregator<Object>(new Function<List<Object>, Object>() {
+                    public Object evaluate(List<Object> obj) {
+                        return obj.get(0);
+                    }
+                });
+            }
+        }, 1).evaluate(new ListGenerator<Object>(Arrays.asList(new Object(), new Object(), new Object())));
+    }
+
+    @Test
+    public void testParallel() {
+        List<Integer> values = range(10000);
+        Map<Integer, Integer> expected = GroupBy.of(MOD_1000, SUM).evaluate(new ListGenerator<Integer>(values));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int maxKeys = 10; maxKeys <= 1000; maxKeys *= 10) {
+                Map<Integer, Integer> sums = new GroupBy<Integer, Integer, Integer>(MOD_1000,
+                    Identity.<Integer>instance(), SUM, maxKeys).evaluate(new ParallelGenerator<Integer>(
+                    new ListGenerator<Integer>(values), executor, 7), new IntegerSumAggregatorBinaryFunction());
+                assertEquals(expected, sums);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEquals() {
+        GroupBy<Integer, Integer, Integer> groupBy = GroupBy.of(MOD_7, SUM);
+        assertEquals(groupBy, groupBy);
+        assertEquals(groupBy, GroupBy.of(MOD_7, SUM));
+        assertEquals(groupBy.hashCode(), GroupBy.of(MOD_7, SUM).hashCode());
+        assertFalse(groupBy.equals(GroupBy.of(MOD_1000, SUM)));
+        assertFalse(groupBy.equals(new GroupBy<Integer, Integer, Integer>(MOD_7, Identity.<Integer>instance(),
+            SUM, 3)));
+        assertTrue(groupBy.toString().startsWith("GroupBy<"));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static List<Integer> range(int n) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    private static final Function<Integer, Integer> MOD_7 = new Function<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() % 7;
+        }
+    };
+
+    private static final Function<Integer, Integer> MOD_1000 = new Function<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() % 1000;
+        }
+    };
+
+    private static final NullaryFunction<Aggregator<Integer>> SUM = new NullaryFunction<Aggregator<Integer>>() {
+        public Aggregator<Integer> evaluate() {
+            return new IntegerAtomicNoStoreAggregator(new IntegerSumAggregatorBinaryFunction());
+        }
+    };
+}
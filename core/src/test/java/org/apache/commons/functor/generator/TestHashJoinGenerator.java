@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the HashJoinGenerator class.
+ */
+public class TestHashJoinGenerator {
+
+    /** The key of a string is its first character. */
+    static final Function<String, Character> INITIAL = new Function<String, Character>() {
+        public Character evaluate(String obj) {
+            return obj == null || obj.length() == 0 ? null : obj.charAt(0);
+        }
+    };
+
+    static final BinaryFunction<String, String, String> CONCAT = new BinaryFunction<String, String, String>() {
+        public String evaluate(String left, String right) {
+            return left + "+" + right;
+        }
+    };
+
+    private final Generator<String> build = EachElement.from(Arrays.asList("a1", "b1", "a2", "", "d1"));
+    private final Generator<String> probe = EachElement.from(Arrays.asList("c1", "a3", "b2", "", "a4"));
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullFunction() {
+        new HashJoinGenerator<String, String, Character, String>(build, probe, INITIAL, INITIAL, null);
+    }
+
+    @Test
+    public void testJoin() {
+        assertEquals(Arrays.asList("a1+a3", "a2+a3", "b1+b2", "a1+a4", "a2+a4"),
+            new HashJoinGenerator<String, String, Character, String>(build, probe, INITIAL, INITIAL, CONCAT)
+                .to(new ArrayList<String>()));
+        assertEquals(new ArrayList<String>(),
+            new HashJoinGenerator<String, String, Character, String>(EachElement.from(new ArrayList<String>()),
+                probe, INITIAL, INITIAL, CONCAT).toCollection());
+    }
+
+    @Test
+    public void testJoinNullElements() {
+        Function<String, Integer> constant = new Function<String, Integer>() {
+            public Integer evaluate(String obj) {
+                return 0;
+            }
+        };
+        assertEquals(Arrays.asList("null+x", "a+x"),
+            new HashJoinGenerator<String, String, Integer, String>(EachElement.from(Arrays.asList(null, "a")),
+                EachElement.from(Arrays.asList("x")), constant, constant, CONCAT).to(new ArrayList<String>()));
+    }
+
+    @Test
+    public void testStop() {
+        final List<String> collected = new ArrayList<String>();
+        new HashJoinGenerator<String, String, Character, String>(build, probe, INITIAL, INITIAL, CONCAT)
+            .run(new StoppableProcedure<String>() {
+                public void run(String obj) {
+                    collected.add(obj);
+                }
+
+                public boolean isStopped() {
+                    return collected.size() >= 1;
+                }
+            });
+        assertEquals(Arrays.asList("a1+a3"), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<String> generator = new HashJoinGenerator<String, String, Character, String>(build, probe,
+            INITIAL, INITIAL, CONCAT);
+        assertEquals(generator, new HashJoinGenerator<String, String, Character, String>(build, probe, INITIAL,
+            INITIAL, CONCAT));
+        assertEquals(generator.hashCode(), new HashJoinGenerator<String, String, Character, String>(build, probe,
+            INITIAL, INITIAL, CONCAT).hashCode());
+        assertFalse(generator.equals(new HashJoinGenerator<String, String, Character, String>(probe, build,
+            INITIAL, INITIAL, CONCAT)));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.core.Constant;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the Interleaved Generator class.
+ */
+@SuppressWarnings("unchecked")
+public class TestInterleavedGenerator {
+
+    private final Generator<Integer> first = EachElement.from(Arrays.asList(1, 4, 6, 7));
+    private final Generator<Integer> second = new FilteredGenerator<Integer>(EachElement.from(Arrays.asList(2, 5)),
+        Constant.truePredicate());
+    private final Generator<Integer> third = EachElement.from(Arrays.asList(3));
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new InterleavedGenerator<Integer>((List<Generator<Integer>>) null);
+    }
+
+    @Test
+    public void testGenerate() {
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7),
+            new InterleavedGenerator<Integer>(first, second, third).to(new ArrayList<Integer>()));
+        assertEquals(Collections.emptyList(), new InterleavedGenerator<Integer>().toCollection());
+    }
+
+    @Test
+    public void testStop() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        new InterleavedGenerator<Integer>(first, second, third).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() >= 4;
+            }
+        });
+        assertEquals(Arrays.asList(1, 2, 3, 4), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> gen = new InterleavedGenerator<Integer>(first, second);
+        assertEquals(gen, gen);
+        assertEquals(gen, new InterleavedGenerator<Integer>(first, second));
+        assertEquals(gen.hashCode(), new InterleavedGenerator<Integer>(first, second).hashCode());
+        assertFalse(gen.equals(new InterleavedGenerator<Integer>(second, first)));
+        assertFalse(gen.equals(new ConcatenatedGenerator<Integer>(first, second)));
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.Procedure;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the MappedLineGenerator class.
+ */
+public class TestMappedLineGenerator {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("lines", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        assertTrue(file.delete());
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new MappedLineGenerator(null, UTF8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsWideCharset() {
+        new MappedLineGenerator(file, Charset.forName("UTF-16"));
+    }
+
+    @Test
+    public void testSameLinesAsBufferedReader() throws IOException {
+        String contents = "first\nsecond\r\nthird\r\rfifth\n\nseventh";
+        write(contents);
+        List<String> expected = readLines(contents);
+        assertEquals(expected, lines(new MappedLineGenerator(file, UTF8)));
+        for (int windowSize = 1; windowSize < 10; windowSize++) {
+            assertEquals("window " + windowSize, expected, lines(new MappedLineGenerator(file, UTF8, windowSize)));
+        }
+        write(contents + "\r\n");
+        assertEquals(expected, lines(new MappedLineGenerator(file, UTF8, 3)));
+        write(contents + "\r");
+        assertEquals(expected, lines(new MappedLineGenerator(file, UTF8, 3)));
+    }
+
+    @Test
+    public void testEmptyFile() {
+        assertEquals(new ArrayList<String>(), lines(new MappedLineGenerator(file, UTF8)));
+    }
+
+    @Test
+    public void testDecoding() throws IOException {
+        write("caf\u00e9 cr\u00e8me\nplain\n\u20ac");
+        final List<Integer> lengths = new ArrayList<Integer>();
+        final List<Integer> byteLengths = new ArrayList<Integer>();
+        final List<Character> firstChars = new ArrayList<Character>();
+        MappedLineGenerator generator = new MappedLineGenerator(file, UTF8, 4);
+        generator.run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                lengths.add(line.length());
+                byteLengths.add(line.byteLength());
+                firstChars.add(line.charAt(0));
+            }
+        });
+        assertEquals(Arrays.asList(10, 5, 1), lengths);
+        assertEquals(Arrays.asList(12, 5, 3), byteLengths);
+        assertEquals(Arrays.asList('c', 'p', '\u20ac'), firstChars);
+        assertEquals(Arrays.asList("caf\u00e9 cr\u00e8me", "plain", "\u20ac"), lines(generator));
+        assertEquals(Arrays.asList("caf\u00c3\u00a9 cr\u00c3\u00a8me", "plain", "\u00e2\u0082\u00ac"),
+            lines(new MappedLineGenerator(file, Charset.forName("ISO-8859-1"))));
+    }
+
+    @Test
+    public void testByteAccess() throws IOException {
+        write("abc\ndefg\n");
+        final List<String> collected = new ArrayList<String>();
+        new MappedLineGenerator(file, UTF8).run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                byte[] bytes = new byte[line.byteLength() + 1];
+                line.copyBytes(bytes, 1);
+                ByteBuffer buffer = line.asByteBuffer();
+                assertEquals(line.byteLength(), buffer.remaining());
+                assertEquals(line.byteAt(0), buffer.get(0));
+                assertEquals(line.byteAt(0), bytes[1]);
+                collected.add(line.getPosition() + ":" + new String(bytes, 1, line.byteLength(), UTF8) + ":"
+                    + line.subSequence(1, 3));
+            }
+        });
+        assertEquals(Arrays.asList("0:abc:bc", "4:defg:ef"), collected);
+    }
+
+    @Test
+    public void testByteBufferValidAfterRun() throws IOException {
+        write("abc\ndefg\nhi\n");
+        final List<ByteBuffer> kept = new ArrayList<ByteBuffer>();
+        // a small window, so that the buffers outlive the windows they view
+        new MappedLineGenerator(file, UTF8, 4).run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                kept.add(line.asByteBuffer());
+            }
+        });
+        List<String> lines = new ArrayList<String>();
+        for (ByteBuffer buffer : kept) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            lines.add(new String(bytes, UTF8));
+        }
+        assertEquals(Arrays.asList("abc", "defg", "hi"), lines);
+    }
+
+    @Test
+    public void testLineInvalidAfterRun() throws IOException {
+        write("abc\n");
+        final List<MappedLineGenerator.Line> kept = new ArrayList<MappedLineGenerator.Line>();
+        new MappedLineGenerator(file, UTF8).run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                kept.add(line);
+            }
+        });
+        try {
+            kept.get(0).charAt(0);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLineInvalidDuringNextLine() throws IOException {
+        write("abc\ndef\n");
+        final List<MappedLineGenerator.Line> kept = new ArrayList<MappedLineGenerator.Line>();
+        final List<String> errors = new ArrayList<String>();
+        new MappedLineGenerator(file, UTF8).run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                if (!kept.isEmpty()) {
+                    try {
+                        kept.get(0).toString();
+                    } catch (IllegalStateException e) {
+                        errors.add(line.toString());
+                    }
+                }
+                kept.add(line);
+            }
+        });
+        assertEquals(Arrays.asList("def"), errors);
+    }
+
+    @Test
+    public void testStop() throws IOException {
+        write("a\nb\nc\nd\n");
+        final List<String> collected = new ArrayList<String>();
+        new MappedLineGenerator(file, UTF8, 2).run(new StoppableProcedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                collected.add(line.toString());
+            }
+
+            public boolean isStopped() {
+                return collected.size() >= 2;
+            }
+        });
+        assertEquals(Arrays.asList("a", "b"), collected);
+
+        collected.clear();
+        final MappedLineGenerator generator = new MappedLineGenerator(file, UTF8);
+        generator.run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                collected.add(line.toString());
+                generator.stop();
+            }
+        });
+        assertEquals(Arrays.asList("a"), collected);
+        assertTrue(generator.isStopped());
+    }
+
+    @Test
+    public void testEquals() {
+        MappedLineGenerator generator = new MappedLineGenerator(file, UTF8);
+        assertEquals(generator, new MappedLineGenerator(file, UTF8));
+        assertEquals(generator.hashCode(), new MappedLineGenerator(file, UTF8).hashCode());
+        assertFalse(generator.equals(new MappedLineGenerator(file, UTF8, 10)));
+        assertFalse(generator.equals(new MappedLineGenerator(file, Charset.forName("ISO-8859-1"))));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private void write(String contents) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes(UTF8));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static List<String> readLines(String contents) throws IOException {
+        List<String> result = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new StringReader(contents));
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            result.add(line);
+        }
+        return result;
+    }
+
+    private static List<String> lines(MappedLineGenerator generator) {
+        final List<String> result = new ArrayList<String>();
+        generator.run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                result.add(line.toString());
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.apache.commons.functor.generator.TestHashJoinGenerator.CONCAT;
+import static org.apache.commons.functor.generator.TestHashJoinGenerator.INITIAL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.core.Constant;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the MergeJoinGenerator class.
+ */
+public class TestMergeJoinGenerator {
+
+    private static final Comparator<Character> NATURAL = new Comparator<Character>() {
+        public int compare(Character left, Character right) {
+            return left.compareTo(right);
+        }
+    };
+
+    private final Generator<String> left = EachElement.splittable(Arrays.asList("a1", "a2", "b1", "d1", "e1"));
+    private final Generator<String> right = new FilteredGenerator<String>(EachElement.splittable(Arrays.asList("a3",
+        "a4", "c1", "d2", "d3")), Constant.truePredicate());
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullComparator() {
+        new MergeJoinGenerator<String, String, Character, String>(left, right, INITIAL, INITIAL, null, CONCAT);
+    }
+
+    @Test
+    public void testJoin() {
+        assertEquals(Arrays.asList("a1+a3", "a1+a4", "a2+a3", "a2+a4", "d1+d2", "d1+d3"),
+            new MergeJoinGenerator<String, String, Character, String>(left, right, INITIAL, INITIAL, NATURAL, CONCAT)
+                .to(new ArrayList<String>()));
+        assertEquals(Arrays.asList("a3+a1", "a3+a2", "a4+a1", "a4+a2", "d2+d1", "d3+d1"),
+            new MergeJoinGenerator<String, String, Character, String>(right, left, INITIAL, INITIAL, NATURAL, CONCAT)
+                .to(new ArrayList<String>()));
+    }
+
+    @Test
+    public void testSameAsHashJoin() {
+        List<String> lefts = Arrays.asList("a1", "b1", "b2", "c1", "c2", "c3", "f1");
+        List<String> rights = Arrays.asList("b3", "c4", "c5", "e1", "f2");
+        assertEquals(
+            new HashJoinGenerator<String, String, Character, String>(EachElement.from(rights),
+                EachElement.from(lefts), INITIAL, INITIAL, new BinaryFunction<String, String, String>() {
+                    public String evaluate(String r, String l) {
+                        return l + "+" + r;
+                    }
+                }).to(new ArrayList<String>()),
+            new MergeJoinGenerator<String, String, Character, String>(EachElement.from(lefts),
+                EachElement.from(rights), INITIAL, INITIAL, NATURAL, CONCAT).to(new ArrayList<String>()));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(new ArrayList<String>(),
+            new MergeJoinGenerator<String, String, Character, String>(left, EachElement.from(new ArrayList<String>()),
+                INITIAL, INITIAL, NATURAL, CONCAT).toCollection());
+    }
+
+    @Test
+    public void testStop() {
+        final List<String> collected = new ArrayList<String>();
+        new MergeJoinGenerator<String, String, Character, String>(left, right, INITIAL, INITIAL, NATURAL, CONCAT)
+            .run(new StoppableProcedure<String>() {
+                public void run(String obj) {
+                    collected.add(obj);
+                }
+
+                public boolean isStopped() {
+                    return collected.size() >= 3;
+                }
+            });
+        assertEquals(Arrays.asList("a1+a3", "a1+a4", "a2+a3"), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<String> generator = new MergeJoinGenerator<String, String, Character, String>(left, right,
+            INITIAL, INITIAL, NATURAL, CONCAT);
+        assertEquals(generator, new MergeJoinGenerator<String, String, Character, String>(left, right, INITIAL,
+            INITIAL, NATURAL, CONCAT));
+        assertEquals(generator.hashCode(), new MergeJoinGenerator<String, String, Character, String>(left, right,
+            INITIAL, INITIAL, NATURAL, CONCAT).hashCode());
+        assertFalse(generator.equals(new MergeJoinGenerator<String, String, Character, String>(right, left,
+            INITIAL, INITIAL, NATURAL, CONCAT)));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.core.Constant;
+import org.apache.commons.functor.core.LeftIdentity;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the MergeSortedGenerator class.
+ */
+@SuppressWarnings("unchecked")
+public class TestMergeSortedGenerator {
+
+    private static final Comparator<Integer> NATURAL = new Comparator<Integer>() {
+        public int compare(Integer left, Integer right) {
+            return left.compareTo(right);
+        }
+    };
+
+    /** Compares strings by their first character. */
+    private static final Comparator<String> BY_INITIAL = new Comparator<String>() {
+        public int compare(String left, String right) {
+            return left.charAt(0) - right.charAt(0);
+        }
+    };
+
+    private final Generator<Integer> first = EachElement.from(Arrays.asList(1, 4, 4, 9));
+    private final Generator<Integer> second = new FilteredGenerator<Integer>(EachElement.from(Arrays.asList(2, 4,
+        10)), Constant.truePredicate());
+    private final Generator<Integer> empty = EachElement.from(new ArrayList<Integer>());
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullComparator() {
+        new MergeSortedGenerator<Integer>(null, first, second);
+    }
+
+    @Test
+    public void testMerge() {
+        assertEquals(Arrays.asList(1, 2, 4, 4, 4, 9, 10),
+            new MergeSortedGenerator<Integer>(NATURAL, first, empty, second).to(new ArrayList<Integer>()));
+        assertEquals(new ArrayList<Integer>(), new MergeSortedGenerator<Integer>(NATURAL).toCollection());
+    }
+
+    @Test
+    public void testMergeIsStable() {
+        assertEquals(Arrays.asList("a1", "a2", "b1", "b2", "b3", "c2"),
+            new MergeSortedGenerator<String>(BY_INITIAL, EachElement.from(Arrays.asList("a1", "b1", "b2")),
+                EachElement.from(Arrays.asList("a2", "b3", "c2"))).to(new ArrayList<String>()));
+    }
+
+    @Test
+    public void testDropDuplicates() {
+        assertEquals(Arrays.asList(1, 2, 4, 9, 10),
+            new MergeSortedGenerator<Integer>(NATURAL, Arrays.asList(first, second), LeftIdentity
+                .<Integer, Integer> function()).to(new ArrayList<Integer>()));
+    }
+
+    @Test
+    public void testCombineEqualElements() {
+        BinaryFunction<String, String, String> concat = new BinaryFunction<String, String, String>() {
+            public String evaluate(String left, String right) {
+                return left + right.substring(1);
+            }
+        };
+        assertEquals(Arrays.asList("a12", "b123", "c2"),
+            new MergeSortedGenerator<String>(BY_INITIAL, Arrays.asList(
+                EachElement.from(Arrays.asList("a1", "b1", "b2")), EachElement.from(Arrays.asList("a2", "b3", "c2"))),
+                concat).to(new ArrayList<String>()));
+    }
+
+    @Test
+    public void testStop() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        new MergeSortedGenerator<Integer>(NATURAL, first, second).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() >= 3;
+            }
+        });
+        assertEquals(Arrays.asList(1, 2, 4), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> generator = new MergeSortedGenerator<Integer>(NATURAL, first, second);
+        assertEquals(generator, new MergeSortedGenerator<Integer>(NATURAL, first, second));
+        assertEquals(generator.hashCode(), new MergeSortedGenerator<Integer>(NATURAL, first, second).hashCode());
+        assertFalse(generator.equals(new MergeSortedGenerator<Integer>(NATURAL, second, first)));
+        assertFalse(generator.equals(new MergeSortedGenerator<Integer>(NATURAL, Arrays.asList(first, second),
+            LeftIdentity.<Integer, Integer> function())));
+    }
+}
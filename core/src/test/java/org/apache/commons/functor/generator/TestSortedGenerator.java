@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the SortedGenerator class.
+ */
+public class TestSortedGenerator {
+
+    private static final Comparator<Integer> NATURAL = new Comparator<Integer>() {
+        public int compare(Integer left, Integer right) {
+            return left.compareTo(right);
+        }
+    };
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullComparator() {
+        new SortedGenerator<Integer>(EachElement.from(1, 2), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsFanInOfOne() {
+        new SortedGenerator<Integer>(EachElement.from(1, 2), NATURAL, 10, 1);
+    }
+
+    @Test
+    public void testSortInMemoryAndOnDisk() {
+        List<Integer> input = randomList(1000, 100);
+        List<Integer> expected = new ArrayList<Integer>(input);
+        Collections.sort(expected);
+        int[][] configurations = { { 10000, 64 }, { 1000, 64 }, { 999, 64 }, { 100, 64 }, { 7, 2 }, { 1, 3 } };
+        for (int[] configuration : configurations) {
+            assertEquals(configuration[0] + "/" + configuration[1], expected,
+                new SortedGenerator<Integer>(EachElement.from(input), NATURAL, configuration[0], configuration[1])
+                    .to(new ArrayList<Integer>()));
+        }
+    }
+
+    @Test
+    public void testSortIsStable() {
+        List<Pair> input = new ArrayList<Pair>();
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            input.add(new Pair(random.nextInt(10), i));
+        }
+        List<Pair> expected = new ArrayList<Pair>(input);
+        Collections.sort(expected, Pair.BY_KEY);
+        for (int maxElements : new int[] { 1000, 50, 3 }) {
+            assertEquals(expected,
+                new SortedGenerator<Pair>(EachElement.from(input), Pair.BY_KEY, maxElements, 2)
+                    .to(new ArrayList<Pair>()));
+        }
+    }
+
+    @Test
+    public void testStop() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        new SortedGenerator<Integer>(EachElement.from(randomList(100, 1000)), Collections.reverseOrder(NATURAL), 10)
+            .run(new StoppableProcedure<Integer>() {
+                public void run(Integer obj) {
+                    collected.add(obj);
+                }
+
+                public boolean isStopped() {
+                    return collected.size() >= 3;
+                }
+            });
+        assertEquals(3, collected.size());
+        assertFalse(collected.get(0) < collected.get(1));
+        assertFalse(collected.get(1) < collected.get(2));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(new ArrayList<Integer>(),
+            new SortedGenerator<Integer>(EachElement.from(new ArrayList<Integer>()), NATURAL, 1)
+                .to(new ArrayList<Integer>()));
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> wrapped = EachElement.from(1, 2);
+        SortedGenerator<Integer> generator = new SortedGenerator<Integer>(wrapped, NATURAL);
+        assertEquals(generator, new SortedGenerator<Integer>(wrapped, NATURAL));
+        assertEquals(generator.hashCode(), new SortedGenerator<Integer>(wrapped, NATURAL).hashCode());
+        assertFalse(generator.equals(new SortedGenerator<Integer>(wrapped, NATURAL, 10)));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static List<Integer> randomList(int size, int bound) {
+        List<Integer> result = new ArrayList<Integer>();
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            result.add(random.nextInt(bound));
+        }
+        return result;
+    }
+
+    private static class Pair implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        static final Comparator<Pair> BY_KEY = new Comparator<Pair>() {
+            public int compare(Pair left, Pair right) {
+                return left.key - right.key;
+            }
+        };
+
+        private final int key;
+        private final int sequence;
+
+        Pair(int key, int sequence) {
+            this.key = key;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Pair && ((Pair) obj).key == key && ((Pair) obj).sequence == sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return key * 31 + sequence;
+        }
+
+        @Override
+        public String toString() {
+            return key + ":" + sequence;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.NullaryFunction;
+import org.apache.commons.functor.aggregator.Aggregator;
+import org.apache.commons.functor.aggregator.ArrayListBackedAggregator;
+import org.apache.commons.functor.aggregator.IntegerAtomicNoStoreAggregator;
+import org.apache.commons.functor.aggregator.functions.IntegerSumAggregatorBinaryFunction;
+import org.apache.commons.functor.core.Identity;
+import org.apache.commons.functor.core.RightIdentity;
+import org.apache.commons.functor.generator.parallel.ListGenerator;
+import org.junit.Test;
+
+/**
+ * Tests the WindowedGenerator class.
+ */
+public class TestWindowedGenerator {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullFunction() {
+        new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 3, 3, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsEmptyWindows() {
+        new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 0, 3, COPY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNoStep() {
+        WindowedGenerator.aggregate(NUMBERS, 3, 0, SUM);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSlidingAggregationNeedsCombiner() {
+        WindowedGenerator.aggregate(NUMBERS, 3, 1, SUM);
+    }
+
+    @Test
+    public void testTumblingCount() {
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6), Arrays.asList(7, 8, 9)),
+            new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 3, 3, COPY).toCollection());
+        assertEquals(Arrays.asList(6, 15, 24), WindowedGenerator.aggregate(NUMBERS, 3, 3, SUM).toCollection());
+    }
+
+    @Test
+    public void testSlidingCount() {
+        List<List<Integer>> expected = new ArrayList<List<Integer>>();
+        List<Integer> sums = new ArrayList<Integer>();
+        for (int i = 1; i <= 8; i++) {
+            expected.add(Arrays.asList(i, i + 1, i + 2));
+            sums.add(3 * i + 3);
+        }
+        assertEquals(expected, new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 3, 1, COPY).toCollection());
+        assertEquals(sums, WindowedGenerator.aggregate(NUMBERS, 3, 1, Identity.<Integer>instance(), SUM, PLUS)
+            .toCollection());
+        // panes of gcd(4, 6) = 2 elements
+        assertEquals(Arrays.asList(10, 34), WindowedGenerator.aggregate(NUMBERS, 4, 6,
+            Identity.<Integer>instance(), SUM, PLUS).toCollection());
+        assertEquals(Arrays.asList(21, 45), WindowedGenerator.aggregate(NUMBERS, 6, 4,
+            Identity.<Integer>instance(), SUM, PLUS).toCollection());
+    }
+
+    @Test
+    public void testPanesMatchBufferedWindows() {
+        Function<List<Integer>, Integer> sum = new Function<List<Integer>, Integer>() {
+            public Integer evaluate(List<Integer> obj) {
+                int result = 0;
+                for (Integer i : obj) {
+                    result += i;
+                }
+                return result;
+            }
+        };
+        for (int size = 1; size <= 7; size++) {
+            for (int step = 1; step <= 7; step++) {
+                assertEquals(size + "/" + step, new WindowedGenerator<Integer, Integer>(NUMBERS, size, step, sum)
+                    .toCollection(), WindowedGenerator.aggregate(NUMBERS, size, step,
+                    Identity.<Integer>instance(), SUM, PLUS).toCollection());
+            }
+        }
+    }
+
+    @Test
+    public void testHoppingCount() {
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(4, 5), Arrays.asList(7, 8)),
+            new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 2, 3, COPY).toCollection());
+        assertEquals(Arrays.asList(3, 9, 15), WindowedGenerator.aggregate(NUMBERS, 2, 3, SUM).toCollection());
+    }
+
+    @Test
+    public void testOneAggregatorPerRun() {
+        final int[] created = new int[1];
+        NullaryFunction<Aggregator<Integer>> factory = new NullaryFunction<Aggregator<Integer>>() {
+            public Aggregator<Integer> evaluate() {
+                created[0]++;
+                return SUM.evaluate();
+            }
+        };
+        assertEquals(3, WindowedGenerator.aggregate(NUMBERS, 3, 3, factory).toCollection().size());
+        assertEquals(1, created[0]);
+        assertEquals(8, WindowedGenerator.aggregate(NUMBERS, 3, 1, Identity.<Integer>instance(), factory, PLUS)
+            .toCollection().size());
+        assertEquals(2, created[0]);
+    }
+
+    @Test
+    public void testTumblingTime() {
+        Generator<Long> events = new ListGenerator<Long>(Arrays.asList(1L, 2L, 5L, 6L, 7L, 12L, 12L));
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L), Arrays.asList(5L, 6L, 7L), Arrays.asList(12L, 12L)),
+            new WindowedGenerator<Long, List<Long>>(events, Identity.<Long>instance(), 5, 5,
+                new Function<List<Long>, List<Long>>() {
+                    public List<Long> evaluate(List<Long> obj) {
+                        return new ArrayList<Long>(obj);
+                    }
+                }).toCollection());
+    }
+
+    @Test
+    public void testSlidingTime() {
+        Generator<Long> events = new ListGenerator<Long>(Arrays.asList(1L, 2L, 5L, 6L, 7L, 12L, 31L));
+        Function<List<Long>, Integer> count = new Function<List<Long>, Integer>() {
+            public Integer evaluate(List<Long> obj) {
+                return obj.size();
+            }
+        };
+        // windows [-5, 5), [0, 10), [5, 15), [10, 20), [25, 35), [30, 40)
+        assertEquals(Arrays.asList(2, 5, 4, 1, 1, 1), new WindowedGenerator<Long, Integer>(events,
+            Identity.<Long>instance(), 10, 5, count).toCollection());
+        NullaryFunction<Aggregator<Long>> max = new NullaryFunction<Aggregator<Long>>() {
+            public Aggregator<Long> evaluate() {
+                return new ArrayListBackedAggregator<Long>(new Function<List<Long>, Long>() {
+                    public Long evaluate(List<Long> obj) {
+                        return obj.get(obj.size() - 1);
+                    }
+                });
+            }
+        };
+        BinaryFunction<Long, Long, Long> later = RightIdentity.<Long, Long>function();
+        assertEquals(Arrays.asList(2L, 7L, 12L, 12L, 31L, 31L), WindowedGenerator.aggregate(events,
+            Identity.<Long>instance(), 10, 5, Identity.<Long>instance(), max, later).toCollection());
+    }
+
+    @Test
+    public void testExtremeTimestamps() {
+        Generator<Long> events = new ListGenerator<Long>(Arrays.asList(Long.MIN_VALUE, Long.MIN_VALUE + 1,
+            Long.MAX_VALUE - 1, Long.MAX_VALUE));
+        Function<List<Long>, Integer> count = new Function<List<Long>, Integer>() {
+            public Integer evaluate(List<Long> obj) {
+                return obj.size();
+            }
+        };
+        // windows [MIN, MIN + 2), [MIN + 1, MIN + 3), [MAX - 2, MAX), [MAX - 1, MAX + 1)
+        assertEquals(Arrays.asList(2, 1, 1, 2), new WindowedGenerator<Long, Integer>(events,
+            Identity.<Long>instance(), 2, 1, count).toCollection());
+        Function<Long, Integer> one = new Function<Long, Integer>() {
+            public Integer evaluate(Long obj) {
+                return 1;
+            }
+        };
+        assertEquals(Arrays.asList(2, 1, 1, 2), WindowedGenerator.aggregate(events, Identity.<Long>instance(), 2,
+            1, one, SUM, PLUS).toCollection());
+        assertEquals(Arrays.asList(2, 2), WindowedGenerator.aggregate(events, Identity.<Long>instance(), 2, 2,
+            one, SUM).toCollection());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTimestampsMustNotDecrease() {
+        new WindowedGenerator<Long, Integer>(new ListGenerator<Long>(Arrays.asList(1L, 7L, 3L)),
+            Identity.<Long>instance(), 5, 5, new Function<List<Long>, Integer>() {
+                public Integer evaluate(List<Long> obj) {
+                    return obj.size();
+                }
+            }).toCollection();
+    }
+
+    @Test
+    public void testAggregateValues() {
+        Generator<String> words = new ListGenerator<String>(Arrays.asList("a", "bb", "ccc", "dddd"));
+        Function<String, Integer> length = new Function<String, Integer>() {
+            public Integer evaluate(String obj) {
+                return obj.length();
+            }
+        };
+        WindowedGenerator<String, Integer> lengths = WindowedGenerator.aggregate(words, 2, 1, length, SUM, PLUS);
+        assertEquals(Arrays.asList(3, 5, 7), lengths.toCollection());
+        assertEquals(lengths, WindowedGenerator.aggregate(words, 2, 1, length, SUM, PLUS));
+    }
+
+    @Test
+    public void testStop() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        WindowedGenerator.aggregate(NUMBERS, 2, 1, Identity.<Integer>instance(), SUM, PLUS).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() == 2;
+            }
+        });
+        assertEquals(Arrays.asList(3, 5), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        WindowedGenerator<Integer, List<Integer>> generator = new WindowedGenerator<Integer, List<Integer>>(
+            NUMBERS, 3, 1, COPY);
+        assertEquals(generator, new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 3, 1, COPY));
+        assertEquals(generator.hashCode(),
+            new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 3, 1, COPY).hashCode());
+        assertFalse(generator.equals(new WindowedGenerator<Integer, List<Integer>>(NUMBERS, 3, 2, COPY)));
+        assertFalse(generator.equals(WindowedGenerator.aggregate(NUMBERS, 3, 3, SUM)));
+        assertEquals(WindowedGenerator.aggregate(NUMBERS, 3, 3, SUM), WindowedGenerator.aggregate(NUMBERS, 3, 3,
+            SUM));
+        assertEquals(WindowedGenerator.aggregate(NUMBERS, 3, 1, Identity.<Integer>instance(), SUM, PLUS),
+            WindowedGenerator.aggregate(NUMBERS, 3, 1, Identity.<Integer>instance(), SUM, PLUS));
+        assertFalse(WindowedGenerator.aggregate(NUMBERS, 3, 3, SUM).equals(
+            WindowedGenerator.aggregate(NUMBERS, 3, 3, Identity.<Integer>instance(), SUM, PLUS)));
+        assertTrue(generator.toString().startsWith("WindowedGenerator<"));
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private static final Generator<Integer> NUMBERS = new ListGenerator<Integer>(Arrays.asList(1, 2, 3, 4, 5, 6,
+        7, 8, 9, 10));
+
+    private static final Function<List<Integer>, List<Integer>> COPY = new Function<List<Integer>, List<Integer>>() {
+        public List<Integer> evaluate(List<Integer> obj) {
+            return new ArrayList<Integer>(obj);
+        }
+    };
+
+    private static final NullaryFunction<Aggregator<Integer>> SUM = new NullaryFunction<Aggregator<Integer>>() {
+        public Aggregator<Integer> evaluate() {
+            return new IntegerAtomicNoStoreAggregator(new IntegerSumAggregatorBinaryFunction());
+        }
+    };
+
+    private static final BinaryFunction<Integer, Integer, Integer> PLUS = new IntegerSumAggregatorBinaryFunction();
+}
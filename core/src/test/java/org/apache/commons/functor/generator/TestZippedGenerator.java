@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.core.Constant;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.junit.Test;
+
+/**
+ * Tests the Zipped Generator class.
+ */
+public class TestZippedGenerator {
+
+    private final Generator<Integer> numbers = EachElement.from(Arrays.asList(1, 2, 3, 4));
+    private final Generator<String> letters = EachElement.from(Arrays.asList("a", "b", "c"));
+
+    private final BinaryFunction<Integer, String, String> concat = new BinaryFunction<Integer, String, String>() {
+        public String evaluate(Integer left, String right) {
+            return left + right;
+        }
+    };
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullRight() {
+        new ZippedGenerator<Integer, String, String>(numbers, null, concat);
+    }
+
+    @Test
+    public void testGenerateUntilShortestIsExhausted() {
+        assertEquals(Arrays.asList("1a", "2b", "3c"),
+            new ZippedGenerator<Integer, String, String>(numbers, letters, concat).to(new ArrayList<String>()));
+        assertEquals(Arrays.asList("1a", "2b", "3c"),
+            new ZippedGenerator<Integer, String, String>(EachElement.from(Arrays.asList(1, 2, 3)),
+                EachElement.from(Arrays.asList("a", "b", "c", "d")), concat).to(new ArrayList<String>()));
+    }
+
+    @Test
+    public void testGenerateNonIterableRight() {
+        Generator<String> filtered = new FilteredGenerator<String>(letters, Constant.truePredicate());
+        assertEquals(Arrays.asList("1a", "2b", "3c"),
+            new ZippedGenerator<Integer, String, String>(numbers, filtered, concat).to(new ArrayList<String>()));
+    }
+
+    @Test
+    public void testStop() {
+        final List<String> collected = new ArrayList<String>();
+        Generator<String> filtered = new FilteredGenerator<String>(letters, Constant.truePredicate());
+        new ZippedGenerator<Integer, String, String>(numbers, filtered, concat).run(new StoppableProcedure<String>() {
+            public void run(String obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() >= 2;
+            }
+        });
+        assertEquals(Arrays.asList("1a", "2b"), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<String> gen = new ZippedGenerator<Integer, String, String>(numbers, letters, concat);
+        assertEquals(gen, gen);
+        assertEquals(gen, new ZippedGenerator<Integer, String, String>(numbers, letters, concat));
+        assertEquals(gen.hashCode(),
+            new ZippedGenerator<Integer, String, String>(numbers, letters, concat).hashCode());
+        assertFalse(gen.equals(new ZippedGenerator<Integer, String, String>(numbers,
+            EachElement.from(Arrays.asList("a")), concat)));
+        assertFalse(gen.equals(null));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Concurrent Transformed Generator class.
+ */
+public class TestConcurrentTransformedGenerator {
+
+    private ExecutorService executor;
+
+    private final Generator<Integer> source = new IntegerRangeGenerator(new IntegerRange(0, 200));
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullExecutor() {
+        new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, null, 4, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNonPositiveMaxInFlight() {
+        new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor, 0, true);
+    }
+
+    @Test
+    public void testOrdered() {
+        assertEquals(new TransformedGenerator<Integer, Integer>(source, jittery).toCollection(),
+            new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor, 16, true)
+                .toCollection());
+    }
+
+    @Test
+    public void testUnordered() {
+        List<Integer> result = new ArrayList<Integer>(
+            new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor, 16, false)
+                .toCollection());
+        Collections.sort(result);
+        assertEquals(new TransformedGenerator<Integer, Integer>(source, jittery).toCollection(), result);
+    }
+
+    @Test
+    public void testMaxInFlight() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        Function<Integer, Integer> tracking = new Function<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                int now = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), now));
+                }
+                try {
+                    return jittery.evaluate(obj);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        for (boolean ordered : new boolean[] { true, false }) {
+            maxRunning.set(0);
+            new ConcurrentTransformedGenerator<Integer, Integer>(source, tracking, executor, 5, ordered)
+                .toCollection();
+            assertTrue(maxRunning.get() <= 5);
+            assertTrue(maxRunning.get() > 1);
+        }
+    }
+
+    @Test
+    public void testStop() {
+        for (boolean ordered : new boolean[] { true, false }) {
+            final List<Integer> collected = new ArrayList<Integer>();
+            new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor, 8, ordered)
+                .run(new StoppableProcedure<Integer>() {
+                    public void run(Integer obj) {
+                        collected.add(obj);
+                    }
+
+                    public boolean isStopped() {
+                        return collected.size() == 3;
+                    }
+                });
+            assertEquals(3, collected.size());
+        }
+        assertEquals(10, new WhileGenerate<Integer>(lessThan(20),
+            new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor, 8, true))
+            .toCollection().size());
+    }
+
+    @Test
+    public void testNoSubmissionAfterStop() {
+        Generator<Integer> ignoringStop = new BaseGenerator<Integer>() {
+            public void run(Procedure<? super Integer> proc) {
+                for (int i = 0; i < 200; i++) {
+                    proc.run(i);
+                }
+            }
+        };
+        final AtomicInteger evaluations = new AtomicInteger();
+        Function<Integer, Integer> counting = new Function<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                evaluations.incrementAndGet();
+                return obj;
+            }
+        };
+        final List<Integer> collected = new ArrayList<Integer>();
+        new ConcurrentTransformedGenerator<Integer, Integer>(ignoringStop, counting, executor, 2, true)
+            .run(new StoppableProcedure<Integer>() {
+                public void run(Integer obj) {
+                    collected.add(obj);
+                }
+
+                public boolean isStopped() {
+                    return true;
+                }
+            });
+        assertEquals(1, collected.size());
+        assertTrue(evaluations.get() <= 2);
+    }
+
+    @Test
+    public void testExceptionIsRethrown() {
+        Function<Integer, Integer> failing = new Function<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                if (obj == 50) {
+                    throw new IllegalStateException("50");
+                }
+                return obj;
+            }
+        };
+        for (boolean ordered : new boolean[] { true, false }) {
+            try {
+                new ConcurrentTransformedGenerator<Integer, Integer>(source, failing, executor, 8, ordered)
+                    .toCollection();
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertEquals("50", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testEquals() {
+        Generator<Integer> generator =
+            new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor, 8, true);
+        assertEquals(generator, new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor, 8,
+            true));
+        assertEquals(generator.hashCode(), new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery,
+            executor, 8, true).hashCode());
+        assertFalse(generator.equals(new ConcurrentTransformedGenerator<Integer, Integer>(source, jittery, executor,
+            8, false)));
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    /** Doubles its argument, after a short wait whose length varies. */
+    private final Function<Integer, Integer> jittery = new Function<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            try {
+                Thread.sleep(obj.intValue() % 3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return obj.intValue() * 2;
+        }
+    };
+
+    private static Predicate<Integer> lessThan(final int bound) {
+        return new Predicate<Integer>() {
+            public boolean test(Integer obj) {
+                return obj.intValue() < bound;
+            }
+        };
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.parallel.ArrayGenerator;
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.generator.parallel.ListGenerator;
+import org.apache.commons.functor.generator.parallel.LongRangeGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.functor.range.LongRange;
+import org.junit.Test;
+
+/**
+ * Tests the Generator to Iterator Adapter class.
+ */
+public class TestGeneratorToIteratorAdapter {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testAdaptNull() {
+        assertNull(GeneratorToIteratorAdapter.adapt(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNonPositiveBatchSize() {
+        new GeneratorToIteratorAdapter<Integer>(new Counter(), null, 1, 0);
+    }
+
+    @Test
+    public void testIterableGenerators() {
+        List<Integer> expected = Arrays.asList(0, 1, 2, 3, 4);
+        assertEquals(expected, drain(GeneratorToIteratorAdapter.adapt(
+            new ArrayGenerator<Integer>(new Integer[] { 0, 1, 2, 3, 4 }))));
+        assertEquals(expected, drain(GeneratorToIteratorAdapter.adapt(new ListGenerator<Integer>(expected))));
+        assertEquals(expected, drain(GeneratorToIteratorAdapter.adapt(
+            new IntegerRangeGenerator(new IntegerRange(0, 5)))));
+        assertEquals(Arrays.asList(0L, 2L, 4L), drain(GeneratorToIteratorAdapter.adapt(
+            new LongRangeGenerator(new LongRange(0, 5, 2)))));
+    }
+
+    @Test
+    public void testRangeGeneratorIsIterable() {
+        int sum = 0;
+        for (Integer i : new IntegerRangeGenerator(new IntegerRange(0, 5))) {
+            sum += i;
+        }
+        assertEquals(10, sum);
+    }
+
+    @Test
+    public void testOtherGenerators() {
+        Generator<Integer> evens = new FilteredGenerator<Integer>(
+            new IntegerRangeGenerator(new IntegerRange(0, 1000)), isEven);
+        for (int batchSize = 1; batchSize <= 100; batchSize *= 10) {
+            assertEquals(evens.to(new ArrayList<Integer>()),
+                drain(new GeneratorToIteratorAdapter<Integer>(evens, null, 2, batchSize)));
+        }
+    }
+
+    @Test
+    public void testEndless() {
+        Counter counter = new Counter();
+        GeneratorToIteratorAdapter<Integer> iter = new GeneratorToIteratorAdapter<Integer>(counter, null, 2, 8);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(iter.hasNext());
+            assertEquals(Integer.valueOf(i), iter.next());
+        }
+        iter.close();
+        assertFalse(iter.hasNext());
+        // the producer stops once it notices the iterator was closed
+        for (int i = 0; i < 100 && !counter.finished; i++) {
+            sleep(10);
+        }
+        assertTrue(counter.finished);
+        // memory is bounded: the producer never runs far ahead
+        assertTrue(counter.generated < 1000 + 8 * 4);
+    }
+
+    @Test
+    public void testCloseReleasesProducerIgnoringStop() {
+        final boolean[] finished = new boolean[1];
+        Generator<Integer> heedless = new BaseGenerator<Integer>() {
+            public void run(Procedure<? super Integer> proc) {
+                // never checks whether it is asked to stop
+                for (int i = 0; i < 100000; i++) {
+                    proc.run(i);
+                }
+                synchronized (finished) {
+                    finished[0] = true;
+                }
+            }
+        };
+        GeneratorToIteratorAdapter<Integer> iter = new GeneratorToIteratorAdapter<Integer>(heedless, null, 2, 8);
+        assertEquals(Integer.valueOf(0), iter.next());
+        iter.close();
+        // the producer drops its elements rather than blocking on the full queue
+        for (int i = 0; i < 500 && !isFinished(finished); i++) {
+            sleep(10);
+        }
+        assertTrue(isFinished(finished));
+    }
+
+    @Test
+    public void testExceptionIsRethrownAfterPrecedingElements() {
+        Generator<Integer> failing = new BaseGenerator<Integer>() {
+            public void run(Procedure<? super Integer> proc) {
+                proc.run(1);
+                proc.run(2);
+                throw new IllegalStateException("failed");
+            }
+        };
+        Iterator<Integer> iter = GeneratorToIteratorAdapter.adapt(failing);
+        assertEquals(Integer.valueOf(1), iter.next());
+        assertEquals(Integer.valueOf(2), iter.next());
+        try {
+            iter.hasNext();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertFalse(iter.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextAfterEnd() {
+        Iterator<Integer> iter = GeneratorToIteratorAdapter.adapt(
+            new FilteredGenerator<Integer>(new IntegerRangeGenerator(new IntegerRange(0, 1)), isEven));
+        iter.next();
+        iter.next();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemove() {
+        GeneratorToIteratorAdapter.adapt(new IntegerRangeGenerator(new IntegerRange(0, 1))).remove();
+    }
+
+    @Test
+    public void testCloseIterableGenerator() {
+        GeneratorToIteratorAdapter<Integer> iter = GeneratorToIteratorAdapter.adapt(
+            new IntegerRangeGenerator(new IntegerRange(0, 5)));
+        iter.next();
+        iter.close();
+        assertFalse(iter.hasNext());
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static <E> List<E> drain(Iterator<E> iter) {
+        List<E> result = new ArrayList<E>();
+        while (iter.hasNext()) {
+            result.add(iter.next());
+        }
+        return result;
+    }
+
+    private static boolean isFinished(boolean[] finished) {
+        synchronized (finished) {
+            return finished[0];
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** An endless generator, which only ends when asked to stop. */
+    private static class Counter extends BaseGenerator<Integer> {
+        private volatile boolean finished;
+        private volatile int generated;
+
+        public void run(Procedure<? super Integer> proc) {
+            for (int i = 0;; i++) {
+                generated = i + 1;
+                proc.run(i);
+                if (stopRequested(proc)) {
+                    finished = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final Predicate<Integer> isEven = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 == 0;
+        }
+    };
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.loop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.BaseGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.lang3.concurrent.ConcurrentRuntimeException;
+import org.junit.Test;
+
+/**
+ * Tests the Pipelined Generator class.
+ */
+public class TestPipelinedGenerator {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new PipelinedGenerator<Integer>(null, 4, 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNonPositiveCapacity() {
+        new PipelinedGenerator<Integer>(new Counter(), 0, 16);
+    }
+
+    @Test
+    public void testGeneratesAllElementsInOrder() {
+        Generator<Integer> source = new IntegerRangeGenerator(new IntegerRange(0, 1000));
+        for (int batchSize = 1; batchSize <= 64; batchSize *= 4) {
+            assertEquals(source.toCollection(),
+                new PipelinedGenerator<Integer>(source, 2, batchSize).toCollection());
+        }
+    }
+
+    @Test
+    public void testRunsWrappedGeneratorOnAnotherThread() throws Exception {
+        final List<Thread> threads = new ArrayList<Thread>();
+        Generator<Integer> source = new BaseGenerator<Integer>() {
+            public void run(Procedure<? super Integer> proc) {
+                threads.add(Thread.currentThread());
+                proc.run(1);
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(1, new PipelinedGenerator<Integer>(source, executor, 1, 1).toCollection().size());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, threads.size());
+        assertFalse(threads.get(0) == Thread.currentThread());
+    }
+
+    @Test
+    public void testStopRequestedByProcedurePropagates() {
+        Counter counter = new Counter();
+        final List<Integer> collected = new ArrayList<Integer>();
+        new PipelinedGenerator<Integer>(counter, 2, 8).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() == 5;
+            }
+        });
+        assertEquals(5, collected.size());
+        assertTrue(counter.finished);
+    }
+
+    @Test
+    public void testStopPropagates() {
+        Counter counter = new Counter();
+        Generator<Integer> generator = new WhileGenerate<Integer>(lessThan(100),
+            new PipelinedGenerator<Integer>(counter, 2, 8));
+        assertEquals(100, generator.toCollection().size());
+        assertTrue(counter.finished);
+    }
+
+    @Test
+    public void testExceptionFromWrappedGeneratorIsRethrown() {
+        Generator<Integer> failing = new BaseGenerator<Integer>() {
+            public void run(Procedure<? super Integer> proc) {
+                proc.run(1);
+                throw new IllegalStateException("failed");
+            }
+        };
+        final List<Integer> collected = new ArrayList<Integer>();
+        try {
+            new PipelinedGenerator<Integer>(failing, 2, 8).run(new Procedure<Integer>() {
+                public void run(Integer obj) {
+                    collected.add(obj);
+                }
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(1, collected.size());
+    }
+
+    @Test
+    public void testCheckedExceptionIsWrapped() {
+        Generator<Integer> failing = new BaseGenerator<Integer>() {
+            public void run(Procedure<? super Integer> proc) {
+                throw new ConcurrentRuntimeException(new IOException("io"));
+            }
+        };
+        try {
+            new PipelinedGenerator<Integer>(failing, 2, 8).toCollection();
+            fail("Expected ConcurrentRuntimeException");
+        } catch (ConcurrentRuntimeException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testExceptionFromProcedureStopsWrappedGenerator() {
+        Counter counter = new Counter();
+        try {
+            new PipelinedGenerator<Integer>(counter, 2, 8).run(new Procedure<Integer>() {
+                public void run(Integer obj) {
+                    if (obj == 10) {
+                        throw new IllegalArgumentException();
+                    }
+                }
+            });
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertTrue(counter.finished);
+    }
+
+    @Test
+    public void testEquals() {
+        Counter counter = new Counter();
+        Generator<Integer> generator = new PipelinedGenerator<Integer>(counter, 2, 8);
+        assertEquals(generator, new PipelinedGenerator<Integer>(counter, 2, 8));
+        assertEquals(generator.hashCode(), new PipelinedGenerator<Integer>(counter, 2, 8).hashCode());
+        assertFalse(generator.equals(new PipelinedGenerator<Integer>(counter, 2, 16)));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    /** An endless generator, which only ends when asked to stop. */
+    private static class Counter extends BaseGenerator<Integer> {
+        private volatile boolean finished;
+
+        public void run(Procedure<? super Integer> proc) {
+            for (int i = 0;; i++) {
+                proc.run(i);
+                if (stopRequested(proc)) {
+                    finished = true;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static Predicate<Integer> lessThan(final int bound) {
+        return new Predicate<Integer>() {
+            public boolean test(Integer obj) {
+                return obj.intValue() < bound;
+            }
+        };
+    }
+}
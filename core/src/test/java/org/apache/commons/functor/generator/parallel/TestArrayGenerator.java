@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.generator.StoppableProcedure;
+import org.junit.Test;
+
+/**
+ * Tests the ArrayGenerator and ListGenerator classes.
+ */
+public class TestArrayGenerator {
+
+    private final Integer[] array = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new ArrayGenerator<Integer>((Integer[]) null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testConstructorProhibitsInvalidRange() {
+        new ArrayGenerator<Integer>(array, 5, 11);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testListGeneratorRequiresRandomAccess() {
+        new ListGenerator<Integer>(new java.util.LinkedList<Integer>(Arrays.asList(array)));
+    }
+
+    @Test
+    public void testRun() {
+        assertEquals(Arrays.asList(array), new ArrayGenerator<Integer>(array).toCollection());
+        assertEquals(Arrays.asList(3, 4, 5), new ArrayGenerator<Integer>(array, 3, 6).toCollection());
+        assertEquals(Arrays.asList(3, 4, 5), new ListGenerator<Integer>(Arrays.asList(array), 3, 6).toCollection());
+        assertEquals(10L, new ArrayGenerator<Integer>(array).size());
+    }
+
+    @Test
+    public void testSplitCoversSourceInOrder() {
+        for (int parts = 1; parts <= 12; parts++) {
+            List<Integer> collected = new ArrayList<Integer>();
+            List<ArrayGenerator<Integer>> split = new ArrayGenerator<Integer>(array).split(parts);
+            assertEquals(Math.min(parts, array.length), split.size());
+            for (ArrayGenerator<Integer> part : split) {
+                assertFalse(part.size() == 0);
+                collected.addAll(part.toCollection());
+            }
+            assertEquals(Arrays.asList(array), collected);
+        }
+    }
+
+    @Test
+    public void testSplitListGenerator() {
+        List<Integer> collected = new ArrayList<Integer>();
+        for (ListGenerator<Integer> part : new ListGenerator<Integer>(Arrays.asList(array)).split(3)) {
+            collected.addAll(part.toCollection());
+        }
+        assertEquals(Arrays.asList(array), collected);
+    }
+
+    @Test
+    public void testSplitInOnePartReturnsSource() {
+        ArrayGenerator<Integer> generator = new ArrayGenerator<Integer>(array);
+        assertSame(generator, generator.split(1).get(0));
+    }
+
+    @Test
+    public void testStop() {
+        final List<Integer> collected = new ArrayList<Integer>();
+        new ArrayGenerator<Integer>(array).run(new StoppableProcedure<Integer>() {
+            public void run(Integer obj) {
+                collected.add(obj);
+            }
+
+            public boolean isStopped() {
+                return collected.size() == 3;
+            }
+        });
+        assertEquals(Arrays.asList(0, 1, 2), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        ArrayGenerator<Integer> generator = new ArrayGenerator<Integer>(array, 2, 4);
+        assertEquals(generator, new ArrayGenerator<Integer>(array, 2, 4));
+        assertEquals(generator.hashCode(), new ArrayGenerator<Integer>(array, 2, 4).hashCode());
+        assertFalse(generator.equals(new ArrayGenerator<Integer>(array, 2, 5)));
+        assertFalse(generator.equals(new ArrayGenerator<Integer>(array.clone(), 2, 4)));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.NullaryFunction;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.MappedLineGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the FileLineGenerator class.
+ */
+public class TestFileLineGenerator {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("lines", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        assertTrue(file.delete());
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNull() {
+        new FileLineGenerator(null);
+    }
+
+    @Test
+    public void testPartsGenerateEachLineOnce() throws IOException {
+        String contents = "first\nsecond\r\nthird\r\rfifth\n\nseventh\r\n\r\nlast";
+        write(contents);
+        List<String> expected = lines(new FileLineGenerator(file, UTF8));
+        assertEquals(Arrays.asList("first", "second", "third", "", "fifth", "", "seventh", "", "last"), expected);
+        for (int parts = 1; parts <= contents.length() + 2; parts++) {
+            for (int windowSize = 1; windowSize <= 8; windowSize *= 2) {
+                FileLineGenerator generator = new FileLineGenerator(new MappedLineGenerator(file, UTF8, windowSize));
+                List<FileLineGenerator> split = generator.split(parts);
+                assertEquals(Math.min(parts, contents.length()), split.size());
+                List<String> actual = new ArrayList<String>();
+                long byteLength = 0;
+                for (FileLineGenerator part : split) {
+                    actual.addAll(lines(part));
+                    byteLength += part.byteLength();
+                }
+                assertEquals(parts + " parts, window " + windowSize, expected, actual);
+                assertEquals(contents.length(), byteLength);
+            }
+        }
+    }
+
+    @Test
+    public void testSplitPartsAgain() throws IOException {
+        write("a\nbb\nccc\ndddd\neeeee\n");
+        List<String> actual = new ArrayList<String>();
+        for (FileLineGenerator part : new FileLineGenerator(file, UTF8).split(2)) {
+            for (FileLineGenerator subPart : part.split(3)) {
+                actual.addAll(lines(subPart));
+            }
+        }
+        assertEquals(Arrays.asList("a", "bb", "ccc", "dddd", "eeeee"), actual);
+    }
+
+    @Test
+    public void testEmptyFile() {
+        FileLineGenerator generator = new FileLineGenerator(file, UTF8);
+        assertEquals(1, generator.split(4).size());
+        assertEquals(new ArrayList<String>(), lines(generator));
+    }
+
+    @Test
+    public void testParallelFold() throws IOException {
+        StringBuilder contents = new StringBuilder();
+        int expected = 0;
+        for (int i = 0; i < 1000; i++) {
+            contents.append("line ").append(i).append(i % 3 == 0 ? " has four words" : "").append('\n');
+            expected += i % 3 == 0 ? 5 : 2;
+        }
+        write(contents.toString());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Integer words = new ParallelGenerator<MappedLineGenerator.Line>(new FileLineGenerator(file, UTF8),
+                executor, 16).fold(new NullaryFunction<Integer>() {
+                    public Integer evaluate() {
+                        return 0;
+                    }
+                }, new BinaryFunction<Integer, MappedLineGenerator.Line, Integer>() {
+                    public Integer evaluate(Integer count, MappedLineGenerator.Line line) {
+                        int words = 0;
+                        boolean inWord = false;
+                        for (int i = 0; i < line.length(); i++) {
+                            boolean space = Character.isWhitespace(line.charAt(i));
+                            if (!space && !inWord) {
+                                words++;
+                            }
+                            inWord = !space;
+                        }
+                        return count + words;
+                    }
+                }, new BinaryFunction<Integer, Integer, Integer>() {
+                    public Integer evaluate(Integer left, Integer right) {
+                        return left + right;
+                    }
+                });
+            assertEquals(Integer.valueOf(expected), words);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEquals() {
+        FileLineGenerator generator = new FileLineGenerator(file, UTF8);
+        assertEquals(generator, new FileLineGenerator(new MappedLineGenerator(file, UTF8)));
+        assertEquals(generator.hashCode(), new FileLineGenerator(file, UTF8).hashCode());
+        assertFalse(generator.equals(new FileLineGenerator(new MappedLineGenerator(file, UTF8, 10))));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private void write(String contents) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes(UTF8));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static List<String> lines(FileLineGenerator generator) {
+        final List<String> result = new ArrayList<String>();
+        generator.run(new Procedure<MappedLineGenerator.Line>() {
+            public void run(MappedLineGenerator.Line line) {
+                result.add(line.toString());
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.functor.BinaryFunction;
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.NullaryFunction;
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.functor.Procedure;
+import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.StoppableProcedure;
+import org.apache.commons.functor.generator.loop.TransformedGenerator;
+import org.apache.commons.functor.generator.util.EachElement;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.lang3.concurrent.ConcurrentRuntimeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the ParallelGenerator class.
+ */
+public class TestParallelGenerator {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testConstructorProhibitsNullExecutor() {
+        new ParallelGenerator<Integer>(new IntegerRangeGenerator(new IntegerRange(0, 10)), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorProhibitsNonPositiveParts() {
+        new ParallelGenerator<Integer>(new IntegerRangeGenerator(new IntegerRange(0, 10)), executor, 0);
+    }
+
+    @Test(expected = ConcurrentRuntimeException.class)
+    public void testFailureWithoutCause() {
+        ExecutorService failing = new AbstractExecutorService() {
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+                return new FutureTask<T>(callable) {
+                    @Override
+                    public T get() throws ExecutionException {
+                        throw new ExecutionException("Failed without cause", null);
+                    }
+                };
+            }
+
+            public void execute(Runnable command) {
+                command.run();
+            }
+
+            public void shutdown() {
+            }
+
+            public List<Runnable> shutdownNow() {
+                return Collections.emptyList();
+            }
+
+            public boolean isShutdown() {
+                return false;
+            }
+
+            public boolean isTerminated() {
+                return false;
+            }
+
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return false;
+            }
+        };
+        new ParallelGenerator<Integer>(new IntegerRangeGenerator(new IntegerRange(0, 10)), failing, 2)
+            .run(new Procedure<Integer>() {
+                public void run(Integer obj) {
+                }
+            });
+    }
+
+    @Test
+    public void testRunVisitsEachElementOnce() {
+        final List<Integer> collected = Collections.synchronizedList(new ArrayList<Integer>());
+        new ParallelGenerator<Integer>(new IntegerRangeGenerator(new IntegerRange(0, 1000)), executor, 16)
+            .run(new Procedure<Integer>() {
+                public void run(Integer obj) {
+                    collected.add(obj);
+                }
+            });
+        Collections.sort(collected);
+        assertEquals(new IntegerRangeGenerator(new IntegerRange(0, 1000)).toCollection(), collected);
+    }
+
+    @Test
+    public void testFoldWithPipeline() {
+        ParallelGenerator<Long> parallel = new ParallelGenerator<Long>(
+            new IntegerRangeGenerator(new IntegerRange(0, 10000)),
+            new Function<Generator<? extends Integer>, Generator<Long>>() {
+                public Generator<Long> evaluate(Generator<? extends Integer> part) {
+                    return new TransformedGenerator<Integer, Long>(new FilteredGenerator<Integer>(part, isEven),
+                        square);
+                }
+            }, executor, 7);
+        long expected = 0L;
+        for (long i = 0; i < 10000; i += 2) {
+            expected += i * i;
+        }
+        assertEquals(Long.valueOf(expected), parallel.fold(zero, sum, sum));
+    }
+
+    @Test
+    public void testFoldCombinesInPartOrder() {
+        String[] letters = new String[26];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = String.valueOf((char) ('a' + i));
+        }
+        String result = new ParallelGenerator<String>(new ArrayGenerator<String>(letters), executor, 5).fold(
+            new NullaryFunction<String>() {
+                public String evaluate() {
+                    return "";
+                }
+            }, concat, concat);
+        assertEquals("abcdefghijklmnopqrstuvwxyz", result);
+    }
+
+    @Test
+    public void testAdaptedGenerators() {
+        Generator<Integer> unsplittable = EachElement.from(new LinkedList<Integer>(Arrays.asList(1, 2, 3)));
+        SplittableGenerator<Integer> adapted = GeneratorToSplittableAdapter.adapt(unsplittable);
+        assertEquals(-1L, adapted.size());
+        assertEquals(1, adapted.split(4).size());
+        assertEquals(Long.valueOf(6L), new ParallelGenerator<Integer>(adapted, executor).fold(zero, addInt, sum));
+
+        SplittableGenerator<Integer> splittable = GeneratorToSplittableAdapter.adapt(EachElement.splittable(1, 2, 3));
+        assertTrue(splittable instanceof ArrayGenerator<?>);
+        assertEquals(3, splittable.split(4).size());
+        assertEquals(Long.valueOf(6L), new ParallelGenerator<Integer>(splittable, executor).fold(zero, addInt, sum));
+    }
+
+    @Test
+    public void testExceptionIsRethrown() {
+        try {
+            new ParallelGenerator<Integer>(new IntegerRangeGenerator(new IntegerRange(0, 100)), executor, 4)
+                .run(new Procedure<Integer>() {
+                    public void run(Integer obj) {
+                        if (obj == 42) {
+                            throw new IllegalStateException("42");
+                        }
+                    }
+                });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("42", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStopAllParts() {
+        final AtomicInteger count = new AtomicInteger();
+        new ParallelGenerator<Integer>(new IntegerRangeGenerator(new IntegerRange(0, 100000)), executor, 4)
+            .run(new StoppableProcedure<Integer>() {
+                public void run(Integer obj) {
+                    count.incrementAndGet();
+                }
+
+                public boolean isStopped() {
+                    return count.get() >= 10;
+                }
+            });
+        assertTrue(count.get() < 100);
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final Predicate<Integer> isEven = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 == 0;
+        }
+    };
+
+    private final Function<Integer, Long> square = new Function<Integer, Long>() {
+        public Long evaluate(Integer obj) {
+            return Long.valueOf((long) obj.intValue() * obj.intValue());
+        }
+    };
+
+    private final NullaryFunction<Long> zero = new NullaryFunction<Long>() {
+        public Long evaluate() {
+            return Long.valueOf(0L);
+        }
+    };
+
+    private final BinaryFunction<Long, Long, Long> sum = new BinaryFunction<Long, Long, Long>() {
+        public Long evaluate(Long left, Long right) {
+            return Long.valueOf(left.longValue() + right.longValue());
+        }
+    };
+
+    private final BinaryFunction<Long, Integer, Long> addInt = new BinaryFunction<Long, Integer, Long>() {
+        public Long evaluate(Long left, Integer right) {
+            return Long.valueOf(left.longValue() + right.intValue());
+        }
+    };
+
+    private final BinaryFunction<String, String, String> concat = new BinaryFunction<String, String, String>() {
+        public String evaluate(String left, String right) {
+            return left + right;
+        }
+    };
+}
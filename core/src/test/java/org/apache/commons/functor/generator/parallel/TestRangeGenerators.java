@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.parallel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.range.BoundType;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.functor.range.LongRange;
+import org.junit.Test;
+
+/**
+ * Tests the IntegerRangeGenerator and LongRangeGenerator classes.
+ */
+public class TestRangeGenerators {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test
+    public void testSameElementsAsRange() {
+        IntegerRange[] ranges = {
+            new IntegerRange(0, 10),
+            new IntegerRange(10, 0),
+            new IntegerRange(0, 10, 3),
+            new IntegerRange(10, -10, -4),
+            new IntegerRange(0, BoundType.OPEN, 10, BoundType.CLOSED, 2),
+            new IntegerRange(0, BoundType.OPEN, 1, BoundType.OPEN, 1),
+            new IntegerRange(5, 5)
+        };
+        for (IntegerRange range : ranges) {
+            List<Integer> expected = new ArrayList<Integer>();
+            for (Integer i : range) {
+                expected.add(i);
+            }
+            IntegerRangeGenerator generator = new IntegerRangeGenerator(range);
+            assertEquals(range.toString(), expected, generator.toCollection());
+            assertEquals(range.toString(), expected.size(), generator.size());
+            for (int parts = 1; parts <= 8; parts++) {
+                List<Integer> collected = new ArrayList<Integer>();
+                for (IntegerRangeGenerator part : generator.split(parts)) {
+                    collected.addAll(part.toCollection());
+                }
+                assertEquals(range.toString(), expected, collected);
+            }
+        }
+    }
+
+    @Test
+    public void testLongRange() {
+        LongRange range = new LongRange(-7L, 20L, 3L);
+        List<Long> expected = new ArrayList<Long>();
+        for (Long l : range) {
+            expected.add(l);
+        }
+        LongRangeGenerator generator = new LongRangeGenerator(range);
+        assertEquals(expected, generator.toCollection());
+        for (int parts = 1; parts <= 12; parts++) {
+            List<Long> collected = new ArrayList<Long>();
+            for (LongRangeGenerator part : generator.split(parts)) {
+                collected.addAll(part.toCollection());
+            }
+            assertEquals(expected, collected);
+        }
+    }
+
+    @Test
+    public void testLargeRangeSize() {
+        IntegerRange range = new IntegerRange(-(1 << 30), BoundType.CLOSED, (1 << 30) - 1, BoundType.CLOSED, 1);
+        assertEquals(1L << 31, new IntegerRangeGenerator(range).size());
+        List<IntegerRangeGenerator> split = new IntegerRangeGenerator(range).split(2);
+        assertEquals(1L << 30, split.get(0).size());
+        assertEquals(1L << 30, split.get(1).size());
+    }
+
+    @Test
+    public void testWideLongRanges() {
+        // (2^64 - 1) / 3 steps from Long.MIN_VALUE to Long.MAX_VALUE
+        LongRangeGenerator wide = new LongRangeGenerator(new LongRange(Long.MIN_VALUE, BoundType.CLOSED,
+            Long.MAX_VALUE, BoundType.CLOSED, 3));
+        assertEquals(6148914691236517206L, wide.size());
+        List<LongRangeGenerator> split = wide.split(2);
+        assertEquals(1L, split.get(1).iterator().next().longValue());
+        assertEquals(Arrays.asList(Long.MIN_VALUE, -1L, Long.MAX_VALUE - 1), new LongRangeGenerator(new LongRange(
+            Long.MIN_VALUE, BoundType.CLOSED, Long.MAX_VALUE, BoundType.CLOSED, Long.MAX_VALUE)).toCollection());
+        assertEquals(Arrays.asList(0L, Long.MIN_VALUE + 1), new LongRangeGenerator(new LongRange(Long.MAX_VALUE,
+            BoundType.OPEN, Long.MIN_VALUE, BoundType.OPEN, Long.MIN_VALUE + 1)).toCollection());
+        assertEquals(Arrays.asList(Long.MAX_VALUE, -1L), new LongRangeGenerator(new LongRange(Long.MAX_VALUE,
+            BoundType.CLOSED, Long.MIN_VALUE, BoundType.CLOSED, Long.MIN_VALUE)).toCollection());
+        assertEquals(0L, new LongRangeGenerator(new LongRange(Long.MAX_VALUE - 1, BoundType.OPEN, Long.MAX_VALUE,
+            BoundType.CLOSED, 2)).size());
+        assertEquals(0L, new LongRangeGenerator(new LongRange(Long.MIN_VALUE, BoundType.OPEN, Long.MIN_VALUE,
+            BoundType.OPEN, 1)).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLongRangeWithTooManyElements() {
+        // 2^63 elements
+        new LongRangeGenerator(new LongRange(Long.MIN_VALUE, BoundType.CLOSED, Long.MAX_VALUE, BoundType.CLOSED,
+            2));
+    }
+
+    @Test
+    public void testEquals() {
+        IntegerRangeGenerator generator = new IntegerRangeGenerator(new IntegerRange(0, 10));
+        assertEquals(generator, new IntegerRangeGenerator(new IntegerRange(0, BoundType.CLOSED, 9, BoundType.CLOSED, 1)));
+        assertEquals(generator.hashCode(),
+            new IntegerRangeGenerator(new IntegerRange(0, BoundType.CLOSED, 9, BoundType.CLOSED, 1)).hashCode());
+        assertEquals(new LongRangeGenerator(new LongRange(0, 10)), new LongRangeGenerator(new LongRange(0, 10)));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the primitive <code>double</code> generators.
+ */
+public class TestDoubleGenerators {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testFilteredProhibitsNull() {
+        new FilteredDoubleGenerator(null, isEven);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testTransformedProhibitsNull() {
+        new TransformedDoubleGenerator(source, null);
+    }
+
+    @Test
+    public void testSource() {
+        assertEquals(Arrays.asList(0.0, 1.0, 2.0, 3.0), collect(new DoubleArrayGenerator(new double[] { 0, 1, 2, 3 })));
+        assertEquals(Arrays.asList(1.0, 2.0), collect(new DoubleArrayGenerator(new double[] { 0, 1, 2, 3 }, 1, 3)));
+        assertEquals(10, collect(source).size());
+    }
+
+    @Test
+    public void testPipeline() {
+        DoubleGenerator pipeline = new TransformedDoubleGenerator(new FilteredDoubleGenerator(source, isEven), square);
+        assertEquals(Arrays.asList(0.0, 4.0, 16.0, 36.0, 64.0), collect(pipeline));
+        assertEquals(120.0, new DoubleFoldLeft(sum).evaluate(pipeline, 0.0), 0.0);
+    }
+
+    @Test
+    public void testFoldLeft() {
+        assertEquals(45.0, new DoubleFoldLeft(sum).evaluate(source, 0.0), 0.0);
+        assertEquals(7.0, new DoubleFoldLeft(sum).evaluate(new DoubleArrayGenerator(), 7.0), 0.0);
+    }
+
+    @Test
+    public void testArraySplit() {
+        double[] array = new double[] { 0, 1, 2, 3, 4, 5, 6 };
+        List<Double> collected = new ArrayList<Double>();
+        for (DoubleArrayGenerator part : new DoubleArrayGenerator(array).split(3)) {
+            collected.addAll(collect(part));
+        }
+        assertEquals(collect(new DoubleArrayGenerator(array)), collected);
+        assertEquals(new DoubleArrayGenerator(array).toCollection(), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        DoubleGenerator filtered = new FilteredDoubleGenerator(source, isEven);
+        assertEquals(filtered, new FilteredDoubleGenerator(source, isEven));
+        assertEquals(filtered.hashCode(), new FilteredDoubleGenerator(source, isEven).hashCode());
+        assertFalse(filtered.equals(new TransformedDoubleGenerator(source, square)));
+        assertEquals(new TransformedDoubleGenerator(source, square), new TransformedDoubleGenerator(source, square));
+        assertEquals(new DoubleFoldLeft(sum), new DoubleFoldLeft(sum));
+        assertTrue(!new DoubleFoldLeft(sum).equals(null));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static List<Double> collect(DoubleGenerator generator) {
+        final List<Double> result = new ArrayList<Double>();
+        generator.run(new DoubleProcedure() {
+            public void run(double value) {
+                result.add(value);
+            }
+        });
+        return result;
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final DoubleGenerator source = new DoubleArrayGenerator(0.0, 1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0);
+
+    private final DoublePredicate isEven = new DoublePredicate() {
+        public boolean test(double value) {
+            return value % 2.0 == 0.0;
+        }
+    };
+
+    private final DoubleFunction square = new DoubleFunction() {
+        public double evaluate(double value) {
+            return value * value;
+        }
+    };
+
+    private final DoubleBinaryFunction sum = new DoubleBinaryFunction() {
+        public double evaluate(double left, double right) {
+            return left + right;
+        }
+    };
+}
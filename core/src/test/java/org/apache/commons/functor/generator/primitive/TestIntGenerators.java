@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.Test;
+
+/**
+ * Tests the primitive <code>int</code> generators.
+ */
+public class TestIntGenerators {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testFilteredProhibitsNull() {
+        new FilteredIntGenerator(null, isEven);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testTransformedProhibitsNull() {
+        new TransformedIntGenerator(source, null);
+    }
+
+    @Test
+    public void testSource() {
+        assertEquals(Arrays.asList(0, 1, 2, 3), collect(new IntArrayGenerator(new int[] { 0, 1, 2, 3 })));
+        assertEquals(Arrays.asList(1, 2), collect(new IntArrayGenerator(new int[] { 0, 1, 2, 3 }, 1, 3)));
+        assertEquals(10, collect(source).size());
+    }
+
+    @Test
+    public void testPipeline() {
+        IntGenerator pipeline = new TransformedIntGenerator(new FilteredIntGenerator(source, isEven), square);
+        assertEquals(Arrays.asList(0, 4, 16, 36, 64), collect(pipeline));
+        assertEquals(120, new IntFoldLeft(sum).evaluate(pipeline, 0));
+    }
+
+    @Test
+    public void testFoldLeft() {
+        assertEquals(45, new IntFoldLeft(sum).evaluate(source, 0));
+        assertEquals(7, new IntFoldLeft(sum).evaluate(new IntArrayGenerator(), 7));
+    }
+
+    @Test
+    public void testArraySplit() {
+        int[] array = new int[] { 0, 1, 2, 3, 4, 5, 6 };
+        List<Integer> collected = new ArrayList<Integer>();
+        for (IntArrayGenerator part : new IntArrayGenerator(array).split(3)) {
+            collected.addAll(collect(part));
+        }
+        assertEquals(collect(new IntArrayGenerator(array)), collected);
+        assertEquals(new IntArrayGenerator(array).toCollection(), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        IntGenerator filtered = new FilteredIntGenerator(source, isEven);
+        assertEquals(filtered, new FilteredIntGenerator(source, isEven));
+        assertEquals(filtered.hashCode(), new FilteredIntGenerator(source, isEven).hashCode());
+        assertFalse(filtered.equals(new TransformedIntGenerator(source, square)));
+        assertEquals(new TransformedIntGenerator(source, square), new TransformedIntGenerator(source, square));
+        assertEquals(new IntFoldLeft(sum), new IntFoldLeft(sum));
+        assertTrue(!new IntFoldLeft(sum).equals(null));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static List<Integer> collect(IntGenerator generator) {
+        final List<Integer> result = new ArrayList<Integer>();
+        generator.run(new IntProcedure() {
+            public void run(int value) {
+                result.add(value);
+            }
+        });
+        return result;
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final IntGenerator source = new IntegerRangeGenerator(new IntegerRange(0, 10));
+
+    private final IntPredicate isEven = new IntPredicate() {
+        public boolean test(int value) {
+            return value % 2 == 0;
+        }
+    };
+
+    private final IntFunction square = new IntFunction() {
+        public int evaluate(int value) {
+            return value * value;
+        }
+    };
+
+    private final IntBinaryFunction sum = new IntBinaryFunction() {
+        public int evaluate(int left, int right) {
+            return left + right;
+        }
+    };
+}
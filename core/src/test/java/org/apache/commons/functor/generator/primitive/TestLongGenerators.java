@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.primitive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.generator.parallel.LongRangeGenerator;
+import org.apache.commons.functor.range.LongRange;
+import org.junit.Test;
+
+/**
+ * Tests the primitive <code>long</code> generators.
+ */
+public class TestLongGenerators {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testFilteredProhibitsNull() {
+        new FilteredLongGenerator(null, isEven);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testTransformedProhibitsNull() {
+        new TransformedLongGenerator(source, null);
+    }
+
+    @Test
+    public void testSource() {
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), collect(new LongArrayGenerator(new long[] { 0, 1, 2, 3 })));
+        assertEquals(Arrays.asList(1L, 2L), collect(new LongArrayGenerator(new long[] { 0, 1, 2, 3 }, 1, 3)));
+        assertEquals(10, collect(source).size());
+    }
+
+    @Test
+    public void testPipeline() {
+        LongGenerator pipeline = new TransformedLongGenerator(new FilteredLongGenerator(source, isEven), square);
+        assertEquals(Arrays.asList(0L, 4L, 16L, 36L, 64L), collect(pipeline));
+        assertEquals(120L, new LongFoldLeft(sum).evaluate(pipeline, 0L));
+    }
+
+    @Test
+    public void testFoldLeft() {
+        assertEquals(45L, new LongFoldLeft(sum).evaluate(source, 0L));
+        assertEquals(7L, new LongFoldLeft(sum).evaluate(new LongArrayGenerator(), 7L));
+    }
+
+    @Test
+    public void testArraySplit() {
+        long[] array = new long[] { 0, 1, 2, 3, 4, 5, 6 };
+        List<Long> collected = new ArrayList<Long>();
+        for (LongArrayGenerator part : new LongArrayGenerator(array).split(3)) {
+            collected.addAll(collect(part));
+        }
+        assertEquals(collect(new LongArrayGenerator(array)), collected);
+        assertEquals(new LongArrayGenerator(array).toCollection(), collected);
+    }
+
+    @Test
+    public void testEquals() {
+        LongGenerator filtered = new FilteredLongGenerator(source, isEven);
+        assertEquals(filtered, new FilteredLongGenerator(source, isEven));
+        assertEquals(filtered.hashCode(), new FilteredLongGenerator(source, isEven).hashCode());
+        assertFalse(filtered.equals(new TransformedLongGenerator(source, square)));
+        assertEquals(new TransformedLongGenerator(source, square), new TransformedLongGenerator(source, square));
+        assertEquals(new LongFoldLeft(sum), new LongFoldLeft(sum));
+        assertTrue(!new LongFoldLeft(sum).equals(null));
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static List<Long> collect(LongGenerator generator) {
+        final List<Long> result = new ArrayList<Long>();
+        generator.run(new LongProcedure() {
+            public void run(long value) {
+                result.add(value);
+            }
+        });
+        return result;
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final LongGenerator source = new LongRangeGenerator(new LongRange(0, 10));
+
+    private final LongPredicate isEven = new LongPredicate() {
+        public boolean test(long value) {
+            return value % 2 == 0;
+        }
+    };
+
+    private final LongFunction square = new LongFunction() {
+        public long evaluate(long value) {
+            return value * value;
+        }
+    };
+
+    private final LongBinaryFunction sum = new LongBinaryFunction() {
+        public long evaluate(long left, long right) {
+            return left + right;
+        }
+    };
+}
@@ -17,23 +17,31 @@
 package org.apache.commons.functor.generator.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.functor.BaseFunctorTest;
 import org.apache.commons.functor.core.Limit;
 import org.apache.commons.functor.core.Offset;
+import org.apache.commons.functor.generator.Generator;
 import org.apache.commons.functor.generator.loop.GenerateUntil;
 import org.apache.commons.functor.generator.loop.GenerateWhile;
+import org.apache.commons.functor.generator.loop.LoopGenerator;
 import org.apache.commons.functor.generator.loop.UntilGenerate;
 import org.apache.commons.functor.generator.loop.WhileGenerate;
+import org.apache.commons.functor.generator.parallel.SplittableGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.apache.commons.functor.range.LongRange;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -143,4 +151,34 @@ public class TestEachElement extends BaseFunctorTest {
         assertEquals("[0, 1, 2, 3, 4]", col.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSplittableWhenSizeIsKnown() {
+        assertEquals(5L, EachElement.splittable(array).size());
+        assertEquals(5L, EachElement.splittable(list).size());
+        assertEquals(10L, EachElement.splittable(new IntegerRange(0, 10)).size());
+        assertEquals(5L, EachElement.splittable(new LongRange(0, 10, 2)).size());
+        assertEquals(list, EachElement.splittable(new LinkedList<Integer>(list)).toCollection());
+        assertNull(EachElement.splittable((List<Integer>) null));
+    }
+
+    @Test
+    public void testFromIterates() {
+        assertTrue(EachElement.from(array) instanceof LoopGenerator<?>);
+        assertTrue(EachElement.from(list) instanceof LoopGenerator<?>);
+        assertTrue(EachElement.from((Iterable<Integer>) new IntegerRange(0, 10)) instanceof LoopGenerator<?>);
+        assertFalse(EachElement.from(map) instanceof SplittableGenerator<?>);
+    }
+
+    @Test
+    public void testWithRange() {
+        assertEquals("[0, 3, 6, 9]", EachElement.from((Iterable<Integer>) new IntegerRange(0, 10, 3)).toCollection().toString());
+        assertEquals("[10, 8, 6]", EachElement.from((Iterable<Long>) new LongRange(10, 5, -2)).toCollection().toString());
+    }
+
+    @Test
+    public void testSplittableCanBeRunAgain() {
+        Generator<Integer> generator = EachElement.splittable(list);
+        assertEquals(generator.toCollection(), generator.toCollection());
+    }
+
+}
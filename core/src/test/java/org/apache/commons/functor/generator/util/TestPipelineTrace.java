@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.functor.generator.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.functor.Function;
+import org.apache.commons.functor.Predicate;
+import org.apache.commons.functor.generator.FilteredGenerator;
+import org.apache.commons.functor.generator.Generator;
+import org.apache.commons.functor.generator.loop.GenerateWhile;
+import org.apache.commons.functor.generator.loop.TransformedGenerator;
+import org.apache.commons.functor.generator.loop.UntilGenerate;
+import org.apache.commons.functor.generator.parallel.IntegerRangeGenerator;
+import org.apache.commons.functor.range.IntegerRange;
+import org.junit.Test;
+
+/**
+ * Tests the PipelineTrace class.
+ */
+public class TestPipelineTrace {
+
+    // Tests
+    // ------------------------------------------------------------------------
+
+    @Test(expected = NullPointerException.class)
+    public void testProhibitsNullName() {
+        new PipelineTrace().filter(null, isEven);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testProhibitsNullFunctor() {
+        new PipelineTrace().transform("tripled", null);
+    }
+
+    @Test
+    public void testReport() {
+        PipelineTrace trace = new PipelineTrace();
+        Generator<Integer> pipeline = new FilteredGenerator<Integer>(new IntegerRangeGenerator(
+            new IntegerRange(0, 100)), trace.<Integer>filter("even", isEven));
+        pipeline = new TransformedGenerator<Integer, Integer>(pipeline,
+            trace.<Integer, Integer>transform("tripled", tripled));
+        pipeline = new UntilGenerate<Integer>(trace.<Integer>until("over 90", over90), pipeline);
+        pipeline = new GenerateWhile<Integer>(pipeline, trace.<Integer>filter("not 42", isNot42));
+        assertEquals(Arrays.asList(0, 6, 12, 18, 24, 30, 36, 42), pipeline.toCollection());
+        List<PipelineTrace.StageReport> report = trace.report();
+        assertEquals(4, report.size());
+        // the pipeline stops after 42, the 8th even number tripled
+        assertStage("even", 15, 8, report.get(0));
+        assertStage("tripled", 8, 8, report.get(1));
+        assertStage("over 90", 8, 8, report.get(2));
+        assertStage("not 42", 8, 7, report.get(3));
+        assertEquals(8.0 / 15, report.get(0).getSelectivity(), 1e-9);
+        assertTrue(report.get(0).getNanos() >= 0);
+        String table = trace.toString();
+        assertTrue(table, table.startsWith("stage"));
+        assertTrue(table, table.contains("tripled"));
+
+        trace.reset();
+        assertStage("even", 0, 0, trace.report().get(0));
+        assertEquals(1.0, trace.report().get(0).getSelectivity(), 0);
+    }
+
+    @Test
+    public void testUntilCountsRejectedElementsOut() {
+        PipelineTrace trace = new PipelineTrace();
+        assertEquals(Arrays.asList(0, 1, 2, 3), new UntilGenerate<Integer>(trace.<Integer>until("over 3",
+            new Predicate<Integer>() {
+                public boolean test(Integer obj) {
+                    return obj.intValue() > 3;
+                }
+            }), new IntegerRangeGenerator(new IntegerRange(0, 10))).toCollection());
+        assertStage("over 3", 5, 4, trace.report().get(0));
+    }
+
+    @Test
+    public void testInCountedBeforeEvaluation() {
+        final PipelineTrace trace = new PipelineTrace();
+        Function<Integer, Integer> traced = trace.transform("checked", new Function<Integer, Integer>() {
+            public Integer evaluate(Integer obj) {
+                assertStage("checked", 1, 0, trace.report().get(0));
+                return obj;
+            }
+        });
+        traced.evaluate(1);
+        assertStage("checked", 1, 1, trace.report().get(0));
+    }
+
+    @Test
+    public void testEquals() {
+        PipelineTrace trace = new PipelineTrace();
+        Predicate<Integer> even = trace.filter("even", isEven);
+        Function<Integer, Integer> triple = trace.transform("tripled", tripled);
+        assertEquals(even, even);
+        assertEquals(triple, triple);
+        assertFalse(even.equals(trace.filter("even", isEven)));
+        assertFalse(even.equals(trace.until("even", isEven)));
+        assertFalse(triple.equals(trace.transform("tripled", tripled)));
+        assertEquals(even.hashCode(), trace.filter("even", isEven).hashCode());
+        assertEquals(triple.hashCode(), trace.transform("tripled", tripled).hashCode());
+    }
+
+    // Utilities
+    // ------------------------------------------------------------------------
+
+    private static void assertStage(String name, long in, long out, PipelineTrace.StageReport stage) {
+        assertEquals(name, stage.getName());
+        assertEquals(name, in, stage.getIn());
+        assertEquals(name, out, stage.getOut());
+    }
+
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final Predicate<Integer> isEven = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() % 2 == 0;
+        }
+    };
+
+    private final Predicate<Integer> over90 = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() > 90;
+        }
+    };
+
+    private final Predicate<Integer> isNot42 = new Predicate<Integer>() {
+        public boolean test(Integer obj) {
+            return obj.intValue() != 42;
+        }
+    };
+
+    private final Function<Integer, Integer> tripled = new Function<Integer, Integer>() {
+        public Integer evaluate(Integer obj) {
+            return obj.intValue() * 3;
+        }
+    };
+}